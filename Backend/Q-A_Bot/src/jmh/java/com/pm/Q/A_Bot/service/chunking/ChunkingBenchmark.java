@@ -0,0 +1,64 @@
+package com.pm.Q.A_Bot.service.chunking;
+
+import com.pm.Q.A_Bot.benchmark.PolicyCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunking one extracted document, fed in the 8 KB pieces Tika's SAX handler delivers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ChunkingBenchmark {
+
+    private static final int SAX_BUFFER = 8192;
+
+    @Param({"structured", "fixed"})
+    String strategy;
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    PolicyCorpus.Size size;
+
+    private char[] text;
+    private ChunkingStrategy chunking;
+
+    @Setup
+    public void setUp() {
+        text = PolicyCorpus.document(size, 42).toCharArray();
+        // Same settings as application.properties
+        chunking = "structured".equals(strategy)
+                ? new StructuredChunkingStrategy(300, 32)
+                : new FixedSizeChunkingStrategy(1000, 200);
+    }
+
+    @Benchmark
+    public int chunk(Blackhole blackhole) {
+        int[] chunks = new int[1];
+        ChunkingStrategy.Session session = chunking.open(chunk -> {
+            // Ingestion copies every chunk out of the view before building its Document
+            blackhole.consume(chunk.toString());
+            chunks[0]++;
+        });
+        for (int start = 0; start < text.length; start += SAX_BUFFER) {
+            session.append(text, start, Math.min(SAX_BUFFER, text.length - start));
+        }
+        session.finish();
+        return chunks[0];
+    }
+}
@@ -0,0 +1,129 @@
+package com.pm.Q.A_Bot.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pm.Q.A_Bot.benchmark.PolicyCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding Ollama responses: a non-streaming generation with its context array, a streamed answer line by
+ * line, and an embedding batch the size ingestion sends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OllamaJsonBenchmark {
+
+    private static final int EMBED_BATCH = 32;
+    private static final Flow.Subscription NO_BACKPRESSURE = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final OllamaClient client = new OllamaClient(null, mapper, null);
+    private String generateResponse;
+    private String embedResponse;
+    private List<String> streamLines;
+
+    @Setup
+    public void setUp() throws Exception {
+        // An answer of num-predict (500) tokens after a full num-ctx prompt
+        String answer = PolicyCorpus.document(PolicyCorpus.Size.SMALL, 3).substring(0, 2000);
+        ObjectNode generate = mapper.createObjectNode()
+                .put("model", "llama3.2:1b")
+                .put("created_at", "2025-01-01T00:00:00.000000Z")
+                .put("response", answer)
+                .put("done", true)
+                .put("done_reason", "stop")
+                .put("total_duration", 5_432_100_000L)
+                .put("prompt_eval_count", 1500)
+                .put("eval_count", 500);
+        ArrayNode context = generate.putArray("context");
+        for (int i = 0; i < 2000; i++) {
+            context.add(128_000 + i * 37 % 5000);
+        }
+        generateResponse = mapper.writeValueAsString(generate);
+
+        ObjectNode embed = mapper.createObjectNode().put("model", "nomic-embed-text:latest");
+        ArrayNode embeddings = embed.putArray("embeddings");
+        for (float[] vector : PolicyCorpus.vectors(EMBED_BATCH, 768, 3)) {
+            ArrayNode values = embeddings.addArray();
+            for (float v : vector) {
+                values.add(v);
+            }
+        }
+        embedResponse = mapper.writeValueAsString(embed);
+
+        streamLines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            streamLines.add(mapper.writeValueAsString(mapper.createObjectNode()
+                    .put("model", "llama3.2:1b")
+                    .put("created_at", "2025-01-01T00:00:00.000000Z")
+                    .put("response", " word" + i)
+                    .put("done", false)));
+        }
+        ObjectNode last = generate.deepCopy().put("response", "");
+        streamLines.add(mapper.writeValueAsString(last));
+    }
+
+    @Benchmark
+    public int[] parseGeneration() throws Exception {
+        GenerationResult result = OllamaClient.toGenerationResult(mapper.readTree(generateResponse));
+        return result.context();
+    }
+
+    @Benchmark
+    public List<float[]> parseEmbeddings() throws Exception {
+        return OllamaClient.toEmbeddings(mapper.readTree(embedResponse), EMBED_BATCH);
+    }
+
+    @Benchmark
+    public void parseStream(Blackhole blackhole) {
+        OllamaClient.LineParser parser = client.new LineParser(new StreamListener() {
+            @Override
+            public void onToken(String token) {
+                blackhole.consume(token);
+            }
+
+            @Override
+            public void onComplete(JsonNode last) {
+                blackhole.consume(last);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                throw new IllegalStateException(error);
+            }
+        });
+        parser.onSubscribe(NO_BACKPRESSURE);
+        for (String line : streamLines) {
+            parser.onNext(line);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.pm.Q.A_Bot.service.query;
+
+import com.pm.Q.A_Bot.benchmark.PolicyCorpus;
+import com.pm.Q.A_Bot.service.chunking.TokenEstimator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Everything between retrieval and the Ollama call: merging and packing retrieved chunks into the context
+ * budget, and building and sizing the prompt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PromptBenchmark {
+
+    private static final String QUESTION = "How many days of annual leave can part-time employees carry over?";
+
+    /** retrieval.top-k, and the candidate count when top-k is raised to the fusion depth. */
+    @Param({"3", "20"})
+    int retrieved;
+
+    private final ContextAssembler assembler = new ContextAssembler(2048, 500, 0);
+    private final PromptBuilder promptBuilder = new PromptBuilder();
+    private List<Document> ranked;
+    private String context;
+    private String prompt;
+
+    @Setup
+    public void setUp() {
+        String text = PolicyCorpus.document(PolicyCorpus.Size.MEDIUM, 7);
+        List<Document> chunks = PolicyCorpus.chunks("handbook.pdf", text, 1000, 200);
+        // Runs of neighbouring chunks in shuffled rank order, as vector and lexical hits tend to cluster
+        Random random = new Random(7);
+        List<Document> picked = new ArrayList<>();
+        while (picked.size() < retrieved) {
+            int start = random.nextInt(chunks.size() - 3);
+            for (int i = start; i < start + 1 + random.nextInt(3) && picked.size() < retrieved; i++) {
+                if (!picked.contains(chunks.get(i))) {
+                    picked.add(chunks.get(i));
+                }
+            }
+        }
+        Collections.shuffle(picked, random);
+        ranked = picked;
+        context = assembler.assemble(ranked, promptBuilder.reservedTokens(QUESTION)).text();
+        prompt = promptBuilder.build(context, QUESTION);
+    }
+
+    @Benchmark
+    public ContextAssembler.AssembledContext assembleContext() {
+        return assembler.assemble(ranked, promptBuilder.reservedTokens(QUESTION));
+    }
+
+    @Benchmark
+    public String buildPrompt() {
+        return promptBuilder.build(context, QUESTION);
+    }
+
+    @Benchmark
+    public int estimatePromptTokens() {
+        return TokenEstimator.estimate(prompt);
+    }
+}
@@ -0,0 +1,88 @@
+package com.pm.Q.A_Bot.service.retrieval;
+
+import com.pm.Q.A_Bot.benchmark.PolicyCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The lexical half of hybrid retrieval: BM25 search over indexed chunks of several handbooks, and the
+ * reciprocal-rank fusion of dense and lexical candidate lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RetrievalBenchmark {
+
+    private static final String[] QUESTIONS = {
+            "How many days of annual leave can part-time employees carry over?",
+            "Which form do I use for travel expenses?",
+            "What is the notice period after probation?",
+            "Is remote work allowed for contractors?",
+            "HR-F-204"
+    };
+
+    /** Number of indexed LARGE handbooks (about 1,100 chunks each). */
+    @Param({"1", "10"})
+    int documents;
+
+    private Bm25Index index;
+    private Path snapshotDirectory;
+    private List<Document> dense;
+    private List<Document> lexical;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        snapshotDirectory = Files.createTempDirectory("bm25-benchmark");
+        index = new Bm25Index(snapshotDirectory.resolve("bm25.bin"), 3600);
+        for (int d = 0; d < documents; d++) {
+            String text = PolicyCorpus.document(PolicyCorpus.Size.LARGE, d);
+            index.add(PolicyCorpus.chunks("handbook-" + d + ".pdf", text, 1000, 200));
+        }
+
+        // retrieval.candidates deep lists overlapping in half their entries
+        List<Document> pool = PolicyCorpus.chunks("fusion.pdf", PolicyCorpus.document(PolicyCorpus.Size.SMALL, 5), 300, 0);
+        dense = new ArrayList<>(pool.subList(0, 20));
+        lexical = new ArrayList<>(pool.subList(10, 30));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        index.close();
+        FileSystemUtils.deleteRecursively(snapshotDirectory);
+    }
+
+    @Benchmark
+    public List<Bm25Index.Hit> bm25Search() {
+        next = (next + 1) % QUESTIONS.length;
+        return index.search(QUESTIONS[next], 20);
+    }
+
+    @Benchmark
+    public List<Document> fuse() {
+        return HybridRetriever.fuse(dense, lexical, 60, 3);
+    }
+}
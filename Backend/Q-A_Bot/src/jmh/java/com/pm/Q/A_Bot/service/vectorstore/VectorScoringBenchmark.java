@@ -0,0 +1,180 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+import com.pm.Q.A_Bot.benchmark.PolicyCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring in the local vector stores: single float and int8 dot products, and a top-10 search over the HNSW
+ * graph and over the quantized flat store, with nomic-embed-text sized (768-d) vectors. Each benchmark only
+ * builds the index it searches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VectorScoringBenchmark {
+
+    private static final int DIMENSIONS = 768;
+    private static final int QUERIES = 64;
+
+    @State(Scope.Thread)
+    public static class Queries {
+
+        float[][] vectors;
+        byte[][] codes;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            vectors = PolicyCorpus.vectors(QUERIES, DIMENSIONS, 12);
+            codes = new byte[QUERIES][DIMENSIONS];
+            for (int i = 0; i < QUERIES; i++) {
+                QuantizedFlatVectorStore.quantize(vectors[i], codes[i]);
+            }
+        }
+
+        int next() {
+            next = (next + 1) % QUERIES;
+            return next;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pair {
+
+        final float[] vector = PolicyCorpus.vectors(1, DIMENSIONS, 11)[0];
+        final byte[] codes = new byte[DIMENSIONS];
+        final Int8DotProduct int8 = Int8DotProduct.get();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            QuantizedFlatVectorStore.quantize(vector, codes);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Graph {
+
+        @Param({"10000", "50000"})
+        int vectors;
+
+        HnswIndex index;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            // Same graph parameters as application.properties
+            index = new HnswIndex(DIMENSIONS, 16, 200);
+            for (float[] vector : PolicyCorpus.vectors(vectors, DIMENSIONS, 11)) {
+                index.add(vector);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Flat {
+
+        @Param({"10000", "50000"})
+        int vectors;
+
+        QuantizedFlatVectorStore store;
+        Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            float[][] data = PolicyCorpus.vectors(vectors, DIMENSIONS, 11);
+            float[][] queries = PolicyCorpus.vectors(QUERIES, DIMENSIONS, 12);
+            Map<String, float[]> embeddings = new HashMap<>();
+            List<Document> documents = new ArrayList<>(vectors);
+            for (int i = 0; i < vectors; i++) {
+                embeddings.put("chunk " + i, data[i]);
+                documents.add(Document.builder().id("doc-" + i).text("chunk " + i)
+                        .metadata(Map.of("source", "handbook-" + (i % 20) + ".pdf")).build());
+            }
+            for (int i = 0; i < QUERIES; i++) {
+                embeddings.put("query " + i, queries[i]);
+            }
+            directory = Files.createTempDirectory("flat-benchmark");
+            store = QuantizedFlatVectorStore.builder(new LookupEmbeddingModel(embeddings))
+                    .directory(directory)
+                    .dimensions(DIMENSIONS)
+                    .flushIntervalSeconds(3600)
+                    .build();
+            for (int from = 0; from < documents.size(); from += 1000) {
+                store.add(documents.subList(from, Math.min(documents.size(), from + 1000)));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            store.close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    public float dotFloat(Pair pair, Queries queries) {
+        return VectorMath.dot(queries.vectors[queries.next()], pair.vector);
+    }
+
+    @Benchmark
+    public int dotInt8(Pair pair, Queries queries) {
+        return pair.int8.dot(pair.codes, 0, queries.codes[queries.next()], DIMENSIONS);
+    }
+
+    @Benchmark
+    public List<HnswIndex.Scored> hnswSearch(Graph graph, Queries queries) {
+        return graph.index.search(queries.vectors[queries.next()], 10, 64, node -> true);
+    }
+
+    @Benchmark
+    public List<Document> flatSearch(Flat flat, Queries queries) {
+        return flat.store.similaritySearch(SearchRequest.builder().query("query " + queries.next()).topK(10).build());
+    }
+
+    /** Precomputed vectors by text, so searches measure scoring rather than embedding. */
+    private record LookupEmbeddingModel(Map<String, float[]> embeddings) implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> results = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                results.add(new Embedding(embeddings.get(text), results.size()));
+            }
+            return new EmbeddingResponse(results);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embeddings.get(document.getText());
+        }
+    }
+}
@@ -1,18 +1,33 @@
 package com.pm.Q.A_Bot.Config;
 
+import com.pm.Q.A_Bot.service.limits.MeasuredExecutor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
 
+/**
+ * Executors for the async and ingestion paths. With {@code spring.threads.virtual.enabled} (which also moves
+ * Tomcat's request threads onto virtual threads) they run tasks on virtual threads, and concurrency is
+ * bounded per downstream resource instead of by pool sizes.
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
+        System.out.println("=== Execution mode: " + (virtualThreads ? "virtual threads" : "platform threads") + " ===");
+        if (virtualThreads) {
+            return virtualExecutor("async-");
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(5);
         executor.setMaxPoolSize(20);
@@ -22,4 +37,80 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieval for the deferred {@code /api/rag/ask} endpoint, off the servlet thread and off the common pool.
+     * A full queue rejects the request instead of running it on the caller.
+     */
+    @Bean(name = "askExecutor")
+    public MeasuredExecutor askExecutor(@Value("${rag.ask.workers:16}") int workers,
+                                        @Value("${rag.ask.queue-capacity:100}") int queueCapacity) {
+        if (virtualThreads) {
+            return new MeasuredExecutor("ask", virtualExecutor("ask-"));
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ask-");
+        executor.initialize();
+        return new MeasuredExecutor("ask", executor);
+    }
+
+    /** Runs ingestion jobs end to end; each worker drives one upload through extraction, embedding and upsert. */
+    @Bean(name = "ingestExecutor")
+    public Executor ingestExecutor(@Value("${ingest.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("ingest-");
+        // Extraction is CPU bound, so the worker count stays the limit; the workers just become virtual
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name("ingest-", 1).factory());
+        }
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Bulk imports: each worker takes one file of an import through storage and ingestion. Kept apart from
+     * ingestExecutor so a large import does not queue single uploads behind thousands of files.
+     */
+    @Bean(name = "importExecutor")
+    public Executor importExecutor(@Value("${import.workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix("import-");
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name("import-", 1).factory());
+        }
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Embedding batches from all jobs; the pipeline caps in-flight batches with ingest.embed.max-concurrency,
+     * so on virtual threads each batch simply gets its own thread.
+     */
+    @Bean(name = "embedExecutor")
+    public Executor embedExecutor(@Value("${ingest.embed.max-concurrency:4}") int maxConcurrency) {
+        if (virtualThreads) {
+            return virtualExecutor("embed-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("embed-");
+        executor.initialize();
+        return executor;
+    }
+
+    private static Executor virtualExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+}
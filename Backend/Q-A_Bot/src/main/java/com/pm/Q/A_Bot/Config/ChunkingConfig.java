@@ -0,0 +1,42 @@
+package com.pm.Q.A_Bot.Config;
+
+import com.pm.Q.A_Bot.service.chunking.ChunkingStrategy;
+import com.pm.Q.A_Bot.service.chunking.FixedSizeChunkingStrategy;
+import com.pm.Q.A_Bot.service.chunking.StructuredChunkingStrategy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ChunkingConfig {
+
+    @Value("${ingest.chunking.strategy:structured}")
+    private String strategy;
+
+    @Value("${ingest.chunking.structured.max-tokens:300}")
+    private int maxTokens;
+
+    @Value("${ingest.chunking.structured.overlap-tokens:32}")
+    private int overlapTokens;
+
+    @Value("${ingest.chunking.fixed.chunk-size:1000}")
+    private int fixedChunkSize;
+
+    @Value("${ingest.chunking.fixed.overlap:200}")
+    private int fixedOverlap;
+
+    /**
+     * Chunking strategy selected by {@code ingest.chunking.strategy}: {@code structured} (default) for
+     * token-budgeted chunks cut at headings, paragraphs and sentences, or {@code fixed} for the original
+     * character windows
+     */
+    @Bean
+    public ChunkingStrategy chunkingStrategy() {
+        if ("fixed".equalsIgnoreCase(strategy)) {
+            System.out.println("Using fixed chunking: " + fixedChunkSize + " chars, " + fixedOverlap + " overlap");
+            return new FixedSizeChunkingStrategy(fixedChunkSize, fixedOverlap);
+        }
+        System.out.println("Using structured chunking: " + maxTokens + " tokens, " + overlapTokens + " overlap");
+        return new StructuredChunkingStrategy(maxTokens, overlapTokens);
+    }
+}
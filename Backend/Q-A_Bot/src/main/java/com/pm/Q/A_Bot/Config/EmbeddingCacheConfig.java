@@ -0,0 +1,48 @@
+package com.pm.Q.A_Bot.Config;
+
+import com.pm.Q.A_Bot.service.embedding.CachingEmbeddingModel;
+import com.pm.Q.A_Bot.service.embedding.DiskEmbeddingCache;
+import com.pm.Q.A_Bot.service.embedding.LimitedEmbeddingModel;
+import com.pm.Q.A_Bot.service.embedding.MemoryEmbeddingCache;
+import com.pm.Q.A_Bot.service.embedding.OllamaPoolEmbeddingModel;
+import com.pm.Q.A_Bot.service.limits.ResourceLimit;
+import com.pm.Q.A_Bot.service.llm.OllamaClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class EmbeddingCacheConfig {
+
+    @Value("${spring.ai.ollama.embedding.model:nomic-embed-text:latest}")
+    private String embeddingModelName;
+
+    @Value("${embedding.cache.max-memory-mb:64}")
+    private long maxMemoryMb;
+
+    @Value("${embedding.cache.disk.enabled:false}")
+    private boolean diskEnabled;
+
+    @Value("${embedding.cache.disk.path:data/embedding-cache}")
+    private String diskPath;
+
+    /**
+     * Primary embedding model: the Ollama model behind a content-hash cache, so the vector store,
+     * re-uploads and repeated questions only pay for texts that were never embedded before. Misses go to
+     * the Ollama backend pool under the embedding resource limit.
+     */
+    @Bean
+    @Primary
+    public CachingEmbeddingModel cachingEmbeddingModel(OllamaClient ollamaClient,
+                                                       @Qualifier("embeddingLimit") ResourceLimit embeddingLimit)
+            throws IOException {
+        DiskEmbeddingCache disk = diskEnabled ? new DiskEmbeddingCache(Path.of(diskPath)) : null;
+        LimitedEmbeddingModel ollama = new LimitedEmbeddingModel(new OllamaPoolEmbeddingModel(ollamaClient), embeddingLimit);
+        return new CachingEmbeddingModel(ollama, embeddingModelName, new MemoryEmbeddingCache(maxMemoryMb * 1024 * 1024), disk);
+    }
+}
@@ -0,0 +1,64 @@
+package com.pm.Q.A_Bot.Config;
+
+import com.pm.Q.A_Bot.service.health.DependencyProber;
+import com.pm.Q.A_Bot.service.health.HealthSnapshot;
+import com.pm.Q.A_Bot.service.health.ProbeResult;
+import com.pm.Q.A_Bot.service.startup.StartupWarmup;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Actuator health backed by the {@link DependencyProber}'s last round, so {@code /actuator/health/readiness}
+ * never calls a dependency itself. Liveness only asks whether probe rounds are still arriving: a slow Ollama
+ * should take the instance out of rotation, not get it restarted. Readiness also waits for the startup warm-up,
+ * so the first question an instance receives does not pay for loading the models.
+ */
+@Configuration
+@EnableScheduling
+public class HealthConfig {
+
+    @Bean
+    public HealthIndicator proberHealthIndicator(DependencyProber prober) {
+        return () -> {
+            HealthSnapshot snapshot = prober.snapshot();
+            Health.Builder health = prober.isStale() ? Health.down() : Health.up();
+            return snapshot == null ? health.build() : health.withDetail("checkedAtMicros", snapshot.checkedAtMicros()).build();
+        };
+    }
+
+    @Bean
+    public HealthIndicator ollamaHealthIndicator(DependencyProber prober) {
+        return () -> fromSnapshot(prober, HealthSnapshot.OLLAMA);
+    }
+
+    @Bean
+    public HealthIndicator vectorStoreHealthIndicator(DependencyProber prober) {
+        return () -> fromSnapshot(prober, HealthSnapshot.VECTOR_STORE);
+    }
+
+    @Bean
+    public HealthIndicator databaseHealthIndicator(DependencyProber prober) {
+        return () -> fromSnapshot(prober, HealthSnapshot.DATABASE);
+    }
+
+    @Bean
+    public HealthIndicator warmupHealthIndicator(StartupWarmup warmup) {
+        return () -> (warmup.isWarm() ? Health.up() : Health.outOfService()).withDetails(warmup.report()).build();
+    }
+
+    private static Health fromSnapshot(DependencyProber prober, String dependency) {
+        HealthSnapshot snapshot = prober.snapshot();
+        if (snapshot == null) {
+            return Health.outOfService().withDetail("reason", "not probed yet").build();
+        }
+        ProbeResult result = snapshot.get(dependency);
+        Health.Builder health = result.up() ? Health.up() : Health.down().withDetail("error", result.error());
+        return health.withDetail("checkedAtMicros", result.checkedAtMicros())
+                .withDetail("latencyMicros", result.latencyMicros())
+                .withDetails(result.details())
+                .build();
+    }
+}
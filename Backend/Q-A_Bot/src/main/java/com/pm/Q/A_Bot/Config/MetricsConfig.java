@@ -0,0 +1,102 @@
+package com.pm.Q.A_Bot.Config;
+
+import com.pm.Q.A_Bot.service.chat.ChatSessionStore;
+import com.pm.Q.A_Bot.service.embedding.CachingEmbeddingModel;
+import com.pm.Q.A_Bot.service.limits.MeasuredExecutor;
+import com.pm.Q.A_Bot.service.limits.ResourceLimit;
+import com.pm.Q.A_Bot.service.llm.GenerationScheduler;
+import com.pm.Q.A_Bot.service.llm.OllamaBackend;
+import com.pm.Q.A_Bot.service.llm.OllamaBackendPool;
+import com.pm.Q.A_Bot.service.query.AnswerCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Gauges and counters over the stats the components already keep, read only when the registry is scraped.
+ * The thread-pool executors (task, ingest, embed), Tomcat, Hikari and the JVM are bound by Spring Boot itself.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder ragResourceMetrics(@Qualifier("askExecutor") MeasuredExecutor askExecutor,
+                                          GenerationScheduler scheduler,
+                                          OllamaBackendPool backendPool,
+                                          List<ResourceLimit> limits,
+                                          AnswerCache answerCache,
+                                          CachingEmbeddingModel embeddingCache,
+                                          ChatSessionStore chatSessions) {
+        return registry -> {
+            Tags ask = Tags.of("name", askExecutor.getName());
+            gauge(registry, "rag.executor.queued", ask, askExecutor, MeasuredExecutor::stats, "queued");
+            gauge(registry, "rag.executor.active", ask, askExecutor, MeasuredExecutor::stats, "active");
+            counter(registry, "rag.executor.rejected", ask, askExecutor, MeasuredExecutor::stats, "rejected");
+
+            gauge(registry, "rag.llm.scheduler.queued", Tags.empty(), scheduler, GenerationScheduler::stats, "queued");
+            gauge(registry, "rag.llm.scheduler.running", Tags.empty(), scheduler, GenerationScheduler::stats, "running");
+            counter(registry, "rag.llm.scheduler.rejected", Tags.empty(), scheduler, GenerationScheduler::stats, "rejected");
+            counter(registry, "rag.llm.scheduler.retries", Tags.empty(), scheduler, GenerationScheduler::stats, "retries");
+
+            for (OllamaBackend backend : backendPool.getBackends()) {
+                Tags tags = Tags.of("backend", backend.getName());
+                Gauge.builder("rag.llm.backend.outstanding", backend, OllamaBackend::getOutstanding)
+                        .description("Requests in flight to this Ollama backend")
+                        .tags(tags).register(registry);
+                Gauge.builder("rag.llm.backend.circuit", backend, b -> b.stats().get("circuit") instanceof Enum<?> state
+                                ? state.ordinal() : -1)
+                        .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                        .tags(tags).register(registry);
+                counter(registry, "rag.llm.backend.failures", tags, backend, OllamaBackend::stats, "failures");
+                counter(registry, "rag.llm.backend.hedges", tags, backend, OllamaBackend::stats, "hedges");
+            }
+
+            for (ResourceLimit limit : limits) {
+                Tags tags = Tags.of("resource", limit.getName());
+                gauge(registry, "rag.limit.in.use", tags, limit, ResourceLimit::stats, "inUse");
+                gauge(registry, "rag.limit.waiting", tags, limit, ResourceLimit::stats, "waiting");
+                counter(registry, "rag.limit.timeouts", tags, limit, ResourceLimit::stats, "timeouts");
+            }
+
+            Tags answers = Tags.of("cache", "answers");
+            counter(registry, "rag.cache.hits", answers.and("kind", "exact"), answerCache, AnswerCache::stats, "exactHits");
+            counter(registry, "rag.cache.hits", answers.and("kind", "semantic"), answerCache, AnswerCache::stats, "semanticHits");
+            counter(registry, "rag.cache.misses", answers, answerCache, AnswerCache::stats, "misses");
+            gauge(registry, "rag.cache.hit.ratio", answers, answerCache, AnswerCache::stats, "hitRate");
+            gauge(registry, "rag.cache.entries", answers, answerCache, AnswerCache::stats, "entries");
+
+            Tags embeddings = Tags.of("cache", "embeddings");
+            counter(registry, "rag.cache.hits", embeddings.and("kind", "memory"), embeddingCache, CachingEmbeddingModel::stats, "memoryHits");
+            counter(registry, "rag.cache.hits", embeddings.and("kind", "disk"), embeddingCache, CachingEmbeddingModel::stats, "diskHits");
+            counter(registry, "rag.cache.misses", embeddings, embeddingCache, CachingEmbeddingModel::stats, "misses");
+            gauge(registry, "rag.cache.hit.ratio", embeddings, embeddingCache, CachingEmbeddingModel::stats, "hitRate");
+            gauge(registry, "rag.cache.entries", embeddings, embeddingCache, CachingEmbeddingModel::stats, "memoryEntries");
+
+            gauge(registry, "rag.chat.sessions", Tags.empty(), chatSessions, ChatSessionStore::stats, "sessions");
+        };
+    }
+
+    // Meters hold their state object weakly, so it is the singleton component rather than a lambda over it
+    private static <T> void gauge(MeterRegistry registry, String name, Tags tags, T owner,
+                                  Function<T, Map<String, Object>> stats, String key) {
+        Gauge.builder(name, owner, o -> value(stats.apply(o), key)).tags(tags).register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, Tags tags, T owner,
+                                    Function<T, Map<String, Object>> stats, String key) {
+        FunctionCounter.builder(name, owner, o -> value(stats.apply(o), key)).tags(tags).register(registry);
+    }
+
+    private static double value(Map<String, Object> stats, String key) {
+        return stats.get(key) instanceof Number n ? n.doubleValue() : Double.NaN;
+    }
+}
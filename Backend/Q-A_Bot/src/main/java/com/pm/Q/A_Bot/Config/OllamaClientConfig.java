@@ -0,0 +1,39 @@
+package com.pm.Q.A_Bot.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class OllamaClientConfig {
+
+    @Value("${llm.service.timeout.connect:10}")
+    private int connectTimeout;
+
+    /**
+     * The one HTTP client for every Ollama call, generation, streaming and embeddings on all backends. It keeps
+     * a keep-alive connection pool per backend; per-backend call counts and latencies are kept by the
+     * backend pool. On shutdown outstanding calls are abandoned; close() would wait for every open stream.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public HttpClient ollamaHttpClient() {
+        AtomicInteger threads = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, "ollama-http-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(connectTimeout))
+                // Response handlers and stream listeners (SSE writes) run here
+                .executor(Executors.newCachedThreadPool(factory))
+                .build();
+    }
+}
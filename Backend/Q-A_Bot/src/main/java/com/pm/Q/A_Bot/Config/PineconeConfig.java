@@ -1,23 +1,19 @@
 package com.pm.Q.A_Bot.Config;
 
+import com.pm.Q.A_Bot.service.limits.ResourceLimit;
+import com.pm.Q.A_Bot.service.vectorstore.HnswVectorStore;
+import com.pm.Q.A_Bot.service.vectorstore.LimitedVectorStore;
+import com.pm.Q.A_Bot.service.vectorstore.QuantizedFlatVectorStore;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.pinecone.PineconeVectorStore;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.web.client.RestTemplate;
 
-import org.apache.hc.client5.http.classic.HttpClient;
-import org.apache.hc.client5.http.config.RequestConfig;
-import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
-import org.apache.hc.core5.util.Timeout;
-
-import java.time.Duration;
+import java.nio.file.Path;
 
 @Configuration
 public class PineconeConfig {
@@ -31,14 +27,32 @@ public class PineconeConfig {
     @Value("${spring.ai.vectorstore.pinecone.environment}")
     private String environment;
 
-    @Value("${llm.service.timeout.connect:10}")
-    private int connectTimeout;
+    @Value("${vectorstore.type:pinecone}")
+    private String vectorStoreType;
+
+    @Value("${vectorstore.dimensions:768}")
+    private int dimensions;
+
+    @Value("${vectorstore.hnsw.path:data/vectorstore/hnsw.idx}")
+    private String hnswPath;
+
+    @Value("${vectorstore.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${vectorstore.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+
+    @Value("${vectorstore.hnsw.ef-search:64}")
+    private int hnswEfSearch;
 
-    @Value("${llm.service.timeout.read:60}")
-    private int readTimeout;
+    @Value("${vectorstore.flat.path:data/vectorstore/flat}")
+    private String flatPath;
 
-    @Value("${llm.service.timeout.socket:30}")
-    private int socketTimeout;
+    @Value("${vectorstore.flat.oversample:4}")
+    private int flatOversample;
+
+    @Value("${vectorstore.flat.parallelism:0}")
+    private int flatParallelism;
 
     private final EmbeddingModel embeddingModel;
 
@@ -47,44 +61,35 @@ public class PineconeConfig {
     }
 
     /**
-     * Enhanced RestTemplate with connection pooling and proper timeout handling
+     * Vector store selected by {@code vectorstore.type}: {@code pinecone} (default), {@code hnsw} for the local
+     * graph index or {@code flat} for the local int8 exact-scan store. Pinecone calls run under the vector
+     * store resource limit.
      */
     @Bean
     @Primary
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        // Configure connection pooling
-        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
-        connectionManager.setMaxTotal(50); // Max total connections
-        connectionManager.setDefaultMaxPerRoute(20); // Max connections per route
-
-        // Configure request timeouts
-        RequestConfig requestConfig = RequestConfig.custom()
-                .setConnectionRequestTimeout(Timeout.ofSeconds(connectTimeout))
-                .setResponseTimeout(Timeout.ofSeconds(readTimeout))
-                .build();
-
-        // Build HTTP client with connection pooling and timeouts
-        HttpClient httpClient = HttpClientBuilder.create()
-                .setConnectionManager(connectionManager)
-                .setDefaultRequestConfig(requestConfig)
-                .build();
-
-        // Create request factory with the configured HTTP client
-        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
-
-        return builder
-                .requestFactory(() -> requestFactory)
-                .setConnectTimeout(Duration.ofSeconds(connectTimeout))
-                .setReadTimeout(Duration.ofSeconds(readTimeout))
-                .build();
-    }
-
-    @Bean
-    @Primary
-    public VectorStore vectorStore() {
-        return PineconeVectorStore.builder(embeddingModel)
+    public VectorStore vectorStore(@Qualifier("vectorStoreLimit") ResourceLimit vectorStoreLimit) {
+        if ("hnsw".equalsIgnoreCase(vectorStoreType)) {
+            System.out.println("Using local HNSW vector store at " + hnswPath);
+            return HnswVectorStore.builder(embeddingModel)
+                    .snapshotPath(Path.of(hnswPath))
+                    .dimensions(dimensions)
+                    .m(hnswM)
+                    .efConstruction(hnswEfConstruction)
+                    .efSearch(hnswEfSearch)
+                    .build();
+        }
+        if ("flat".equalsIgnoreCase(vectorStoreType)) {
+            System.out.println("Using local quantized flat vector store at " + flatPath);
+            return QuantizedFlatVectorStore.builder(embeddingModel)
+                    .directory(Path.of(flatPath))
+                    .dimensions(dimensions)
+                    .oversample(flatOversample)
+                    .parallelism(flatParallelism)
+                    .build();
+        }
+        return new LimitedVectorStore(PineconeVectorStore.builder(embeddingModel)
                 .apiKey(apiKey)
                 .indexName(indexName)
-                .build();
+                .build(), vectorStoreLimit);
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.pm.Q.A_Bot.Config;
+
+import com.pm.Q.A_Bot.service.limits.ResourceLimit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Per-backend concurrency limits. Ollama generation is bounded by the generation scheduler and MySQL by the
+ * Hikari pool; these cover the remaining blocking backends.
+ */
+@Configuration
+public class ResourceLimitConfig {
+
+    @Value("${limits.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMillis;
+
+    /** Remote vector store calls (Pinecone); the local stores are in-process and not limited */
+    @Bean
+    public ResourceLimit vectorStoreLimit(@Value("${limits.vectorstore.max-concurrency:16}") int maxConcurrency) {
+        return new ResourceLimit("vectorstore", maxConcurrency, acquireTimeoutMillis);
+    }
+
+    /** Embedding requests that miss the embedding cache and reach Ollama */
+    @Bean
+    public ResourceLimit embeddingLimit(@Value("${limits.embedding.max-concurrency:4}") int maxConcurrency) {
+        return new ResourceLimit("embedding", maxConcurrency, acquireTimeoutMillis);
+    }
+}
@@ -0,0 +1,23 @@
+package com.pm.Q.A_Bot.Config;
+
+import com.pm.Q.A_Bot.service.retrieval.Bm25Index;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class RetrievalConfig {
+
+    @Value("${retrieval.bm25.path:data/retrieval/bm25.bin}")
+    private String bm25Path;
+
+    /**
+     * Lexical index for hybrid retrieval, kept next to the vector store and snapshotted to local disk
+     */
+    @Bean
+    public Bm25Index bm25Index() {
+        return new Bm25Index(Path.of(bm25Path), 30);
+    }
+}
@@ -0,0 +1,41 @@
+package com.pm.Q.A_Bot.Controllers;
+
+import com.pm.Q.A_Bot.service.embedding.CachingEmbeddingModel;
+import com.pm.Q.A_Bot.service.query.AnswerCache;
+import com.pm.Q.A_Bot.service.query.QueryService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    private final CachingEmbeddingModel embeddingModel;
+    private final AnswerCache answerCache;
+    private final QueryService queryService;
+
+    public CacheController(CachingEmbeddingModel embeddingModel, AnswerCache answerCache, QueryService queryService) {
+        this.embeddingModel = embeddingModel;
+        this.answerCache = answerCache;
+        this.queryService = queryService;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("embeddings", embeddingModel.stats());
+        stats.put("answers", answerCache.stats());
+        stats.put("singleFlight", queryService.coalescingStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @DeleteMapping("/answers")
+    public ResponseEntity<String> clearAnswers() {
+        answerCache.clear();
+        return ResponseEntity.ok("✅ Answer cache cleared");
+    }
+}
@@ -0,0 +1,76 @@
+package com.pm.Q.A_Bot.Controllers;
+
+import com.pm.Q.A_Bot.service.chat.ChatService;
+import com.pm.Q.A_Bot.service.chat.ChatSession;
+import com.pm.Q.A_Bot.service.chat.ChatSessionStore;
+import com.pm.Q.A_Bot.service.chat.SessionBusyException;
+import com.pm.Q.A_Bot.service.llm.GenerationRejectedException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Multi-turn chat. Sessions belong to the caller named by the {@code X-User-Id} header, or to the client
+ * address when it is absent.
+ */
+@RestController
+@RequestMapping("/api/chat")
+@CrossOrigin(origins = "*")
+public class ChatController {
+
+    private final ChatService chatService;
+    private final ChatSessionStore sessionStore;
+
+    public ChatController(ChatService chatService, ChatSessionStore sessionStore) {
+        this.chatService = chatService;
+        this.sessionStore = sessionStore;
+    }
+
+    @PostMapping("/sessions")
+    public ResponseEntity<Map<String, Object>> createSession(HttpServletRequest request) {
+        ChatSession session = sessionStore.create(userId(request));
+        return ResponseEntity.ok(session.describe());
+    }
+
+    @PostMapping("/sessions/{sessionId}/ask")
+    public ResponseEntity<?> ask(@PathVariable String sessionId, @RequestParam String question,
+                                 HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(chatService.ask(sessionId, userId(request), question));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(404).body("❌ " + e.getMessage());
+        } catch (SessionBusyException e) {
+            return ResponseEntity.status(409).body("⚠️ " + e.getMessage());
+        } catch (GenerationRejectedException e) {
+            return ResponseEntity.status(429)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body("⚠️ " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("=== ERROR: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error processing request: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/sessions/{sessionId}")
+    public ResponseEntity<String> closeSession(@PathVariable String sessionId, HttpServletRequest request) {
+        if (!sessionStore.remove(sessionId, userId(request))) {
+            return ResponseEntity.status(404).body("❌ Chat session not found: " + sessionId);
+        }
+        return ResponseEntity.ok("✅ Chat session closed");
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(sessionStore.stats());
+    }
+
+    private static String userId(HttpServletRequest request) {
+        String user = request.getHeader("X-User-Id");
+        return user == null || user.isBlank() ? request.getRemoteAddr() : user.strip();
+    }
+}
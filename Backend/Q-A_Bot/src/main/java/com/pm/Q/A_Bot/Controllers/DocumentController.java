@@ -1,52 +1,114 @@
 package com.pm.Q.A_Bot.Controllers;
 
 import com.pm.Q.A_Bot.Entity.DocumentEntity;
-import com.pm.Q.A_Bot.Repository.DocumentRepository;
+import com.pm.Q.A_Bot.Repository.DocumentSummary;
+import com.pm.Q.A_Bot.service.storage.DocumentCatalog;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import java.time.LocalDateTime;
-import java.util.List;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/docs")
 @CrossOrigin("*")
 public class DocumentController {
 
-    private final DocumentRepository documentRepository;
+    private final DocumentCatalog catalog;
 
     // ✅ Constructor Injection (clean way)
-    public DocumentController(DocumentRepository documentRepository) {
-        this.documentRepository = documentRepository;
+    public DocumentController(DocumentCatalog catalog) {
+        this.catalog = catalog;
     }
 
+    /** Streams the upload into the blob store; the bytes are never held in memory or decoded as text. */
     @PostMapping("/upload")
     public ResponseEntity<String> uploadDocument(@RequestParam("file") MultipartFile file) {
-        try {
-            DocumentEntity doc = new DocumentEntity();
-            doc.setName(file.getOriginalFilename());
-            doc.setContent(new String(file.getBytes())); // store as text
-            doc.setUploadedAt(LocalDateTime.now());
-            documentRepository.save(doc);
-
-            return ResponseEntity.ok("✅ File stored in MySQL successfully!");
+        try (InputStream content = file.getInputStream()) {
+            DocumentCatalog.StoredDocument stored = catalog.store(file.getOriginalFilename(), file.getContentType(), content);
+            if (stored.duplicate()) {
+                return ResponseEntity.ok("✅ File already stored with the same content (id " + stored.document().getId() + ")");
+            }
+            return ResponseEntity.ok("✅ File stored successfully!");
         } catch (Exception e) {
             return ResponseEntity.status(500).body("❌ Upload failed: " + e.getMessage());
         }
     }
 
+    /** One page of document metadata, newest first; the files themselves are fetched from {@code /{id}/content}. */
     @GetMapping("/history")
-    public List<DocumentEntity> getHistory() {
-        return documentRepository.findAll();
+    public Map<String, Object> getHistory(@RequestParam(defaultValue = "0") int page,
+                                          @RequestParam(defaultValue = "50") int size) {
+        Page<DocumentSummary> history = catalog.history(page, size);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("content", history.getContent());
+        response.put("page", history.getNumber());
+        response.put("size", history.getSize());
+        response.put("totalElements", history.getTotalElements());
+        response.put("totalPages", history.getTotalPages());
+        return response;
+    }
+
+    /**
+     * Streams the stored file from disk. The content hash is the ETag, so a client that already has it gets
+     * 304, and Range requests are served for resumable downloads.
+     */
+    @GetMapping("/{id}/content")
+    public ResponseEntity<Resource> getContent(@PathVariable Long id) {
+        Optional<DocumentEntity> doc = catalog.find(id);
+        Optional<Path> content = doc.flatMap(catalog::content);
+        if (content.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        DocumentEntity document = doc.get();
+        return ResponseEntity.ok()
+                .contentType(mediaType(document.getContentType()))
+                .eTag(document.getContentHash())
+                .header(HttpHeaders.CONTENT_DISPOSITION, attachment(document.getName() != null ? document.getName() : "document-" + id))
+                .body(new FileSystemResource(content.get()));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteDoc(@PathVariable Long id) {
-        if (documentRepository.existsById(id)) {
-            documentRepository.deleteById(id);
-            return ResponseEntity.ok("✅ Document deleted from MySQL");
+        Optional<DocumentEntity> doc = catalog.find(id);
+        if (doc.isPresent()) {
+            try {
+                catalog.delete(doc.get());
+            } catch (IOException e) {
+                return ResponseEntity.status(500).body("❌ Delete failed: " + e.getMessage());
+            }
+            return ResponseEntity.ok("✅ Document deleted");
         }
 
         return ResponseEntity.status(404).body("❌ Document not found");
     }
+
+    private static String attachment(String filename) {
+        ContentDisposition.Builder disposition = ContentDisposition.attachment();
+        // Only non-ASCII names need the encoded filename* form
+        return (StandardCharsets.US_ASCII.newEncoder().canEncode(filename)
+                ? disposition.filename(filename)
+                : disposition.filename(filename, StandardCharsets.UTF_8)).build().toString();
+    }
+
+    private static MediaType mediaType(String contentType) {
+        try {
+            return contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package com.pm.Q.A_Bot.Controllers;
+
+import com.pm.Q.A_Bot.Entity.ImportFileEntity;
+import com.pm.Q.A_Bot.Entity.ImportJobEntity;
+import com.pm.Q.A_Bot.service.ingest.BulkImportService;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bulk imports: a ZIP archive upload or a server-side directory, ingested file by file in the background
+ * with per-file checkpoints. Progress is polled from {@code /api/rag/imports/{id}}.
+ */
+@RestController
+@RequestMapping("/api/rag/imports")
+@CrossOrigin(origins = "*")
+public class ImportController {
+
+    private final BulkImportService importService;
+
+    public ImportController(BulkImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> importArchive(@RequestParam("file") MultipartFile file) {
+        System.out.println("=== Queueing archive import: " + file.getOriginalFilename() + " ===");
+        try {
+            return ResponseEntity.accepted().body(importService.toStatus(importService.importArchive(file)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", "Import failed: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/directory")
+    public ResponseEntity<Map<String, Object>> importDirectory(@RequestParam("path") String path) {
+        System.out.println("=== Queueing directory import: " + path + " ===");
+        try {
+            return ResponseEntity.accepted().body(importService.toStatus(importService.importDirectory(path)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Cannot read directory: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getImport(@PathVariable Long id) {
+        return importService.find(id)
+                .map(job -> ResponseEntity.ok(importService.toStatus(job)))
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Unknown import: " + id)));
+    }
+
+    /** One page of file checkpoints, e.g. {@code ?state=FAILED} for the files a resume would retry. */
+    @GetMapping("/{id}/files")
+    public ResponseEntity<Map<String, Object>> getFiles(@PathVariable Long id,
+                                                        @RequestParam(required = false) ImportFileEntity.State state,
+                                                        @RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(defaultValue = "50") int size) {
+        if (importService.find(id).isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Unknown import: " + id));
+        }
+        Page<ImportFileEntity> files = importService.files(id, state, page, size);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("content", files.getContent());
+        response.put("page", files.getNumber());
+        response.put("size", files.getSize());
+        response.put("totalElements", files.getTotalElements());
+        response.put("totalPages", files.getTotalPages());
+        return ResponseEntity.ok(response);
+    }
+
+    /** Retries the failed files of a finished import; completed files are skipped. */
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<Map<String, Object>> resume(@PathVariable Long id) {
+        Optional<ImportJobEntity> job = importService.find(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Unknown import: " + id));
+        }
+        if (!importService.resume(job.get())) {
+            String reason = job.get().getState() == ImportJobEntity.State.COMPLETED ? " is already complete" : " is still running";
+            return ResponseEntity.status(409).body(Map.of("error", "Import " + id + reason));
+        }
+        return ResponseEntity.accepted().body(importService.toStatus(job.get()));
+    }
+}
@@ -1,100 +1,74 @@
 package com.pm.Q.A_Bot.Controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.pm.Q.A_Bot.service.health.DependencyProber;
+import com.pm.Q.A_Bot.service.health.HealthSnapshot;
+import com.pm.Q.A_Bot.service.health.ProbeResult;
+import com.pm.Q.A_Bot.service.llm.GenerationRejectedException;
+import com.pm.Q.A_Bot.service.llm.GenerationScheduler;
+import com.pm.Q.A_Bot.service.limits.ResourceLimit;
+import com.pm.Q.A_Bot.service.llm.StreamListener;
+import com.pm.Q.A_Bot.service.metrics.RagMetrics;
+import com.pm.Q.A_Bot.service.query.PreparedQuery;
+import com.pm.Q.A_Bot.service.query.QueryResult;
+import com.pm.Q.A_Bot.service.query.QueryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.http.HttpEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.ai.vectorstore.VectorStore;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.document.Document;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
 @RequestMapping("/api/query")
 public class QueryController {
 
-    @Value("${llm.service.url:http://localhost:11434/api/generate}")
-    private String llmServiceUrl;
-
-    @Value("${llm.service.model:llama3.2:1b}")
-    private String llmModel;
-
     @Autowired
-    private VectorStore vectorStore;
+    private QueryService queryService;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private GenerationScheduler generationScheduler;
 
-    @CrossOrigin(origins ="*")
-    @GetMapping("/ask")
-    public ResponseEntity<String> askQuestion(@RequestParam String question) {
-        try {
-            System.out.println("=== DEBUG: Question received: " + question);
-
-            // 1. Perform vector search WITHOUT similarity threshold first
-            SearchRequest searchRequest = SearchRequest.builder()
-                    .query(question)
-                    .topK(10)  // Get more results to debug
-                    .build();
-
-            List<Document> results = vectorStore.similaritySearch(searchRequest);
-
-            System.out.println("=== DEBUG: Found " + results.size() + " documents");
-
-            // Debug: Print what was found
-            for (int i = 0; i < results.size(); i++) {
-                Document doc = results.get(i);
-                String preview = doc.getText() == null ? "null" :
-                        (doc.getText().length() > 100 ? doc.getText().substring(0, 100) + "..." : doc.getText());
-                System.out.println("=== DEBUG: Doc " + i + " preview: " + preview);
-            }
-
-            // 2. If no documents found at all
-            if (results.isEmpty()) {
-                System.out.println("=== DEBUG: No documents found in vector store");
-                return ResponseEntity.ok("No documents found in the database. Please upload documents first.");
-            }
-
-            // 3. Take top 5 for context
-            List<Document> topDocs = results.stream().limit(5).collect(Collectors.toList());
-
-            // 4. Combine retrieved context
-            String context = topDocs.stream()
-                    .map(doc -> {
-                        String text = doc.getText() == null ? "" : doc.getText();
-                        return text.length() > 1500 ? text.substring(0, 1500) + "..." : text;
-                    })
-                    .collect(Collectors.joining("\n\n---\n\n"));
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
 
-            System.out.println("=== DEBUG: Context length: " + context.length());
-            System.out.println("=== DEBUG: Context preview: " +
-                    (context.length() > 200 ? context.substring(0, 200) + "..." : context));
+    @Autowired
+    private List<ResourceLimit> resourceLimits;
 
-            // 5. Prepare prompt
-            String prompt =
-                    "CONTEXT: " + context + "\n\n" +
-                            "Based ONLY on the context above, answer: " + question + "\n\n" +
-                            "If the answer is not in the context, respond exactly: 'I cannot answer this question based on the available documents.'\n\n" +
-                            "Answer:";
+    @Autowired
+    private RagMetrics metrics;
 
-            System.out.println("=== DEBUG: Sending to LLM service...");
+    @Autowired
+    private DependencyProber prober;
 
-            // 6. Call LLM service using RestTemplate
-            String answer = callLLMWithRestTemplate(prompt);
+    @Value("${llm.stream.timeout-seconds:120}")
+    private long streamTimeoutSeconds;
 
-            System.out.println("=== DEBUG: Got answer: " + answer);
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
 
-            return ResponseEntity.ok(answer);
+    @CrossOrigin(origins ="*")
+    @GetMapping("/ask")
+    public ResponseEntity<String> askQuestion(@RequestParam String question) {
+        try {
+            QueryResult result = queryService.ask(question);
+            return ResponseEntity.ok(result.answer());
 
+        } catch (GenerationRejectedException e) {
+            return ResponseEntity.status(429)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body("⚠️ " + e.getMessage());
         } catch (Exception e) {
             System.err.println("=== ERROR: " + e.getMessage());
             e.printStackTrace();
@@ -104,121 +78,138 @@ public class QueryController {
     }
 
     /**
-     * Call LLM service using RestTemplate with robust error handling
+     * Streams the answer as Server-Sent Events: one "sources" event, then a "token" event per generated
+     * token and a final "done" event. Closing the connection cancels the generation on Ollama, or drops it from
+     * the scheduler queue if it has not started yet.
      */
-    private String callLLMWithRestTemplate(String prompt) {
-        int maxRetries = 3;
-        int retryCount = 0;
+    @CrossOrigin(origins ="*")
+    @GetMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter askQuestionStream(@RequestParam String question) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutSeconds * 1000);
+        AtomicReference<CompletableFuture<?>> upstream = new AtomicReference<>();
+        AtomicBoolean closed = new AtomicBoolean();
+        Runnable cancelUpstream = () -> {
+            closed.set(true);
+            CompletableFuture<?> generation = upstream.getAndSet(null);
+            if (generation != null) {
+                System.out.println("=== Stream closed by client, cancelling generation ===");
+                generation.cancel(true);
+            }
+        };
+        emitter.onCompletion(cancelUpstream);
+        emitter.onTimeout(cancelUpstream);
+        emitter.onError(e -> cancelUpstream.run());
 
-        while (retryCount < maxRetries) {
+        // Retrieval blocks on embedding and vector search, keep it off the servlet thread
+        CompletableFuture.runAsync(() -> {
             try {
-                System.out.println("=== Attempt " + (retryCount + 1) + " - Calling LLM service: " + llmServiceUrl + " ===");
-
-                // Prepare request body for Ollama API
-                Map<String, Object> requestBody = new HashMap<>();
-                requestBody.put("model", llmModel);
-                requestBody.put("prompt", prompt);
-                requestBody.put("stream", false);
-
-                // Add options to control response
-                Map<String, Object> options = new HashMap<>();
-                options.put("temperature", 0.1);
-                options.put("num_predict", 500);
-                options.put("top_p", 0.9);
-                requestBody.put("options", options);
-
-                // Set headers
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_JSON);
-                headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-
-                HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-                // Make the REST call
-                ResponseEntity<Map> response = restTemplate.exchange(
-                        llmServiceUrl,
-                        HttpMethod.POST,
-                        entity,
-                        Map.class
-                );
-
-                if (response.getBody() != null && response.getBody().containsKey("response")) {
-                    String result = (String) response.getBody().get("response");
-                    System.out.println("=== LLM Response received successfully ===");
-                    return result;
-                } else {
-                    System.err.println("Invalid response format from LLM service");
-                    throw new RuntimeException("Invalid response format from LLM service");
+                PreparedQuery prepared = queryService.prepare(question);
+                emitter.send(SseEmitter.event().name("sources").data(prepared.documents().stream()
+                        .map(d -> String.valueOf(d.getMetadata().get("source")))
+                        .distinct()
+                        .toList()));
+                if (prepared.isAnswered()) {
+                    emitter.send(SseEmitter.event().name("token").data(Map.of("token", prepared.answer())));
+                    emitter.send(SseEmitter.event().name("done").data(Map.of("cached", prepared.cached())));
+                    emitter.complete();
+                    return;
                 }
 
-            } catch (ResourceAccessException e) {
-                retryCount++;
-                System.err.println("Connection error (attempt " + retryCount + "/" + maxRetries + "): " + e.getMessage());
-
-                if (retryCount >= maxRetries) {
-                    return "❌ LLM service is currently unavailable after " + maxRetries + " attempts. Please try again later.";
+                // The client may have gone away during retrieval; then there is nobody to generate for
+                if (closed.get()) {
+                    return;
                 }
-
-                // Wait before retrying
-                try {
-                    Thread.sleep(1000 * retryCount); // Progressive backoff
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    break;
+                StringBuilder answer = new StringBuilder();
+                long generationStarted = System.nanoTime();
+                CompletableFuture<?> generation = generationScheduler.stream(prepared.prompt(), new StreamListener() {
+                    @Override
+                    public void onToken(String token) {
+                        if (answer.isEmpty()) {
+                            metrics.record(RagMetrics.QueryStage.FIRST_TOKEN, generationStarted);
+                        }
+                        answer.append(token);
+                        try {
+                            // JSON payload keeps the leading space SSE would strip from a bare token
+                            emitter.send(SseEmitter.event().name("token").data(Map.of("token", token)));
+                        } catch (IOException e) {
+                            throw new IllegalStateException("SSE client disconnected", e);
+                        }
+                    }
+
+                    @Override
+                    public void onComplete(JsonNode last) {
+                        upstream.set(null);
+                        metrics.record(RagMetrics.QueryStage.GENERATE, generationStarted);
+                        metrics.generation(last);
+                        queryService.complete(prepared, answer.toString());
+                        try {
+                            emitter.send(SseEmitter.event().name("done").data(Map.of(
+                                    "cached", false,
+                                    "evalCount", last.path("eval_count").asInt(0))));
+                            emitter.complete();
+                        } catch (IOException e) {
+                            emitter.completeWithError(e);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        upstream.set(null);
+                        System.err.println("=== Stream generation failed: " + error.getMessage());
+                        Map<String, Object> data = new HashMap<>();
+                        data.put("message", "❌ " + error.getMessage());
+                        if (error instanceof GenerationRejectedException rejected) {
+                            data.put("retryAfter", rejected.getRetryAfterSeconds());
+                        }
+                        try {
+                            emitter.send(SseEmitter.event().name("error").data(data));
+                            emitter.complete();
+                        } catch (Exception e) {
+                            emitter.completeWithError(e);
+                        }
+                    }
+                }, GenerationScheduler.Priority.INTERACTIVE);
+                upstream.set(generation);
+                // Closed while stream() was being called, before the callbacks could see the generation
+                if (closed.get()) {
+                    cancelUpstream.run();
                 }
-
             } catch (Exception e) {
-                retryCount++;
-                System.err.println("Error calling LLM service (attempt " + retryCount + "/" + maxRetries + "): " + e.getMessage());
-
-                if (retryCount >= maxRetries) {
-                    e.printStackTrace();
-                    return "❌ Error communicating with LLM service: " + e.getMessage();
-                }
-
-                // Wait before retrying
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+                System.err.println("=== ERROR: " + e.getMessage());
+                emitter.completeWithError(e);
             }
-        }
+        }, taskExecutor);
 
-        return "❌ Maximum retry attempts exceeded";
+        return emitter;
     }
 
+    /**
+     * Last background probe round plus local scheduler and limit stats; never calls a dependency itself.
+     */
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
         Map<String, Object> health = new HashMap<>();
-
-        try {
-            // Test vector store
-            SearchRequest testRequest = SearchRequest.builder()
-                    .query("test")
-                    .topK(1)
-                    .build();
-            List<Document> docs = vectorStore.similaritySearch(testRequest);
-
-            health.put("vectorStore", "✅ Connected");
-            health.put("documentsCount", docs.size());
-
-            // Test LLM service
-            String testResponse = callLLMWithRestTemplate("Say 'Hello' only");
-            if (!testResponse.startsWith("❌")) {
-                health.put("llmService", "✅ Connected");
-            } else {
-                health.put("llmService", "❌ Not responding");
-            }
-
-            health.put("status", "healthy");
-
-        } catch (Exception e) {
-            health.put("vectorStore", "❌ Error: " + e.getMessage());
-            health.put("status", "unhealthy");
+        HealthSnapshot snapshot = prober.snapshot();
+        if (snapshot == null) {
+            health.put("status", "starting");
+            return ResponseEntity.ok(health);
         }
 
+        ProbeResult store = snapshot.get(HealthSnapshot.VECTOR_STORE);
+        health.put("vectorStore", store.up() ? "✅ Connected" : "❌ Error: " + store.error());
+        health.put("documentsCount", store.details().get("vectors"));
+        ProbeResult llm = snapshot.get(HealthSnapshot.OLLAMA);
+        health.put("llmService", llm.up() ? "✅ Connected" : "❌ Not responding");
+        health.put("checkedAtMicros", snapshot.checkedAtMicros());
+        health.put("probes", snapshot.dependencies());
+
+        health.put("llmScheduler", generationScheduler.stats());
+        health.put("executionMode", virtualThreads ? "virtual" : "platform");
+        Map<String, Object> limits = new HashMap<>();
+        resourceLimits.forEach(limit -> limits.put(limit.getName(), limit.stats()));
+        health.put("resourceLimits", limits);
+
+        health.put("status", snapshot.ready() ? "healthy" : "unhealthy");
         return ResponseEntity.ok(health);
     }
 }
\ No newline at end of file
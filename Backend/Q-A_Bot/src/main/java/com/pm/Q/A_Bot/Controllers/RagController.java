@@ -1,29 +1,43 @@
 package com.pm.Q.A_Bot.Controllers;
 
+import com.pm.Q.A_Bot.service.health.DependencyProber;
+import com.pm.Q.A_Bot.service.health.HealthSnapshot;
+import com.pm.Q.A_Bot.service.health.ProbeResult;
+import com.pm.Q.A_Bot.service.ingest.ChunkIndexService;
+import com.pm.Q.A_Bot.service.ingest.IngestionJob;
+import com.pm.Q.A_Bot.service.ingest.IngestionPipeline;
+import com.pm.Q.A_Bot.service.limits.MeasuredExecutor;
+import com.pm.Q.A_Bot.service.limits.ResourceBusyException;
+import com.pm.Q.A_Bot.service.llm.GenerationRejectedException;
+import com.pm.Q.A_Bot.service.llm.GenerationResult;
+import com.pm.Q.A_Bot.service.llm.GenerationScheduler;
+import com.pm.Q.A_Bot.service.llm.OllamaBackend;
+import com.pm.Q.A_Bot.service.llm.OllamaBackendPool;
+import com.pm.Q.A_Bot.service.metrics.RagMetrics;
+import com.pm.Q.A_Bot.service.query.AnswerCache;
+import com.pm.Q.A_Bot.service.query.PreparedQuery;
+import com.pm.Q.A_Bot.service.query.QueryService;
 import jakarta.annotation.PostConstruct;
-import org.apache.tika.Tika;
-import org.apache.tika.exception.TikaException;
-import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
 @RequestMapping("/api/rag")
@@ -33,65 +47,79 @@ public class RagController {
     @Value("${spring.ai.vectorstore.pinecone.index-name}")
     private String indexName;
 
-    @Value("${llm.service.url:http://localhost:11434/api/generate}")
-    private String llmServiceUrl;
-
     @Value("${llm.service.model:llama3.2:1b}")
     private String llmModel;
 
     @Autowired
-    private VectorStore vectorStore;
+    private GenerationScheduler generationScheduler;
+
+    @Autowired
+    private OllamaBackendPool backendPool;
+
+    @Autowired
+    private AnswerCache answerCache;
+
+    @Autowired
+    private IngestionPipeline ingestionPipeline;
+
+    @Autowired
+    private ChunkIndexService chunkIndex;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private QueryService queryService;
 
-    private final Tika tika = new Tika();
+    @Autowired
+    @Qualifier("askExecutor")
+    private MeasuredExecutor askExecutor;
+
+    @Autowired
+    private RagMetrics metrics;
+
+    @Autowired
+    private DependencyProber prober;
+
+    @Value("${rag.ask.timeout-seconds:30}")
+    private long askTimeoutSeconds;
 
     @PostConstruct
     public void checkConfig() {
         System.out.println("=== RAG Controller Initialized ===");
         System.out.println("Pinecone Index: " + indexName);
-        System.out.println("LLM Service URL: " + llmServiceUrl);
+        System.out.println("LLM Backends: " + backendPool.getBackends().stream().map(OllamaBackend::getName).toList());
         System.out.println("LLM Model: " + llmModel);
-
-        try {
-            SearchRequest testRequest = SearchRequest.builder()
-                    .query("test")
-                    .topK(1)
-                    .build();
-            List<Document> existingDocs = vectorStore.similaritySearch(testRequest);
-            System.out.println("Existing documents in vector store: " + existingDocs.size());
-        } catch (Exception e) {
-            System.out.println("Could not check existing documents: " + e.getMessage());
-        }
     }
 
     @PostMapping("/upload")
-    public ResponseEntity<String> upload(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> upload(@RequestParam("file") MultipartFile file) {
+        Map<String, Object> response = new HashMap<>();
         try {
-            System.out.println("=== Starting file upload: " + file.getOriginalFilename() + " ===");
-
-            String text = tika.parseToString(file.getInputStream());
-            System.out.println("Extracted text length: " + text.length());
+            System.out.println("=== Queueing file upload: " + file.getOriginalFilename() + " ===");
 
-            if (text.trim().isEmpty()) {
-                return ResponseEntity.badRequest().body("File appears empty or unreadable");
+            if (file.isEmpty()) {
+                response.put("error", "File appears empty or unreadable");
+                return ResponseEntity.badRequest().body(response);
             }
 
-            List<Document> documents = splitIntoChunks(text, file.getOriginalFilename());
-            vectorStore.add(documents);
+            IngestionJob job = ingestionPipeline.submit(file);
+            response.put("jobId", job.getId());
+            response.put("filename", job.getFilename());
+            response.put("state", job.getState());
+            response.put("statusUrl", "/api/rag/jobs/" + job.getId());
+            return ResponseEntity.accepted().body(response);
 
-            return ResponseEntity.ok(String.format(
-                    "✅ File '%s' uploaded successfully! Created %d document chunks.",
-                    file.getOriginalFilename(), documents.size()));
-
-        } catch (IOException | TikaException e) {
+        } catch (IOException e) {
             e.printStackTrace();
-            return ResponseEntity.status(500).body("Upload failed: " + e.getMessage());
+            response.put("error", "Upload failed: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
         }
     }
 
-
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        return ingestionPipeline.job(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatus()))
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Unknown job: " + jobId)));
+    }
 
     // this is for my testing purpose that llm is working or not
 //    @GetMapping("/test-search")
@@ -116,43 +144,101 @@ public class RagController {
 //        }
 //    }
 
-    // Async question handler with RestTemplate
-    @Async("taskExecutor")
+    /**
+     * Non-blocking ask: the servlet thread is released at once, retrieval runs on the ask executor and
+     * generation on the scheduler. Timeouts and disconnects cancel the work, including the Ollama request.
+     */
+    @GetMapping("/ask")
+    public DeferredResult<ResponseEntity<String>> ask(@RequestParam("q") String question) {
+        // Longer than the answer's own timeout, which is the one that also cancels the upstream calls
+        DeferredResult<ResponseEntity<String>> result = new DeferredResult<>((askTimeoutSeconds + 5) * 1000);
+        CompletableFuture<String> answer = askAsync(question);
+        answer.whenComplete((text, error) -> result.setResult(error == null ? ResponseEntity.ok(text) : askError(error)));
+        result.onTimeout(() -> answer.cancel(true));
+        result.onError(error -> answer.cancel(true));
+        result.onCompletion(() -> answer.cancel(true));
+        return result;
+    }
+
+    /**
+     * Retrieval on the ask executor, then generation through the scheduler. Retrieval is the same as
+     * {@code /api/query/ask}: answer cache, hybrid search and context packing in {@link QueryService#prepare},
+     * and generated answers are cached through {@link QueryService#complete}. Completing the returned future
+     * any other way than with an answer (timeout after rag.ask.timeout-seconds, cancellation) interrupts a
+     * running generation, so a timed-out question does not keep its Ollama request going, and stops a running
+     * retrieval from going on to generate.
+     */
     public CompletableFuture<String> askAsync(String question) {
-        try {
-            SearchRequest request = SearchRequest.builder()
-                    .query(question)
-                    .topK(10)
-                    .similarityThreshold(0.1)
-                    .build();
-
-            List<Document> docs = vectorStore.similaritySearch(request);
-            if (docs.isEmpty()) return CompletableFuture.completedFuture("❌ No relevant documents found");
-
-            String context = docs.stream()
-                    .map(Document::getText)
-                    .collect(Collectors.joining("\n---\n"));
-            if (context.length() > 2000) context = context.substring(0, 2000) + "...";
-
-            String prompt = """
-Answer strictly using the context below. If answer not found, say: "I don't know based on the document."
-Context:
-""" + context + "\n\nQuestion: " + question;
-
-            CompletableFuture<String> responseFuture = CompletableFuture.supplyAsync(() -> {
-                try {
-                    return callLLMWithRestTemplate(prompt);
-                } catch (Exception e) {
-                    System.err.println("LLM call failed: " + e.getMessage());
-                    return "❌ LLM call failed: " + e.getMessage();
-                }
-            });
+        CompletableFuture<String> answer = new CompletableFuture<>();
+        AtomicReference<Future<?>> upstream = new AtomicReference<>();
 
-            return responseFuture.completeOnTimeout("⚠️ LLM request timed out.", 30, TimeUnit.SECONDS);
+        FutureTask<Void> retrieval = new FutureTask<>(() -> {
+            try {
+                PreparedQuery prepared = queryService.prepare(question);
+                if (prepared.isAnswered()) {
+                    answer.complete(prepared.answer());
+                    return;
+                }
+                if (answer.isDone()) {
+                    // Timed out or cancelled during retrieval
+                    return;
+                }
+                long generationStarted = System.nanoTime();
+                CompletableFuture<GenerationResult> generation =
+                        generationScheduler.generate(prepared.prompt(), GenerationScheduler.Priority.INTERACTIVE);
+                upstream.set(generation);
+                if (answer.isDone()) {
+                    // Timed out or cancelled while retrieval was finishing
+                    generation.cancel(true);
+                }
+                generation.whenComplete((response, error) -> {
+                    if (error != null) {
+                        answer.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error);
+                    } else {
+                        metrics.record(RagMetrics.QueryStage.GENERATE, generationStarted);
+                        metrics.generation(response.raw());
+                        queryService.complete(prepared, response.response());
+                        answer.complete(response.response());
+                    }
+                });
+            } catch (Exception e) {
+                answer.completeExceptionally(e);
+            }
+        }, null);
+        upstream.set(retrieval);
+
+        answer.orTimeout(askTimeoutSeconds, TimeUnit.SECONDS).whenComplete((text, error) -> {
+            Future<?> running = upstream.get();
+            if (error != null && running != null) {
+                // Retrieval may be leading a coalesced prepare that other questions wait on, so it is not
+                // interrupted; it sees the finished answer and skips generation
+                running.cancel(running != retrieval);
+            }
+        });
+        try {
+            askExecutor.execute(retrieval);
+        } catch (RejectedExecutionException e) {
+            answer.completeExceptionally(e);
+        }
+        return answer;
+    }
 
-        } catch (Exception e) {
-            return CompletableFuture.completedFuture("❌ Error: " + e.getMessage());
+    private static ResponseEntity<String> askError(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException || cause instanceof CancellationException) {
+            return ResponseEntity.status(504).body("⚠️ LLM request timed out.");
+        }
+        if (cause instanceof GenerationRejectedException rejected) {
+            return ResponseEntity.status(429)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(rejected.getRetryAfterSeconds()))
+                    .body("⚠️ " + rejected.getMessage());
+        }
+        if (cause instanceof RejectedExecutionException || cause instanceof ResourceBusyException) {
+            return ResponseEntity.status(503).body("⚠️ Server is busy, please try again shortly.");
         }
+        System.err.println("=== ERROR: ask failed: " + cause.getMessage());
+        return ResponseEntity.status(500).body("❌ Error: " + cause.getMessage());
     }
 
     @DeleteMapping("/delete")
@@ -160,55 +246,16 @@ Context:
         try {
             System.out.println("=== Attempting to delete documents for filename: " + filename + " ===");
 
-            // Search using the filename itself as query to find related documents
-            SearchRequest searchRequest = SearchRequest.builder()
-                    .query(filename)  // Use filename as query
-                    .topK(100)        // Increase limit
-                    .similarityThreshold(0.0)  // Get all results regardless of similarity
-                    .build();
-
-            List<Document> foundDocs = vectorStore.similaritySearch(searchRequest);
-            System.out.println("Found " + foundDocs.size() + " documents from filename search");
-
-            // Also try searching with common terms from the document
-            SearchRequest broadSearch = SearchRequest.builder()
-                    .query("policy leave work")  // Use common terms
-                    .topK(100)
-                    .similarityThreshold(0.0)
-                    .build();
-
-            List<Document> broadDocs = vectorStore.similaritySearch(broadSearch);
-            System.out.println("Found " + broadDocs.size() + " documents from broad search");
-
-            // Combine and deduplicate
-            Set<Document> allDocs = new HashSet<>();
-            allDocs.addAll(foundDocs);
-            allDocs.addAll(broadDocs);
-
-            // Filter documents by filename in metadata
-            List<String> idsToDelete = allDocs.stream()
-                    .filter(doc -> {
-                        Object source = doc.getMetadata().get("source");
-                        System.out.println("Checking document with source: " + source);
-                        return filename.equals(source);
-                    })
-                    .map(Document::getId)
-                    .collect(Collectors.toList());
-
-            System.out.println("Found " + idsToDelete.size() + " documents to delete");
-
-            if (idsToDelete.isEmpty()) {
-                return ResponseEntity.ok("❌ No documents found for filename: " + filename);
+            ChunkIndexService.SourceDeletion deleted = chunkIndex.deleteSource(filename);
+            if (deleted.byFilter()) {
+                // Ingested before chunk ids were indexed: the filter delete does not report a count
+                return ResponseEntity.ok(String.format(
+                        "✅ Deleted chunks for file '%s' by metadata filter (no indexed chunk ids)", filename));
             }
 
-            // Delete by IDs
-            vectorStore.delete(idsToDelete);
-
-            System.out.println("Delete operation completed for " + idsToDelete.size() + " documents");
-
             return ResponseEntity.ok(String.format(
                     "✅ Successfully deleted %d chunks for file '%s'",
-                    idsToDelete.size(), filename));
+                    deleted.chunks(), filename));
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -256,113 +303,35 @@ Context:
 //        }
 //    }
 
-    /**
-     * Call LLM service using RestTemplate with proper error handling
-     */
-    private String callLLMWithRestTemplate(String prompt) {
-        try {
-            System.out.println("=== Calling LLM service: " + llmServiceUrl + " ===");
-
-            // Prepare request body for Ollama API
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", llmModel);
-            requestBody.put("prompt", prompt);
-            requestBody.put("stream", false);
-            requestBody.put("options", Map.of(
-                    "temperature", 0.1,
-                    "num_predict", 500
-            ));
-
-            // Set headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-            // Make the REST call with retry logic
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    llmServiceUrl,
-                    HttpMethod.POST,
-                    entity,
-                    Map.class
-            );
-
-            if (response.getBody() != null && response.getBody().containsKey("response")) {
-                String result = (String) response.getBody().get("response");
-                System.out.println("=== LLM Response received successfully ===");
-                return result;
-            } else {
-                System.err.println("Invalid response format from LLM service");
-                return "❌ Invalid response from LLM service";
-            }
-
-        } catch (ResourceAccessException e) {
-            System.err.println("Connection timeout or network error: " + e.getMessage());
-            return "❌ LLM service is currently unavailable. Please try again later.";
-        } catch (Exception e) {
-            System.err.println("Error calling LLM service: " + e.getMessage());
-            e.printStackTrace();
-            return "❌ Error communicating with LLM service: " + e.getMessage();
-        }
-    }
-
+    /** Served from the last background probe round, so polling it costs no embedding, search or generation. */
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getStatus() {
         Map<String, Object> status = new HashMap<>();
-        try {
-            SearchRequest testRequest = SearchRequest.builder()
-                    .query("test")
-                    .topK(5)
-                    .build();
-            List<Document> docs = vectorStore.similaritySearch(testRequest);
-
-            status.put("vectorStoreConnected", true);
-            status.put("documentsCount", docs.size());
-            status.put("indexName", indexName);
-            status.put("llmServiceUrl", llmServiceUrl);
-            status.put("status", "✅ System ready");
-
-            // Test LLM connectivity
-            try {
-                String testResponse = callLLMWithRestTemplate("Test connection");
-                status.put("llmServiceConnected", !testResponse.startsWith("❌"));
-            } catch (Exception e) {
-                status.put("llmServiceConnected", false);
-                status.put("llmError", e.getMessage());
-            }
-
-        } catch (Exception e) {
-            status.put("vectorStoreConnected", false);
-            status.put("error", e.getMessage());
-            status.put("status", "❌ System error");
+        status.put("indexName", indexName);
+        status.put("llmBackends", backendPool.stats());
+        status.put("askExecutor", askExecutor.stats());
+        HealthSnapshot snapshot = prober.snapshot();
+        if (snapshot == null) {
+            status.put("status", "⚠️ Starting, dependencies not checked yet");
+            return ResponseEntity.ok(status);
         }
-        return ResponseEntity.ok(status);
-    }
-
-    private List<Document> splitIntoChunks(String text, String filename) {
-        List<Document> documents = new ArrayList<>();
-        int chunkSize = 1000;
-        int overlap = 200;
-
-        for (int i = 0; i < text.length(); i += (chunkSize - overlap)) {
-            int endIndex = Math.min(i + chunkSize, text.length());
-            String chunk = text.substring(i, endIndex);
 
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("source", filename);
-            metadata.put("chunk_index", documents.size());
-            metadata.put("total_length", text.length());
-
-            Document doc = Document.builder()
-                    .id(UUID.randomUUID().toString())
-                    .text(chunk.trim())
-                    .metadata(metadata)
-                    .build();
-
-            documents.add(doc);
-            if (endIndex >= text.length()) break;
+        ProbeResult store = snapshot.get(HealthSnapshot.VECTOR_STORE);
+        ProbeResult database = snapshot.get(HealthSnapshot.DATABASE);
+        ProbeResult llm = snapshot.get(HealthSnapshot.OLLAMA);
+        status.put("vectorStoreConnected", store.up());
+        status.put("documentsCount", store.details().get("vectors"));
+        status.put("indexedChunks", database.details().get("indexedChunks"));
+        status.put("sources", database.details().get("sources"));
+        status.put("llmServiceConnected", llm.up());
+        if (!llm.up()) {
+            status.put("llmError", llm.error());
         }
-        return documents;
+        if (!store.up()) {
+            status.put("error", store.error());
+        }
+        status.put("checkedAtMicros", snapshot.checkedAtMicros());
+        status.put("status", snapshot.ready() ? "✅ System ready" : "❌ System error");
+        return ResponseEntity.ok(status);
     }
-}
\ No newline at end of file
+}
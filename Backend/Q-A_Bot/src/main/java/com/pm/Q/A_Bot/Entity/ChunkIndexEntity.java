@@ -0,0 +1,30 @@
+package com.pm.Q.A_Bot.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One vector store chunk of an uploaded source document, so a document's chunks can be found without searching.
+ */
+@Data
+@Table(name = "chunk_index",
+        indexes = @Index(name = "idx_chunk_index_source", columnList = "source"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_chunk_index_chunk_id", columnNames = "chunkId"))
+@Entity
+public class ChunkIndexEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String source;
+
+    @Column(nullable = false, length = 64)
+    private String chunkId;
+
+    private Integer chunkIndex;
+
+    private LocalDateTime indexedAt;
+}
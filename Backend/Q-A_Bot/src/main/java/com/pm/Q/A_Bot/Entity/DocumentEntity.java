@@ -4,8 +4,16 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+
+/**
+ * One stored upload. The bytes live in the blob store under {@code contentHash}; the row only holds metadata.
+ */
 @Data
-@Table(name = "documents")
+@Table(name = "documents",
+        indexes = {
+                @Index(name = "idx_documents_content_hash", columnList = "contentHash"),
+                @Index(name = "idx_documents_uploaded_at", columnList = "uploadedAt")
+        })
 @Entity
 public class DocumentEntity {
     @Id
@@ -14,11 +22,12 @@ public class DocumentEntity {
 
     private String name;
 
-    @Lob
-    private String content;
+    private String contentType;
 
-    private LocalDateTime uploadedAt;
+    private Long sizeBytes;
 
-    // getters & setters
-}
+    @Column(length = 64)
+    private String contentHash;
 
+    private LocalDateTime uploadedAt;
+}
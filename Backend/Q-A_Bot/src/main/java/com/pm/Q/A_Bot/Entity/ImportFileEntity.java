@@ -0,0 +1,50 @@
+package com.pm.Q.A_Bot.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of one file of a bulk import: its path inside the archive or directory, which doubles as the
+ * chunk source, and the stored document it was ingested from once it got that far.
+ */
+@Data
+@Table(name = "import_files",
+        indexes = @Index(name = "idx_import_files_job_state", columnList = "jobId, state"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_import_files_job_path", columnNames = {"jobId", "path"}))
+@Entity
+public class ImportFileEntity {
+
+    public enum State { PENDING, COMPLETED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long jobId;
+
+    @Column(nullable = false, length = 512)
+    private String path;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private State state;
+
+    private Long sizeBytes;
+
+    @Column(length = 64)
+    private String contentHash;
+
+    private Long documentId;
+
+    private Integer chunks;
+
+    private Integer attempts;
+
+    @Column(length = 1000)
+    private String error;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,47 @@
+package com.pm.Q.A_Bot.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One bulk import of a ZIP archive or a server-side directory. Its files are tracked as {@link ImportFileEntity}
+ * rows, so an import still {@code RUNNING} after a restart continues with the files that are not done yet.
+ */
+@Data
+@Table(name = "import_jobs", indexes = @Index(name = "idx_import_jobs_state", columnList = "state"))
+@Entity
+public class ImportJobEntity {
+
+    public enum Kind { ARCHIVE, DIRECTORY }
+
+    /** FAILED means at least one file failed; those can be retried with a resume. */
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Kind kind;
+
+    /** The stored archive or the imported directory. */
+    @Column(length = 1024)
+    private String location;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private State state;
+
+    private Integer totalFiles;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,39 @@
+package com.pm.Q.A_Bot.Repository;
+
+import com.pm.Q.A_Bot.Entity.ChunkIndexEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ChunkIndexRepository extends
+        JpaRepository<ChunkIndexEntity, Long> {
+
+    @Query("select c.chunkId from ChunkIndexEntity c where c.source = :source order by c.id")
+    List<String> findChunkIdsBySource(@Param("source") String source);
+
+    /** Chunk id and chunk_index pairs of a source. */
+    @Query("select c.chunkId, c.chunkIndex from ChunkIndexEntity c where c.source = :source order by c.id")
+    List<Object[]> findPositionsBySource(@Param("source") String source);
+
+    long countBySource(String source);
+
+    @Query("select count(distinct c.source) from ChunkIndexEntity c")
+    long countSources();
+
+    @Modifying
+    @Transactional
+    @Query("update ChunkIndexEntity c set c.chunkIndex = :chunkIndex where c.chunkId = :chunkId")
+    int updateChunkIndex(@Param("chunkId") String chunkId, @Param("chunkIndex") Integer chunkIndex);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ChunkIndexEntity c where c.chunkId in :chunkIds")
+    int deleteByChunkIdIn(@Param("chunkIds") Collection<String> chunkIds);
+}
@@ -1,11 +1,23 @@
 package com.pm.Q.A_Bot.Repository;
 
 import com.pm.Q.A_Bot.Entity.DocumentEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface DocumentRepository extends
         JpaRepository<DocumentEntity, Long> {
-}
 
+    boolean existsByContentHash(String contentHash);
+
+    Optional<DocumentEntity> findFirstByNameAndContentHash(String name, String contentHash);
+
+    @Query(value = "select new com.pm.Q.A_Bot.Repository.DocumentSummary(d.id, d.name, d.contentType, d.sizeBytes, d.contentHash, d.uploadedAt) from DocumentEntity d",
+            countQuery = "select count(d) from DocumentEntity d")
+    Page<DocumentSummary> findSummaries(Pageable pageable);
+}
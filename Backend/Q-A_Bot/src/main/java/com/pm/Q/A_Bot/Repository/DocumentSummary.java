@@ -0,0 +1,10 @@
+package com.pm.Q.A_Bot.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Catalog row without the file itself, as listed in the document history.
+ */
+public record DocumentSummary(Long id, String name, String contentType, Long sizeBytes, String contentHash,
+                              LocalDateTime uploadedAt) {
+}
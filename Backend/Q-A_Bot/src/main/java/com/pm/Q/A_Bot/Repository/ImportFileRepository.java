@@ -0,0 +1,26 @@
+package com.pm.Q.A_Bot.Repository;
+
+import com.pm.Q.A_Bot.Entity.ImportFileEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImportFileRepository extends
+        JpaRepository<ImportFileEntity, Long> {
+
+    List<ImportFileEntity> findByJobIdAndStateNotOrderById(Long jobId, ImportFileEntity.State state);
+
+    Page<ImportFileEntity> findByJobId(Long jobId, Pageable pageable);
+
+    Page<ImportFileEntity> findByJobIdAndState(Long jobId, ImportFileEntity.State state, Pageable pageable);
+
+    /** File count and chunk total per state of an import. */
+    @Query("select f.state, count(f), coalesce(sum(f.chunks), 0) from ImportFileEntity f where f.jobId = :jobId group by f.state")
+    List<Object[]> summarize(@Param("jobId") Long jobId);
+}
@@ -0,0 +1,14 @@
+package com.pm.Q.A_Bot.Repository;
+
+import com.pm.Q.A_Bot.Entity.ImportJobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImportJobRepository extends
+        JpaRepository<ImportJobEntity, Long> {
+
+    List<ImportJobEntity> findByState(ImportJobEntity.State state);
+}
@@ -1,38 +1,39 @@
 package com.pm.Q.A_Bot.service;
 
 
+import com.pm.Q.A_Bot.service.llm.GenerationScheduler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class ManualOllamaService {
 
-    private static final RestTemplate restTemplate = new RestTemplate();
-    private static final String OLLAMA_URL = "http://localhost:11434/api/generate";
-    private static final String MODEL = "qwen2.5:0.5b";
+    private final GenerationScheduler generationScheduler;
+    private final String model;
 
-    public static String generateResponse(String prompt) {
+    public ManualOllamaService(GenerationScheduler generationScheduler,
+                               @Value("${llm.manual.model:qwen2.5:0.5b}") String model) {
+        this.generationScheduler = generationScheduler;
+        this.model = model;
+    }
+
+    /**
+     * One-off generation on the small model ({@code llm.manual.model}), served by the shared backend pool.
+     * Queued as batch work so it never delays user questions.
+     */
+    public String generateResponse(String prompt) {
         try {
-            Map<String, Object> request = new HashMap<>();
-            request.put("model", MODEL);
-            request.put("prompt", prompt);
-            request.put("stream", false);
-
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = restTemplate.postForObject(OLLAMA_URL, request, Map.class);
-
-            if (response != null && response.containsKey("response")) {
-                return (String) response.get("response");
-            } else {
-                return "No response received from model";
-            }
-
-        } catch (Exception e) {
-            System.err.println("Manual Ollama call failed: " + e.getMessage());
-            return "Error calling Ollama: " + e.getMessage();
+            String response = generationScheduler.generate(prompt, model, GenerationScheduler.Priority.BATCH)
+                    .join()
+                    .response();
+            return response.isEmpty() ? "No response received from model" : response;
+
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Manual Ollama call failed: " + cause.getMessage());
+            return "Error calling Ollama: " + cause.getMessage();
         }
     }
 }
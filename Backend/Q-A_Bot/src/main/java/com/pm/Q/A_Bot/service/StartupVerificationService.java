@@ -1,15 +1,11 @@
 package com.pm.Q.A_Bot.service;
 
 
-import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-
 @Component
 public class StartupVerificationService implements CommandLineRunner {
 
@@ -23,38 +19,19 @@ public class StartupVerificationService implements CommandLineRunner {
         System.out.println("=".repeat(50));
 
         try {
-            // Check if vector store is accessible
-            System.out.println("✅ Vector Store: Connected");
-
-            // Check for existing documents
-            SearchRequest testRequest = SearchRequest.builder()
-                    .query("startup test")
-                    .topK(5)
-                    .build();
-
-            List<Document> existingDocs = vectorStore.similaritySearch(testRequest);
-
-            if (existingDocs.size() > 0) {
-                System.out.println("📄 Found " + existingDocs.size() + " existing documents in vector store");
-                System.out.println("✅ Documents are persistent - no need to re-upload!");
-
-                // Show preview of first document
-                if (!existingDocs.isEmpty()) {
-                    String preview = existingDocs.get(0).getText();
-                    if (preview.length() > 100) {
-                        preview = preview.substring(0, 100) + "...";
-                    }
-                    System.out.println("📝 Sample document preview: " + preview);
-                }
-            } else {
-                System.out.println("📄 No existing documents found - ready for upload");
-            }
+            // The vector store search and model loading run in the background (StartupWarmup), off the boot path
+            System.out.println("✅ Vector Store: " + vectorStore.getName());
+            System.out.println("⏳ Models are warming up; /actuator/health/readiness turns UP once they are loaded");
 
-            System.out.println("✅ System Status: READY");
+            System.out.println("✅ System Status: STARTED");
             System.out.println("\n📋 Available Endpoints:");
             System.out.println("   POST /api/rag/upload - Upload documents");
             System.out.println("   GET  /api/rag/ask?q=your-question - Ask questions");
             System.out.println("   GET  /api/rag/status - Check system status");
+            System.out.println("   GET  /actuator/health/liveness, /actuator/health/readiness - Probes for the load balancer");
+            System.out.println("   POST /api/chat/sessions - Start a chat, then POST /api/chat/sessions/{id}/ask?question=...");
+            System.out.println("   GET  /actuator/prometheus - Stage latencies, queue depths and cache hit rates");
+            System.out.println("   GET  /actuator/startup - Startup steps with their durations");
 
         } catch (Exception e) {
             System.err.println("❌ Startup verification failed: " + e.getMessage());
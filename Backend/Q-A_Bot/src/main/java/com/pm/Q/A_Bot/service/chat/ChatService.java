@@ -0,0 +1,140 @@
+package com.pm.Q.A_Bot.service.chat;
+
+import com.pm.Q.A_Bot.service.chunking.TokenEstimator;
+import com.pm.Q.A_Bot.service.llm.GenerationRejectedException;
+import com.pm.Q.A_Bot.service.llm.GenerationResult;
+import com.pm.Q.A_Bot.service.llm.GenerationScheduler;
+import com.pm.Q.A_Bot.service.llm.OllamaException;
+import com.pm.Q.A_Bot.service.query.ContextAssembler;
+import com.pm.Q.A_Bot.service.query.PromptBuilder;
+import com.pm.Q.A_Bot.service.retrieval.HybridRetriever;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Multi-turn question answering on top of {@link ChatSessionStore}. The first turn sends the usual grounded
+ * prompt; later turns continue from the context Ollama returned and send only the new question plus retrieved
+ * passages the session has not seen yet. When the context would no longer leave room for the next prompt and
+ * the answer, the session starts over with a full prompt that carries the previous turn.
+ */
+@Service
+public class ChatService {
+
+    private final ChatSessionStore sessions;
+    private final HybridRetriever retriever;
+    private final ContextAssembler contextAssembler;
+    private final PromptBuilder promptBuilder;
+    private final GenerationScheduler generationScheduler;
+    private final int numCtx;
+    private final int numPredict;
+
+    public ChatService(ChatSessionStore sessions, HybridRetriever retriever, ContextAssembler contextAssembler,
+                       PromptBuilder promptBuilder, GenerationScheduler generationScheduler,
+                       @Value("${spring.ai.ollama.chat.options.num-ctx:2048}") int numCtx,
+                       @Value("${spring.ai.ollama.chat.options.num-predict:500}") int numPredict) {
+        this.sessions = sessions;
+        this.retriever = retriever;
+        this.contextAssembler = contextAssembler;
+        this.promptBuilder = promptBuilder;
+        this.generationScheduler = generationScheduler;
+        this.numCtx = numCtx;
+        this.numPredict = numPredict;
+    }
+
+    /**
+     * @param continued  whether Ollama continued from the session's context rather than a full prompt
+     * @param newChunks  retrieved chunks sent for the first time this turn
+     */
+    public record ChatAnswer(String answer, List<String> sources, int turn, boolean continued, int newChunks,
+                             int contextTokens) {
+    }
+
+    /**
+     * Answers the next question in a session.
+     *
+     * @throws NoSuchElementException if the session does not exist, expired or is not the user's
+     * @throws SessionBusyException   if the session is still answering its previous question
+     */
+    public ChatAnswer ask(String sessionId, String userId, String question) {
+        ChatSession session = sessions.get(sessionId, userId);
+        if (session == null) {
+            throw new NoSuchElementException("Chat session not found: " + sessionId);
+        }
+        session.beginTurn();
+        try {
+            return turn(session, question);
+        } finally {
+            session.endTurn();
+        }
+    }
+
+    private ChatAnswer turn(ChatSession session, String question) {
+        // A follow-up like "and for contractors?" retrieves better together with what it follows up on
+        String query = session.getLastQuestion() == null ? question : session.getLastQuestion() + " " + question;
+        List<Document> retrieved = retriever.retrieve(query);
+        List<Document> unseen = retrieved.stream().filter(d -> !session.hasSent(d.getId())).toList();
+
+        int[] context = session.getContext();
+        if (context != null) {
+            int reserved = context.length + promptBuilder.followUpReservedTokens(question);
+            if (reserved + numPredict < numCtx) {
+                ContextAssembler.AssembledContext assembled = contextAssembler.assemble(unseen, reserved);
+                String prompt = promptBuilder.followUp(assembled.text(), question);
+                System.out.println("=== Chat " + session.getId() + ": follow-up on " + context.length
+                        + " context tokens, " + assembled.documents().size() + " new chunks");
+                return generate(session, question, prompt, context, assembled.documents(), retrieved);
+            }
+            System.out.println("=== Chat " + session.getId() + ": context full at " + context.length
+                    + " tokens, starting over");
+            session.restart();
+            unseen = retrieved;
+        }
+
+        if (retrieved.isEmpty() && session.getLastQuestion() == null) {
+            String answer = "No documents found in the database. Please upload documents first.";
+            session.recordTurn(question, answer, null, List.of());
+            return new ChatAnswer(answer, List.of(), session.getTurns(), false, 0, 0);
+        }
+        String previousQuestion = session.getLastQuestion();
+        String previousAnswer = session.getLastAnswer();
+        int reserved = previousQuestion == null ? promptBuilder.reservedTokens(question)
+                : TokenEstimator.estimate(promptBuilder.resume("", question, previousQuestion, previousAnswer));
+        ContextAssembler.AssembledContext assembled = contextAssembler.assemble(unseen, reserved);
+        String prompt = previousQuestion == null ? promptBuilder.build(assembled.text(), question)
+                : promptBuilder.resume(assembled.text(), question, previousQuestion, previousAnswer);
+        return generate(session, question, prompt, null, assembled.documents(), retrieved);
+    }
+
+    private ChatAnswer generate(ChatSession session, String question, String prompt, int[] context,
+                                List<Document> sent, List<Document> retrieved) {
+        GenerationResult result;
+        try {
+            result = generationScheduler.generateWithContext(prompt, context, GenerationScheduler.Priority.INTERACTIVE)
+                    .join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof GenerationRejectedException rejected) {
+                throw rejected;
+            }
+            System.err.println("Error calling LLM service: " + e.getCause().getMessage());
+            // The session is unchanged, so asking again retries the same turn
+            return new ChatAnswer(e.getCause() instanceof OllamaException ollama && ollama.getStatus() == 0
+                    ? "❌ LLM service is currently unavailable. Please try again later."
+                    : "❌ Error communicating with LLM service: " + e.getCause().getMessage(),
+                    List.of(), session.getTurns(), context != null, 0, context == null ? 0 : context.length);
+        }
+
+        int[] newContext = result.context();
+        session.recordTurn(question, result.response(), newContext, sent.stream().map(Document::getId).toList());
+        List<String> sources = retrieved.stream()
+                .map(d -> String.valueOf(d.getMetadata().get("source")))
+                .distinct()
+                .toList();
+        return new ChatAnswer(result.response(), sources, session.getTurns(), context != null, sent.size(),
+                newContext == null ? 0 : newContext.length);
+    }
+}
@@ -0,0 +1,122 @@
+package com.pm.Q.A_Bot.service.chat;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One conversation: the context Ollama returned after the last turn, the chunks already in that context and
+ * the last question and answer (used to start over when the context no longer fits). Turns are serialized
+ * by {@link #beginTurn()} and {@link #endTurn()}; fields are only touched in between.
+ */
+public final class ChatSession {
+
+    private final String id;
+    private final String userId;
+    private final long createdAtMillis;
+    private final ReentrantLock turnLock = new ReentrantLock();
+
+    private volatile long lastAccessMillis;
+    private volatile int[] context;
+    private final Set<String> chunkIds = new HashSet<>();
+    private String lastQuestion;
+    private String lastAnswer;
+    private volatile int turns;
+    private volatile int restarts;
+
+    ChatSession(String id, String userId, long nowMillis) {
+        this.id = id;
+        this.userId = userId;
+        this.createdAtMillis = nowMillis;
+        this.lastAccessMillis = nowMillis;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Starts a turn. The next turn needs this turn's context, so turns of one session cannot overlap.
+     *
+     * @throws SessionBusyException if another turn is still running
+     */
+    public void beginTurn() {
+        if (!turnLock.tryLock()) {
+            throw new SessionBusyException(id);
+        }
+    }
+
+    public void endTurn() {
+        turnLock.unlock();
+    }
+
+    /** Ollama context to continue from, or null when the next turn has to send a full prompt. */
+    public int[] getContext() {
+        return context;
+    }
+
+    public boolean hasSent(String chunkId) {
+        return chunkIds.contains(chunkId);
+    }
+
+    public String getLastQuestion() {
+        return lastQuestion;
+    }
+
+    public String getLastAnswer() {
+        return lastAnswer;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    /** Forgets the context and the chunks in it; the next turn starts over from a full prompt. */
+    public void restart() {
+        context = null;
+        chunkIds.clear();
+        restarts++;
+    }
+
+    public void recordTurn(String question, String answer, int[] newContext, Iterable<String> sentChunkIds) {
+        context = newContext;
+        if (newContext == null) {
+            chunkIds.clear();
+        } else {
+            sentChunkIds.forEach(chunkIds::add);
+        }
+        lastQuestion = question;
+        lastAnswer = answer;
+        turns++;
+    }
+
+    void touch(long nowMillis) {
+        lastAccessMillis = nowMillis;
+    }
+
+    long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    int contextTokens() {
+        int[] c = context;
+        return c == null ? 0 : c.length;
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("sessionId", id);
+        info.put("turns", turns);
+        info.put("restarts", restarts);
+        info.put("contextTokens", contextTokens());
+        info.put("createdAt", createdAtMillis);
+        info.put("lastAccess", lastAccessMillis);
+        return info;
+    }
+}
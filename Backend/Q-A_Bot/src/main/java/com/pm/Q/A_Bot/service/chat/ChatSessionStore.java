@@ -0,0 +1,136 @@
+package com.pm.Q.A_Bot.service.chat;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Live chat sessions in least-recently-used order. Memory stays bounded: a session holds at most one
+ * {@code num-ctx} sized context, there are at most {@code max-sessions} of them, each user keeps at most
+ * {@code max-per-user}, and sessions idle for {@code idle-minutes} are dropped. Hitting a cap evicts the
+ * least recently used session (the user's own for the per-user cap) rather than refusing the new one.
+ */
+@Service
+public class ChatSessionStore {
+
+    private final int maxSessions;
+    private final int maxPerUser;
+    private final long idleMillis;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<String, ChatSession> sessions = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Integer> perUser = new HashMap<>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong evictedIdle = new AtomicLong();
+    private final AtomicLong evictedCapacity = new AtomicLong();
+
+    @Autowired
+    public ChatSessionStore(@Value("${chat.session.max-sessions:500}") int maxSessions,
+                            @Value("${chat.session.max-per-user:5}") int maxPerUser,
+                            @Value("${chat.session.idle-minutes:30}") long idleMinutes) {
+        this(maxSessions, maxPerUser, idleMinutes * 60_000, System::currentTimeMillis);
+    }
+
+    ChatSessionStore(int maxSessions, int maxPerUser, long idleMillis, LongSupplier clock) {
+        this.maxSessions = maxSessions;
+        this.maxPerUser = maxPerUser;
+        this.idleMillis = idleMillis;
+        this.clock = clock;
+    }
+
+    public synchronized ChatSession create(String userId) {
+        long now = clock.getAsLong();
+        evictIdle(now);
+        if (perUser.getOrDefault(userId, 0) >= maxPerUser) {
+            evictEldest(userId);
+        }
+        if (sessions.size() >= maxSessions) {
+            evictEldest(null);
+        }
+        ChatSession session = new ChatSession(UUID.randomUUID().toString(), userId, now);
+        sessions.put(session.getId(), session);
+        perUser.merge(userId, 1, Integer::sum);
+        created.incrementAndGet();
+        return session;
+    }
+
+    /** The user's session, or null if it does not exist, expired or belongs to someone else. */
+    public synchronized ChatSession get(String sessionId, String userId) {
+        long now = clock.getAsLong();
+        evictIdle(now);
+        ChatSession session = sessions.get(sessionId);
+        if (session == null || !session.getUserId().equals(userId)) {
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    public synchronized boolean remove(String sessionId, String userId) {
+        ChatSession session = sessions.get(sessionId);
+        if (session == null || !session.getUserId().equals(userId)) {
+            return false;
+        }
+        drop(sessions.remove(sessionId));
+        return true;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        evictIdle(clock.getAsLong());
+        long contextTokens = 0;
+        for (ChatSession session : sessions.values()) {
+            contextTokens += session.contextTokens();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", sessions.size());
+        stats.put("users", perUser.size());
+        stats.put("maxSessions", maxSessions);
+        stats.put("maxPerUser", maxPerUser);
+        stats.put("contextTokens", contextTokens);
+        stats.put("created", created.get());
+        stats.put("evictedIdle", evictedIdle.get());
+        stats.put("evictedCapacity", evictedCapacity.get());
+        return stats;
+    }
+
+    /** Access order puts the idlest sessions first, so the sweep stops at the first recent one. */
+    private void evictIdle(long now) {
+        Iterator<ChatSession> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            ChatSession session = it.next();
+            if (now - session.getLastAccessMillis() < idleMillis) {
+                return;
+            }
+            it.remove();
+            drop(session);
+            evictedIdle.incrementAndGet();
+        }
+    }
+
+    /** Least recently used session overall, or of {@code userId} when given. */
+    private void evictEldest(String userId) {
+        Iterator<ChatSession> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            ChatSession session = it.next();
+            if (userId == null || session.getUserId().equals(userId)) {
+                it.remove();
+                drop(session);
+                evictedCapacity.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void drop(ChatSession session) {
+        perUser.computeIfPresent(session.getUserId(), (user, count) -> count > 1 ? count - 1 : null);
+    }
+}
@@ -0,0 +1,12 @@
+package com.pm.Q.A_Bot.service.chat;
+
+/**
+ * Thrown when a question arrives for a session that is still answering its previous one; callers should
+ * answer 409.
+ */
+public class SessionBusyException extends RuntimeException {
+
+    public SessionBusyException(String sessionId) {
+        super("The previous question in session " + sessionId + " is still being answered");
+    }
+}
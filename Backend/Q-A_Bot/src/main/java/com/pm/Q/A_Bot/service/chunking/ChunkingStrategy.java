@@ -0,0 +1,26 @@
+package com.pm.Q.A_Bot.service.chunking;
+
+import java.util.function.Consumer;
+
+/**
+ * Splits a document's text into chunks for embedding. Text arrives incrementally, so strategies only buffer
+ * what they need to pick the next boundary.
+ */
+public interface ChunkingStrategy {
+
+    String name();
+
+    /**
+     * Starts chunking one document. Chunks are passed to the sink as views over the strategy's buffer and are
+     * only valid for the duration of the call; the sink must copy what it keeps.
+     */
+    Session open(Consumer<CharSequence> sink);
+
+    interface Session {
+
+        void append(char[] ch, int start, int length);
+
+        /** Flushes the trailing chunk; the session is unusable afterwards. */
+        void finish();
+    }
+}
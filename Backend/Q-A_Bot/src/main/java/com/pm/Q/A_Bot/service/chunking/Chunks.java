@@ -0,0 +1,23 @@
+package com.pm.Q.A_Bot.service.chunking;
+
+import java.nio.CharBuffer;
+
+/**
+ * Helpers shared by the chunking strategies.
+ */
+final class Chunks {
+
+    private Chunks() {
+    }
+
+    /** Read-only view of {@code text[start, end)} without surrounding whitespace; no characters are copied. */
+    static CharSequence trimmedView(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return CharBuffer.wrap(text, start, end);
+    }
+}
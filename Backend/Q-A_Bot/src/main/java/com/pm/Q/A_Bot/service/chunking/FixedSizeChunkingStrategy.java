@@ -0,0 +1,27 @@
+package com.pm.Q.A_Bot.service.chunking;
+
+import java.util.function.Consumer;
+
+/**
+ * The original splitter: fixed character windows with a character overlap, regardless of text structure.
+ */
+public class FixedSizeChunkingStrategy implements ChunkingStrategy {
+
+    private final int chunkSize;
+    private final int overlap;
+
+    public FixedSizeChunkingStrategy(int chunkSize, int overlap) {
+        this.chunkSize = chunkSize;
+        this.overlap = overlap;
+    }
+
+    @Override
+    public String name() {
+        return "fixed";
+    }
+
+    @Override
+    public Session open(Consumer<CharSequence> sink) {
+        return new StreamingChunker(chunkSize, overlap, sink);
+    }
+}
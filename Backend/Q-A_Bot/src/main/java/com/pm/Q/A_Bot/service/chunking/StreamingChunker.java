@@ -0,0 +1,63 @@
+package com.pm.Q.A_Bot.service.chunking;
+
+import java.util.function.Consumer;
+
+/**
+ * Session of the {@link FixedSizeChunkingStrategy}: incremental fixed-size character chunks with overlap. Text is appended as it is extracted and each chunk is
+ * handed to the sink as soon as it is full, so only about one chunk of text is buffered at a time.
+ * <p>
+ * Produces the same chunks as slicing the complete text at {@code chunkSize - overlap} strides.
+ */
+public class StreamingChunker implements ChunkingStrategy.Session {
+
+    private final int chunkSize;
+    private final int overlap;
+    private final Consumer<CharSequence> sink;
+    private final StringBuilder buffer;
+    private int emitted;
+
+    public StreamingChunker(int chunkSize, int overlap, Consumer<CharSequence> sink) {
+        if (overlap < 0 || overlap >= chunkSize) {
+            throw new IllegalArgumentException("Overlap must be in [0, chunkSize): " + overlap);
+        }
+        this.chunkSize = chunkSize;
+        this.overlap = overlap;
+        this.sink = sink;
+        this.buffer = new StringBuilder(chunkSize * 2);
+    }
+
+    @Override
+    public void append(char[] ch, int start, int length) {
+        int end = start + length;
+        while (start < end) {
+            int take = Math.min(end - start, chunkSize - buffer.length());
+            buffer.append(ch, start, take);
+            start += take;
+            if (buffer.length() == chunkSize) {
+                emit();
+                buffer.delete(0, chunkSize - overlap);
+            }
+        }
+    }
+
+    /**
+     * Flushes the trailing partial chunk. The tail is skipped when it is only the overlap of the last
+     * full chunk, which already carries that text.
+     */
+    @Override
+    public void finish() {
+        if ((emitted == 0 && buffer.length() > 0) || buffer.length() > overlap) {
+            emit();
+        }
+        buffer.setLength(0);
+    }
+
+    public int emitted() {
+        return emitted;
+    }
+
+    private void emit() {
+        sink.accept(Chunks.trimmedView(buffer, 0, buffer.length()));
+        emitted++;
+    }
+}
@@ -0,0 +1,199 @@
+package com.pm.Q.A_Bot.service.chunking;
+
+import java.util.function.Consumer;
+
+/**
+ * Token-budgeted chunks cut at the strongest structural boundary available: before a heading, then at a
+ * paragraph break, a sentence end, a line break and finally between words. Consecutive chunks share up to
+ * {@code overlapTokens} of trailing text, snapped to a sentence or word start.
+ */
+public class StructuredChunkingStrategy implements ChunkingStrategy {
+
+    private static final int HEADING = 4;
+    private static final int PARAGRAPH = 3;
+    private static final int SENTENCE = 2;
+    private static final int LINE = 1;
+    private static final int WORD = 0;
+
+    private static final int MAX_HEADING_LENGTH = 80;
+    // Re-estimate the buffer after this many appended characters rather than on every SAX event
+    private static final int CHECK_INTERVAL = 128;
+
+    private final int maxTokens;
+    private final int overlapTokens;
+
+    public StructuredChunkingStrategy(int maxTokens, int overlapTokens) {
+        if (maxTokens <= 0 || overlapTokens < 0 || overlapTokens >= maxTokens / 2) {
+            throw new IllegalArgumentException("Need maxTokens > 0 and 0 <= overlapTokens < maxTokens / 2");
+        }
+        this.maxTokens = maxTokens;
+        this.overlapTokens = overlapTokens;
+    }
+
+    @Override
+    public String name() {
+        return "structured";
+    }
+
+    @Override
+    public Session open(Consumer<CharSequence> sink) {
+        return new StructuredSession(sink);
+    }
+
+    private final class StructuredSession implements Session {
+
+        private final Consumer<CharSequence> sink;
+        private final StringBuilder buffer = new StringBuilder();
+        // Leading characters of the buffer that were already emitted as the previous chunk's tail
+        private int retained;
+        private int checkedLength;
+
+        StructuredSession(Consumer<CharSequence> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void append(char[] ch, int start, int length) {
+            buffer.append(ch, start, length);
+            if (buffer.length() - checkedLength >= CHECK_INTERVAL) {
+                cutWhileOverBudget();
+                checkedLength = buffer.length();
+            }
+        }
+
+        @Override
+        public void finish() {
+            cutWhileOverBudget();
+            if (hasContent(retained, buffer.length())) {
+                sink.accept(Chunks.trimmedView(buffer, 0, buffer.length()));
+            }
+            buffer.setLength(0);
+            retained = 0;
+            checkedLength = 0;
+        }
+
+        private void cutWhileOverBudget() {
+            int limit;
+            while ((limit = TokenEstimator.fitForward(buffer, 0, buffer.length(), maxTokens)) < buffer.length()) {
+                int cut = boundary(retained + (limit - retained) / 2, limit);
+                sink.accept(Chunks.trimmedView(buffer, 0, cut));
+
+                int tail = overlapStart(cut);
+                buffer.delete(0, tail);
+                retained = cut - tail;
+            }
+        }
+
+        /**
+         * Best boundary in {@code (floor, limit]}: highest boundary rank, latest position within a rank.
+         * Falls back to a hard cut at {@code limit} for text without whitespace.
+         */
+        private int boundary(int floor, int limit) {
+            int best = limit;
+            int bestRank = -1;
+            for (int p = limit; p > floor && bestRank < HEADING; p--) {
+                int rank = rank(p);
+                if (rank > bestRank) {
+                    best = p;
+                    bestRank = rank;
+                }
+            }
+            return best;
+        }
+
+        private int rank(int p) {
+            char prev = buffer.charAt(p - 1);
+            if (!Character.isWhitespace(prev)) {
+                return -1;
+            }
+            if (prev == '\n') {
+                if (startsHeading(p)) {
+                    return HEADING;
+                }
+                if (isBlankLineBefore(p - 1)) {
+                    return PARAGRAPH;
+                }
+            }
+            int q = p - 1;
+            while (q > 0 && Character.isWhitespace(buffer.charAt(q - 1))) {
+                q--;
+            }
+            if (q > 0 && isSentenceEnd(q - 1)) {
+                return SENTENCE;
+            }
+            return prev == '\n' ? LINE : WORD;
+        }
+
+        private boolean isBlankLineBefore(int newline) {
+            for (int i = newline - 1; i >= 0; i--) {
+                char c = buffer.charAt(i);
+                if (c == '\n') {
+                    return true;
+                }
+                if (!Character.isWhitespace(c)) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        /** Markdown headings, or a short line without terminal punctuation that follows a blank line. */
+        private boolean startsHeading(int lineStart) {
+            int end = lineStart;
+            while (end < buffer.length() && buffer.charAt(end) != '\n') {
+                end++;
+            }
+            if (end == buffer.length()) {
+                return false;
+            }
+            if (buffer.charAt(lineStart) == '#') {
+                return true;
+            }
+            int last = end - 1;
+            while (last >= lineStart && Character.isWhitespace(buffer.charAt(last))) {
+                last--;
+            }
+            return last >= lineStart
+                    && end - lineStart <= MAX_HEADING_LENGTH
+                    && Character.isLetterOrDigit(buffer.charAt(last))
+                    && isBlankLineBefore(lineStart - 1);
+        }
+
+        private boolean isSentenceEnd(int i) {
+            char c = buffer.charAt(i);
+            while ((c == '"' || c == '\'' || c == ')' || c == '”') && i > 0) {
+                c = buffer.charAt(--i);
+            }
+            return c == '.' || c == '!' || c == '?';
+        }
+
+        /** Start of the tail of {@code [0, cut)} carried into the next chunk; {@code cut} when there is none. */
+        private int overlapStart(int cut) {
+            if (overlapTokens == 0) {
+                return cut;
+            }
+            int start = Math.max(1, TokenEstimator.fitBackward(buffer, 0, cut, overlapTokens));
+            int wordStart = -1;
+            for (int p = start; p < cut; p++) {
+                if (Character.isWhitespace(buffer.charAt(p - 1))) {
+                    if (rank(p) >= SENTENCE) {
+                        return p;
+                    }
+                    if (wordStart < 0) {
+                        wordStart = p;
+                    }
+                }
+            }
+            return wordStart < 0 ? cut : wordStart;
+        }
+
+        private boolean hasContent(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (!Character.isWhitespace(buffer.charAt(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
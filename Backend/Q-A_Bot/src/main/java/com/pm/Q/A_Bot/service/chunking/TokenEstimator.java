@@ -0,0 +1,89 @@
+package com.pm.Q.A_Bot.service.chunking;
+
+/**
+ * Approximate BPE token counts without a tokenizer: every started group of four letters or digits in a
+ * word is one token, every other non-whitespace character is one token, whitespace is free.
+ * <p>
+ * Tracks llama/nomic tokenizers closely enough for budgeting chunks and prompts against {@code num-ctx}.
+ */
+public final class TokenEstimator {
+
+    private static final int CHARS_PER_WORD_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        return estimate(text, 0, text.length());
+    }
+
+    public static int estimate(CharSequence text, int from, int to) {
+        int tokens = 0;
+        int run = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (run++ % CHARS_PER_WORD_TOKEN == 0) {
+                    tokens++;
+                }
+            } else {
+                run = 0;
+                if (!Character.isWhitespace(c)) {
+                    tokens++;
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Largest {@code end} in {@code [from, to]} such that {@code estimate(text, from, end) <= budget}.
+     */
+    public static int fitForward(CharSequence text, int from, int to, int budget) {
+        int tokens = 0;
+        int run = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (run++ % CHARS_PER_WORD_TOKEN == 0) {
+                    tokens++;
+                }
+            } else {
+                run = 0;
+                if (!Character.isWhitespace(c)) {
+                    tokens++;
+                }
+            }
+            if (tokens > budget) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Smallest {@code start} in {@code [from, to]} such that {@code estimate(text, start, to) <= budget}.
+     * Word runs cost the same counted from either end, so this agrees with {@link #estimate}.
+     */
+    public static int fitBackward(CharSequence text, int from, int to, int budget) {
+        int tokens = 0;
+        int run = 0;
+        for (int i = to - 1; i >= from; i--) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (run++ % CHARS_PER_WORD_TOKEN == 0) {
+                    tokens++;
+                }
+            } else {
+                run = 0;
+                if (!Character.isWhitespace(c)) {
+                    tokens++;
+                }
+            }
+            if (tokens > budget) {
+                return i + 1;
+            }
+        }
+        return from;
+    }
+}
@@ -0,0 +1,128 @@
+package com.pm.Q.A_Bot.service.embedding;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EmbeddingModel} decorator that serves repeated chunk and query texts from a content-hash cache.
+ * <p>
+ * Lookups go memory first, then the optional disk tier; only the misses of a request are sent to the
+ * delegate, in a single batch, and the results are written back to both tiers.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final String modelName;
+    private final MemoryEmbeddingCache memory;
+    private final DiskEmbeddingCache disk;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, String modelName, MemoryEmbeddingCache memory,
+                                 DiskEmbeddingCache disk) {
+        this.delegate = delegate;
+        this.modelName = modelName;
+        this.memory = memory;
+        this.disk = disk;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> inputs = request.getInstructions();
+        float[][] results = new float[inputs.size()][];
+        // Identical texts within one request are embedded once
+        Map<String, List<Integer>> missing = new LinkedHashMap<>();
+        Map<String, String> missingText = new LinkedHashMap<>();
+
+        for (int i = 0; i < inputs.size(); i++) {
+            String key = EmbeddingKeys.key(modelName, inputs.get(i));
+            float[] cached = lookup(key);
+            if (cached != null) {
+                results[i] = cached;
+            } else {
+                missing.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+                missingText.putIfAbsent(key, inputs.get(i));
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            misses.addAndGet(missing.size());
+            List<String> keys = new ArrayList<>(missing.keySet());
+            EmbeddingResponse response = delegate.call(
+                    new EmbeddingRequest(new ArrayList<>(missingText.values()), request.getOptions()));
+            List<Embedding> computed = response.getResults();
+            for (int i = 0; i < keys.size(); i++) {
+                float[] embedding = computed.get(i).getOutput();
+                memory.put(keys.get(i), embedding);
+                if (disk != null) {
+                    disk.put(keys.get(i), embedding);
+                }
+                for (int index : missing.get(keys.get(i))) {
+                    results[index] = embedding;
+                }
+            }
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            embeddings.add(new Embedding(results[i], i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private float[] lookup(String key) {
+        float[] cached = memory.get(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return cached;
+        }
+        if (disk != null) {
+            cached = disk.get(key);
+            if (cached != null) {
+                diskHits.incrementAndGet();
+                memory.put(key, cached);
+                return cached;
+            }
+        }
+        return null;
+    }
+
+    public Map<String, Object> stats() {
+        long memory = memoryHits.get();
+        long disk = diskHits.get();
+        long miss = misses.get();
+        long lookups = memory + disk + miss;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("model", modelName);
+        stats.put("memoryHits", memory);
+        stats.put("diskHits", disk);
+        stats.put("misses", miss);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) (memory + disk) / lookups);
+        stats.put("memoryEntries", this.memory.size());
+        stats.put("memoryBytes", this.memory.bytes());
+        stats.put("evictions", this.memory.evictions());
+        stats.put("diskEnabled", this.disk != null);
+        return stats;
+    }
+}
@@ -0,0 +1,55 @@
+package com.pm.Q.A_Bot.service.embedding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Persistent embedding tier: one little-endian float file per key, sharded by the first two hex digits.
+ * Writes go to a temp file and are moved into place, so readers never see partial vectors.
+ */
+public class DiskEmbeddingCache {
+
+    private final Path root;
+
+    public DiskEmbeddingCache(Path root) throws IOException {
+        this.root = root;
+        Files.createDirectories(root);
+    }
+
+    public float[] get(String key) {
+        try {
+            byte[] bytes = Files.readAllBytes(path(key));
+            float[] embedding = new float[bytes.length / Float.BYTES];
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(embedding);
+            return embedding;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Embedding cache read failed for " + key + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(String key, float[] embedding) {
+        Path target = path(key);
+        try {
+            Files.createDirectories(target.getParent());
+            ByteBuffer buffer = ByteBuffer.allocate(embedding.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asFloatBuffer().put(embedding);
+            Path tmp = Files.createTempFile(target.getParent(), key, ".tmp");
+            Files.write(tmp, buffer.array());
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Embedding cache write failed for " + key + ": " + e.getMessage());
+        }
+    }
+
+    private Path path(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key + ".f32");
+    }
+}
@@ -0,0 +1,37 @@
+package com.pm.Q.A_Bot.service.embedding;
+
+import com.pm.Q.A_Bot.service.limits.ResourceLimit;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * {@link EmbeddingModel} decorator that sends requests to the model under its {@link ResourceLimit}. Sits
+ * below the cache, so only misses take a permit.
+ */
+public class LimitedEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final ResourceLimit limit;
+
+    public LimitedEmbeddingModel(EmbeddingModel delegate, ResourceLimit limit) {
+        this.delegate = delegate;
+        this.limit = limit;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return limit.call(() -> delegate.call(request));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return limit.call(() -> delegate.embed(document));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,102 @@
+package com.pm.Q.A_Bot.service.embedding;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte-bounded LRU of embeddings, split into independently locked segments to keep lock contention low.
+ */
+public class MemoryEmbeddingCache {
+
+    private static final int SEGMENTS = 16;
+    // Rough per-entry overhead: 64-char key, map node and array header
+    private static final int ENTRY_OVERHEAD = 200;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final AtomicLong evictions = new AtomicLong();
+
+    public MemoryEmbeddingCache(long maxBytes) {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(1, maxBytes / SEGMENTS));
+        }
+    }
+
+    public float[] get(String key) {
+        return segment(key).get(key);
+    }
+
+    public void put(String key, float[] embedding) {
+        segment(key).put(key, embedding);
+    }
+
+    public long bytes() {
+        long total = 0;
+        for (Segment s : segments) {
+            total += s.bytes();
+        }
+        return total;
+    }
+
+    public long size() {
+        long total = 0;
+        for (Segment s : segments) {
+            total += s.size();
+        }
+        return total;
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    private Segment segment(String key) {
+        return segments[(key.hashCode() & 0x7fffffff) % SEGMENTS];
+    }
+
+    private static long weight(float[] embedding) {
+        return (long) embedding.length * Float.BYTES + ENTRY_OVERHEAD;
+    }
+
+    private final class Segment {
+
+        private final long maxBytes;
+        private final LinkedHashMap<String, float[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long bytes;
+
+        Segment(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized float[] get(String key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(String key, float[] embedding) {
+            float[] previous = entries.put(key, embedding);
+            if (previous != null) {
+                bytes -= weight(previous);
+            }
+            bytes += weight(embedding);
+            Iterator<Map.Entry<String, float[]>> eldest = entries.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, float[]> e = eldest.next();
+                if (e.getKey().equals(key)) {
+                    continue;
+                }
+                bytes -= weight(e.getValue());
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
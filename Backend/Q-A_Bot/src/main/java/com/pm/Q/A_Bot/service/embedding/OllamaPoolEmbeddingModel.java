@@ -0,0 +1,48 @@
+package com.pm.Q.A_Bot.service.embedding;
+
+import com.pm.Q.A_Bot.service.llm.OllamaClient;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+/**
+ * {@link EmbeddingModel} over the Ollama backend pool: each request is one {@code /api/embed} call on the least
+ * loaded backend, sharing the generation client's HTTP connections.
+ */
+public class OllamaPoolEmbeddingModel implements EmbeddingModel {
+
+    private final OllamaClient ollamaClient;
+
+    public OllamaPoolEmbeddingModel(OllamaClient ollamaClient) {
+        this.ollamaClient = ollamaClient;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<float[]> vectors;
+        try {
+            vectors = ollamaClient.embed(request.getInstructions()).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        List<Embedding> embeddings = new ArrayList<>(vectors.size());
+        for (int i = 0; i < vectors.size(); i++) {
+            embeddings.add(new Embedding(vectors.get(i), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+}
@@ -0,0 +1,173 @@
+package com.pm.Q.A_Bot.service.health;
+
+import com.pm.Q.A_Bot.service.ingest.ChunkIndexService;
+import com.pm.Q.A_Bot.service.llm.OllamaBackend;
+import com.pm.Q.A_Bot.service.llm.OllamaBackendPool;
+import com.pm.Q.A_Bot.service.llm.OllamaClient;
+import com.pm.Q.A_Bot.service.vectorstore.HnswVectorStore;
+import com.pm.Q.A_Bot.service.vectorstore.LimitedVectorStore;
+import com.pm.Q.A_Bot.service.vectorstore.QuantizedFlatVectorStore;
+import io.pinecone.clients.Pinecone;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.pinecone.PineconeVectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks Ollama, the vector store and MySQL on a schedule and keeps the latest results, so health and status
+ * endpoints can be polled as often as monitoring likes without generating, embedding or searching. Ollama is
+ * checked by listing each backend's models, the vector store by asking for its size, MySQL by counting the
+ * chunk index.
+ */
+@Service
+public class DependencyProber {
+
+    private final OllamaClient ollamaClient;
+    private final OllamaBackendPool backendPool;
+    private final VectorStore vectorStore;
+    private final ChunkIndexService chunkIndex;
+    private final String indexName;
+    private final String llmModel;
+    private final String embeddingModel;
+    private final long intervalMillis;
+    private final Duration timeout;
+
+    private volatile HealthSnapshot snapshot;
+
+    public DependencyProber(OllamaClient ollamaClient,
+                            OllamaBackendPool backendPool,
+                            VectorStore vectorStore,
+                            ChunkIndexService chunkIndex,
+                            @Value("${spring.ai.vectorstore.pinecone.index-name:}") String indexName,
+                            @Value("${llm.service.model:llama3.2:1b}") String llmModel,
+                            @Value("${spring.ai.ollama.embedding.model:nomic-embed-text:latest}") String embeddingModel,
+                            @Value("${health.probe.interval-ms:15000}") long intervalMillis,
+                            @Value("${health.probe.timeout-ms:3000}") long timeoutMillis) {
+        this.ollamaClient = ollamaClient;
+        this.backendPool = backendPool;
+        this.vectorStore = vectorStore;
+        this.chunkIndex = chunkIndex;
+        this.indexName = indexName;
+        this.llmModel = llmModel;
+        this.embeddingModel = embeddingModel;
+        this.intervalMillis = intervalMillis;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+    }
+
+    /** The latest probe round, or null before the first one has finished. */
+    public HealthSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * True once probe rounds stop arriving: the scheduler thread is stuck, which a restart is the only cure for.
+     */
+    public boolean isStale() {
+        HealthSnapshot current = snapshot;
+        long staleAfterMicros = TimeUnit.MILLISECONDS.toMicros(3 * intervalMillis + timeout.toMillis());
+        return current != null && ProbeResult.nowMicros() - current.checkedAtMicros() > staleAfterMicros;
+    }
+
+    @Scheduled(initialDelayString = "${health.probe.initial-delay-ms:0}", fixedDelayString = "${health.probe.interval-ms:15000}")
+    public void probe() {
+        Map<String, ProbeResult> results = new LinkedHashMap<>();
+        results.put(HealthSnapshot.OLLAMA, probeOllama());
+        results.put(HealthSnapshot.VECTOR_STORE, ProbeResult.timed(this::probeVectorStore));
+        results.put(HealthSnapshot.DATABASE, ProbeResult.timed(this::probeDatabase));
+        HealthSnapshot next = new HealthSnapshot(ProbeResult.nowMicros(), results);
+        HealthSnapshot previous = snapshot;
+        snapshot = next;
+        if (previous == null || previous.ready() != next.ready()) {
+            System.out.println("=== Dependencies " + (next.ready() ? "ready" : "not ready") + ": " + summary(next));
+        }
+    }
+
+    /** Up when at least one backend answers and has both the generation and the embedding model pulled. */
+    private ProbeResult probeOllama() {
+        long checkedAt = ProbeResult.nowMicros();
+        long started = System.nanoTime();
+        List<OllamaBackend> backends = backendPool.getBackends();
+        List<CompletableFuture<List<String>>> listings = backends.stream()
+                .map(backend -> ollamaClient.models(backend, timeout))
+                .toList();
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        int usable = 0;
+        String lastError = null;
+        for (int i = 0; i < backends.size(); i++) {
+            OllamaBackend backend = backends.get(i);
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("circuit", backend.stats().get("circuit"));
+            try {
+                List<String> models = listings.get(i).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                List<String> missing = List.of(llmModel, embeddingModel).stream()
+                        .filter(model -> !hasModel(models, model))
+                        .toList();
+                status.put("reachable", true);
+                status.put("missingModels", missing);
+                if (missing.isEmpty()) {
+                    usable++;
+                } else {
+                    lastError = backend.getName() + " is missing " + String.join(", ", missing);
+                }
+            } catch (Exception e) {
+                listings.get(i).cancel(true);
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                status.put("reachable", false);
+                status.put("error", String.valueOf(cause.getMessage()));
+                lastError = backend.getName() + ": " + cause.getMessage();
+            }
+            details.put(backend.getName(), status);
+        }
+        long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("usableBackends", usable);
+        result.put("backends", details);
+        return usable > 0 ? ProbeResult.up(checkedAt, latency, result) : ProbeResult.down(checkedAt, latency, result, lastError);
+    }
+
+    private Map<String, Object> probeVectorStore() {
+        VectorStore store = vectorStore instanceof LimitedVectorStore limited ? limited.getDelegate() : vectorStore;
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("type", store.getName());
+        if (store instanceof HnswVectorStore hnsw) {
+            details.put("vectors", hnsw.size());
+        } else if (store instanceof QuantizedFlatVectorStore flat) {
+            details.put("vectors", flat.size());
+        } else if (store instanceof PineconeVectorStore pinecone) {
+            Pinecone client = pinecone.<Pinecone>getNativeClient().orElseThrow();
+            details.put("vectors", client.getIndexConnection(indexName).describeIndexStats().getTotalVectorCount());
+            details.put("indexName", indexName);
+        } else {
+            // No way to ask this store for its size; a one-result search at least shows it answers
+            store.similaritySearch(SearchRequest.builder().query("health").topK(1).build());
+        }
+        return details;
+    }
+
+    private Map<String, Object> probeDatabase() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("indexedChunks", chunkIndex.count());
+        details.put("sources", chunkIndex.sourceCount());
+        return details;
+    }
+
+    private static boolean hasModel(List<String> models, String model) {
+        return models.contains(model) || (!model.contains(":") && models.contains(model + ":latest"));
+    }
+
+    private static String summary(HealthSnapshot snapshot) {
+        StringBuilder summary = new StringBuilder();
+        snapshot.dependencies().forEach((name, result) -> summary.append(name).append(result.up() ? " ✅ " : " ❌ "));
+        return summary.toString().trim();
+    }
+}
@@ -0,0 +1,22 @@
+package com.pm.Q.A_Bot.service.health;
+
+import java.util.Map;
+
+/**
+ * Results of one probe round, keyed by dependency ({@code ollama}, {@code vectorStore}, {@code database}).
+ */
+public record HealthSnapshot(long checkedAtMicros, Map<String, ProbeResult> dependencies) {
+
+    public static final String OLLAMA = "ollama";
+    public static final String VECTOR_STORE = "vectorStore";
+    public static final String DATABASE = "database";
+
+    public ProbeResult get(String dependency) {
+        return dependencies.get(dependency);
+    }
+
+    /** Every dependency a question needs is up. */
+    public boolean ready() {
+        return dependencies.values().stream().allMatch(ProbeResult::up);
+    }
+}
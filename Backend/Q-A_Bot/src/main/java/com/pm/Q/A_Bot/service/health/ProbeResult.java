@@ -0,0 +1,41 @@
+package com.pm.Q.A_Bot.service.health;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of one dependency check. Times are in microseconds, {@code checkedAtMicros} since the epoch.
+ */
+public record ProbeResult(boolean up, long checkedAtMicros, long latencyMicros, Map<String, Object> details,
+                          String error) {
+
+    public static ProbeResult up(long checkedAtMicros, long latencyMicros, Map<String, Object> details) {
+        return new ProbeResult(true, checkedAtMicros, latencyMicros, details, null);
+    }
+
+    public static ProbeResult down(long checkedAtMicros, long latencyMicros, Map<String, Object> details, String error) {
+        return new ProbeResult(false, checkedAtMicros, latencyMicros, details, error);
+    }
+
+    /** Runs one check, up with the details it returns or down with the message of whatever it throws. */
+    public static ProbeResult timed(Callable<Map<String, Object>> check) {
+        long checkedAt = nowMicros();
+        long started = System.nanoTime();
+        try {
+            Map<String, Object> details = check.call();
+            return up(checkedAt, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started), details);
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            return down(checkedAt, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started),
+                    Map.of(), cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+        }
+    }
+
+    public static long nowMicros() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+}
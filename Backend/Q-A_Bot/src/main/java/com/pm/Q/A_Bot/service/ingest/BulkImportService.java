@@ -0,0 +1,460 @@
+package com.pm.Q.A_Bot.service.ingest;
+
+import com.pm.Q.A_Bot.Entity.DocumentEntity;
+import com.pm.Q.A_Bot.Entity.ImportFileEntity;
+import com.pm.Q.A_Bot.Entity.ImportJobEntity;
+import com.pm.Q.A_Bot.Repository.ImportFileRepository;
+import com.pm.Q.A_Bot.Repository.ImportJobRepository;
+import com.pm.Q.A_Bot.service.storage.DocumentCatalog;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Bulk import of a ZIP archive or a server-side directory. Every file gets a checkpoint row in MySQL when the
+ * import is created; workers from {@code importExecutor} store each file in the {@link DocumentCatalog}, ingest
+ * it through the {@link IngestionPipeline} and mark the row done or failed. Imports still running when the
+ * application stopped are picked up once it is ready again, skipping the files that were done; a file that
+ * was in flight is ingested again, which only re-embeds what did not make it in since chunk ids are stable.
+ * <p>
+ * Files start no faster than {@link ImportThrottle} allows, and their embeddings share the pipeline's
+ * embedding permits with single uploads.
+ */
+@Service
+public class BulkImportService {
+
+    private final ImportJobRepository jobRepository;
+    private final ImportFileRepository fileRepository;
+    private final DocumentCatalog catalog;
+    private final IngestionPipeline pipeline;
+    private final Executor importExecutor;
+    private final ImportThrottle throttle;
+    private final Path archiveDir;
+    private final List<Path> allowedRoots;
+    private final long maxFileBytes;
+    private final int maxPageSize;
+
+    private final Map<Long, Run> running = new ConcurrentHashMap<>();
+
+    public BulkImportService(ImportJobRepository jobRepository,
+                             ImportFileRepository fileRepository,
+                             DocumentCatalog catalog,
+                             IngestionPipeline pipeline,
+                             @Qualifier("importExecutor") Executor importExecutor,
+                             @Value("${import.target-chunks-per-second:25}") double targetChunksPerSecond,
+                             @Value("${import.archive.path:data/imports}") String archivePath,
+                             @Value("${import.directory.allowed-roots:}") String allowedRoots,
+                             @Value("${import.max-file-size-mb:50}") long maxFileSizeMb,
+                             @Value("${docs.history.max-page-size:200}") int maxPageSize) throws IOException {
+        this.jobRepository = jobRepository;
+        this.fileRepository = fileRepository;
+        this.catalog = catalog;
+        this.pipeline = pipeline;
+        this.importExecutor = importExecutor;
+        this.throttle = new ImportThrottle(targetChunksPerSecond);
+        this.archiveDir = Path.of(archivePath);
+        this.allowedRoots = Arrays.stream(allowedRoots.split(","))
+                .map(String::trim)
+                .filter(root -> !root.isEmpty())
+                .map(root -> Path.of(root).toAbsolutePath().normalize())
+                .toList();
+        this.maxFileBytes = maxFileSizeMb * 1024 * 1024;
+        this.maxPageSize = maxPageSize;
+        Files.createDirectories(archiveDir);
+    }
+
+    /** Continues the imports that were running when the application stopped. */
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        for (ImportJobEntity job : jobRepository.findByState(ImportJobEntity.State.RUNNING)) {
+            System.out.println("=== Resuming import " + job.getId() + " (" + job.getName() + ") ===");
+            launch(job);
+        }
+    }
+
+    /** Keeps the archive for resuming, lists its files and starts importing them. */
+    public ImportJobEntity importArchive(MultipartFile file) throws IOException {
+        Path incoming = Files.createTempFile(archiveDir, "incoming", ".zip");
+        try {
+            file.transferTo(incoming);
+            List<String> paths;
+            try (ZipFile zip = new ZipFile(incoming.toFile())) {
+                paths = archiveEntries(zip);
+            } catch (ZipException e) {
+                throw new IllegalArgumentException("Not a ZIP archive: " + e.getMessage());
+            }
+            ImportJobEntity job = create(file.getOriginalFilename(), ImportJobEntity.Kind.ARCHIVE, paths);
+            Path archive = archiveDir.resolve(job.getId() + ".zip");
+            Files.move(incoming, archive, StandardCopyOption.REPLACE_EXISTING);
+            job.setLocation(archive.toString());
+            job = jobRepository.save(job);
+            launch(job);
+            return job;
+        } finally {
+            Files.deleteIfExists(incoming);
+        }
+    }
+
+    /** Imports the files under a directory inside one of {@code import.directory.allowed-roots}. */
+    public ImportJobEntity importDirectory(String directory) throws IOException {
+        if (allowedRoots.isEmpty()) {
+            throw new IllegalArgumentException("Directory imports are disabled; set import.directory.allowed-roots");
+        }
+        if (!Files.isDirectory(Path.of(directory))) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        // Real paths on both sides, so a symlink cannot lead out of the allowed roots
+        Path root = Path.of(directory).toRealPath();
+        boolean allowed = false;
+        for (Path allowedRoot : allowedRoots) {
+            allowed |= Files.isDirectory(allowedRoot) && root.startsWith(allowedRoot.toRealPath());
+        }
+        if (!allowed) {
+            throw new IllegalArgumentException("Not under an allowed import root: " + directory);
+        }
+        ImportJobEntity job = create(root.getFileName().toString(), ImportJobEntity.Kind.DIRECTORY, directoryFiles(root));
+        job.setLocation(root.toString());
+        job = jobRepository.save(job);
+        launch(job);
+        return job;
+    }
+
+    /**
+     * Retries the files of a finished import that failed. Returns false when the import is still running, or
+     * already complete: then there is nothing to retry and an archive import's ZIP is gone.
+     */
+    public boolean resume(ImportJobEntity job) {
+        if (job.getState() == ImportJobEntity.State.COMPLETED || running.containsKey(job.getId())) {
+            return false;
+        }
+        job.setState(ImportJobEntity.State.RUNNING);
+        job.setFinishedAt(null);
+        launch(jobRepository.save(job));
+        return true;
+    }
+
+    public Optional<ImportJobEntity> find(Long id) {
+        return jobRepository.findById(id);
+    }
+
+    /** Checkpoints in import order, optionally only those in one state. */
+    public Page<ImportFileEntity> files(Long jobId, ImportFileEntity.State state, int page, int size) {
+        PageRequest request = PageRequest.of(Math.max(0, page), Math.clamp(size, 1, maxPageSize), Sort.by("id"));
+        return state == null
+                ? fileRepository.findByJobId(jobId, request)
+                : fileRepository.findByJobIdAndState(jobId, state, request);
+    }
+
+    public Map<String, Object> toStatus(ImportJobEntity job) {
+        Map<ImportFileEntity.State, Long> files = new EnumMap<>(ImportFileEntity.State.class);
+        for (ImportFileEntity.State state : ImportFileEntity.State.values()) {
+            files.put(state, 0L);
+        }
+        long chunks = 0;
+        for (Object[] row : fileRepository.summarize(job.getId())) {
+            files.put((ImportFileEntity.State) row[0], (Long) row[1]);
+            chunks += ((Number) row[2]).longValue();
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("importId", job.getId());
+        status.put("name", job.getName());
+        status.put("kind", job.getKind());
+        status.put("state", job.getState());
+        status.put("totalFiles", job.getTotalFiles());
+        status.put("files", files);
+        status.put("chunks", chunks);
+        int total = job.getTotalFiles() == null ? 0 : job.getTotalFiles();
+        long done = files.get(ImportFileEntity.State.COMPLETED) + files.get(ImportFileEntity.State.FAILED);
+        status.put("progress", total == 0 ? 1.0 : (double) done / total);
+        status.put("createdAt", job.getCreatedAt() == null ? null : job.getCreatedAt().toString());
+        status.put("startedAt", job.getStartedAt() == null ? null : job.getStartedAt().toString());
+        status.put("finishedAt", job.getFinishedAt() == null ? null : job.getFinishedAt().toString());
+        Run run = running.get(job.getId());
+        if (run != null) {
+            double seconds = Math.max(0.001, (System.nanoTime() - run.startedNanos) / 1e9);
+            status.put("elapsedSeconds", seconds);
+            status.put("filesPerSecond", run.files.get() / seconds);
+            status.put("chunksPerSecond", run.chunks.get() / seconds);
+        }
+        status.put("targetChunksPerSecond", throttle.getChunksPerSecond());
+        status.put("statusUrl", "/api/rag/imports/" + job.getId());
+        return status;
+    }
+
+    private ImportJobEntity create(String name, ImportJobEntity.Kind kind, List<String> paths) {
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("No files to import");
+        }
+        ImportJobEntity job = new ImportJobEntity();
+        job.setName(name);
+        job.setKind(kind);
+        job.setState(ImportJobEntity.State.RUNNING);
+        job.setTotalFiles(paths.size());
+        job.setCreatedAt(LocalDateTime.now());
+        job = jobRepository.save(job);
+        List<ImportFileEntity> files = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            ImportFileEntity file = new ImportFileEntity();
+            file.setJobId(job.getId());
+            file.setPath(path);
+            file.setState(ImportFileEntity.State.PENDING);
+            file.setAttempts(0);
+            file.setUpdatedAt(job.getCreatedAt());
+            files.add(file);
+        }
+        fileRepository.saveAll(files);
+        System.out.println("=== Import " + job.getId() + " created for " + name + ": " + paths.size() + " files ===");
+        return job;
+    }
+
+    /** Queues every file of the job that is not done yet; the job is finished when the last one returns. */
+    private void launch(ImportJobEntity job) {
+        Run run = new Run();
+        if (running.putIfAbsent(job.getId(), run) != null) {
+            return;
+        }
+        try {
+            run.source = open(job);
+        } catch (IOException e) {
+            System.err.println("❌ Import " + job.getId() + " cannot read " + job.getLocation() + ": " + e.getMessage());
+            running.remove(job.getId());
+            finish(job, ImportJobEntity.State.FAILED);
+            return;
+        }
+        job.setStartedAt(LocalDateTime.now());
+        jobRepository.save(job);
+        List<ImportFileEntity> pending = fileRepository.findByJobIdAndStateNotOrderById(job.getId(), ImportFileEntity.State.COMPLETED);
+        List<CompletableFuture<Void>> files = new ArrayList<>(pending.size());
+        for (ImportFileEntity file : pending) {
+            files.add(CompletableFuture.runAsync(() -> importFile(run, file), importExecutor));
+        }
+        CompletableFuture.allOf(files.toArray(CompletableFuture[]::new)).whenComplete((ignored, error) -> {
+            try {
+                run.source.close();
+            } catch (IOException e) {
+                System.err.println("Could not close import source " + job.getLocation() + ": " + e.getMessage());
+            }
+            running.remove(job.getId());
+            boolean failed = fileRepository.summarize(job.getId()).stream()
+                    .anyMatch(row -> row[0] == ImportFileEntity.State.FAILED);
+            finish(job, failed ? ImportJobEntity.State.FAILED : ImportJobEntity.State.COMPLETED);
+        });
+    }
+
+    private void importFile(Run run, ImportFileEntity file) {
+        try {
+            throttle.acquire();
+            DocumentCatalog.StoredDocument stored;
+            try (InputStream in = new SizeLimitedInputStream(run.source.open(file.getPath()), maxFileBytes)) {
+                stored = catalog.store(file.getPath(), contentType(file.getPath()), in);
+            }
+            DocumentEntity doc = stored.document();
+            file.setDocumentId(doc.getId());
+            file.setContentHash(doc.getContentHash());
+            file.setSizeBytes(doc.getSizeBytes());
+            Path content = catalog.content(doc).orElseThrow(() -> new IOException("Stored file is missing"));
+
+            IngestionJob job = pipeline.ingest(file.getPath(), content);
+            if (job.getState() == IngestionJob.State.FAILED) {
+                throw new IOException(job.getError());
+            }
+            file.setChunks(job.getChunksCreated());
+            file.setState(ImportFileEntity.State.COMPLETED);
+            file.setError(null);
+            throttle.record(job.getChunksUpserted());
+            run.chunks.addAndGet(job.getChunksCreated());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            file.setState(ImportFileEntity.State.FAILED);
+            file.setError(error.length() > 1000 ? error.substring(0, 1000) : error);
+            System.err.println("❌ Import of " + file.getPath() + " failed: " + error);
+        }
+        file.setAttempts(file.getAttempts() == null ? 1 : file.getAttempts() + 1);
+        file.setUpdatedAt(LocalDateTime.now());
+        fileRepository.save(file);
+        run.files.incrementAndGet();
+    }
+
+    private void finish(ImportJobEntity job, ImportJobEntity.State state) {
+        job.setState(state);
+        job.setFinishedAt(LocalDateTime.now());
+        jobRepository.save(job);
+        // The archive is only kept while there are files left to retry
+        if (state == ImportJobEntity.State.COMPLETED && job.getKind() == ImportJobEntity.Kind.ARCHIVE) {
+            try {
+                Files.deleteIfExists(Path.of(job.getLocation()));
+            } catch (IOException e) {
+                System.err.println("Could not delete import archive " + job.getLocation() + ": " + e.getMessage());
+            }
+        }
+        String took = job.getStartedAt() == null ? "" : " in " + Duration.between(job.getStartedAt(), job.getFinishedAt()).toSeconds() + " s";
+        System.out.println((state == ImportJobEntity.State.COMPLETED ? "✅ " : "❌ ") + "Import " + job.getId() + " " + state + took);
+    }
+
+    private ImportSource open(ImportJobEntity job) throws IOException {
+        if (job.getLocation() == null) {
+            throw new IOException("No location recorded");
+        }
+        Path location = Path.of(job.getLocation());
+        if (job.getKind() == ImportJobEntity.Kind.ARCHIVE) {
+            ZipFile zip = new ZipFile(location.toFile());
+            return new ImportSource() {
+                @Override
+                public InputStream open(String path) throws IOException {
+                    ZipEntry entry = zip.getEntry(path);
+                    if (entry == null) {
+                        throw new IOException("Not in the archive: " + path);
+                    }
+                    return zip.getInputStream(entry);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    zip.close();
+                }
+            };
+        }
+        if (!Files.isDirectory(location)) {
+            throw new IOException("Directory is gone");
+        }
+        return new ImportSource() {
+            @Override
+            public InputStream open(String path) throws IOException {
+                Path file = location.resolve(path).normalize();
+                if (!file.startsWith(location)) {
+                    throw new IOException("Outside the import directory: " + path);
+                }
+                return Files.newInputStream(file, LinkOption.NOFOLLOW_LINKS);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /** File entries of the archive, without directories, hidden files and macOS resource forks. */
+    static List<String> archiveEntries(ZipFile zip) {
+        return zip.stream()
+                .filter(entry -> !entry.isDirectory())
+                .map(ZipEntry::getName)
+                .filter(BulkImportService::importable)
+                .toList();
+    }
+
+    private static List<String> directoryFiles(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            List<String> paths = new ArrayList<>(files
+                    .filter(file -> Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS))
+                    .map(file -> root.relativize(file).toString().replace('\\', '/'))
+                    .filter(BulkImportService::importable)
+                    .toList());
+            Collections.sort(paths);
+            return paths;
+        }
+    }
+
+    static boolean importable(String path) {
+        if (path.isEmpty() || path.length() > 512 || path.startsWith("__MACOSX/")) {
+            return false;
+        }
+        for (String segment : path.split("/")) {
+            if (segment.startsWith(".")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String contentType(String path) {
+        String type = URLConnection.guessContentTypeFromName(path);
+        return type == null ? "application/octet-stream" : type;
+    }
+
+    /** An import's files by path, open while the import runs. */
+    private interface ImportSource extends Closeable {
+        InputStream open(String path) throws IOException;
+    }
+
+    /** One launch of an import: its open source and what it has done so far, for the throughput figures. */
+    private static final class Run {
+        final long startedNanos = System.nanoTime();
+        final AtomicInteger files = new AtomicInteger();
+        final AtomicInteger chunks = new AtomicInteger();
+        volatile ImportSource source;
+    }
+
+    /** Fails instead of filling the disk when an entry inflates past the per-file limit. */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long read;
+
+        SizeLimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            read += n;
+            if (read > limit) {
+                throw new IOException("File is larger than " + limit / (1024 * 1024) + " MB");
+            }
+        }
+    }
+}
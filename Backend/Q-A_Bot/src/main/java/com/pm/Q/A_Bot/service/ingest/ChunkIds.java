@@ -0,0 +1,42 @@
+package com.pm.Q.A_Bot.service.ingest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Deterministic chunk ids: a name-based UUID of the source, the SHA-256 of the chunk text and how many
+ * identical chunks came before it in the same document. Re-uploading a revised document therefore yields
+ * the same id for every chunk whose text did not change, wherever it moved. UUID form keeps the ids valid
+ * for every vector store, including those with a uuid id column.
+ */
+public final class ChunkIds {
+
+    private final String source;
+    private final Map<String, Integer> occurrences = new HashMap<>();
+
+    public ChunkIds(String source) {
+        this.source = source;
+    }
+
+    /** Id of the next chunk with this text; call once per chunk, in document order. */
+    public String next(String text) {
+        String hash = sha256(text);
+        int occurrence = occurrences.merge(hash, 1, Integer::sum) - 1;
+        String name = source + '\u0000' + hash + '\u0000' + occurrence;
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.pm.Q.A_Bot.service.ingest;
+
+import com.pm.Q.A_Bot.Entity.ChunkIndexEntity;
+import com.pm.Q.A_Bot.Repository.ChunkIndexRepository;
+import com.pm.Q.A_Bot.service.query.AnswerCache;
+import com.pm.Q.A_Bot.service.query.IndexVersion;
+import com.pm.Q.A_Bot.service.retrieval.Bm25Index;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source document to chunk id mapping kept in MySQL. Chunks are recorded before they are upserted, so every
+ * chunk in the vector store can be deleted by id without a similarity search.
+ */
+@Service
+public class ChunkIndexService {
+
+    /**
+     * Outcome of {@link #deleteSource}: the number of indexed chunks deleted by id, or {@code byFilter} when the
+     * source had none indexed and a metadata filter delete was issued instead.
+     */
+    public record SourceDeletion(int chunks, boolean byFilter) {
+    }
+
+    private final ChunkIndexRepository repository;
+    private final VectorStore vectorStore;
+    private final AnswerCache answerCache;
+    private final Bm25Index lexicalIndex;
+    private final IndexVersion indexVersion;
+    private final int deleteBatchSize;
+
+    public ChunkIndexService(ChunkIndexRepository repository,
+                             VectorStore vectorStore,
+                             AnswerCache answerCache,
+                             Bm25Index lexicalIndex,
+                             IndexVersion indexVersion,
+                             @Value("${ingest.delete.batch-size:500}") int deleteBatchSize) {
+        this.repository = repository;
+        this.vectorStore = vectorStore;
+        this.answerCache = answerCache;
+        this.lexicalIndex = lexicalIndex;
+        this.indexVersion = indexVersion;
+        this.deleteBatchSize = deleteBatchSize;
+    }
+
+    public void record(String source, List<Document> chunks) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ChunkIndexEntity> entities = new ArrayList<>(chunks.size());
+        for (Document chunk : chunks) {
+            ChunkIndexEntity entity = new ChunkIndexEntity();
+            entity.setSource(source);
+            entity.setChunkId(chunk.getId());
+            if (chunk.getMetadata().get("chunk_index") instanceof Number index) {
+                entity.setChunkIndex(index.intValue());
+            }
+            entity.setIndexedAt(now);
+            entities.add(entity);
+        }
+        repository.saveAll(entities);
+    }
+
+    public List<String> chunkIds(String source) {
+        return repository.findChunkIdsBySource(source);
+    }
+
+    /** Chunk ids of the source with their recorded {@code chunk_index}, in ingestion order. */
+    public Map<String, Integer> positions(String source) {
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (Object[] row : repository.findPositionsBySource(source)) {
+            positions.put((String) row[0], (Integer) row[1]);
+        }
+        return positions;
+    }
+
+    public void updatePositions(Map<String, Integer> positions) {
+        positions.forEach(repository::updateChunkIndex);
+    }
+
+    public long count(String source) {
+        return repository.countBySource(source);
+    }
+
+    /** Chunks recorded across all sources. */
+    public long count() {
+        return repository.count();
+    }
+
+    public long sourceCount() {
+        return repository.countSources();
+    }
+
+    /**
+     * Deletes every indexed chunk of the source. Sources ingested before the index existed have no rows; for
+     * those a metadata filter delete is issued instead, which cannot say how many chunks it removed.
+     */
+    public SourceDeletion deleteSource(String source) {
+        List<String> ids = chunkIds(source);
+        if (ids.isEmpty()) {
+            deleteUnindexed(source);
+            return new SourceDeletion(0, true);
+        }
+        return new SourceDeletion(deleteChunks(source, ids), false);
+    }
+
+    /**
+     * Deletes the given chunks of a source from the vector store and the index in batches.
+     */
+    public int deleteChunks(String source, List<String> chunkIds) {
+        int deleted = 0;
+        for (int i = 0; i < chunkIds.size(); i += deleteBatchSize) {
+            List<String> batch = chunkIds.subList(i, Math.min(i + deleteBatchSize, chunkIds.size()));
+            vectorStore.delete(batch);
+            lexicalIndex.delete(batch);
+            indexVersion.bump();
+            repository.deleteByChunkIdIn(batch);
+            answerCache.onDocumentsDeleted(source, batch);
+            deleted += batch.size();
+        }
+        System.out.println("Deleted " + deleted + " indexed chunks for source: " + source);
+        return deleted;
+    }
+
+    private void deleteUnindexed(String source) {
+        lexicalIndex.deleteSource(source);
+        vectorStore.delete(new FilterExpressionBuilder().eq("source", source).build());
+        indexVersion.bump();
+        answerCache.onDocumentsDeleted(source, List.of());
+        System.out.println("No indexed chunks for " + source + ", issued metadata filter delete");
+    }
+}
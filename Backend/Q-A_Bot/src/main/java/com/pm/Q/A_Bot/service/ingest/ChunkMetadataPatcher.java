@@ -0,0 +1,69 @@
+package com.pm.Q.A_Bot.service.ingest;
+
+import com.google.protobuf.Struct;
+import com.pm.Q.A_Bot.service.limits.ResourceLimit;
+import com.pm.Q.A_Bot.service.vectorstore.LimitedVectorStore;
+import com.pm.Q.A_Bot.service.vectorstore.MetadataPatchable;
+import io.pinecone.clients.Index;
+import io.pinecone.clients.Pinecone;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.pinecone.PineconeVectorStore;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Changes the metadata of chunks already in the vector store without embedding them again: in memory for the
+ * local stores, with a metadata-only update per vector for Pinecone (under the vector store limit).
+ */
+@Component
+public class ChunkMetadataPatcher {
+
+    private final VectorStore vectorStore;
+    private final ResourceLimit vectorStoreLimit;
+    private final String indexName;
+
+    public ChunkMetadataPatcher(VectorStore vectorStore,
+                                @Qualifier("vectorStoreLimit") ResourceLimit vectorStoreLimit,
+                                @Value("${spring.ai.vectorstore.pinecone.index-name:}") String indexName) {
+        this.vectorStore = vectorStore;
+        this.vectorStoreLimit = vectorStoreLimit;
+        this.indexName = indexName;
+    }
+
+    /** False for stores that cannot change metadata in place; their chunks have to be upserted again. */
+    public boolean supported() {
+        VectorStore store = store();
+        return store instanceof MetadataPatchable || store instanceof PineconeVectorStore;
+    }
+
+    public void patch(Map<String, Map<String, Object>> patches) {
+        if (patches.isEmpty()) {
+            return;
+        }
+        VectorStore store = store();
+        if (store instanceof MetadataPatchable patchable) {
+            patchable.patchMetadata(patches);
+        } else if (store instanceof PineconeVectorStore pinecone) {
+            Index index = pinecone.<Pinecone>getNativeClient().orElseThrow().getIndexConnection(indexName);
+            // Pinecone merges setMetadata into the stored fields, so the chunk text and source stay as they are
+            patches.forEach((id, patch) -> vectorStoreLimit.run(() -> index.update(id, null, struct(patch), null, null, null)));
+        } else {
+            throw new UnsupportedOperationException("Vector store cannot patch metadata: " + store.getClass().getSimpleName());
+        }
+    }
+
+    private VectorStore store() {
+        return vectorStore instanceof LimitedVectorStore limited ? limited.getDelegate() : vectorStore;
+    }
+
+    private static Struct struct(Map<String, Object> fields) {
+        Struct.Builder struct = Struct.newBuilder();
+        fields.forEach((key, value) -> struct.putFields(key, value instanceof Number n
+                ? com.google.protobuf.Value.newBuilder().setNumberValue(n.doubleValue()).build()
+                : com.google.protobuf.Value.newBuilder().setStringValue(String.valueOf(value)).build()));
+        return struct.build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.pm.Q.A_Bot.service.ingest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps bulk imports near a target rate of embedded chunks per second, so they leave Ollama capacity for
+ * interactive questions. Every finished file books its chunks at the target rate, and the next file starts
+ * once that time has passed; a file's cost is only known afterwards, so the rate holds on average over files.
+ */
+public class ImportThrottle {
+
+    private final double chunksPerSecond;
+    private long nextStartNanos = System.nanoTime();
+
+    /** A target of 0 or less disables throttling. */
+    public ImportThrottle(double chunksPerSecond) {
+        this.chunksPerSecond = chunksPerSecond;
+    }
+
+    public void acquire() throws InterruptedException {
+        long wait;
+        synchronized (this) {
+            wait = nextStartNanos - System.nanoTime();
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    public synchronized void record(int chunks) {
+        if (chunksPerSecond <= 0 || chunks <= 0) {
+            return;
+        }
+        // Idle time is not banked, a burst after a pause still has to pay for itself
+        nextStartNanos = Math.max(nextStartNanos, System.nanoTime()) + (long) (chunks * 1e9 / chunksPerSecond);
+    }
+
+    public double getChunksPerSecond() {
+        return chunksPerSecond;
+    }
+}
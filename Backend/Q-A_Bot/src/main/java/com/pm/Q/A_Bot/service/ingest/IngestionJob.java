@@ -0,0 +1,154 @@
+package com.pm.Q.A_Bot.service.ingest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one document moving through the ingestion pipeline. Updated by the pipeline threads,
+ * read by the status endpoint.
+ */
+public class IngestionJob {
+
+    public enum State { QUEUED, EXTRACTING, EMBEDDING, COMPLETED, FAILED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String filename;
+    private final Instant createdAt = Instant.now();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile State state = State.QUEUED;
+    private volatile String error;
+    private volatile boolean chunkingDone;
+
+    private final AtomicInteger chunksCreated = new AtomicInteger();
+    private final AtomicInteger chunksEmbedded = new AtomicInteger();
+    private final AtomicInteger chunksUpserted = new AtomicInteger();
+    private final AtomicInteger embeddingBatches = new AtomicInteger();
+    private final AtomicInteger upsertBatches = new AtomicInteger();
+    private final AtomicInteger chunksReplaced = new AtomicInteger();
+    private final AtomicInteger chunksUnchanged = new AtomicInteger();
+    private final AtomicInteger chunksRepositioned = new AtomicInteger();
+
+    public IngestionJob(String filename) {
+        this.filename = filename;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public int getChunksCreated() {
+        return chunksCreated.get();
+    }
+
+    public int getChunksUpserted() {
+        return chunksUpserted.get();
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        state = State.EXTRACTING;
+    }
+
+    void embedding() {
+        state = State.EMBEDDING;
+    }
+
+    void chunked(int count) {
+        chunksCreated.addAndGet(count);
+    }
+
+    void chunkingDone() {
+        chunkingDone = true;
+    }
+
+    void embedded(int count) {
+        chunksEmbedded.addAndGet(count);
+        embeddingBatches.incrementAndGet();
+    }
+
+    void upserted(int count) {
+        chunksUpserted.addAndGet(count);
+        upsertBatches.incrementAndGet();
+    }
+
+    void unchanged(int count) {
+        chunksUnchanged.addAndGet(count);
+    }
+
+    void repositioned(int count) {
+        chunksRepositioned.addAndGet(count);
+    }
+
+    void replaced(int count) {
+        chunksReplaced.addAndGet(count);
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        state = State.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+
+    public Map<String, Object> toStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", id);
+        status.put("filename", filename);
+        status.put("state", state);
+        status.put("createdAt", createdAt.toString());
+        status.put("startedAt", startedAt == null ? null : startedAt.toString());
+        status.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+        status.put("chunksCreated", chunksCreated.get());
+        status.put("chunkingDone", chunkingDone);
+        status.put("chunksEmbedded", chunksEmbedded.get());
+        status.put("chunksUpserted", chunksUpserted.get());
+        status.put("embeddingBatches", embeddingBatches.get());
+        status.put("upsertBatches", upsertBatches.get());
+        status.put("chunksReplaced", chunksReplaced.get());
+        status.put("chunksUnchanged", chunksUnchanged.get());
+        status.put("chunksRepositioned", chunksRepositioned.get());
+        int total = chunksCreated.get();
+        status.put("progress", total == 0 ? 0.0 : (double) (chunksUpserted.get() + chunksUnchanged.get()) / total);
+
+        if (startedAt != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            double seconds = Math.max(0.001, Duration.between(startedAt, end).toMillis() / 1000.0);
+            status.put("elapsedSeconds", seconds);
+            status.put("embeddedChunksPerSecond", chunksEmbedded.get() / seconds);
+            status.put("upsertedChunksPerSecond", chunksUpserted.get() / seconds);
+        }
+        if (error != null) {
+            status.put("error", error);
+        }
+        return status;
+    }
+}
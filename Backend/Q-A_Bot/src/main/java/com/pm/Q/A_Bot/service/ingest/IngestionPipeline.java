@@ -0,0 +1,445 @@
+package com.pm.Q.A_Bot.service.ingest;
+
+import com.pm.Q.A_Bot.service.chunking.ChunkingStrategy;
+import com.pm.Q.A_Bot.service.metrics.RagMetrics;
+import com.pm.Q.A_Bot.service.query.AnswerCache;
+import com.pm.Q.A_Bot.service.query.IndexVersion;
+import com.pm.Q.A_Bot.service.retrieval.Bm25Index;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous upload ingestion: streaming extraction and chunking, batched embedding with bounded
+ * concurrency, and batched upserts into the vector store, reported through {@link IngestionJob}.
+ * <p>
+ * Chunks flow to the embedding stage while the document is still being parsed, so memory per job is
+ * bounded by the in-flight batches rather than by document size.
+ * <p>
+ * The embedding stage warms the caching embedding model, so the vector store's own embedding of each
+ * upsert batch is served from cache instead of calling Ollama a second time.
+ * <p>
+ * Chunk ids are derived from the source and the chunk text ({@link ChunkIds}), so a re-upload is applied as a
+ * diff: unchanged chunks are neither embedded nor upserted, chunks that only moved get their
+ * {@code chunk_index} patched in place, and only chunks that are gone are deleted. Jobs for the same source
+ * run one at a time, since two of them would compute the same ids.
+ */
+@Service
+public class IngestionPipeline {
+
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    private final VectorStore vectorStore;
+    private final EmbeddingModel embeddingModel;
+    private final AnswerCache answerCache;
+    private final ChunkingStrategy chunkingStrategy;
+    private final ChunkIndexService chunkIndex;
+    private final Bm25Index lexicalIndex;
+    private final IndexVersion indexVersion;
+    private final ChunkMetadataPatcher metadataPatcher;
+    private final RagMetrics metrics;
+    private final Executor ingestExecutor;
+    private final Executor embedExecutor;
+    private final Semaphore embedPermits;
+    private final int embedBatchSize;
+    private final int upsertBatchSize;
+
+    private final Parser parser = new AutoDetectParser();
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+    private final ReentrantLock[] sourceLocks = new ReentrantLock[64];
+
+    public IngestionPipeline(VectorStore vectorStore,
+                             EmbeddingModel embeddingModel,
+                             AnswerCache answerCache,
+                             ChunkingStrategy chunkingStrategy,
+                             ChunkIndexService chunkIndex,
+                             Bm25Index lexicalIndex,
+                             IndexVersion indexVersion,
+                             ChunkMetadataPatcher metadataPatcher,
+                             RagMetrics metrics,
+                             @Qualifier("ingestExecutor") Executor ingestExecutor,
+                             @Qualifier("embedExecutor") Executor embedExecutor,
+                             @Value("${ingest.embed.batch-size:32}") int embedBatchSize,
+                             @Value("${ingest.embed.max-concurrency:4}") int embedMaxConcurrency,
+                             @Value("${ingest.upsert.batch-size:100}") int upsertBatchSize) {
+        this.vectorStore = vectorStore;
+        this.embeddingModel = embeddingModel;
+        this.answerCache = answerCache;
+        this.chunkingStrategy = chunkingStrategy;
+        this.chunkIndex = chunkIndex;
+        this.lexicalIndex = lexicalIndex;
+        this.indexVersion = indexVersion;
+        this.metadataPatcher = metadataPatcher;
+        this.metrics = metrics;
+        this.ingestExecutor = ingestExecutor;
+        this.embedExecutor = embedExecutor;
+        this.embedPermits = new Semaphore(embedMaxConcurrency);
+        this.embedBatchSize = embedBatchSize;
+        this.upsertBatchSize = upsertBatchSize;
+        for (int i = 0; i < sourceLocks.length; i++) {
+            sourceLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Spools the upload to a temp file (the multipart is gone once the request returns) and queues the job.
+     */
+    public IngestionJob submit(MultipartFile file) throws IOException {
+        Path spooled = Files.createTempFile("rag-upload-", ".bin");
+        file.transferTo(spooled);
+        IngestionJob job = new IngestionJob(file.getOriginalFilename());
+        evictFinishedJobs();
+        jobs.put(job.getId(), job);
+        ingestExecutor.execute(() -> {
+            try {
+                run(job, spooled);
+            } finally {
+                try {
+                    Files.deleteIfExists(spooled);
+                } catch (IOException e) {
+                    System.err.println("Could not delete spooled upload " + spooled + ": " + e.getMessage());
+                }
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Ingests a file that is already on disk on the calling thread, for callers that run their own workers.
+     * The job is listed like a submitted one.
+     */
+    public IngestionJob ingest(String filename, Path source) {
+        IngestionJob job = new IngestionJob(filename);
+        evictFinishedJobs();
+        jobs.put(job.getId(), job);
+        run(job, source);
+        return job;
+    }
+
+    public Optional<IngestionJob> job(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(IngestionJob job, Path source) {
+        ReentrantLock lock = sourceLocks[Math.floorMod(job.getFilename().hashCode(), sourceLocks.length)];
+        lock.lock();
+        try {
+            ingest(job, source);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ingest(IngestionJob job, Path source) {
+        job.start();
+        System.out.println("=== Ingestion job " + job.getId() + " started for " + job.getFilename() + " ===");
+        long started = System.nanoTime();
+        Stages stages = new Stages(job);
+        try {
+            // A re-upload is diffed against the source's chunks, the old ones stay searchable until the new ones are in
+            Map<String, Integer> previous = chunkIndex.positions(job.getFilename());
+            ChunkIds ids = new ChunkIds(job.getFilename());
+            Set<String> kept = new HashSet<>();
+            Map<String, Integer> moved = new LinkedHashMap<>();
+            List<Document> movedDocs = new ArrayList<>();
+            boolean patchable = metadataPatcher.supported();
+            List<Document> batch = new ArrayList<>(embedBatchSize);
+            TimedSession chunker = new TimedSession();
+            chunker.delegate = chunkingStrategy.open(chunk -> {
+                if (chunk.isEmpty()) {
+                    return;
+                }
+                String text = chunk.toString();
+                int position = job.getChunksCreated();
+                String id = ids.next(text);
+                job.chunked(1);
+                Integer previousPosition = previous.get(id);
+                if (previousPosition != null) {
+                    kept.add(id);
+                    job.unchanged(1);
+                    if (previousPosition != position) {
+                        moved.put(id, position);
+                        if (!patchable) {
+                            movedDocs.add(toDocument(id, text, job.getFilename(), position));
+                        }
+                    }
+                    return;
+                }
+                batch.add(toDocument(id, text, job.getFilename(), position));
+                if (batch.size() == embedBatchSize) {
+                    long handoff = System.nanoTime();
+                    stages.embed(List.copyOf(batch));
+                    chunker.handoffNanos += System.nanoTime() - handoff;
+                    batch.clear();
+                }
+            });
+
+            long extractStarted = System.nanoTime();
+            long extracted = extract(source, chunker);
+            metrics.recordNanos(RagMetrics.IngestStage.EXTRACT, System.nanoTime() - extractStarted - chunker.nanos);
+            chunker.finish();
+            metrics.recordNanos(RagMetrics.IngestStage.CHUNK, chunker.nanos - chunker.handoffNanos);
+            if (!batch.isEmpty()) {
+                stages.embed(List.copyOf(batch));
+            }
+            job.chunkingDone();
+            System.out.println("Extracted text length: " + extracted);
+
+            if (job.getChunksCreated() == 0) {
+                job.fail("File appears empty or unreadable");
+                metrics.jobFinished(false, started);
+                return;
+            }
+            stages.finish();
+            reposition(job, moved, movedDocs);
+
+            List<String> removed = previous.keySet().stream().filter(id -> !kept.contains(id)).toList();
+            if (!removed.isEmpty()) {
+                job.replaced(chunkIndex.deleteChunks(job.getFilename(), removed));
+            }
+            metrics.chunksUnchanged(kept.size());
+            job.complete();
+            metrics.jobFinished(true, started);
+            System.out.println("=== Ingestion job " + job.getId() + " completed: " + job.getChunksUpserted() + " chunks ===");
+        } catch (Exception e) {
+            e.printStackTrace();
+            job.fail(e.getMessage());
+            metrics.jobFinished(false, started);
+            discard(job, stages.recorded);
+        }
+    }
+
+    /**
+     * Points chunks that kept their text but not their place at their new {@code chunk_index}. Stores that
+     * cannot patch metadata get the chunks upserted again; their embeddings are usually still cached.
+     */
+    private void reposition(IngestionJob job, Map<String, Integer> moved, List<Document> movedDocs) {
+        if (moved.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, Object>> patches = new LinkedHashMap<>();
+        moved.forEach((id, position) -> patches.put(id, Map.of("chunk_index", position)));
+        long started = System.nanoTime();
+        if (movedDocs.isEmpty()) {
+            metadataPatcher.patch(patches);
+        } else {
+            for (int i = 0; i < movedDocs.size(); i += upsertBatchSize) {
+                vectorStore.add(movedDocs.subList(i, Math.min(i + upsertBatchSize, movedDocs.size())));
+            }
+        }
+        lexicalIndex.patchMetadata(patches);
+        metrics.record(RagMetrics.IngestStage.UPSERT, started);
+        chunkIndex.updatePositions(moved);
+        indexVersion.bump();
+        // Cached answers cite chunk positions that no longer hold
+        answerCache.onDocumentsDeleted(job.getFilename(), List.copyOf(moved.keySet()));
+        job.repositioned(moved.size());
+    }
+
+    /** Removes the chunks a failed job already recorded, leaving the previous upload of the source intact. */
+    private void discard(IngestionJob job, List<String> chunkIds) {
+        if (chunkIds.isEmpty()) {
+            return;
+        }
+        try {
+            chunkIndex.deleteChunks(job.getFilename(), chunkIds);
+        } catch (Exception e) {
+            System.err.println("Could not discard chunks of failed job " + job.getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams SAX character events from Tika into the chunker. Unlike {@code Tika.parseToString} there is
+     * no write limit and the full text is never materialized. Returns the number of characters extracted.
+     */
+    private long extract(Path source, ChunkingStrategy.Session chunker) throws IOException, TikaException, SAXException {
+        long[] length = new long[1];
+        ContentHandler handler = new BodyContentHandler(new DefaultHandler() {
+            @Override
+            public void characters(char[] ch, int start, int len) {
+                length[0] += len;
+                chunker.append(ch, start, len);
+            }
+
+            @Override
+            public void ignorableWhitespace(char[] ch, int start, int len) {
+                characters(ch, start, len);
+            }
+        });
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
+        try (TikaInputStream in = TikaInputStream.get(source)) {
+            parser.parse(in, handler, new Metadata(), context);
+        }
+        return length[0];
+    }
+
+    /**
+     * Measures the time spent inside the chunker, so extraction and chunking can be reported apart although
+     * they interleave. Time the chunk consumer spends handing batches to the embedding stage is tracked
+     * separately by the caller.
+     */
+    private static final class TimedSession implements ChunkingStrategy.Session {
+
+        ChunkingStrategy.Session delegate;
+        long nanos;
+        long handoffNanos;
+
+        @Override
+        public void append(char[] ch, int start, int length) {
+            long started = System.nanoTime();
+            delegate.append(ch, start, length);
+            nanos += System.nanoTime() - started;
+        }
+
+        @Override
+        public void finish() {
+            long started = System.nanoTime();
+            delegate.finish();
+            nanos += System.nanoTime() - started;
+        }
+    }
+
+    /**
+     * Per-job wiring of the embed and upsert stages. The job thread submits embedding batches and performs
+     * upserts from the batches that come back.
+     */
+    private final class Stages {
+
+        private final IngestionJob job;
+        private final LinkedBlockingQueue<List<Document>> embedded = new LinkedBlockingQueue<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final List<Document> upsertBuffer = new ArrayList<>();
+        private final List<String> recorded = new ArrayList<>();
+
+        Stages(IngestionJob job) {
+            this.job = job;
+        }
+
+        /**
+         * Blocks while all embedding permits are taken, which throttles extraction to the embedding rate.
+         */
+        void embed(List<Document> batch) {
+            if (job.getState() == IngestionJob.State.EXTRACTING) {
+                job.embedding();
+            }
+            try {
+                while (!embedPermits.tryAcquire(50, TimeUnit.MILLISECONDS)) {
+                    drain(false);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Ingestion interrupted", e);
+            }
+            inFlight.incrementAndGet();
+            CompletableFuture.runAsync(() -> {
+                long started = System.nanoTime();
+                embeddingModel.embed(batch.stream().map(d -> d.getText() == null ? "" : d.getText()).toList());
+                metrics.record(RagMetrics.IngestStage.EMBED, started);
+                job.embedded(batch.size());
+            }, embedExecutor).whenComplete((ignored, error) -> {
+                embedPermits.release();
+                if (error != null) {
+                    failure.compareAndSet(null, error);
+                } else {
+                    embedded.add(batch);
+                }
+                inFlight.decrementAndGet();
+            });
+            drain(false);
+        }
+
+        void finish() throws InterruptedException {
+            while (inFlight.get() > 0) {
+                List<Document> batch = embedded.poll(50, TimeUnit.MILLISECONDS);
+                if (batch != null) {
+                    upsertBuffer.addAll(batch);
+                }
+                drain(false);
+            }
+            drain(true);
+        }
+
+        private void drain(boolean flushAll) {
+            Throwable error = failure.get();
+            if (error != null) {
+                throw new IllegalStateException("Embedding failed: " + error.getMessage(), error);
+            }
+            List<Document> batch;
+            while ((batch = embedded.poll()) != null) {
+                upsertBuffer.addAll(batch);
+            }
+            while (upsertBuffer.size() >= upsertBatchSize || (flushAll && !upsertBuffer.isEmpty())) {
+                List<Document> upsert = new ArrayList<>(upsertBuffer.subList(0, Math.min(upsertBatchSize, upsertBuffer.size())));
+                upsertBuffer.subList(0, upsert.size()).clear();
+                long started = System.nanoTime();
+                chunkIndex.record(job.getFilename(), upsert);
+                metrics.record(RagMetrics.IngestStage.SAVE, started);
+                upsert.forEach(d -> recorded.add(d.getId()));
+                started = System.nanoTime();
+                vectorStore.add(upsert);
+                lexicalIndex.add(upsert);
+                metrics.record(RagMetrics.IngestStage.UPSERT, started);
+                indexVersion.bump();
+                answerCache.onDocumentsAdded(job.getFilename(), upsert);
+                job.upserted(upsert.size());
+                metrics.chunksIngested(upsert.size());
+            }
+        }
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(j -> j.isFinished() && j.getFinishedAt().isBefore(cutoff));
+    }
+
+    private static Document toDocument(String id, String text, String filename, int chunkIndex) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("source", filename);
+        metadata.put("chunk_index", chunkIndex);
+
+        return Document.builder()
+                .id(id)
+                .text(text)
+                .metadata(metadata)
+                .build();
+    }
+}
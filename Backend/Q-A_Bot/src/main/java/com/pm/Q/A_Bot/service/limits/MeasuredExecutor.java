@@ -0,0 +1,85 @@
+package com.pm.Q.A_Bot.service.limits;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor decorator that counts submissions, rejections and running tasks, and measures how long tasks wait
+ * in the queue and how long they run.
+ */
+public class MeasuredExecutor implements Executor {
+
+    private final String name;
+    private final Executor delegate;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public MeasuredExecutor(String name, Executor delegate) {
+        this.name = name;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        long enqueuedAt = System.nanoTime();
+        submitted.incrementAndGet();
+        queued.incrementAndGet();
+        try {
+            delegate.execute(() -> {
+                long startedAt = System.nanoTime();
+                queued.decrementAndGet();
+                active.incrementAndGet();
+                long waited = startedAt - enqueuedAt;
+                waitNanos.add(waited);
+                maxWaitNanos.accumulateAndGet(waited, Math::max);
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    failed.incrementAndGet();
+                    throw e;
+                } finally {
+                    active.decrementAndGet();
+                    completed.incrementAndGet();
+                    runNanos.add(System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            throw e;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Object> stats() {
+        long done = completed.get();
+        long started = done + active.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("submitted", submitted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("queued", queued.get());
+        stats.put("active", active.get());
+        stats.put("completed", done);
+        stats.put("failed", failed.get());
+        stats.put("avgQueueWaitMs", started == 0 ? 0.0 : waitNanos.sum() / 1_000_000.0 / started);
+        stats.put("maxQueueWaitMs", maxWaitNanos.get() / 1_000_000.0);
+        stats.put("avgRunMs", done == 0 ? 0.0 : runNanos.sum() / 1_000_000.0 / done);
+        return stats;
+    }
+}
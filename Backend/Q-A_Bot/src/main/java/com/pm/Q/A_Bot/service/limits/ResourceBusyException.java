@@ -0,0 +1,11 @@
+package com.pm.Q.A_Bot.service.limits;
+
+/**
+ * Thrown when a {@link ResourceLimit} has no free permit within its acquire timeout.
+ */
+public class ResourceBusyException extends RuntimeException {
+
+    public ResourceBusyException(String resource, long waitedMillis) {
+        super(resource + " is at its concurrency limit (waited " + waitedMillis + " ms)");
+    }
+}
@@ -0,0 +1,79 @@
+package com.pm.Q.A_Bot.service.limits;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency cap for one downstream resource. On virtual threads the thread pools no longer bound how many
+ * calls reach a backend at once, so each backend is bounded here instead: callers beyond the limit wait up
+ * to the acquire timeout, then fail with {@link ResourceBusyException}.
+ */
+public class ResourceLimit {
+
+    private final String name;
+    private final int maxConcurrency;
+    private final long acquireTimeoutMillis;
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    public ResourceLimit(String name, int maxConcurrency, long acquireTimeoutMillis) {
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    public <T> T call(Supplier<T> work) {
+        acquire();
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void run(Runnable work) {
+        call(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrency", maxConcurrency);
+        stats.put("inUse", maxConcurrency - permits.availablePermits());
+        stats.put("waiting", waiting.get());
+        stats.put("acquired", acquired.get());
+        stats.put("timeouts", timeouts.get());
+        return stats;
+    }
+
+    private void acquire() {
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new ResourceBusyException(name, acquireTimeoutMillis);
+            }
+            acquired.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceBusyException(name, acquireTimeoutMillis);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.pm.Q.A_Bot.service.llm;
+
+/**
+ * Thrown when the generation queue is full; callers should answer 429 with the retry-after hint.
+ */
+public class GenerationRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public GenerationRejectedException(long retryAfterSeconds) {
+        super("LLM is at capacity, retry in " + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
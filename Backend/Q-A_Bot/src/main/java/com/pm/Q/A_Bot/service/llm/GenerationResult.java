@@ -0,0 +1,26 @@
+package com.pm.Q.A_Bot.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A completed Ollama generation: the answer text plus the final response object with timings and counters.
+ */
+public record GenerationResult(String response, JsonNode raw) {
+
+    public int evalCount() {
+        return raw.path("eval_count").asInt(0);
+    }
+
+    /** Ollama's encoding of the conversation so far, to continue the next turn from; null if none came back. */
+    public int[] context() {
+        JsonNode context = raw == null ? null : raw.get("context");
+        if (context == null || !context.isArray()) {
+            return null;
+        }
+        int[] tokens = new int[context.size()];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = context.get(i).asInt();
+        }
+        return tokens;
+    }
+}
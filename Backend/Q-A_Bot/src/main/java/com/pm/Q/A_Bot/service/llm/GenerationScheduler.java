@@ -0,0 +1,300 @@
+package com.pm.Q.A_Bot.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for every LLM call. At most {@code max-concurrency-per-backend} generations per configured
+ * backend run at once; the rest wait in a bounded priority queue (interactive questions first). Once it is full,
+ * a call displaces the newest queued call of lower priority, which is rejected in its place with a retry-after
+ * hint; with nothing lower queued the new call itself is rejected. Failed attempts are re-queued after a delay
+ * instead of sleeping a thread, and never hold a slot while waiting.
+ */
+@Service
+public class GenerationScheduler {
+
+    public enum Priority { INTERACTIVE, BATCH, HEALTH }
+
+    // Seeds the retry-after estimate until the first generation completes
+    private static final double INITIAL_LATENCY_MILLIS = 5000;
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final OllamaClient ollamaClient;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Call<?>> queue = new PriorityQueue<>(
+            Comparator.<Call<?>, Priority>comparing(c -> c.priority).thenComparingLong(c -> c.sequence));
+    private int running;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong displaced = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile double averageLatencyMillis = INITIAL_LATENCY_MILLIS;
+
+    /** Allows {@code max-concurrency-per-backend} running generations for each configured backend. */
+    @Autowired
+    public GenerationScheduler(OllamaClient ollamaClient, OllamaBackendPool backendPool,
+                               @Value("${llm.scheduler.max-concurrency-per-backend:2}") int maxConcurrentPerBackend,
+                               @Value("${llm.scheduler.queue-capacity:32}") int queueCapacity,
+                               @Value("${llm.scheduler.max-attempts:3}") int maxAttempts,
+                               @Value("${llm.scheduler.backoff-ms:1000}") long backoffMillis) {
+        this(ollamaClient, maxConcurrentPerBackend * backendPool.getBackends().size(), queueCapacity, maxAttempts,
+                backoffMillis);
+    }
+
+    public GenerationScheduler(OllamaClient ollamaClient, int maxConcurrent, int queueCapacity, int maxAttempts,
+                               long backoffMillis) {
+        this.ollamaClient = ollamaClient;
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = queueCapacity;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    /**
+     * Queues a non-streaming generation with the default model. The future fails with a
+     * {@link GenerationRejectedException} when the queue is full; cancelling it dequeues or aborts the call.
+     */
+    public CompletableFuture<GenerationResult> generate(String prompt, Priority priority) {
+        return generate(prompt, null, priority);
+    }
+
+    public CompletableFuture<GenerationResult> generate(String prompt, String model, Priority priority) {
+        return submit(new Call<>(priority, true, () -> ollamaClient.generate(prompt, model)));
+    }
+
+    /** Queues a generation continuing from the {@code context} returned by a previous one (see {@link GenerationResult#context()}). */
+    public CompletableFuture<GenerationResult> generateWithContext(String prompt, int[] context, Priority priority) {
+        return submit(new Call<>(priority, true, () -> ollamaClient.generate(prompt, null, context)));
+    }
+
+    /**
+     * Queues a streaming generation. Streams are not retried, tokens may already have reached the client.
+     * The listener sees tokens and exactly one of complete or error (including rejection); cancelling the
+     * returned future dequeues the call or aborts the running stream without notifying the listener.
+     */
+    public CompletableFuture<JsonNode> stream(String prompt, StreamListener listener, Priority priority) {
+        CompletableFuture<JsonNode> result = submit(new Call<>(priority, false, () -> ollamaClient.stream(prompt, listener)));
+        result.whenComplete((r, e) -> {
+            if (unwrap(e) instanceof GenerationRejectedException rejection) {
+                listener.onError(rejection);
+            }
+        });
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("running", running);
+            stats.put("queued", queue.size());
+        } finally {
+            lock.unlock();
+        }
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("admitted", admitted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("displaced", displaced.get());
+        stats.put("retries", retries.get());
+        stats.put("succeeded", succeeded.get());
+        stats.put("failed", failed.get());
+        stats.put("averageLatencyMs", Math.round(averageLatencyMillis));
+        return stats;
+    }
+
+    private <T> CompletableFuture<T> submit(Call<T> call) {
+        Call<?> victim = null;
+        long retryAfter;
+        lock.lock();
+        try {
+            if (queue.size() >= queueCapacity) {
+                // Requeued retries skip the capacity check, so the queue can be over capacity as well as at it
+                victim = lowestQueued();
+                if (victim == null || victim.priority.compareTo(call.priority) <= 0) {
+                    rejected.incrementAndGet();
+                    call.result.completeExceptionally(new GenerationRejectedException(retryAfterSeconds()));
+                    return call.result;
+                }
+                queue.remove(victim);
+                displaced.incrementAndGet();
+                rejected.incrementAndGet();
+            }
+            queue.add(call);
+            admitted.incrementAndGet();
+            retryAfter = retryAfterSeconds();
+        } finally {
+            lock.unlock();
+        }
+        if (victim != null) {
+            // Completed outside the lock: listeners of a displaced stream run here
+            victim.result.completeExceptionally(new GenerationRejectedException(retryAfter));
+        }
+        call.result.whenComplete((r, e) -> {
+            if (call.result.isCancelled()) {
+                cancel(call);
+            }
+        });
+        dispatch();
+        return call.result;
+    }
+
+    /** The call that would be served last: lowest priority, then latest arrival. Caller holds the lock. */
+    private Call<?> lowestQueued() {
+        Call<?> lowest = null;
+        for (Call<?> c : queue) {
+            if (lowest == null || queue.comparator().compare(c, lowest) > 0) {
+                lowest = c;
+            }
+        }
+        return lowest;
+    }
+
+    private void dispatch() {
+        while (true) {
+            Call<?> next;
+            lock.lock();
+            try {
+                if (running >= maxConcurrent || queue.isEmpty()) {
+                    return;
+                }
+                next = queue.poll();
+                running++;
+            } finally {
+                lock.unlock();
+            }
+            start(next);
+        }
+    }
+
+    private <T> void start(Call<T> call) {
+        if (call.result.isDone()) {
+            release();
+            return;
+        }
+        call.attempts++;
+        long startedAt = System.nanoTime();
+        CompletableFuture<T> attempt;
+        try {
+            attempt = call.attempt.get();
+        } catch (Throwable t) {
+            attempt = CompletableFuture.failedFuture(t);
+        }
+        call.current = attempt;
+        if (call.result.isCancelled()) {
+            attempt.cancel(true);
+        }
+        attempt.whenComplete((value, error) -> finish(call, startedAt, value, error));
+    }
+
+    private <T> void finish(Call<T> call, long startedAt, T value, Throwable error) {
+        release();
+        Throwable cause = unwrap(error);
+        if (cause == null) {
+            double millis = (System.nanoTime() - startedAt) / 1_000_000.0;
+            averageLatencyMillis += LATENCY_SMOOTHING * (millis - averageLatencyMillis);
+            succeeded.incrementAndGet();
+            call.result.complete(value);
+        } else if (call.retryable && call.attempts < maxAttempts && !call.result.isDone()
+                && cause instanceof OllamaException ollama && ollama.isRetryable()) {
+            retries.incrementAndGet();
+            long delay = backoffMillis * call.attempts;
+            System.err.println("LLM call failed (attempt " + call.attempts + "/" + maxAttempts + "), retrying in "
+                    + delay + " ms: " + cause.getMessage());
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> requeue(call));
+        } else {
+            failed.incrementAndGet();
+            call.result.completeExceptionally(cause);
+        }
+        dispatch();
+    }
+
+    /** Retries were admitted already, so they skip the capacity check. */
+    private void requeue(Call<?> call) {
+        if (call.result.isDone()) {
+            return;
+        }
+        lock.lock();
+        try {
+            queue.add(call);
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+    }
+
+    private void cancel(Call<?> call) {
+        boolean dequeued;
+        lock.lock();
+        try {
+            dequeued = queue.remove(call);
+        } finally {
+            lock.unlock();
+        }
+        CompletableFuture<?> attempt = call.current;
+        if (!dequeued && attempt != null) {
+            attempt.cancel(true);
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            running--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Time for the queue ahead of a new caller to drain at the current concurrency and latency. */
+    private long retryAfterSeconds() {
+        double waves = (double) (queue.size() + running) / maxConcurrent;
+        return Math.max(1, (long) Math.ceil(waves * averageLatencyMillis / 1000));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private final class Call<T> {
+
+        final Priority priority;
+        final boolean retryable;
+        final Supplier<CompletableFuture<T>> attempt;
+        final long sequence = GenerationScheduler.this.sequence.incrementAndGet();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        volatile CompletableFuture<T> current;
+        volatile int attempts;
+
+        Call(Priority priority, boolean retryable, Supplier<CompletableFuture<T>> attempt) {
+            this.priority = priority;
+            this.retryable = retryable;
+            this.attempt = attempt;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.pm.Q.A_Bot.service.llm;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One Ollama server in the {@link OllamaBackendPool}: its base URL, breaker and call counters.
+ */
+public class OllamaBackend {
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final URI baseUri;
+    private final CircuitBreaker breaker;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private volatile double averageLatencyMillis;
+
+    OllamaBackend(URI baseUri, CircuitBreaker breaker) {
+        this.baseUri = baseUri;
+        this.breaker = breaker;
+    }
+
+    public URI resolve(String path) {
+        return baseUri.resolve(path);
+    }
+
+    public String getName() {
+        return baseUri.toString();
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    void started(boolean hedge) {
+        outstanding.incrementAndGet();
+        requests.incrementAndGet();
+        if (hedge) {
+            hedges.incrementAndGet();
+        }
+    }
+
+    void finished(long nanos, boolean failed) {
+        outstanding.decrementAndGet();
+        if (failed) {
+            failures.incrementAndGet();
+        } else {
+            double millis = nanos / 1_000_000.0;
+            averageLatencyMillis = averageLatencyMillis == 0 ? millis
+                    : averageLatencyMillis + LATENCY_SMOOTHING * (millis - averageLatencyMillis);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("circuit", breaker.getState());
+        stats.put("outstanding", outstanding.get());
+        stats.put("requests", requests.get());
+        stats.put("failures", failures.get());
+        stats.put("hedges", hedges.get());
+        stats.put("averageLatencyMs", Math.round(averageLatencyMillis));
+        return stats;
+    }
+}
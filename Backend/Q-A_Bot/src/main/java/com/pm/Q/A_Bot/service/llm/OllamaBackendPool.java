@@ -0,0 +1,189 @@
+package com.pm.Q.A_Bot.service.llm;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * The Ollama servers behind generation and embeddings ({@code llm.backends}). Each call goes to the available
+ * backend with the fewest outstanding calls; backends whose breaker is open are skipped. Idempotent calls can
+ * be hedged: if the first backend has not answered after {@code llm.hedge.delay-ms}, the same call goes to a
+ * second backend, the first answer wins and the other request is cancelled. When a backend fails an idempotent
+ * call outright, the call fails over to a backend it has not tried yet before the failure is reported.
+ */
+@Service
+public class OllamaBackendPool {
+
+    private final List<OllamaBackend> backends;
+    private final long hedgeDelayMillis;
+    // Rotates the starting point so ties do not always land on the first backend
+    private final AtomicInteger next = new AtomicInteger();
+
+    public OllamaBackendPool(@Value("${llm.backends:http://localhost:11434}") List<String> urls,
+                             @Value("${llm.backend.circuit.failure-threshold:5}") int failureThreshold,
+                             @Value("${llm.backend.circuit.open-seconds:30}") long openSeconds,
+                             @Value("${llm.hedge.delay-ms:0}") long hedgeDelayMillis) {
+        List<OllamaBackend> configured = new ArrayList<>();
+        for (String url : urls) {
+            if (!url.isBlank()) {
+                String base = url.strip().endsWith("/") ? url.strip() : url.strip() + "/";
+                configured.add(new OllamaBackend(URI.create(base), new CircuitBreaker(failureThreshold, openSeconds * 1000)));
+            }
+        }
+        if (configured.isEmpty()) {
+            throw new IllegalArgumentException("llm.backends must list at least one Ollama URL");
+        }
+        this.backends = List.copyOf(configured);
+        this.hedgeDelayMillis = hedgeDelayMillis;
+        System.out.println("=== Ollama backends: " + backends.stream().map(OllamaBackend::getName).toList()
+                + (hedgeDelayMillis > 0 && backends.size() > 1 ? ", hedging after " + hedgeDelayMillis + " ms" : ""));
+    }
+
+    /**
+     * Runs {@code call} against the least loaded available backend. The future fails with a retryable
+     * {@link OllamaException} when every breaker is open. Cancelling it cancels the backend call(s).
+     *
+     * @param hedge whether the call is safe to send twice, which allows both hedging and fail-over
+     */
+    public <T> CompletableFuture<T> execute(Function<OllamaBackend, CompletableFuture<T>> call, boolean hedge) {
+        OllamaBackend primary = select(Set.of());
+        if (primary == null) {
+            return CompletableFuture.failedFuture(new OllamaException(0, "No Ollama backend available, all circuits are open"));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        Set<OllamaBackend> tried = ConcurrentHashMap.newKeySet();
+        Request<T> request = new Request<>(call, hedge && backends.size() > 1, result, attempts, pending, tried);
+        launch(primary, request, false);
+
+        if (hedge && hedgeDelayMillis > 0 && backends.size() > 1) {
+            CompletableFuture.delayedExecutor(hedgeDelayMillis, TimeUnit.MILLISECONDS).execute(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                OllamaBackend second = select(tried);
+                if (second != null) {
+                    pending.incrementAndGet();
+                    launch(second, request, true);
+                }
+            });
+        }
+        // The winner's answer, a failure or a cancellation all leave nothing worth waiting for
+        result.whenComplete((value, error) -> attempts.forEach(attempt -> attempt.cancel(true)));
+        return result;
+    }
+
+    public List<OllamaBackend> getBackends() {
+        return backends;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (OllamaBackend backend : backends) {
+            stats.put(backend.getName(), backend.stats());
+        }
+        return stats;
+    }
+
+    private <T> void launch(OllamaBackend backend, Request<T> request, boolean hedged) {
+        request.tried.add(backend);
+        backend.started(hedged);
+        long startedAt = System.nanoTime();
+        CompletableFuture<T> attempt;
+        try {
+            attempt = request.call.apply(backend);
+        } catch (Throwable t) {
+            attempt = CompletableFuture.failedFuture(t);
+        }
+        request.attempts.add(attempt);
+        if (request.result.isDone()) {
+            attempt.cancel(true);
+        }
+        attempt.whenComplete((value, error) -> {
+            Throwable cause = unwrap(error);
+            boolean backendFailed = isBackendFailure(cause);
+            backend.finished(System.nanoTime() - startedAt, backendFailed);
+            if (cause instanceof CancellationException) {
+                backend.breaker().onAbandoned();
+            } else if (backendFailed) {
+                backend.breaker().onFailure();
+                System.err.println("=== Ollama backend " + backend.getName() + " failed: " + cause.getMessage());
+            } else {
+                // Answered, even if with a client error: the server is up
+                backend.breaker().onSuccess();
+            }
+
+            if (cause == null) {
+                request.result.complete(value);
+                return;
+            }
+            if (backendFailed && request.failover && !request.result.isDone()) {
+                // The new attempt keeps this one's pending count, so a hedge failing meanwhile cannot fail the call
+                OllamaBackend other = select(request.tried);
+                if (other != null) {
+                    System.err.println("=== Failing over from " + backend.getName() + " to " + other.getName());
+                    launch(other, request, false);
+                    return;
+                }
+            }
+            if (request.pending.decrementAndGet() == 0) {
+                request.result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /** Least outstanding calls among backends whose breaker lets a call through; null if there is none. */
+    private OllamaBackend select(Set<OllamaBackend> exclude) {
+        int start = Math.floorMod(next.getAndIncrement(), backends.size());
+        while (true) {
+            OllamaBackend best = null;
+            for (int i = 0; i < backends.size(); i++) {
+                OllamaBackend candidate = backends.get((start + i) % backends.size());
+                if (!exclude.contains(candidate) && candidate.breaker().isAvailable()
+                        && (best == null || candidate.getOutstanding() < best.getOutstanding())) {
+                    best = candidate;
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            // Loses only to a concurrent caller claiming a half-open trial; pick again without it
+            if (best.breaker().tryAcquire()) {
+                return best;
+            }
+        }
+    }
+
+    /** One {@link #execute} call: its result, the backend calls made for it and the backends already tried. */
+    private record Request<T>(Function<OllamaBackend, CompletableFuture<T>> call, boolean failover,
+                              CompletableFuture<T> result, List<CompletableFuture<T>> attempts,
+                              AtomicInteger pending, Set<OllamaBackend> tried) {
+    }
+
+    private static boolean isBackendFailure(Throwable error) {
+        return error instanceof OllamaException ollama && (ollama.getStatus() == 0 || ollama.getStatus() >= 500);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
@@ -0,0 +1,379 @@
+package com.pm.Q.A_Bot.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Non-blocking Ollama client for {@code /api/generate}, {@code /api/embed} and {@code /api/tags}. Every call goes to a backend
+ * picked by the {@link OllamaBackendPool}, over the one shared {@link HttpClient}. Streaming calls parse the
+ * NDJSON stream line by line as it arrives. Generation callers go through the {@link GenerationScheduler}
+ * rather than using this directly.
+ */
+@Service
+public class OllamaClient {
+
+    @Value("${llm.service.model:llama3.2:1b}")
+    private String llmModel;
+
+    @Value("${llm.service.timeout.read:60}")
+    private int readTimeout;
+
+    @Value("${spring.ai.ollama.chat.options.num-ctx:2048}")
+    private int numCtx;
+
+    @Value("${spring.ai.ollama.chat.options.num-predict:500}")
+    private int numPredict;
+
+    @Value("${spring.ai.ollama.embedding.model:nomic-embed-text:latest}")
+    private String embeddingModel;
+
+    @Value("${spring.ai.ollama.embedding.options.num-ctx:2048}")
+    private int embeddingNumCtx;
+
+    @Value("${llm.keep-alive:30m}")
+    private String keepAlive;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final OllamaBackendPool backendPool;
+
+    public OllamaClient(HttpClient ollamaHttpClient, ObjectMapper objectMapper, OllamaBackendPool backendPool) {
+        this.httpClient = ollamaHttpClient;
+        this.objectMapper = objectMapper;
+        this.backendPool = backendPool;
+    }
+
+    /**
+     * Non-streaming generation, hedged when the pool is configured to; the future fails with an
+     * {@link OllamaException}. Cancelling the future aborts the HTTP exchange.
+     */
+    public CompletableFuture<GenerationResult> generate(String prompt, String model) {
+        return generate(prompt, model, null);
+    }
+
+    /**
+     * Generation that continues from the {@code context} an earlier generation returned, so Ollama only has
+     * to process the new prompt rather than the whole conversation again.
+     */
+    public CompletableFuture<GenerationResult> generate(String prompt, String model, int[] context) {
+        Map<String, Object> body = generateBody(prompt, model, false);
+        if (context != null) {
+            body.put("context", context);
+        }
+        return backendPool.execute(backend -> send(backend, "api/generate", body, "application/json",
+                OllamaClient::toGenerationResult), true);
+    }
+
+    /**
+     * Embeds the texts in one {@code /api/embed} call with the configured embedding model, returning one
+     * vector per text in order.
+     */
+    public CompletableFuture<List<float[]>> embed(List<String> texts) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("model", embeddingModel);
+        body.put("input", texts);
+        body.put("options", Map.of("num_ctx", embeddingNumCtx));
+        putKeepAlive(body);
+        return backendPool.execute(backend -> send(backend, "api/embed", body, "application/json",
+                node -> toEmbeddings(node, texts.size())), true);
+    }
+
+    /**
+     * Names of the models pulled on one backend ({@code /api/tags}). Answered from Ollama's model directory
+     * without loading anything, which makes it the health probe; it bypasses the pool so the probe sees each
+     * backend even while its circuit is open.
+     */
+    public CompletableFuture<List<String>> models(OllamaBackend backend, Duration timeout) {
+        HttpRequest request = HttpRequest.newBuilder(backend.resolve("api/tags"))
+                .header("Accept", "application/json")
+                .timeout(timeout)
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).handle((response, error) -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                throw new OllamaException("Ollama request failed: " + cause.getMessage(), cause);
+            }
+            if (response.statusCode() >= 400) {
+                throw new OllamaException(response.statusCode(), "Ollama returned HTTP " + response.statusCode());
+            }
+            try {
+                List<String> names = new ArrayList<>();
+                objectMapper.readTree(response.body()).path("models").forEach(m -> names.add(m.path("name").asText()));
+                return names;
+            } catch (Exception e) {
+                throw new OllamaException(response.statusCode(), "Invalid response from Ollama: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Loads a model into memory on one backend without generating anything: a prompt-less generate for
+     * {@code model}, or a one-word embedding when {@code embedding} is set. Ollama keeps it resident for
+     * {@code llm.keep-alive}. Like {@link #models}, it bypasses the pool so every backend gets warmed.
+     */
+    public CompletableFuture<JsonNode> load(OllamaBackend backend, String model, boolean embedding) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("model", model);
+        if (embedding) {
+            body.put("input", List.of("warm-up"));
+            body.put("options", Map.of("num_ctx", embeddingNumCtx));
+        }
+        putKeepAlive(body);
+        return send(backend, embedding ? "api/embed" : "api/generate", body, "application/json", node -> {
+            if (node.hasNonNull("error")) {
+                throw new OllamaException(200, node.get("error").asText());
+            }
+            return node;
+        });
+    }
+
+    static GenerationResult toGenerationResult(JsonNode node) {
+        if (node.hasNonNull("error")) {
+            throw new OllamaException(200, node.get("error").asText());
+        }
+        return new GenerationResult(node.path("response").asText(""), node);
+    }
+
+    static List<float[]> toEmbeddings(JsonNode node, int expected) {
+        JsonNode embeddings = node.path("embeddings");
+        if (node.hasNonNull("error") || embeddings.size() != expected) {
+            throw new OllamaException(200, node.hasNonNull("error") ? node.get("error").asText()
+                    : "Expected " + expected + " embeddings, got " + embeddings.size());
+        }
+        List<float[]> vectors = new ArrayList<>(embeddings.size());
+        for (JsonNode embedding : embeddings) {
+            float[] vector = new float[embedding.size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) embedding.get(i).asDouble();
+            }
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+
+    /**
+     * Starts a streaming generation on one backend (streams are never hedged). Tokens are pushed to the
+     * listener as soon as Ollama emits them, followed by exactly one terminal event. The returned future
+     * completes with the final chunk; cancelling it aborts the upstream request so the model stops
+     * generating, without notifying the listener.
+     */
+    public CompletableFuture<JsonNode> stream(String prompt, StreamListener listener) {
+        AtomicBoolean started = new AtomicBoolean();
+        CompletableFuture<JsonNode> done = backendPool.execute(backend -> {
+            started.set(true);
+            return streamOn(backend, prompt, listener);
+        }, false);
+        done.whenComplete((last, error) -> {
+            if (error != null && !started.get()) {
+                listener.onError(error);
+            }
+        });
+        return done;
+    }
+
+    private CompletableFuture<JsonNode> streamOn(OllamaBackend backend, String prompt, StreamListener listener) {
+        CompletableFuture<JsonNode> done = new CompletableFuture<>();
+        LineParser parser = new LineParser(new StreamListener() {
+            @Override
+            public void onToken(String token) {
+                listener.onToken(token);
+            }
+
+            @Override
+            public void onComplete(JsonNode last) {
+                done.complete(last);
+                listener.onComplete(last);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                done.completeExceptionally(error);
+                listener.onError(error);
+            }
+        });
+        HttpRequest request;
+        try {
+            request = request(backend, "api/generate", generateBody(prompt, null, true), "application/x-ndjson");
+        } catch (Exception e) {
+            parser.fail(e);
+            return done;
+        }
+
+        CompletableFuture<HttpResponse<Void>> response =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(parser));
+        response.whenComplete((r, error) -> {
+            if (error != null) {
+                parser.fail(new OllamaException("Ollama request failed: " + error.getMessage(), error));
+            } else if (r.statusCode() >= 400) {
+                parser.fail(new OllamaException(r.statusCode(), "Ollama returned HTTP " + r.statusCode()));
+            } else {
+                parser.fail(new IllegalStateException("Ollama stream ended without a final chunk"));
+            }
+        });
+        done.whenComplete((last, error) -> {
+            if (done.isCancelled()) {
+                parser.cancel();
+                response.cancel(true);
+            }
+        });
+        return done;
+    }
+
+    private <T> CompletableFuture<T> send(OllamaBackend backend, String path, Map<String, Object> body, String accept,
+                                          Function<JsonNode, T> parse) {
+        HttpRequest request;
+        try {
+            request = request(backend, path, body, accept);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<HttpResponse<String>> exchange = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<T> result = exchange.handle((response, error) -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                throw new OllamaException("Ollama request failed: " + cause.getMessage(), cause);
+            }
+            if (response.statusCode() >= 400) {
+                throw new OllamaException(response.statusCode(), "Ollama returned HTTP " + response.statusCode());
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(response.body());
+            } catch (Exception e) {
+                throw new OllamaException(response.statusCode(), "Invalid response from Ollama: " + e.getMessage());
+            }
+            return parse.apply(node);
+        });
+        // Dependent futures do not cancel their source, the exchange has to be cancelled explicitly
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private Map<String, Object> generateBody(String prompt, String model, boolean stream) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model != null ? model : llmModel);
+        requestBody.put("prompt", prompt);
+        requestBody.put("stream", stream);
+        requestBody.put("options", Map.of(
+                "temperature", 0.1,
+                "num_predict", numPredict,
+                "top_p", 0.9,
+                "num_ctx", numCtx
+        ));
+        putKeepAlive(requestBody);
+        return requestBody;
+    }
+
+    // Ollama unloads a model after 5 idle minutes by default, and the next question pays for loading it again
+    private void putKeepAlive(Map<String, Object> body) {
+        if (keepAlive != null && !keepAlive.isBlank()) {
+            body.put("keep_alive", keepAlive.matches("-?\\d+") ? Integer.parseInt(keepAlive) : keepAlive);
+        }
+    }
+
+    private HttpRequest request(OllamaBackend backend, String path, Map<String, Object> body, String accept) throws Exception {
+        return HttpRequest.newBuilder(backend.resolve(path))
+                .header("Content-Type", "application/json")
+                .header("Accept", accept)
+                .timeout(Duration.ofSeconds(readTimeout))
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+    }
+
+    /** Parses each NDJSON line into a token; reports exactly one terminal event to the listener. */
+    final class LineParser implements Flow.Subscriber<String> {
+
+        private final StreamListener listener;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile Flow.Subscription subscription;
+
+        LineParser(StreamListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (finished.get()) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (finished.get()) {
+                return;
+            }
+            try {
+                if (!line.isBlank()) {
+                    JsonNode node = objectMapper.readTree(line);
+                    if (node.hasNonNull("error")) {
+                        fail(new IllegalStateException(node.get("error").asText()));
+                        return;
+                    }
+                    String token = node.path("response").asText("");
+                    if (!token.isEmpty()) {
+                        listener.onToken(token);
+                    }
+                    if (node.path("done").asBoolean(false)) {
+                        if (finished.compareAndSet(false, true)) {
+                            listener.onComplete(node);
+                        }
+                        return;
+                    }
+                }
+                subscription.request(1);
+            } catch (Exception e) {
+                // A listener failure (e.g. the SSE client went away) stops the upstream generation too.
+                // Fail first: cancel() marks the parser finished, which would swallow the error.
+                fail(e);
+                cancel();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        void fail(Throwable error) {
+            if (finished.compareAndSet(false, true)) {
+                listener.onError(error);
+            }
+        }
+
+        void cancel() {
+            finished.set(true);
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+    }
+}
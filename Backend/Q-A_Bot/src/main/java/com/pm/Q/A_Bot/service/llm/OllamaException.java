@@ -0,0 +1,28 @@
+package com.pm.Q.A_Bot.service.llm;
+
+/**
+ * Failed Ollama call. {@code status} is the HTTP status, or 0 when no response was received.
+ */
+public class OllamaException extends RuntimeException {
+
+    private final int status;
+
+    public OllamaException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public OllamaException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = 0;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /** Connection failures, timeouts and server-side errors are worth another attempt; bad requests are not. */
+    public boolean isRetryable() {
+        return status == 0 || status == 429 || status >= 500;
+    }
+}
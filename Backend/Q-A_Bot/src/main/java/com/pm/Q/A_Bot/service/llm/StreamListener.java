@@ -0,0 +1,16 @@
+package com.pm.Q.A_Bot.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Callbacks for an incrementally parsed Ollama generation stream. Called on the HTTP client's threads.
+ */
+public interface StreamListener {
+
+    void onToken(String token);
+
+    /** Final NDJSON object ({@code "done": true}) carrying timings and the conversation context. */
+    void onComplete(JsonNode last);
+
+    void onError(Throwable error);
+}
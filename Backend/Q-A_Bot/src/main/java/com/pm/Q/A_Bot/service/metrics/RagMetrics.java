@@ -0,0 +1,168 @@
+package com.pm.Q.A_Bot.service.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage timers and size distributions for the query and ingestion paths. Every meter is registered up front,
+ * so recording on the hot path is a lookup in an {@link EnumMap} plus a lock-free histogram update; percentile
+ * histograms are switched on per prefix in {@code management.metrics.distribution.*}.
+ */
+@Component
+public class RagMetrics {
+
+    public enum QueryStage {
+        /** Embedding the question (usually an embedding cache hit) */
+        EMBED,
+        /** Hybrid retrieval: vector search, BM25 and rank fusion */
+        SEARCH,
+        /** Merging chunks, packing them into the token budget and building the prompt */
+        CONTEXT,
+        /** From handing a streamed generation to the scheduler until its first token, queueing included */
+        FIRST_TOKEN,
+        /** From handing a generation to the scheduler until the complete answer */
+        GENERATE
+    }
+
+    public enum IngestStage {
+        /** Tika parsing, excluding the time spent in the chunker */
+        EXTRACT,
+        CHUNK,
+        /** One embedding batch */
+        EMBED,
+        /** One upsert batch into the vector store and the BM25 index */
+        UPSERT,
+        /** One batch of chunk ids recorded in MySQL */
+        SAVE
+    }
+
+    public enum QueryOutcome { CACHED, NO_DOCUMENTS, RETRIEVED }
+
+    private final Map<QueryStage, Timer> queryStages = new EnumMap<>(QueryStage.class);
+    private final Map<IngestStage, Timer> ingestStages = new EnumMap<>(IngestStage.class);
+    private final Map<QueryOutcome, Counter> queryOutcomes = new EnumMap<>(QueryOutcome.class);
+    private final DistributionSummary contextTokens;
+    private final DistributionSummary promptTokens;
+    private final DistributionSummary evaluatedPromptTokens;
+    private final DistributionSummary generatedTokens;
+    private final Timer promptEvaluation;
+    private final Timer jobsCompleted;
+    private final Timer jobsFailed;
+    private final Counter chunksIngested;
+    private final Counter chunksUnchanged;
+
+    public RagMetrics(MeterRegistry registry) {
+        for (QueryStage stage : QueryStage.values()) {
+            queryStages.put(stage, Timer.builder("rag.query.stage")
+                    .description("Time spent per stage of answering a question")
+                    .tag("stage", tag(stage))
+                    .register(registry));
+        }
+        for (IngestStage stage : IngestStage.values()) {
+            ingestStages.put(stage, Timer.builder("rag.ingest.stage")
+                    .description("Time spent per ingestion stage, per job for extract and chunk and per batch otherwise")
+                    .tag("stage", tag(stage))
+                    .register(registry));
+        }
+        for (QueryOutcome outcome : QueryOutcome.values()) {
+            queryOutcomes.put(outcome, Counter.builder("rag.query.retrievals")
+                    .description("Question preparations by outcome; coalesced duplicates count once")
+                    .tag("outcome", tag(outcome))
+                    .register(registry));
+        }
+        contextTokens = DistributionSummary.builder("rag.query.context.tokens")
+                .description("Estimated tokens of retrieved context packed into the prompt")
+                .baseUnit("tokens")
+                .register(registry);
+        promptTokens = DistributionSummary.builder("rag.query.prompt.tokens")
+                .description("Estimated tokens of the complete prompt")
+                .baseUnit("tokens")
+                .register(registry);
+        evaluatedPromptTokens = DistributionSummary.builder("rag.llm.prompt.tokens")
+                .description("Prompt tokens Ollama evaluated, as reported in prompt_eval_count")
+                .baseUnit("tokens")
+                .register(registry);
+        generatedTokens = DistributionSummary.builder("rag.llm.generated.tokens")
+                .description("Tokens Ollama generated, as reported in eval_count")
+                .baseUnit("tokens")
+                .register(registry);
+        promptEvaluation = Timer.builder("rag.llm.prompt.evaluation")
+                .description("Model load and prompt evaluation time reported by Ollama, its side of time to first token")
+                .register(registry);
+        jobsCompleted = Timer.builder("rag.ingest.job").tag("outcome", "completed")
+                .description("Upload ingestion from start to finish")
+                .register(registry);
+        jobsFailed = Timer.builder("rag.ingest.job").tag("outcome", "failed")
+                .description("Upload ingestion from start to finish")
+                .register(registry);
+        chunksIngested = Counter.builder("rag.ingest.chunks")
+                .description("Chunks upserted into the vector store")
+                .register(registry);
+        chunksUnchanged = Counter.builder("rag.ingest.chunks.unchanged")
+                .description("Chunks of a re-upload that were already indexed and not embedded again")
+                .register(registry);
+    }
+
+    public void record(QueryStage stage, long startNanos) {
+        queryStages.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordNanos(IngestStage stage, long nanos) {
+        ingestStages.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void record(IngestStage stage, long startNanos) {
+        recordNanos(stage, System.nanoTime() - startNanos);
+    }
+
+    public void outcome(QueryOutcome outcome) {
+        queryOutcomes.get(outcome).increment();
+    }
+
+    public void prompt(int contextTokens, int promptTokens) {
+        this.contextTokens.record(contextTokens);
+        this.promptTokens.record(promptTokens);
+    }
+
+    /** Token counts and durations from the final object of an Ollama generation, streamed or not. */
+    public void generation(JsonNode result) {
+        if (result == null) {
+            return;
+        }
+        if (result.has("prompt_eval_count")) {
+            evaluatedPromptTokens.record(result.path("prompt_eval_count").asInt());
+        }
+        if (result.has("eval_count")) {
+            generatedTokens.record(result.path("eval_count").asInt());
+        }
+        if (result.has("prompt_eval_duration")) {
+            promptEvaluation.record(result.path("load_duration").asLong(0) + result.path("prompt_eval_duration").asLong(),
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void jobFinished(boolean completed, long startNanos) {
+        (completed ? jobsCompleted : jobsFailed).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void chunksIngested(int count) {
+        chunksIngested.increment(count);
+    }
+
+    public void chunksUnchanged(int count) {
+        chunksUnchanged.increment(count);
+    }
+
+    private static String tag(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
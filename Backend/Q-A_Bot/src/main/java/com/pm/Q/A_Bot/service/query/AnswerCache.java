@@ -0,0 +1,234 @@
+package com.pm.Q.A_Bot.service.query;
+
+import com.pm.Q.A_Bot.service.embedding.EmbeddingKeys;
+import com.pm.Q.A_Bot.service.retrieval.HybridRetriever;
+import com.pm.Q.A_Bot.service.retrieval.LexicalAnalyzer;
+import com.pm.Q.A_Bot.service.vectorstore.VectorMath;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of generated answers keyed by normalized question, with a semantic fallback on query embeddings.
+ * <p>
+ * Every entry remembers the chunks it was answered from, the weakest similarity score among them and, for hybrid
+ * retrieval, the weakest fused score, so ingestion only evicts entries whose sources changed or whose top results
+ * a new chunk would have entered through either the dense or the lexical ranking.
+ */
+@Service
+public class AnswerCache {
+
+    private final EmbeddingModel embeddingModel;
+    private final IndexVersion indexVersion;
+    private final HybridRetriever retriever;
+    private final int maxEntries;
+    private final double similarityThreshold;
+    private final Duration ttl;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final AtomicLong exactHits = new AtomicLong();
+    private final AtomicLong semanticHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong staleWrites = new AtomicLong();
+
+    public AnswerCache(EmbeddingModel embeddingModel,
+                       IndexVersion indexVersion,
+                       HybridRetriever retriever,
+                       @Value("${answer.cache.max-entries:500}") int maxEntries,
+                       @Value("${answer.cache.similarity-threshold:0.95}") double similarityThreshold,
+                       @Value("${answer.cache.ttl-minutes:60}") long ttlMinutes) {
+        this.embeddingModel = embeddingModel;
+        this.indexVersion = indexVersion;
+        this.retriever = retriever;
+        this.maxEntries = maxEntries;
+        this.similarityThreshold = similarityThreshold;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    public static String normalizeQuestion(String question) {
+        String normalized = EmbeddingKeys.normalize(question).toLowerCase(Locale.ROOT);
+        int end = normalized.length();
+        while (end > 0 && "?!.".indexOf(normalized.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return normalized.substring(0, end).trim();
+    }
+
+    /**
+     * Returns a cached answer for the exact normalized question or, failing that, for the most similar
+     * cached question at or above the configured cosine threshold.
+     */
+    public synchronized String lookup(String question, float[] queryEmbedding) {
+        String key = normalizeQuestion(question);
+        Instant now = Instant.now();
+        Entry exact = entries.get(key);
+        if (exact != null && !exact.expired(now, ttl)) {
+            exactHits.incrementAndGet();
+            return exact.answer;
+        }
+
+        Entry best = null;
+        double bestScore = similarityThreshold;
+        if (queryEmbedding != null) {
+            float[] q = VectorMath.normalize(queryEmbedding);
+            for (Entry e : entries.values()) {
+                double score = VectorMath.dot(q, e.queryEmbedding);
+                if (score >= bestScore && !e.expired(now, ttl)) {
+                    best = e;
+                    bestScore = score;
+                }
+            }
+        }
+        if (best != null) {
+            semanticHits.incrementAndGet();
+            entries.get(best.question); // touch for LRU order
+            return best.answer;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches an answer generated from documents retrieved at {@code retrievedAt}. If the index changed since,
+     * the invalidation for that change may already have run and would miss this entry, so it is dropped.
+     */
+    public synchronized void put(String question, float[] queryEmbedding, String answer, List<Document> usedDocuments,
+                                 long retrievedAt) {
+        if (queryEmbedding == null || usedDocuments.isEmpty()) {
+            return;
+        }
+        if (retrievedAt != indexVersion.current()) {
+            staleWrites.incrementAndGet();
+            return;
+        }
+        // Lexical-only hits have no similarity score; only when no document has one is every new chunk suspect
+        double minScore = usedDocuments.stream()
+                .filter(d -> d.getScore() != null)
+                .mapToDouble(Document::getScore)
+                .min().orElse(-1.0);
+        double minFused = usedDocuments.stream()
+                .filter(d -> d.getMetadata().get("rrf_score") instanceof Number)
+                .mapToDouble(d -> ((Number) d.getMetadata().get("rrf_score")).doubleValue())
+                .min().orElse(Double.NaN);
+        String normalized = normalizeQuestion(question);
+        Entry entry = new Entry(normalized, VectorMath.normalize(queryEmbedding), answer,
+                usedDocuments.stream().map(Document::getId).collect(Collectors.toSet()),
+                usedDocuments.stream().map(d -> String.valueOf(d.getMetadata().get("source"))).collect(Collectors.toSet()),
+                minScore, Set.copyOf(LexicalAnalyzer.terms(normalized)), minFused, Instant.now());
+        entries.put(entry.question, entry);
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Drops answers built from the given source and answers a newly indexed chunk would now rank into. Expects the
+     * chunks to be in the lexical index already, so hybrid answers can be checked against their BM25 rank.
+     */
+    public void onDocumentsAdded(String source, List<Document> added) {
+        List<float[]> chunkEmbeddings = new ArrayList<>();
+        Set<String> addedTerms = new HashSet<>();
+        if (!added.isEmpty() && hasEntries()) {
+            List<String> texts = added.stream().map(d -> d.getText() == null ? "" : d.getText()).toList();
+            // Same texts the vector store just embedded, so these come from the embedding cache
+            for (float[] e : embeddingModel.embed(texts)) {
+                chunkEmbeddings.add(VectorMath.normalize(e));
+            }
+            texts.forEach(t -> addedTerms.addAll(LexicalAnalyzer.terms(t)));
+        }
+        List<Entry> lexicalCandidates;
+        synchronized (this) {
+            removeIf(e -> e.sources.contains(source) || e.wouldRetrieveAny(chunkEmbeddings));
+            lexicalCandidates = entries.values().stream()
+                    .filter(e -> !Double.isNaN(e.minFused) && e.terms.stream().anyMatch(addedTerms::contains))
+                    .toList();
+        }
+        if (lexicalCandidates.isEmpty() || retriever == null) {
+            return;
+        }
+        // BM25 search runs outside the lock; entries replaced meanwhile are not in the list and stay
+        Set<String> addedIds = added.stream().map(Document::getId).collect(Collectors.toSet());
+        List<Entry> outranked = lexicalCandidates.stream()
+                .filter(e -> retriever.wouldRankLexically(e.question, addedIds, e.minFused))
+                .toList();
+        synchronized (this) {
+            removeIf(e -> outranked.stream().anyMatch(o -> o == e));
+        }
+    }
+
+    public synchronized void onDocumentsDeleted(String source, Collection<String> chunkIds) {
+        removeIf(e -> e.sources.contains(source) || chunkIds.stream().anyMatch(e.chunkIds::contains));
+    }
+
+    public synchronized void clear() {
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        long exact = exactHits.get();
+        long semantic = semanticHits.get();
+        long lookups = exact + semantic + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("exactHits", exact);
+        stats.put("semanticHits", semantic);
+        stats.put("misses", misses.get());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) (exact + semantic) / lookups);
+        stats.put("invalidations", invalidations.get());
+        stats.put("staleWrites", staleWrites.get());
+        return stats;
+    }
+
+    private synchronized boolean hasEntries() {
+        return !entries.isEmpty();
+    }
+
+    private void removeIf(Predicate<Entry> stale) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (stale.test(it.next())) {
+                it.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    private record Entry(String question, float[] queryEmbedding, String answer, Set<String> chunkIds,
+                         Set<String> sources, double minScore, Set<String> terms, double minFused,
+                         Instant createdAt) {
+
+        boolean expired(Instant now, Duration ttl) {
+            return createdAt.plus(ttl).isBefore(now);
+        }
+
+        boolean wouldRetrieveAny(List<float[]> chunkEmbeddings) {
+            for (float[] chunk : chunkEmbeddings) {
+                if (VectorMath.dot(queryEmbedding, chunk) >= minScore) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.pm.Q.A_Bot.service.query;
+
+import com.pm.Q.A_Bot.service.chunking.TokenEstimator;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns ranked chunks into prompt context: neighbouring chunks of the same source are merged with their
+ * shared overlap removed, and the resulting passages are packed in relevance order into the token budget
+ * left by {@code num-ctx} after the answer, the prompt template and the question.
+ */
+@Service
+public class ContextAssembler {
+
+    static final String SEPARATOR = "\n\n---\n\n";
+
+    // Overlap between neighbours never exceeds the chunkers' overlap; bounding the search keeps merges linear
+    private static final int MAX_OVERLAP_CHARS = 1000;
+    // A passage cut below this many tokens is rarely worth its separator
+    private static final int MIN_PARTIAL_TOKENS = 48;
+
+    private final int numCtx;
+    private final int numPredict;
+    private final int maxContextTokens;
+
+    public ContextAssembler(@Value("${spring.ai.ollama.chat.options.num-ctx:2048}") int numCtx,
+                            @Value("${spring.ai.ollama.chat.options.num-predict:500}") int numPredict,
+                            @Value("${context.max-tokens:0}") int maxContextTokens) {
+        this.numCtx = numCtx;
+        this.numPredict = numPredict;
+        this.maxContextTokens = maxContextTokens;
+    }
+
+    public record AssembledContext(String text, List<Document> documents, int tokens, int budget) {
+    }
+
+    /**
+     * @param ranked         retrieved chunks, most relevant first
+     * @param reservedTokens tokens already spent on the prompt template and question
+     */
+    public AssembledContext assemble(List<Document> ranked, int reservedTokens) {
+        int budget = Math.max(0, numCtx - numPredict - reservedTokens);
+        if (maxContextTokens > 0) {
+            budget = Math.min(budget, maxContextTokens);
+        }
+
+        StringBuilder context = new StringBuilder();
+        List<Document> used = new ArrayList<>();
+        int tokens = 0;
+        int separatorTokens = TokenEstimator.estimate(SEPARATOR);
+        for (Passage passage : passages(ranked)) {
+            int cost = (context.isEmpty() ? 0 : separatorTokens) + passage.tokens();
+            String text = passage.text();
+            if (tokens + cost > budget) {
+                int remaining = budget - tokens - (context.isEmpty() ? 0 : separatorTokens);
+                if (remaining < MIN_PARTIAL_TOKENS) {
+                    continue;
+                }
+                text = cutAtSentence(text, remaining);
+                cost = (context.isEmpty() ? 0 : separatorTokens) + TokenEstimator.estimate(text);
+            }
+            if (!context.isEmpty()) {
+                context.append(SEPARATOR);
+            }
+            context.append(text);
+            tokens += cost;
+            used.addAll(passage.chunks());
+        }
+        return new AssembledContext(context.toString(), used, tokens, budget);
+    }
+
+    /**
+     * Groups runs of consecutive {@code chunk_index} values per source into passages, ordered by the best rank
+     * among their chunks. Chunks without an index stay on their own.
+     */
+    static List<Passage> passages(List<Document> ranked) {
+        Map<String, List<Ranked>> bySource = new LinkedHashMap<>();
+        List<Passage> passages = new ArrayList<>();
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            Document doc = ranked.get(rank);
+            Integer index = chunkIndex(doc);
+            Object source = doc.getMetadata().get("source");
+            if (index == null || source == null) {
+                passages.add(new Passage(rank, text(doc), List.of(doc)));
+            } else {
+                bySource.computeIfAbsent(source.toString(), s -> new ArrayList<>()).add(new Ranked(rank, index, doc));
+            }
+        }
+
+        for (List<Ranked> chunks : bySource.values()) {
+            chunks.sort(Comparator.comparingInt(Ranked::index));
+            int start = 0;
+            for (int i = 1; i <= chunks.size(); i++) {
+                if (i == chunks.size() || chunks.get(i).index() > chunks.get(i - 1).index() + 1) {
+                    passages.add(merge(chunks.subList(start, i)));
+                    start = i;
+                }
+            }
+        }
+        passages.sort(Comparator.comparingInt(Passage::rank));
+        return passages;
+    }
+
+    private static Passage merge(List<Ranked> run) {
+        StringBuilder text = new StringBuilder(text(run.get(0).doc()));
+        List<Document> docs = new ArrayList<>(run.size());
+        int rank = Integer.MAX_VALUE;
+        for (int i = 0; i < run.size(); i++) {
+            Ranked chunk = run.get(i);
+            if (i > 0) {
+                String next = text(chunk.doc());
+                int overlap = overlap(text, next);
+                if (overlap == 0) {
+                    text.append(' ');
+                }
+                text.append(next, overlap, next.length());
+            }
+            docs.add(chunk.doc());
+            rank = Math.min(rank, chunk.rank());
+        }
+        return new Passage(rank, text.toString(), docs);
+    }
+
+    /**
+     * Length of the longest suffix of {@code left} that is also a prefix of {@code right}, via the KMP failure
+     * function of {@code right-prefix + sentinel + left-suffix}.
+     */
+    static int overlap(CharSequence left, String right) {
+        int window = Math.min(MAX_OVERLAP_CHARS, Math.min(left.length(), right.length()));
+        if (window == 0) {
+            return 0;
+        }
+        int n = window * 2 + 1;
+        int[] failure = new int[n];
+        for (int i = 1; i < n; i++) {
+            int k = failure[i - 1];
+            while (k > 0 && charAt(left, right, window, i) != charAt(left, right, window, k)) {
+                k = failure[k - 1];
+            }
+            if (charAt(left, right, window, i) == charAt(left, right, window, k)) {
+                k++;
+            }
+            failure[i] = k;
+        }
+        int overlap = failure[n - 1];
+        // A handful of matching characters is coincidence, real chunk overlap is sentences long
+        return overlap >= 8 ? overlap : 0;
+    }
+
+    private static int charAt(CharSequence left, String right, int window, int i) {
+        if (i < window) {
+            return right.charAt(i);
+        }
+        if (i == window) {
+            return -1;
+        }
+        return left.charAt(left.length() - window + (i - window - 1));
+    }
+
+    private static String cutAtSentence(String text, int budget) {
+        // Leave room for the ellipsis appended to a mid-sentence cut
+        int end = TokenEstimator.fitForward(text, 0, text.length(), budget - 3);
+        for (int i = end - 1; i > end / 2; i--) {
+            char c = text.charAt(i);
+            if ((c == '.' || c == '!' || c == '?') && (i + 1 == text.length() || Character.isWhitespace(text.charAt(i + 1)))) {
+                return text.substring(0, i + 1);
+            }
+        }
+        int space = text.lastIndexOf(' ', end);
+        return (space > end / 2 ? text.substring(0, space) : text.substring(0, end)) + "...";
+    }
+
+    private static Integer chunkIndex(Document doc) {
+        return doc.getMetadata().get("chunk_index") instanceof Number n ? n.intValue() : null;
+    }
+
+    private static String text(Document doc) {
+        return doc.getText() == null ? "" : doc.getText().strip();
+    }
+
+    private record Ranked(int rank, int index, Document doc) {
+    }
+
+    record Passage(int rank, String text, List<Document> chunks) {
+
+        int tokens() {
+            return TokenEstimator.estimate(text);
+        }
+    }
+}
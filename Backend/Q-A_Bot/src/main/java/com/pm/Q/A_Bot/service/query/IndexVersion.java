@@ -0,0 +1,23 @@
+package com.pm.Q.A_Bot.service.query;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic counter bumped whenever indexed content changes, so work keyed on it never mixes results
+ * computed before and after an upload or delete.
+ */
+@Component
+public class IndexVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+    }
+}
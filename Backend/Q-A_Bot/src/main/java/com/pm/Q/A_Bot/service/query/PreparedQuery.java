@@ -0,0 +1,27 @@
+package com.pm.Q.A_Bot.service.query;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+/**
+ * Output of retrieval and prompt building for one question: either a final answer (cache hit, nothing
+ * retrieved) or the prompt still to be generated from. {@code indexVersion} is the {@link IndexVersion} retrieval
+ * started at; an answer generated from a stale retrieval is not cached.
+ */
+public record PreparedQuery(String question, float[] queryEmbedding, List<Document> documents, String prompt,
+                            String answer, boolean cached, long indexVersion) {
+
+    static PreparedQuery answered(String question, String answer, boolean cached, long indexVersion) {
+        return new PreparedQuery(question, null, List.of(), null, answer, cached, indexVersion);
+    }
+
+    static PreparedQuery pending(String question, float[] queryEmbedding, List<Document> documents, String prompt,
+                                 long indexVersion) {
+        return new PreparedQuery(question, queryEmbedding, documents, prompt, null, false, indexVersion);
+    }
+
+    public boolean isAnswered() {
+        return answer != null;
+    }
+}
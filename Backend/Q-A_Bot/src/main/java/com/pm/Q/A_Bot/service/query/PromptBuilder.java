@@ -0,0 +1,47 @@
+package com.pm.Q.A_Bot.service.query;
+
+import com.pm.Q.A_Bot.service.chunking.TokenEstimator;
+import org.springframework.stereotype.Component;
+
+/**
+ * The grounded-answer prompt sent to the LLM for a question and its assembled context.
+ */
+@Component
+public class PromptBuilder {
+
+    public static final String NO_ANSWER = "I cannot answer this question based on the available documents.";
+
+    public String build(String context, String question) {
+        return "CONTEXT: " + context + "\n\n" +
+                "Based ONLY on the context above, answer: " + question + "\n\n" +
+                "If the answer is not in the context, respond exactly: '" + NO_ANSWER + "'\n\n" +
+                "Answer:";
+    }
+
+    /**
+     * A later turn of a chat session whose earlier prompts Ollama still holds as context: only passages not
+     * sent before, if any, and the new question.
+     */
+    public String followUp(String newContext, String question) {
+        return (newContext.isEmpty() ? "" : "MORE CONTEXT: " + newContext + "\n\n") +
+                "Based ONLY on the context so far, answer: " + question + "\n\n" +
+                "If the answer is not in the context, respond exactly: '" + NO_ANSWER + "'\n\n" +
+                "Answer:";
+    }
+
+    /** The full prompt for a session starting over, carrying the previous turn so follow-ups still make sense. */
+    public String resume(String context, String question, String previousQuestion, String previousAnswer) {
+        return "PREVIOUS QUESTION: " + previousQuestion + "\n" +
+                "PREVIOUS ANSWER: " + previousAnswer + "\n\n" +
+                build(context, question);
+    }
+
+    /** Prompt tokens spent before any context is added. */
+    public int reservedTokens(String question) {
+        return TokenEstimator.estimate(build("", question));
+    }
+
+    public int followUpReservedTokens(String question) {
+        return TokenEstimator.estimate(followUp("", question));
+    }
+}
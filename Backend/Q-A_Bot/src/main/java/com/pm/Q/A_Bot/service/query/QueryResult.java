@@ -0,0 +1,11 @@
+package com.pm.Q.A_Bot.service.query;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+/**
+ * Answer to a question together with the chunks it was generated from.
+ */
+public record QueryResult(String answer, List<Document> sources, boolean cached) {
+}
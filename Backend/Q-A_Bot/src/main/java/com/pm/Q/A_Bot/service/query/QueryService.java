@@ -0,0 +1,178 @@
+package com.pm.Q.A_Bot.service.query;
+
+import com.pm.Q.A_Bot.service.llm.GenerationRejectedException;
+import com.pm.Q.A_Bot.service.llm.GenerationScheduler;
+import com.pm.Q.A_Bot.service.llm.GenerationResult;
+import com.pm.Q.A_Bot.service.llm.OllamaException;
+import com.pm.Q.A_Bot.service.metrics.RagMetrics;
+import com.pm.Q.A_Bot.service.retrieval.HybridRetriever;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Question answering behind {@code /api/query/ask}: answer cache, retrieval, prompt building and generation.
+ */
+@Service
+public class QueryService {
+
+    private final HybridRetriever retriever;
+    private final EmbeddingModel embeddingModel;
+    private final GenerationScheduler generationScheduler;
+    private final AnswerCache answerCache;
+    private final ContextAssembler contextAssembler;
+    private final PromptBuilder promptBuilder;
+
+    private final IndexVersion indexVersion;
+    private final RagMetrics metrics;
+
+    // Concurrent identical questions against the same index contents share one retrieval and generation
+    private final SingleFlight<FlightKey, QueryResult> askFlights = new SingleFlight<>();
+    private final SingleFlight<FlightKey, PreparedQuery> prepareFlights = new SingleFlight<>();
+
+    private record FlightKey(String question, long indexVersion) {
+    }
+
+    public QueryService(HybridRetriever retriever, EmbeddingModel embeddingModel, GenerationScheduler generationScheduler,
+                        AnswerCache answerCache, ContextAssembler contextAssembler, PromptBuilder promptBuilder,
+                        IndexVersion indexVersion, RagMetrics metrics) {
+        this.retriever = retriever;
+        this.embeddingModel = embeddingModel;
+        this.generationScheduler = generationScheduler;
+        this.answerCache = answerCache;
+        this.contextAssembler = contextAssembler;
+        this.promptBuilder = promptBuilder;
+        this.indexVersion = indexVersion;
+        this.metrics = metrics;
+    }
+
+    public QueryResult ask(String question) {
+        return join(askFlights.execute(flightKey(question), () -> answer(question)));
+    }
+
+    private QueryResult answer(String question) {
+        PreparedQuery prepared = prepare(question);
+        if (prepared.isAnswered()) {
+            return new QueryResult(prepared.answer(), prepared.documents(), prepared.cached());
+        }
+
+        // 6. Call LLM service through the scheduler, ahead of batch and health traffic
+        String answer = generate(prepared.prompt(), GenerationScheduler.Priority.INTERACTIVE);
+
+        complete(prepared, answer);
+        return new QueryResult(answer, prepared.documents(), false);
+    }
+
+    /**
+     * Everything up to generation: answer cache lookup, retrieval and prompt building.
+     * The result either already carries an answer or a prompt that still has to be sent to the LLM.
+     */
+    public PreparedQuery prepare(String question) {
+        return join(prepareFlights.execute(flightKey(question), () -> retrieve(question)));
+    }
+
+    private PreparedQuery retrieve(String question) {
+        // Read before anything is retrieved: a change landing after this point makes the answer uncacheable
+        long version = indexVersion.current();
+        // Embedding is cached, so the vector store's own embedding of the same question is free
+        long started = System.nanoTime();
+        float[] queryEmbedding = embeddingModel.embed(question);
+        metrics.record(RagMetrics.QueryStage.EMBED, started);
+        String cachedAnswer = answerCache.lookup(question, queryEmbedding);
+        if (cachedAnswer != null) {
+            metrics.outcome(RagMetrics.QueryOutcome.CACHED);
+            return PreparedQuery.answered(question, cachedAnswer, true, version);
+        }
+
+        // 1. Hybrid retrieval: vector and BM25 rankings fused, already cut to retrieval.top-k
+        started = System.nanoTime();
+        List<Document> results = retriever.retrieve(question);
+        metrics.record(RagMetrics.QueryStage.SEARCH, started);
+
+        // 2. If no documents found at all
+        if (results.isEmpty()) {
+            metrics.outcome(RagMetrics.QueryOutcome.NO_DOCUMENTS);
+            return PreparedQuery.answered(question, "No documents found in the database. Please upload documents first.", false, version);
+        }
+
+        // 3. Merge neighbouring chunks and pack passages into what num-ctx leaves for context
+        started = System.nanoTime();
+        int reservedTokens = promptBuilder.reservedTokens(question);
+        ContextAssembler.AssembledContext assembled = contextAssembler.assemble(results, reservedTokens);
+        List<Document> topDocs = assembled.documents();
+        String context = assembled.text();
+
+        // 4. Prepare prompt
+        String prompt = promptBuilder.build(context, question);
+        metrics.record(RagMetrics.QueryStage.CONTEXT, started);
+        metrics.outcome(RagMetrics.QueryOutcome.RETRIEVED);
+        metrics.prompt(assembled.tokens(), assembled.tokens() + reservedTokens);
+
+        return PreparedQuery.pending(question, queryEmbedding, topDocs, prompt, version);
+    }
+
+    /**
+     * Records a generated answer for a prepared query so later repeats are served from the answer cache.
+     */
+    public void complete(PreparedQuery prepared, String answer) {
+        if (!answer.startsWith("❌")) {
+            answerCache.put(prepared.question(), prepared.queryEmbedding(), answer, prepared.documents(),
+                    prepared.indexVersion());
+        }
+    }
+
+    public Map<String, Object> coalescingStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("ask", askFlights.stats());
+        stats.put("prepare", prepareFlights.stats());
+        return stats;
+    }
+
+    private FlightKey flightKey(String question) {
+        return new FlightKey(AnswerCache.normalizeQuestion(question), indexVersion.current());
+    }
+
+    private static <T> T join(CompletableFuture<T> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a prompt through the {@link GenerationScheduler} and waits for the answer. Upstream failures come
+     * back as a "❌" message like before; a full generation queue surfaces as {@link GenerationRejectedException}.
+     */
+    public String generate(String prompt, GenerationScheduler.Priority priority) {
+        long started = System.nanoTime();
+        try {
+            GenerationResult result = join(generationScheduler.generate(prompt, priority));
+            // Health probes would skew the latency of real questions
+            if (priority != GenerationScheduler.Priority.HEALTH) {
+                metrics.record(RagMetrics.QueryStage.GENERATE, started);
+                metrics.generation(result.raw());
+            }
+            return result.response();
+        } catch (GenerationRejectedException e) {
+            throw e;
+        } catch (OllamaException e) {
+            System.err.println("Error calling LLM service: " + e.getMessage());
+            return e.getStatus() == 0
+                    ? "❌ LLM service is currently unavailable. Please try again later."
+                    : "❌ Error communicating with LLM service: " + e.getMessage();
+        } catch (Exception e) {
+            System.err.println("Error calling LLM service: " + e.getMessage());
+            return "❌ Error communicating with LLM service: " + e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.pm.Q.A_Bot.service.retrieval;
+
+import com.pm.Q.A_Bot.service.vectorstore.MetadataPatchable;
+import com.pm.Q.A_Bot.service.vectorstore.SnapshotFiles;
+import com.pm.Q.A_Bot.service.vectorstore.StoredDocument;
+import org.springframework.ai.document.Document;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process BM25 inverted index over chunk texts.
+ * <p>
+ * Postings are varint-encoded (doc gap, term frequency) pairs appended per term; documents get increasing
+ * ordinals, so lists stay sorted without rewriting. Deletes tombstone the ordinal and the postings are rebuilt
+ * once tombstones outnumber live documents; until then the document count, total length and document
+ * frequencies used for scoring are kept to the live documents. Only the documents are snapshotted, postings are
+ * rebuilt on load.
+ */
+public class Bm25Index implements MetadataPatchable, AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x424D3235; // "BM25"
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MIN_TOMBSTONES_FOR_COMPACTION = 1000;
+
+    private final Path snapshotPath;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, Postings> postings = new HashMap<>();
+    private List<StoredDocument> documents = new ArrayList<>();
+    private int[] lengths = new int[1024];
+    private final Map<String, Integer> idToOrdinal = new HashMap<>();
+    private long totalLength;
+    private int tombstones;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+
+    public Bm25Index(Path snapshotPath, long flushIntervalSeconds) {
+        this.snapshotPath = snapshotPath;
+        load();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bm25-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public record Hit(StoredDocument document, float score) {
+    }
+
+    /** Indexes the chunks, replacing earlier versions with the same id. */
+    public void add(List<Document> chunks) {
+        lock.writeLock().lock();
+        try {
+            for (Document chunk : chunks) {
+                StoredDocument doc = StoredDocument.of(chunk);
+                Integer previous = idToOrdinal.get(doc.id());
+                if (previous != null) {
+                    tombstone(previous);
+                }
+                index(doc);
+            }
+            dirty.set(true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Metadata is not indexed, so a patch replaces the stored document and leaves the postings alone. */
+    @Override
+    public void patchMetadata(Map<String, Map<String, Object>> patches) {
+        lock.writeLock().lock();
+        try {
+            patches.forEach((id, patch) -> {
+                Integer ordinal = idToOrdinal.get(id);
+                if (ordinal != null) {
+                    documents.set(ordinal, documents.get(ordinal).withMetadata(patch));
+                }
+            });
+            dirty.set(true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Collection<String> ids) {
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                Integer ordinal = idToOrdinal.get(id);
+                if (ordinal != null) {
+                    tombstone(ordinal);
+                }
+            }
+            compactIfNeeded();
+            dirty.set(true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void deleteSource(String source) {
+        List<String> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (StoredDocument doc : documents) {
+                if (doc != null && source.equals(doc.metadata().get("source"))) {
+                    ids.add(doc.id());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        delete(ids);
+    }
+
+    public List<Hit> search(String query, int k) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(LexicalAnalyzer.terms(query)));
+        lock.readLock().lock();
+        try {
+            int n = idToOrdinal.size();
+            if (terms.isEmpty() || n == 0 || k <= 0) {
+                return List.of();
+            }
+            float avgLength = Math.max(1f, (float) totalLength / n);
+            float[] scores = new float[documents.size()];
+            int[] touched = new int[16];
+            int touchedCount = 0;
+
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                float idf = (float) Math.log(1 + (n - list.docFreq + 0.5) / (list.docFreq + 0.5));
+                Postings.Cursor cursor = list.cursor();
+                while (cursor.next()) {
+                    int ordinal = cursor.doc;
+                    if (documents.get(ordinal) == null) {
+                        continue;
+                    }
+                    float tf = cursor.freq;
+                    float norm = K1 * (1 - B + B * lengths[ordinal] / avgLength);
+                    if (scores[ordinal] == 0f) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = ordinal;
+                    }
+                    scores[ordinal] += idf * tf * (K1 + 1) / (tf + norm);
+                }
+            }
+
+            PriorityQueue<Integer> top = new PriorityQueue<>(k + 1, (a, b) -> Float.compare(scores[a], scores[b]));
+            for (int i = 0; i < touchedCount; i++) {
+                top.offer(touched[i]);
+                if (top.size() > k) {
+                    top.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                int ordinal = top.poll();
+                hits.add(new Hit(documents.get(ordinal), scores[ordinal]));
+            }
+            return hits.reversed();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return idToOrdinal.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(StoredDocument doc) {
+        int ordinal = documents.size();
+        documents.add(doc);
+        idToOrdinal.put(doc.id(), ordinal);
+
+        List<String> terms = LexicalAnalyzer.terms(doc.text());
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> e : frequencies.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), t -> new Postings()).append(ordinal, e.getValue());
+        }
+        if (ordinal == lengths.length) {
+            lengths = Arrays.copyOf(lengths, lengths.length * 2);
+        }
+        lengths[ordinal] = terms.size();
+        totalLength += terms.size();
+    }
+
+    private void tombstone(int ordinal) {
+        StoredDocument doc = documents.set(ordinal, null);
+        if (doc != null) {
+            idToOrdinal.remove(doc.id());
+            tombstones++;
+            totalLength -= lengths[ordinal];
+            // The postings keep the ordinal until the next rebuild, but it no longer counts towards the idf
+            for (String term : new LinkedHashSet<>(LexicalAnalyzer.terms(doc.text()))) {
+                Postings list = postings.get(term);
+                if (list != null && --list.docFreq == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (tombstones < MIN_TOMBSTONES_FOR_COMPACTION || tombstones < idToOrdinal.size()) {
+            return;
+        }
+        List<StoredDocument> live = documents.stream().filter(d -> d != null).toList();
+        rebuild(live);
+    }
+
+    private void rebuild(List<StoredDocument> live) {
+        postings = new HashMap<>();
+        documents = new ArrayList<>(live.size());
+        lengths = new int[Math.max(1024, live.size())];
+        idToOrdinal.clear();
+        totalLength = 0;
+        tombstones = 0;
+        for (StoredDocument doc : live) {
+            index(doc);
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a BM25 snapshot: " + snapshotPath);
+            }
+            int count = in.readInt();
+            List<StoredDocument> docs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                docs.add(StoredDocument.readFrom(in));
+            }
+            rebuild(docs);
+            System.out.println("Loaded BM25 index with " + count + " documents and " + postings.size() + " terms from " + snapshotPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load BM25 snapshot " + snapshotPath, e);
+        }
+    }
+
+    public void flush() throws IOException {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        List<StoredDocument> live;
+        lock.readLock().lock();
+        try {
+            live = documents.stream().filter(d -> d != null).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            SnapshotFiles.writeAtomically(snapshotPath, out -> {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(live.size());
+                for (StoredDocument doc : live) {
+                    doc.writeTo(out);
+                }
+            });
+        } catch (IOException e) {
+            dirty.set(true);
+            throw e;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("BM25 snapshot flush failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    /** Varint-encoded (doc gap, frequency) pairs in increasing doc order. */
+    private static final class Postings {
+
+        private byte[] data = new byte[8];
+        private int length;
+        private int lastDoc;
+        /** Live documents containing the term; tombstoned ones are subtracted on delete. */
+        private int docFreq;
+
+        void append(int doc, int freq) {
+            writeVarint(doc - lastDoc);
+            writeVarint(freq);
+            lastDoc = doc;
+            docFreq++;
+        }
+
+        private void writeVarint(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        Cursor cursor() {
+            return new Cursor();
+        }
+
+        final class Cursor {
+            private int position;
+            int doc;
+            int freq;
+
+            boolean next() {
+                if (position >= length) {
+                    return false;
+                }
+                doc += readVarint();
+                freq = readVarint();
+                return true;
+            }
+
+            private int readVarint() {
+                int value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.pm.Q.A_Bot.service.retrieval;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Retrieval for question answering: dense vector search fused with BM25 lexical search by reciprocal-rank
+ * fusion, so chunks with exact terms (form numbers, leave types, acronyms) rank well even when embeddings
+ * blur them.
+ */
+@Service
+public class HybridRetriever {
+
+    private final VectorStore vectorStore;
+    private final Bm25Index lexicalIndex;
+    private final boolean hybrid;
+    private final int topK;
+    private final int candidates;
+    private final int rrfK;
+
+    public HybridRetriever(VectorStore vectorStore,
+                           Bm25Index lexicalIndex,
+                           @Value("${retrieval.mode:hybrid}") String mode,
+                           @Value("${retrieval.top-k:3}") int topK,
+                           @Value("${retrieval.candidates:20}") int candidates,
+                           @Value("${retrieval.rrf-k:60}") int rrfK) {
+        this.vectorStore = vectorStore;
+        this.lexicalIndex = lexicalIndex;
+        this.hybrid = "hybrid".equalsIgnoreCase(mode);
+        this.topK = topK;
+        this.candidates = Math.max(candidates, topK);
+        this.rrfK = rrfK;
+    }
+
+    public List<Document> retrieve(String question) {
+        if (!hybrid || lexicalIndex.size() == 0) {
+            return vectorStore.similaritySearch(SearchRequest.builder().query(question).topK(topK).build());
+        }
+        List<Document> dense = vectorStore.similaritySearch(SearchRequest.builder()
+                .query(question)
+                .topK(candidates)
+                .build());
+        List<Document> lexical = lexicalIndex.search(question, candidates).stream()
+                .map(hit -> hit.document().toDocument(Float.NaN))
+                .toList();
+        return fuse(dense, lexical, rrfK, topK);
+    }
+
+    /**
+     * Whether one of the given chunks, already in the lexical index, would enter the fused results for the question
+     * on its BM25 rank alone: its reciprocal-rank share reaches the weakest fused score the question was answered from.
+     */
+    public boolean wouldRankLexically(String question, Set<String> chunkIds, double weakestFusedScore) {
+        if (!hybrid) {
+            return false;
+        }
+        List<Bm25Index.Hit> hits = lexicalIndex.search(question, candidates);
+        for (int rank = 0; rank < hits.size(); rank++) {
+            if (chunkIds.contains(hits.get(rank).document().id()) && 1.0 / (rrfK + rank + 1) >= weakestFusedScore) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reciprocal-rank fusion: each list contributes {@code 1 / (rrfK + rank)} per document. Dense documents
+     * keep their similarity score and every document carries its {@code rrf_score}, so answer-cache invalidation
+     * can test new chunks against both rankings; lexical-only documents get no similarity score.
+     */
+    static List<Document> fuse(List<Document> dense, List<Document> lexical, int rrfK, int k) {
+        Map<String, Double> fused = new HashMap<>();
+        Map<String, Document> byId = new LinkedHashMap<>();
+        Map<String, String> foundBy = new HashMap<>();
+        for (int rank = 0; rank < dense.size(); rank++) {
+            Document doc = dense.get(rank);
+            fused.merge(doc.getId(), 1.0 / (rrfK + rank + 1), Double::sum);
+            byId.putIfAbsent(doc.getId(), doc);
+            foundBy.put(doc.getId(), "vector");
+        }
+        for (int rank = 0; rank < lexical.size(); rank++) {
+            Document doc = lexical.get(rank);
+            fused.merge(doc.getId(), 1.0 / (rrfK + rank + 1), Double::sum);
+            byId.putIfAbsent(doc.getId(), doc);
+            foundBy.merge(doc.getId(), "lexical", (a, b) -> "both");
+        }
+
+        List<String> ids = new ArrayList<>(byId.keySet());
+        ids.sort((a, b) -> Double.compare(fused.get(b), fused.get(a)));
+
+        List<Document> results = new ArrayList<>(Math.min(k, ids.size()));
+        for (String id : ids.subList(0, Math.min(k, ids.size()))) {
+            Document doc = byId.get(id);
+            Map<String, Object> metadata = new HashMap<>(doc.getMetadata());
+            metadata.remove("distance");
+            metadata.put("rrf_score", fused.get(id));
+            metadata.put("retrieved_by", foundBy.get(id));
+            Double score = doc.getScore() == null || doc.getScore().isNaN() ? null : doc.getScore();
+            if (score != null) {
+                metadata.put("distance", 1 - score);
+            }
+            results.add(Document.builder()
+                    .id(id)
+                    .text(doc.getText())
+                    .metadata(metadata)
+                    .score(score)
+                    .build());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,43 @@
+package com.pm.Q.A_Bot.service.retrieval;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits text into lowercase letter/digit terms for the BM25 index. No stemming: exact policy terms such as
+ * form numbers and acronyms are what lexical retrieval is for.
+ */
+public final class LexicalAnalyzer {
+
+    private static final int MAX_TERM_LENGTH = 40;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "can", "do", "does", "for", "from", "how", "i", "in",
+            "is", "it", "its", "of", "on", "or", "that", "the", "this", "to", "was", "what", "when", "where",
+            "which", "who", "will", "with", "you", "your");
+
+    private LexicalAnalyzer() {
+    }
+
+    public static List<String> terms(CharSequence text) {
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (term.length() < MAX_TERM_LENGTH) {
+                    term.append(c);
+                }
+            } else if (!term.isEmpty()) {
+                String t = term.toString().toLowerCase(Locale.ROOT);
+                if (!STOP_WORDS.contains(t)) {
+                    terms.add(t);
+                }
+                term.setLength(0);
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,189 @@
+package com.pm.Q.A_Bot.service.startup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.pm.Q.A_Bot.service.health.ProbeResult;
+import com.pm.Q.A_Bot.service.llm.OllamaBackend;
+import com.pm.Q.A_Bot.service.llm.OllamaBackendPool;
+import com.pm.Q.A_Bot.service.llm.OllamaClient;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Takes the first-request costs off both the boot path and the first user: once the application is ready,
+ * every backend loads the generation and the embedding model (kept resident by {@code llm.keep-alive}) and the
+ * vector store answers one search, all in parallel on virtual threads. Readiness stays out of service until
+ * the round has finished; a step that fails is reported but does not hold readiness back, since the
+ * dependency probes already take the instance out for a dependency that is down.
+ */
+@Service
+public class StartupWarmup {
+
+    private final OllamaClient ollamaClient;
+    private final OllamaBackendPool backendPool;
+    private final VectorStore vectorStore;
+    private final String llmModel;
+    private final String embeddingModel;
+    private final boolean enabled;
+    private final long timeoutMillis;
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private volatile Map<String, ProbeResult> steps = Map.of();
+    private volatile boolean warm;
+
+    public StartupWarmup(OllamaClient ollamaClient,
+                         OllamaBackendPool backendPool,
+                         VectorStore vectorStore,
+                         @Value("${llm.service.model:llama3.2:1b}") String llmModel,
+                         @Value("${spring.ai.ollama.embedding.model:nomic-embed-text:latest}") String embeddingModel,
+                         @Value("${startup.warmup.enabled:true}") boolean enabled,
+                         @Value("${startup.warmup.timeout-seconds:120}") long timeoutSeconds) {
+        this.ollamaClient = ollamaClient;
+        this.backendPool = backendPool;
+        this.vectorStore = vectorStore;
+        this.llmModel = llmModel;
+        this.embeddingModel = embeddingModel;
+        this.enabled = enabled;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+    }
+
+    @EventListener
+    public void onStarted(ApplicationStartedEvent event) {
+        phase("contextMillis", event.getTimeTaken().toMillis());
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        long sinceRun = event.getTimeTaken().toMillis();
+        synchronized (phases) {
+            // JVM start to SpringApplication.run, then refresh, then the runners; CDS shortens the first
+            phases.put("jvmMillis", uptime - sinceRun);
+            phases.put("runnersMillis", sinceRun - phases.getOrDefault("contextMillis", sinceRun));
+            phases.put("readyMillis", uptime);
+        }
+        if (!enabled) {
+            warm = true;
+            return;
+        }
+        Thread.ofVirtual().name("warmup").start(() -> warmUp(steps()));
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /** Boot phases and warm-up steps in milliseconds, for the readiness details. */
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        synchronized (phases) {
+            report.putAll(phases);
+        }
+        report.put("classDataSharing", ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile")));
+        Map<String, Object> stepReport = new LinkedHashMap<>();
+        steps.forEach((name, result) -> stepReport.put(name, result.up()
+                ? TimeUnit.MICROSECONDS.toMillis(result.latencyMicros()) + " ms"
+                : "failed: " + result.error()));
+        report.put("steps", stepReport);
+        return report;
+    }
+
+    /** One model load per backend and model, plus a vector store search that embeds its query. */
+    Map<String, Callable<Map<String, Object>>> steps() {
+        Map<String, Callable<Map<String, Object>>> steps = new LinkedHashMap<>();
+        for (OllamaBackend backend : backendPool.getBackends()) {
+            steps.put(llmModel + "@" + backend.getName(), () -> load(backend, llmModel, false));
+            steps.put(embeddingModel + "@" + backend.getName(), () -> load(backend, embeddingModel, true));
+        }
+        steps.put("vectorStore", this::search);
+        return steps;
+    }
+
+    /** Runs the steps in parallel and waits for all of them, up to the warm-up timeout for the whole round. */
+    void warmUp(Map<String, Callable<Map<String, Object>>> steps) {
+        System.out.println("=== Warming up " + steps.size() + " steps in the background ===");
+        long started = System.nanoTime();
+        Map<String, ProbeResult> results = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<ProbeResult>> futures = new ArrayList<>();
+            steps.values().forEach(step -> futures.add(executor.submit(() -> ProbeResult.timed(step))));
+            long deadline = started + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            int i = 0;
+            for (String name : steps.keySet()) {
+                Future<ProbeResult> future = futures.get(i++);
+                ProbeResult result;
+                try {
+                    result = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    result = ProbeResult.down(ProbeResult.nowMicros(), TimeUnit.MILLISECONDS.toMicros(timeoutMillis),
+                            Map.of(), "not finished within " + timeoutMillis + " ms");
+                }
+                results.put(name, result);
+                System.out.println((result.up() ? "✅ " : "❌ ") + "Warm-up " + name + ": "
+                        + (result.up() ? TimeUnit.MICROSECONDS.toMillis(result.latencyMicros()) + " ms" : result.error()));
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            System.err.println("❌ Warm-up interrupted: " + e.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+        this.steps = results;
+        synchronized (phases) {
+            phases.put("warmupMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            phases.put("warmMillis", ManagementFactory.getRuntimeMXBean().getUptime());
+        }
+        warm = true;
+        System.out.println("=== Startup complete: " + report() + " ===");
+    }
+
+    private Map<String, Object> load(OllamaBackend backend, String model, boolean embedding) throws Exception {
+        JsonNode response = ollamaClient.load(backend, model, embedding).get();
+        // Ollama reports how long loading the weights took; near zero means the model was already resident
+        return Map.of("loadMillis", TimeUnit.NANOSECONDS.toMillis(response.path("load_duration").asLong()));
+    }
+
+    private Map<String, Object> search() {
+        List<Document> existingDocs = vectorStore.similaritySearch(SearchRequest.builder()
+                .query("startup test")
+                .topK(5)
+                .build());
+        if (existingDocs.isEmpty()) {
+            System.out.println("📄 No existing documents found - ready for upload");
+        } else {
+            String preview = existingDocs.get(0).getText();
+            if (preview.length() > 100) {
+                preview = preview.substring(0, 100) + "...";
+            }
+            System.out.println("📄 Found " + existingDocs.size() + " existing documents in vector store");
+            System.out.println("📝 Sample document preview: " + preview);
+        }
+        return Map.of("documents", existingDocs.size());
+    }
+
+    private void phase(String name, long millis) {
+        synchronized (phases) {
+            phases.put(name, millis);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.pm.Q.A_Bot.service.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content-addressed file storage for uploaded documents: one file per distinct content, named by its SHA-256
+ * and sharded by the first two hex digits. Uploads are copied to a temp file while being hashed, so a file is
+ * never held in memory, and only then moved into place; identical uploads end up sharing one file.
+ */
+@Service
+public class BlobStore {
+
+    /** An upload written to a temp file and hashed, not yet visible under its hash. */
+    public record PendingBlob(Path file, String hash, long size) {
+    }
+
+    private final Path root;
+    private final Path incoming;
+
+    public BlobStore(@Value("${docs.blob.path:data/blobs}") String path) throws IOException {
+        this.root = Path.of(path);
+        this.incoming = root.resolve("incoming");
+        Files.createDirectories(incoming);
+    }
+
+    public PendingBlob write(InputStream in) throws IOException {
+        Path tmp = Files.createTempFile(incoming, "upload", ".tmp");
+        MessageDigest digest = sha256();
+        try (InputStream hashing = new DigestInputStream(in, digest)) {
+            long size = Files.copy(hashing, tmp, StandardCopyOption.REPLACE_EXISTING);
+            return new PendingBlob(tmp, HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    /**
+     * Moves a pending blob under its hash, or drops it when that content is already stored.
+     * Returns true when the content was new.
+     */
+    public boolean commit(PendingBlob blob) throws IOException {
+        Path target = path(blob.hash());
+        if (Files.exists(target)) {
+            discard(blob);
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        Files.move(blob.file(), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    public void discard(PendingBlob blob) throws IOException {
+        Files.deleteIfExists(blob.file());
+    }
+
+    public Path path(String hash) {
+        if (!hash.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Not a SHA-256 hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    public boolean exists(String hash) {
+        return Files.exists(path(hash));
+    }
+
+    public void delete(String hash) throws IOException {
+        Files.deleteIfExists(path(hash));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
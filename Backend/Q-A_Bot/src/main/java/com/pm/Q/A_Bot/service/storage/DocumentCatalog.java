@@ -0,0 +1,125 @@
+package com.pm.Q.A_Bot.service.storage;
+
+import com.pm.Q.A_Bot.Entity.DocumentEntity;
+import com.pm.Q.A_Bot.Repository.DocumentRepository;
+import com.pm.Q.A_Bot.Repository.DocumentSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Stored uploads: metadata rows in MySQL, bytes in the {@link BlobStore}. The same name uploaded again with
+ * the same content is recognised instead of stored twice, and a blob is removed with the last row that
+ * refers to it. Both decisions are taken under a lock striped by content hash, so an upload and a delete of
+ * the same content cannot interleave between the row check and the file operation.
+ */
+@Service
+public class DocumentCatalog {
+
+    /** A stored upload, and whether it was already in the catalog under the same name. */
+    public record StoredDocument(DocumentEntity document, boolean duplicate) {
+    }
+
+    private final DocumentRepository repository;
+    private final BlobStore blobStore;
+    private final int maxPageSize;
+    private final Object[] locks = new Object[64];
+
+    public DocumentCatalog(DocumentRepository repository,
+                           BlobStore blobStore,
+                           @Value("${docs.history.max-page-size:200}") int maxPageSize) {
+        this.repository = repository;
+        this.blobStore = blobStore;
+        this.maxPageSize = maxPageSize;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public StoredDocument store(String name, String contentType, InputStream content) throws IOException {
+        BlobStore.PendingBlob blob = blobStore.write(content);
+        synchronized (lock(blob.hash())) {
+            Optional<DocumentEntity> existing = repository.findFirstByNameAndContentHash(name, blob.hash());
+            if (existing.isPresent() && blobStore.exists(blob.hash())) {
+                blobStore.discard(blob);
+                return new StoredDocument(existing.get(), true);
+            }
+            blobStore.commit(blob);
+            DocumentEntity doc = new DocumentEntity();
+            doc.setName(name);
+            doc.setContentType(contentType);
+            doc.setSizeBytes(blob.size());
+            doc.setContentHash(blob.hash());
+            doc.setUploadedAt(LocalDateTime.now());
+            return new StoredDocument(repository.save(doc), false);
+        }
+    }
+
+    /**
+     * Moves the text a row from before the blob store kept in its own column into the blob store, as UTF-8.
+     * Returns false when the row is gone.
+     */
+    public boolean adoptLegacyContent(Long id, String content) throws IOException {
+        Optional<DocumentEntity> row = repository.findById(id);
+        if (row.isEmpty()) {
+            return false;
+        }
+        BlobStore.PendingBlob blob = blobStore.write(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        synchronized (lock(blob.hash())) {
+            blobStore.commit(blob);
+            DocumentEntity doc = row.get();
+            doc.setContentHash(blob.hash());
+            doc.setSizeBytes(blob.size());
+            if (doc.getContentType() == null) {
+                doc.setContentType("text/plain;charset=UTF-8");
+            }
+            repository.save(doc);
+            return true;
+        }
+    }
+
+    /** Newest first, metadata only; the page size is capped at {@code docs.history.max-page-size}. */
+    public Page<DocumentSummary> history(int page, int size) {
+        PageRequest request = PageRequest.of(Math.max(0, page), Math.clamp(size, 1, maxPageSize),
+                Sort.by(Sort.Order.desc("uploadedAt"), Sort.Order.desc("id")));
+        return repository.findSummaries(request);
+    }
+
+    public Optional<DocumentEntity> find(Long id) {
+        return repository.findById(id);
+    }
+
+    /** The stored file, or empty for a pre-blob-store row that {@link LegacyContentBackfill} has not moved. */
+    public Optional<Path> content(DocumentEntity doc) {
+        String hash = doc.getContentHash();
+        return hash != null && blobStore.exists(hash) ? Optional.of(blobStore.path(hash)) : Optional.empty();
+    }
+
+    public void delete(DocumentEntity doc) throws IOException {
+        String hash = doc.getContentHash();
+        if (hash == null) {
+            repository.deleteById(doc.getId());
+            return;
+        }
+        synchronized (lock(hash)) {
+            repository.deleteById(doc.getId());
+            if (!repository.existsByContentHash(hash)) {
+                blobStore.delete(hash);
+            }
+        }
+    }
+
+    private Object lock(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), locks.length)];
+    }
+}
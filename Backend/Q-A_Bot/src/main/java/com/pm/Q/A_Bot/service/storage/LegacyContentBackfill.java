@@ -0,0 +1,70 @@
+package com.pm.Q.A_Bot.service.storage;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-off move of uploads stored before the blob store. Their text sat in {@code documents.content}, a column
+ * the entity no longer maps and {@code ddl-auto=update} leaves in place. Each such row gets its text written to
+ * the {@link BlobStore} and the column cleared, so a restart only picks up rows that are still unmoved.
+ * Databases created after the change have no such column and nothing to do.
+ */
+@Service
+public class LegacyContentBackfill {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final JdbcTemplate jdbc;
+    private final DocumentCatalog catalog;
+
+    public LegacyContentBackfill(JdbcTemplate jdbc, DocumentCatalog catalog) {
+        this.jdbc = jdbc;
+        this.catalog = catalog;
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        run();
+    }
+
+    /** Returns the number of rows moved. */
+    public int run() {
+        int moved = 0;
+        long after = 0;
+        while (true) {
+            List<Map.Entry<Long, String>> rows;
+            try {
+                rows = jdbc.query("select id, content from documents"
+                                + " where content_hash is null and content is not null and id > ? order by id limit ?",
+                        (rs, i) -> Map.entry(rs.getLong("id"), rs.getString("content")), after, BATCH_SIZE);
+            } catch (BadSqlGrammarException e) {
+                // No legacy column
+                return moved;
+            }
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (Map.Entry<Long, String> row : rows) {
+                after = row.getKey();
+                try {
+                    if (catalog.adoptLegacyContent(row.getKey(), row.getValue())) {
+                        jdbc.update("update documents set content = null where id = ?", row.getKey());
+                        moved++;
+                    }
+                } catch (Exception e) {
+                    System.err.println("❌ Could not move legacy content of document " + row.getKey() + ": " + e.getMessage());
+                }
+            }
+        }
+        if (moved > 0) {
+            System.out.println("✅ Moved " + moved + " legacy documents into the blob store");
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,431 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Hierarchical Navigable Small World graph over unit-length float vectors (cosine similarity as dot product).
+ * <p>
+ * Searches never take a lock: nodes are published before they become reachable and neighbour lists are
+ * replaced copy-on-write. Inserts only lock the individual nodes whose neighbour lists they rewrite.
+ * Deletes are tombstones; deleted nodes keep routing searches but are never returned.
+ */
+public class HnswIndex {
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int MAX_LEVEL = 16;
+    private static final int[] NO_LINKS = new int[0];
+    private static final int FORMAT_VERSION = 1;
+
+    private final int dimensions;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+
+    private volatile Node[][] pages = new Node[16][];
+    private final Object growLock = new Object();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger deleted = new AtomicInteger();
+
+    private volatile EntryPoint entryPoint;
+    private final Object entryLock = new Object();
+
+    public HnswIndex(int dimensions, int m, int efConstruction) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /** Number of nodes ever inserted, including tombstoned ones. */
+    public int size() {
+        return size.get();
+    }
+
+    public int liveSize() {
+        return size.get() - deleted.get();
+    }
+
+    public float[] vector(int node) {
+        return node(node).vector;
+    }
+
+    /**
+     * Inserts a unit-length vector and returns its node id.
+     */
+    public int add(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+        int level = randomLevel();
+        int id = size.getAndIncrement();
+        Node node = new Node(vector, level);
+        store(id, node);
+        link(id, node);
+        return id;
+    }
+
+    public void markDeleted(int node) {
+        Node n = node(node);
+        if (n != null && !n.deleted) {
+            n.deleted = true;
+            deleted.incrementAndGet();
+        }
+    }
+
+    public boolean isDeleted(int node) {
+        Node n = node(node);
+        return n == null || n.deleted;
+    }
+
+    /**
+     * Returns up to {@code k} live nodes accepted by {@code filter}, best match first.
+     */
+    public List<Scored> search(float[] query, int k, int ef, IntPredicate filter) {
+        EntryPoint ep = entryPoint;
+        if (ep == null || k <= 0) {
+            return List.of();
+        }
+        int cur = ep.node();
+        float curScore = score(query, cur);
+        for (int level = ep.level(); level > 0; level--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int n : node(cur).links(level)) {
+                    float s = score(query, n);
+                    if (s > curScore) {
+                        curScore = s;
+                        cur = n;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        // Tombstones and filters can starve the beam, so widen it until k hits are found or the graph is exhausted
+        int width = Math.max(ef, k);
+        while (true) {
+            PriorityQueue<Scored> found = searchLayer(query, cur, width, 0);
+            List<Scored> hits = new ArrayList<>(found.size());
+            for (Scored s : found) {
+                if (!isDeleted(s.node()) && filter.test(s.node())) {
+                    hits.add(s);
+                }
+            }
+            if (hits.size() >= k || width >= size.get()) {
+                hits.sort(Comparator.comparingDouble(Scored::score).reversed());
+                return hits.size() > k ? new ArrayList<>(hits.subList(0, k)) : hits;
+            }
+            width = Math.min(width * 2, size.get());
+        }
+    }
+
+    private void link(int id, Node node) {
+        EntryPoint ep = entryPoint;
+        if (ep == null) {
+            synchronized (entryLock) {
+                if (entryPoint == null) {
+                    entryPoint = new EntryPoint(id, node.level);
+                    return;
+                }
+                ep = entryPoint;
+            }
+        }
+
+        float[] q = node.vector;
+        int cur = ep.node();
+        float curScore = score(q, cur);
+        for (int level = ep.level(); level > node.level; level--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int n : node(cur).links(level)) {
+                    float s = score(q, n);
+                    if (s > curScore) {
+                        curScore = s;
+                        cur = n;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        for (int level = Math.min(node.level, ep.level()); level >= 0; level--) {
+            PriorityQueue<Scored> candidates = searchLayer(q, cur, efConstruction, level);
+            int max = level == 0 ? maxM0 : m;
+            int[] selected = selectNeighbours(q, candidates, m);
+            synchronized (node) {
+                // The node is reachable from the levels above, so concurrent inserts may have linked to it here already
+                int[] linked = node.links(level);
+                int[] merged = IntStream.concat(Arrays.stream(selected), Arrays.stream(linked)).distinct().toArray();
+                if (merged.length <= max) {
+                    node.links.set(level, merged);
+                } else {
+                    PriorityQueue<Scored> all = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+                    for (int n : merged) {
+                        all.add(new Scored(n, score(q, n)));
+                    }
+                    node.links.set(level, selectNeighbours(q, all, max));
+                }
+            }
+            for (int neighbour : selected) {
+                connect(neighbour, id, level, max);
+            }
+            Scored best = null;
+            for (Scored s : candidates) {
+                if (best == null || s.score() > best.score()) {
+                    best = s;
+                }
+            }
+            if (best != null) {
+                cur = best.node();
+            }
+        }
+
+        if (node.level > ep.level()) {
+            synchronized (entryLock) {
+                if (node.level > entryPoint.level()) {
+                    entryPoint = new EntryPoint(id, node.level);
+                }
+            }
+        }
+    }
+
+    private void connect(int target, int newNode, int level, int max) {
+        Node t = node(target);
+        synchronized (t) {
+            int[] current = t.links(level);
+            int[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = newNode;
+            if (grown.length <= max) {
+                t.links.set(level, grown);
+                return;
+            }
+            PriorityQueue<Scored> candidates = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+            for (int n : grown) {
+                candidates.add(new Scored(n, score(t.vector, n)));
+            }
+            t.links.set(level, selectNeighbours(t.vector, candidates, max));
+        }
+    }
+
+    /**
+     * Neighbour selection heuristic from the HNSW paper: prefer candidates that are closer to the base
+     * than to any already selected neighbour, then top up with the best pruned ones.
+     */
+    private int[] selectNeighbours(float[] base, PriorityQueue<Scored> candidates, int max) {
+        List<Scored> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparingDouble(Scored::score).reversed());
+        int[] selected = new int[Math.min(max, sorted.size())];
+        int count = 0;
+        List<Scored> pruned = new ArrayList<>();
+        for (Scored candidate : sorted) {
+            if (count == selected.length) {
+                break;
+            }
+            float[] cv = node(candidate.node()).vector;
+            boolean keep = true;
+            for (int i = 0; i < count; i++) {
+                if (VectorMath.dot(cv, node(selected[i]).vector) > candidate.score()) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = candidate.node();
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        for (int i = 0; count < selected.length && i < pruned.size(); i++) {
+            selected[count++] = pruned.get(i).node();
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    /** Beam search on one layer; returns the best {@code ef} nodes, worst at the head. */
+    private PriorityQueue<Scored> searchLayer(float[] q, int entry, int ef, int level) {
+        BitSet visited = new BitSet(size.get());
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(Comparator.comparingDouble(Scored::score).reversed());
+        PriorityQueue<Scored> results = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+        Scored start = new Scored(entry, score(q, entry));
+        visited.set(entry);
+        candidates.add(start);
+        results.add(start);
+
+        while (!candidates.isEmpty()) {
+            Scored c = candidates.poll();
+            if (results.size() >= ef && c.score() < results.peek().score()) {
+                break;
+            }
+            for (int n : node(c.node()).links(level)) {
+                if (visited.get(n)) {
+                    continue;
+                }
+                visited.set(n);
+                float s = score(q, n);
+                if (results.size() < ef || s > results.peek().score()) {
+                    Scored scored = new Scored(n, s);
+                    candidates.add(scored);
+                    results.add(scored);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private float score(float[] q, int node) {
+        return VectorMath.dot(q, node(node).vector);
+    }
+
+    private int randomLevel() {
+        double r = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * levelMultiplier;
+        return Math.min((int) r, MAX_LEVEL);
+    }
+
+    private Node node(int id) {
+        Node[] page = pages[id >>> PAGE_BITS];
+        return page == null ? null : page[id & (PAGE_SIZE - 1)];
+    }
+
+    private void store(int id, Node node) {
+        int pageIndex = id >>> PAGE_BITS;
+        Node[][] current = pages;
+        if (pageIndex >= current.length || current[pageIndex] == null) {
+            synchronized (growLock) {
+                current = pages;
+                if (pageIndex >= current.length) {
+                    current = Arrays.copyOf(current, Math.max(current.length * 2, pageIndex + 1));
+                }
+                if (current[pageIndex] == null) {
+                    current[pageIndex] = new Node[PAGE_SIZE];
+                }
+                pages = current;
+            }
+        }
+        current[pageIndex][id & (PAGE_SIZE - 1)] = node;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        int count = size.get();
+        // Nodes still being inserted may not be stored yet; the snapshot ends at the first gap
+        int stored = 0;
+        while (stored < count && node(stored) != null) {
+            stored++;
+        }
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(dimensions);
+        out.writeInt(m);
+        out.writeInt(efConstruction);
+        out.writeInt(stored);
+        EntryPoint ep = entryPoint;
+        out.writeInt(ep == null || ep.node() >= stored ? -1 : ep.node());
+        out.writeInt(ep == null ? 0 : ep.level());
+        for (int i = 0; i < stored; i++) {
+            Node n = node(i);
+            out.writeInt(n.level);
+            out.writeBoolean(n.deleted);
+            for (float v : n.vector) {
+                out.writeFloat(v);
+            }
+            for (int level = 0; level <= n.level; level++) {
+                int[] links = n.links(level);
+                int valid = 0;
+                for (int l : links) {
+                    if (l < stored) {
+                        valid++;
+                    }
+                }
+                out.writeInt(valid);
+                for (int l : links) {
+                    if (l < stored) {
+                        out.writeInt(l);
+                    }
+                }
+            }
+        }
+    }
+
+    public static HnswIndex readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported HNSW snapshot version " + version);
+        }
+        HnswIndex index = new HnswIndex(in.readInt(), in.readInt(), in.readInt());
+        int count = in.readInt();
+        int entryNode = in.readInt();
+        int entryLevel = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Node n = new Node(new float[index.dimensions], in.readInt());
+            n.deleted = in.readBoolean();
+            for (int d = 0; d < index.dimensions; d++) {
+                n.vector[d] = in.readFloat();
+            }
+            for (int level = 0; level <= n.level; level++) {
+                int[] links = new int[in.readInt()];
+                for (int l = 0; l < links.length; l++) {
+                    links[l] = in.readInt();
+                }
+                n.links.set(level, links);
+            }
+            index.store(i, n);
+            if (n.deleted) {
+                index.deleted.incrementAndGet();
+            }
+        }
+        index.size.set(count);
+        if (entryNode >= 0) {
+            index.entryPoint = new EntryPoint(entryNode, entryLevel);
+        }
+        return index;
+    }
+
+    public record Scored(int node, float score) {
+    }
+
+    private record EntryPoint(int node, int level) {
+    }
+
+    private static final class Node {
+        final float[] vector;
+        final int level;
+        final AtomicReferenceArray<int[]> links;
+        volatile boolean deleted;
+
+        Node(float[] vector, int level) {
+            this.vector = vector;
+            this.level = level;
+            this.links = new AtomicReferenceArray<>(level + 1);
+            for (int i = 0; i <= level; i++) {
+                links.set(i, NO_LINKS);
+            }
+        }
+
+        int[] links(int level) {
+            return level > this.level ? NO_LINKS : links.get(level);
+        }
+    }
+}
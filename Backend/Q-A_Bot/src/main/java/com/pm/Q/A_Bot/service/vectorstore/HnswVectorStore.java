@@ -0,0 +1,279 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process {@link VectorStore} backed by an {@link HnswIndex}, persisted as a snapshot file on local disk.
+ * <p>
+ * Searches run concurrently without locking. Upserts tombstone the previous node for the same id; metadata
+ * patches replace the stored document in place.
+ * Dirty state is flushed in the background and on {@link #close()}.
+ */
+public class HnswVectorStore implements VectorStore, MetadataPatchable, AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x484E5357; // "HNSW"
+
+    private final EmbeddingModel embeddingModel;
+    private final Path snapshotPath;
+    private final int efSearch;
+    private final HnswIndex index;
+
+    private final Map<String, Integer> idToNode = new ConcurrentHashMap<>();
+    private final Map<Integer, StoredDocument> nodeToDocument = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+
+    private HnswVectorStore(Builder builder) {
+        this.embeddingModel = builder.embeddingModel;
+        this.snapshotPath = builder.snapshotPath;
+        this.efSearch = builder.efSearch;
+        this.index = load(builder);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hnsw-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly,
+                builder.flushIntervalSeconds, builder.flushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<String> texts = documents.stream()
+                .map(d -> d.getText() == null ? "" : d.getText())
+                .toList();
+        List<float[]> embeddings = embeddingModel.embed(texts);
+
+        for (int i = 0; i < documents.size(); i++) {
+            StoredDocument stored = StoredDocument.of(documents.get(i));
+            int node = index.add(VectorMath.normalize(embeddings.get(i)));
+            nodeToDocument.put(node, stored);
+            Integer previous = idToNode.put(stored.id(), node);
+            if (previous != null) {
+                remove(previous);
+            }
+        }
+        dirty.set(true);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        for (String id : idList) {
+            Integer node = idToNode.remove(id);
+            if (node != null) {
+                remove(node);
+            }
+        }
+        dirty.set(true);
+    }
+
+    @Override
+    public void patchMetadata(Map<String, Map<String, Object>> patches) {
+        patches.forEach((id, patch) -> {
+            Integer node = idToNode.get(id);
+            if (node != null) {
+                nodeToDocument.computeIfPresent(node, (n, doc) -> doc.withMetadata(patch));
+            }
+        });
+        dirty.set(true);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        List<String> ids = new ArrayList<>();
+        for (StoredDocument doc : nodeToDocument.values()) {
+            if (MetadataFilter.matches(filterExpression, doc.metadata())) {
+                ids.add(doc.id());
+            }
+        }
+        delete(ids);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] query = VectorMath.normalize(embeddingModel.embed(request.getQuery()));
+        Filter.Expression filter = request.getFilterExpression();
+
+        List<HnswIndex.Scored> hits = index.search(query, request.getTopK(), efSearch, node -> {
+            StoredDocument doc = nodeToDocument.get(node);
+            return doc != null && MetadataFilter.matches(filter, doc.metadata());
+        });
+
+        List<Document> results = new ArrayList<>(hits.size());
+        for (HnswIndex.Scored hit : hits) {
+            StoredDocument doc = nodeToDocument.get(hit.node());
+            if (doc != null && hit.score() >= request.getSimilarityThreshold()) {
+                results.add(doc.toDocument(hit.score()));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public String getName() {
+        return "HnswVectorStore";
+    }
+
+    public int size() {
+        return idToNode.size();
+    }
+
+    private void remove(int node) {
+        index.markDeleted(node);
+        nodeToDocument.remove(node);
+    }
+
+    private HnswIndex load(Builder builder) {
+        if (!Files.exists(snapshotPath)) {
+            return new HnswIndex(builder.dimensions > 0 ? builder.dimensions : embeddingModel.dimensions(),
+                    builder.m, builder.efConstruction);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not an HNSW snapshot: " + snapshotPath);
+            }
+            HnswIndex loaded = HnswIndex.readFrom(in);
+            int docs = in.readInt();
+            for (int i = 0; i < docs; i++) {
+                int node = in.readInt();
+                StoredDocument doc = StoredDocument.readFrom(in);
+                if (node < loaded.size() && !loaded.isDeleted(node)) {
+                    nodeToDocument.put(node, doc);
+                    idToNode.put(doc.id(), node);
+                }
+            }
+            // Nodes persisted mid-insert without a document are unreachable by id, retire them
+            for (int node = 0; node < loaded.size(); node++) {
+                if (!nodeToDocument.containsKey(node)) {
+                    loaded.markDeleted(node);
+                }
+            }
+            System.out.println("Loaded HNSW snapshot with " + idToNode.size() + " documents from " + snapshotPath);
+            return loaded;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load HNSW snapshot " + snapshotPath, e);
+        }
+    }
+
+    /**
+     * Writes the index and documents to a new snapshot that atomically replaces the old one.
+     */
+    public void flush() throws IOException {
+        flushLock.lock();
+        try {
+            if (!dirty.getAndSet(false)) {
+                return;
+            }
+            try {
+                SnapshotFiles.writeAtomically(snapshotPath, out -> {
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    index.writeTo(out);
+                    List<Map.Entry<Integer, StoredDocument>> entries = new ArrayList<>(nodeToDocument.entrySet());
+                    out.writeInt(entries.size());
+                    for (Map.Entry<Integer, StoredDocument> e : entries) {
+                        out.writeInt(e.getKey());
+                        e.getValue().writeTo(out);
+                    }
+                });
+            } catch (IOException e) {
+                dirty.set(true);
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("HNSW snapshot flush failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    public static final class Builder {
+
+        private final EmbeddingModel embeddingModel;
+        private Path snapshotPath = Path.of("data", "vectorstore", "hnsw.idx");
+        private int dimensions;
+        private int m = 16;
+        private int efConstruction = 200;
+        private int efSearch = 64;
+        private long flushIntervalSeconds = 30;
+
+        private Builder(EmbeddingModel embeddingModel) {
+            this.embeddingModel = embeddingModel;
+        }
+
+        public Builder snapshotPath(Path snapshotPath) {
+            this.snapshotPath = snapshotPath;
+            return this;
+        }
+
+        /** Embedding dimensions; when unset the embedding model is probed once. */
+        public Builder dimensions(int dimensions) {
+            this.dimensions = dimensions;
+            return this;
+        }
+
+        public Builder m(int m) {
+            this.m = m;
+            return this;
+        }
+
+        public Builder efConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        public Builder efSearch(int efSearch) {
+            this.efSearch = efSearch;
+            return this;
+        }
+
+        public Builder flushIntervalSeconds(long flushIntervalSeconds) {
+            this.flushIntervalSeconds = flushIntervalSeconds;
+            return this;
+        }
+
+        public HnswVectorStore build() {
+            return new HnswVectorStore(this);
+        }
+    }
+}
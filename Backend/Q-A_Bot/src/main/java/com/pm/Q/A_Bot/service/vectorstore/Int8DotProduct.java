@@ -0,0 +1,49 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+/**
+ * Dot product of int8 vectors. Uses the JDK Vector API when {@code jdk.incubator.vector} is on the module path
+ * and the CPU has 256-bit or wider vectors, otherwise falls back to a scalar loop.
+ */
+public abstract class Int8DotProduct {
+
+    private static final Int8DotProduct INSTANCE = create();
+
+    public static Int8DotProduct get() {
+        return INSTANCE;
+    }
+
+    /** Dot product of {@code a[aOffset, aOffset + length)} and {@code b[0, length)}. */
+    public abstract int dot(byte[] a, int aOffset, byte[] b, int length);
+
+    public abstract String implementation();
+
+    private static Int8DotProduct create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                if (SimdInt8DotProduct.isSupported()) {
+                    return new SimdInt8DotProduct();
+                }
+            } catch (LinkageError e) {
+                System.err.println("Vector API unavailable, using scalar int8 scoring: " + e.getMessage());
+            }
+        }
+        return new Scalar();
+    }
+
+    static final class Scalar extends Int8DotProduct {
+
+        @Override
+        public int dot(byte[] a, int aOffset, byte[] b, int length) {
+            int sum = 0;
+            for (int i = 0; i < length; i++) {
+                sum += a[aOffset + i] * b[i];
+            }
+            return sum;
+        }
+
+        @Override
+        public String implementation() {
+            return "scalar";
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+import com.pm.Q.A_Bot.service.limits.ResourceLimit;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link VectorStore} decorator that runs every call to a remote store under its {@link ResourceLimit}.
+ */
+public class LimitedVectorStore implements VectorStore {
+
+    private final VectorStore delegate;
+    private final ResourceLimit limit;
+
+    public LimitedVectorStore(VectorStore delegate, ResourceLimit limit) {
+        this.delegate = delegate;
+        this.limit = limit;
+    }
+
+    public VectorStore getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        limit.run(() -> delegate.add(documents));
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        limit.run(() -> delegate.delete(idList));
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        limit.run(() -> delegate.delete(filterExpression));
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        return limit.call(() -> delegate.similaritySearch(request));
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return delegate.getNativeClient();
+    }
+}
@@ -0,0 +1,91 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * Evaluates Spring AI filter expressions against a document's metadata map for the local vector stores.
+ */
+public final class MetadataFilter {
+
+    private MetadataFilter() {
+    }
+
+    public static boolean matches(Filter.Expression expression, Map<String, Object> metadata) {
+        if (expression == null) {
+            return true;
+        }
+        return switch (expression.type()) {
+            case AND -> matches(operand(expression.left()), metadata) && matches(operand(expression.right()), metadata);
+            case OR -> matches(operand(expression.left()), metadata) || matches(operand(expression.right()), metadata);
+            case NOT -> !matches(operand(expression.left()), metadata);
+            case EQ -> valueEquals(actual(expression, metadata), expected(expression));
+            case NE -> !valueEquals(actual(expression, metadata), expected(expression));
+            case GT -> compare(expression, metadata, c -> c > 0);
+            case GTE -> compare(expression, metadata, c -> c >= 0);
+            case LT -> compare(expression, metadata, c -> c < 0);
+            case LTE -> compare(expression, metadata, c -> c <= 0);
+            case IN -> contains(expected(expression), actual(expression, metadata));
+            case NIN -> !contains(expected(expression), actual(expression, metadata));
+        };
+    }
+
+    private static Filter.Expression operand(Filter.Operand operand) {
+        if (operand instanceof Filter.Group group) {
+            return group.content();
+        }
+        if (operand instanceof Filter.Expression expression) {
+            return expression;
+        }
+        throw new IllegalArgumentException("Expected a filter expression but got " + operand);
+    }
+
+    private static Object actual(Filter.Expression expression, Map<String, Object> metadata) {
+        if (!(expression.left() instanceof Filter.Key key)) {
+            throw new IllegalArgumentException("Left operand must be a metadata key: " + expression);
+        }
+        return metadata.get(key.key());
+    }
+
+    private static Object expected(Filter.Expression expression) {
+        if (!(expression.right() instanceof Filter.Value value)) {
+            throw new IllegalArgumentException("Right operand must be a value: " + expression);
+        }
+        return value.value();
+    }
+
+    private static boolean valueEquals(Object actual, Object expected) {
+        if (actual instanceof Number a && expected instanceof Number e) {
+            return a.doubleValue() == e.doubleValue();
+        }
+        return actual != null && expected != null && Objects.equals(actual.toString(), expected.toString());
+    }
+
+    private static boolean compare(Filter.Expression expression, Map<String, Object> metadata, IntPredicate test) {
+        Object actual = actual(expression, metadata);
+        Object expected = expected(expression);
+        if (actual == null) {
+            return false;
+        }
+        if (actual instanceof Number a && expected instanceof Number e) {
+            return test.test(Double.compare(a.doubleValue(), e.doubleValue()));
+        }
+        return test.test(actual.toString().compareTo(String.valueOf(expected)));
+    }
+
+    private static boolean contains(Object expected, Object actual) {
+        if (expected instanceof Collection<?> values) {
+            for (Object v : values) {
+                if (valueEquals(actual, v)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return valueEquals(actual, expected);
+    }
+}
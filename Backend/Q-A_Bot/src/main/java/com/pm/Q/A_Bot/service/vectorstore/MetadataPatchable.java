@@ -0,0 +1,12 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+import java.util.Map;
+
+/**
+ * A vector store that can change the metadata of stored chunks in place, without embedding them again.
+ */
+public interface MetadataPatchable {
+
+    /** Merges each id's fields into that chunk's metadata; ids the store does not hold are skipped. */
+    void patchMetadata(Map<String, Map<String, Object>> patches);
+}
@@ -0,0 +1,501 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Exact-scan {@link VectorStore} over int8 scalar-quantized embeddings.
+ * <p>
+ * Full-precision vectors live in a memory-mapped file and int8 codes in direct buffers, so neither counts
+ * against the Java heap. A search scores every live slot in parallel partitions with {@link Int8DotProduct},
+ * keeps the best {@code topK * oversample} in primitive heaps, then re-ranks those with exact float cosine.
+ * Searches share a read lock; adds and deletes take the write lock.
+ */
+public class QuantizedFlatVectorStore implements VectorStore, MetadataPatchable, AutoCloseable {
+
+    private static final int BLOCK_BITS = 14;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final int TILE = 64;
+    private static final int PARALLEL_THRESHOLD = 16_384;
+    private static final int SNAPSHOT_MAGIC = 0x51464C54; // "QFLT"
+
+    private final EmbeddingModel embeddingModel;
+    private final int dimensions;
+    private final int oversample;
+    private final int partitions;
+    private final Path documentsPath;
+    private final FileChannel vectorFile;
+    private final Int8DotProduct dot = Int8DotProduct.get();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<MappedByteBuffer> mappedBlocks = new ArrayList<>();
+    private final List<FloatBuffer> floatBlocks = new ArrayList<>();
+    private final List<ByteBuffer> codeBlocks = new ArrayList<>();
+    private final List<float[]> scaleBlocks = new ArrayList<>();
+    private StoredDocument[] documents = new StoredDocument[BLOCK_SIZE];
+    private final BitSet live = new BitSet();
+    private final Map<String, Integer> idToSlot = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    // Slots deleted since the last snapshot; reusing them earlier could pair an old document with a new vector after a crash
+    private final ArrayDeque<Integer> pendingFree = new ArrayDeque<>();
+    private int slotCount;
+
+    private final ExecutorService scanPool;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+
+    private QuantizedFlatVectorStore(Builder builder) {
+        this.embeddingModel = builder.embeddingModel;
+        this.dimensions = builder.dimensions > 0 ? builder.dimensions : embeddingModel.dimensions();
+        this.oversample = Math.max(1, builder.oversample);
+        this.partitions = builder.parallelism > 0 ? builder.parallelism : Runtime.getRuntime().availableProcessors();
+        this.documentsPath = builder.directory.resolve("documents.bin");
+        try {
+            Files.createDirectories(builder.directory);
+            this.vectorFile = FileChannel.open(builder.directory.resolve("vectors.f32"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open flat vector store at " + builder.directory, e);
+        }
+
+        AtomicInteger threads = new AtomicInteger();
+        this.scanPool = Executors.newFixedThreadPool(partitions, r -> {
+            Thread t = new Thread(r, "flat-scan-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "flat-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly,
+                builder.flushIntervalSeconds, builder.flushIntervalSeconds, TimeUnit.SECONDS);
+        System.out.println("Flat vector store ready: " + idToSlot.size() + " documents, int8 scoring via "
+                + dot.implementation() + ", " + partitions + " scan partitions");
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<String> texts = documents.stream()
+                .map(d -> d.getText() == null ? "" : d.getText())
+                .toList();
+        List<float[]> embeddings = embeddingModel.embed(texts);
+
+        float[][] vectors = new float[documents.size()][];
+        byte[][] codes = new byte[documents.size()][];
+        float[] scales = new float[documents.size()];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = VectorMath.normalize(embeddings.get(i));
+            codes[i] = new byte[dimensions];
+            scales[i] = quantize(vectors[i], codes[i]);
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < vectors.length; i++) {
+                StoredDocument doc = StoredDocument.of(documents.get(i));
+                Integer existing = idToSlot.get(doc.id());
+                int slot = existing != null ? existing : allocateSlot();
+                int offset = (slot & (BLOCK_SIZE - 1)) * dimensions;
+                floatBlocks.get(slot >>> BLOCK_BITS).put(offset, vectors[i]);
+                codeBlocks.get(slot >>> BLOCK_BITS).put(offset, codes[i]);
+                scaleBlocks.get(slot >>> BLOCK_BITS)[slot & (BLOCK_SIZE - 1)] = scales[i];
+                this.documents[slot] = doc;
+                live.set(slot);
+                idToSlot.put(doc.id(), slot);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to grow flat vector store", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        dirty.set(true);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                Integer slot = idToSlot.remove(id);
+                if (slot != null) {
+                    live.clear(slot);
+                    documents[slot] = null;
+                    pendingFree.add(slot);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        dirty.set(true);
+    }
+
+    @Override
+    public void patchMetadata(Map<String, Map<String, Object>> patches) {
+        lock.writeLock().lock();
+        try {
+            patches.forEach((id, patch) -> {
+                Integer slot = idToSlot.get(id);
+                if (slot != null) {
+                    documents[slot] = documents[slot].withMetadata(patch);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        dirty.set(true);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        List<String> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                if (MetadataFilter.matches(filterExpression, documents[slot].metadata())) {
+                    ids.add(documents[slot].id());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        delete(ids);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] query = VectorMath.normalize(embeddingModel.embed(request.getQuery()));
+        byte[] queryCodes = new byte[dimensions];
+        quantize(query, queryCodes);
+        Filter.Expression filter = request.getFilterExpression();
+        int topK = request.getTopK();
+        int candidates = Math.max(topK, topK * oversample);
+
+        lock.readLock().lock();
+        try {
+            int count = slotCount;
+            TopKHeap heap;
+            if (count < PARALLEL_THRESHOLD || partitions == 1) {
+                heap = scan(0, count, queryCodes, filter, candidates);
+            } else {
+                heap = new TopKHeap(candidates);
+                int span = (count + partitions - 1) / partitions;
+                List<Future<TopKHeap>> parts = new ArrayList<>(partitions);
+                for (int from = 0; from < count; from += span) {
+                    int start = from;
+                    int end = Math.min(count, from + span);
+                    parts.add(scanPool.submit(() -> scan(start, end, queryCodes, filter, candidates)));
+                }
+                for (Future<TopKHeap> part : parts) {
+                    heap.addAll(part.get());
+                }
+            }
+            return rerank(heap, query, topK, request.getSimilarityThreshold());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during vector scan", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Vector scan failed", e.getCause());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "QuantizedFlatVectorStore";
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return idToSlot.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Approximate scan of slots {@code [from, to)}; scores omit the constant query scale. */
+    private TopKHeap scan(int from, int to, byte[] queryCodes, Filter.Expression filter, int capacity) {
+        TopKHeap heap = new TopKHeap(capacity);
+        byte[] tile = new byte[TILE * dimensions];
+        int start = from;
+        while (start < to) {
+            int block = start >>> BLOCK_BITS;
+            int inBlock = start & (BLOCK_SIZE - 1);
+            int count = Math.min(TILE, Math.min(to - start, BLOCK_SIZE - inBlock));
+            // Copy a tile of codes on-heap: Java 21 vector loads only take arrays or preview MemorySegments
+            codeBlocks.get(block).get(inBlock * dimensions, tile, 0, count * dimensions);
+            float[] scales = scaleBlocks.get(block);
+            for (int j = 0; j < count; j++) {
+                int slot = start + j;
+                if (!live.get(slot)) {
+                    continue;
+                }
+                float score = scales[inBlock + j] * dot.dot(tile, j * dimensions, queryCodes, dimensions);
+                if (score > heap.threshold()
+                        && (filter == null || MetadataFilter.matches(filter, documents[slot].metadata()))) {
+                    heap.offer(slot, score);
+                }
+            }
+            start += count;
+        }
+        return heap;
+    }
+
+    private List<Document> rerank(TopKHeap heap, float[] query, int topK, double threshold) {
+        float[] vector = new float[dimensions];
+        List<float[]> scored = new ArrayList<>(heap.size());
+        for (int i = 0; i < heap.size(); i++) {
+            int slot = heap.slot(i);
+            floatBlocks.get(slot >>> BLOCK_BITS).get((slot & (BLOCK_SIZE - 1)) * dimensions, vector);
+            float exact = VectorMath.dot(query, vector);
+            if (exact >= threshold) {
+                scored.add(new float[]{slot, exact});
+            }
+        }
+        scored.sort(Comparator.comparingDouble((float[] s) -> s[1]).reversed());
+        List<Document> results = new ArrayList<>(Math.min(topK, scored.size()));
+        for (int i = 0; i < scored.size() && i < topK; i++) {
+            results.add(documents[(int) scored.get(i)[0]].toDocument(scored.get(i)[1]));
+        }
+        return results;
+    }
+
+    /** Symmetric per-vector int8 quantization; returns the scale that maps codes back to floats. */
+    static float quantize(float[] vector, byte[] codes) {
+        float maxAbs = 0;
+        for (float v : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(v));
+        }
+        if (maxAbs == 0) {
+            Arrays.fill(codes, (byte) 0);
+            return 0;
+        }
+        float scale = maxAbs / 127f;
+        for (int i = 0; i < vector.length; i++) {
+            codes[i] = (byte) Math.round(vector[i] / scale);
+        }
+        return scale;
+    }
+
+    private int allocateSlot() throws IOException {
+        Integer reused = freeSlots.poll();
+        int slot = reused != null ? reused : slotCount++;
+        ensureBlock(slot >>> BLOCK_BITS);
+        if (slot >= documents.length) {
+            documents = Arrays.copyOf(documents, documents.length * 2);
+        }
+        return slot;
+    }
+
+    private void ensureBlock(int block) throws IOException {
+        while (floatBlocks.size() <= block) {
+            long blockBytes = (long) BLOCK_SIZE * dimensions * Float.BYTES;
+            MappedByteBuffer mapped = vectorFile.map(FileChannel.MapMode.READ_WRITE,
+                    floatBlocks.size() * blockBytes, blockBytes);
+            mappedBlocks.add(mapped);
+            floatBlocks.add(mapped.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer());
+            codeBlocks.add(ByteBuffer.allocateDirect(BLOCK_SIZE * dimensions));
+            scaleBlocks.add(new float[BLOCK_SIZE]);
+        }
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(documentsPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(documentsPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != dimensions) {
+                throw new IOException("Snapshot does not match this store: " + documentsPath);
+            }
+            slotCount = in.readInt();
+            if (slotCount > 0) {
+                ensureBlock((slotCount - 1) >>> BLOCK_BITS);
+            }
+            documents = new StoredDocument[Math.max(BLOCK_SIZE, Integer.highestOneBit(Math.max(1, slotCount)) * 2)];
+            int entries = in.readInt();
+            float[] vector = new float[dimensions];
+            byte[] codes = new byte[dimensions];
+            for (int i = 0; i < entries; i++) {
+                int slot = in.readInt();
+                StoredDocument doc = StoredDocument.readFrom(in);
+                int offset = (slot & (BLOCK_SIZE - 1)) * dimensions;
+                floatBlocks.get(slot >>> BLOCK_BITS).get(offset, vector);
+                scaleBlocks.get(slot >>> BLOCK_BITS)[slot & (BLOCK_SIZE - 1)] = quantize(vector, codes);
+                codeBlocks.get(slot >>> BLOCK_BITS).put(offset, codes);
+                documents[slot] = doc;
+                live.set(slot);
+                idToSlot.put(doc.id(), slot);
+            }
+            for (int slot = live.nextClearBit(0); slot < slotCount; slot = live.nextClearBit(slot + 1)) {
+                freeSlots.add(slot);
+            }
+        }
+    }
+
+    /**
+     * Forces mapped vectors to disk and writes the slot-to-document snapshot.
+     */
+    public void flush() throws IOException {
+        flushLock.lock();
+        try {
+            if (!dirty.getAndSet(false)) {
+                return;
+            }
+            int count;
+            int released;
+            List<Map.Entry<Integer, StoredDocument>> entries = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                count = slotCount;
+                released = pendingFree.size();
+                for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                    entries.add(Map.entry(slot, documents[slot]));
+                }
+                for (MappedByteBuffer mapped : mappedBlocks) {
+                    mapped.force();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            try {
+                SnapshotFiles.writeAtomically(documentsPath, out -> {
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeInt(dimensions);
+                    out.writeInt(count);
+                    out.writeInt(entries.size());
+                    for (Map.Entry<Integer, StoredDocument> e : entries) {
+                        out.writeInt(e.getKey());
+                        e.getValue().writeTo(out);
+                    }
+                });
+            } catch (IOException e) {
+                dirty.set(true);
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (int i = 0; i < released; i++) {
+                    freeSlots.add(pendingFree.poll());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("Flat vector store flush failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        flushQuietly();
+        scanPool.shutdown();
+        try {
+            vectorFile.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close vector file: " + e.getMessage());
+        }
+    }
+
+    public static final class Builder {
+
+        private final EmbeddingModel embeddingModel;
+        private Path directory = Path.of("data", "vectorstore", "flat");
+        private int dimensions;
+        private int oversample = 4;
+        private int parallelism;
+        private long flushIntervalSeconds = 30;
+
+        private Builder(EmbeddingModel embeddingModel) {
+            this.embeddingModel = embeddingModel;
+        }
+
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /** Embedding dimensions; when unset the embedding model is probed once. */
+        public Builder dimensions(int dimensions) {
+            this.dimensions = dimensions;
+            return this;
+        }
+
+        /** Candidates kept per requested result for the exact float re-rank. */
+        public Builder oversample(int oversample) {
+            this.oversample = oversample;
+            return this;
+        }
+
+        /** Scan partitions searched in parallel; 0 uses one per available core. */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder flushIntervalSeconds(long flushIntervalSeconds) {
+            this.flushIntervalSeconds = flushIntervalSeconds;
+            return this;
+        }
+
+        public QuantizedFlatVectorStore build() {
+            return new QuantizedFlatVectorStore(this);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API int8 dot product: widens bytes to ints lane-for-lane and accumulates in an int vector.
+ * Only loaded through {@link Int8DotProduct#get()} once the incubator module is known to be present.
+ */
+final class SimdInt8DotProduct extends Int8DotProduct {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(Math.max(64, INTS.length() * Byte.SIZE)));
+
+    static boolean isSupported() {
+        // Below 256-bit the byte species would be narrower than 64 bits, which has no hardware shape
+        return INTS.vectorBitSize() >= 256;
+    }
+
+    @Override
+    public int dot(byte[] a, int aOffset, byte[] b, int length) {
+        IntVector acc = IntVector.zero(INTS);
+        int step = BYTES.length();
+        int bound = BYTES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += step) {
+            IntVector va = (IntVector) ByteVector.fromArray(BYTES, a, aOffset + i)
+                    .convertShape(VectorOperators.B2I, INTS, 0);
+            IntVector vb = (IntVector) ByteVector.fromArray(BYTES, b, i)
+                    .convertShape(VectorOperators.B2I, INTS, 0);
+            acc = acc.add(va.mul(vb));
+        }
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String implementation() {
+        return "vector-api-" + INTS.vectorBitSize();
+    }
+}
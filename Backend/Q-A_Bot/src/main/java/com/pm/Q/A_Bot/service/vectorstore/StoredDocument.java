@@ -0,0 +1,71 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Text and metadata of a chunk held by a local vector store, with its binary snapshot encoding.
+ */
+public record StoredDocument(String id, String text, Map<String, Object> metadata) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    public static StoredDocument of(Document document) {
+        return new StoredDocument(document.getId(),
+                document.getText() == null ? "" : document.getText(),
+                Map.copyOf(document.getMetadata()));
+    }
+
+    public StoredDocument withMetadata(Map<String, Object> patch) {
+        Map<String, Object> merged = new HashMap<>(metadata);
+        merged.putAll(patch);
+        return new StoredDocument(id, text, Map.copyOf(merged));
+    }
+
+    public Document toDocument(float score) {
+        Map<String, Object> meta = new HashMap<>(metadata);
+        meta.put("distance", 1 - score);
+        return Document.builder()
+                .id(id)
+                .text(text)
+                .metadata(meta)
+                .score((double) score)
+                .build();
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        writeString(out, id);
+        writeString(out, text);
+        writeString(out, MAPPER.writeValueAsString(metadata));
+    }
+
+    public static StoredDocument readFrom(DataInputStream in) throws IOException {
+        String id = readString(in);
+        String text = readString(in);
+        Map<String, Object> metadata = MAPPER.readValue(readString(in), METADATA_TYPE);
+        return new StoredDocument(id, text, Map.copyOf(metadata));
+    }
+
+    // writeUTF caps strings at 64 KB, chunk text and metadata can exceed that
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
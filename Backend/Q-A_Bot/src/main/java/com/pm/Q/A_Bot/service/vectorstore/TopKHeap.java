@@ -0,0 +1,79 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+/**
+ * Fixed-capacity min-heap of (slot, score) pairs kept in primitive arrays, so scanning never allocates per hit.
+ * The root is the weakest retained score and is evicted when a better candidate arrives.
+ */
+final class TopKHeap {
+
+    private final int[] slots;
+    private final float[] scores;
+    private int size;
+
+    TopKHeap(int capacity) {
+        this.slots = new int[capacity];
+        this.scores = new float[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Score a candidate must beat to enter the heap. */
+    float threshold() {
+        return size < slots.length ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    void offer(int slot, float score) {
+        if (size < slots.length) {
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= score) {
+                    break;
+                }
+                slots[i] = slots[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            slots[i] = slot;
+            scores[i] = score;
+        } else if (score > scores[0]) {
+            siftDown(slot, score);
+        }
+    }
+
+    void addAll(TopKHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.slots[i], other.scores[i]);
+        }
+    }
+
+    int slot(int i) {
+        return slots[i];
+    }
+
+    float score(int i) {
+        return scores[i];
+    }
+
+    private void siftDown(int slot, float score) {
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && scores[right] < scores[child]) {
+                child = right;
+            }
+            if (score <= scores[child]) {
+                break;
+            }
+            slots[i] = slots[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        slots[i] = slot;
+        scores[i] = score;
+    }
+}
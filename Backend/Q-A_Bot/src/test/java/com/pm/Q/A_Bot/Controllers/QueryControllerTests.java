@@ -0,0 +1,225 @@
+package com.pm.Q.A_Bot.Controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.Q.A_Bot.service.llm.GenerationScheduler;
+import com.pm.Q.A_Bot.service.llm.StreamListener;
+import com.pm.Q.A_Bot.service.metrics.RagMetrics;
+import com.pm.Q.A_Bot.service.query.PreparedQuery;
+import com.pm.Q.A_Bot.service.query.QueryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class QueryControllerTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService retrievalExecutor = Executors.newSingleThreadExecutor();
+    private final StubQueryService queryService = new StubQueryService();
+    private final StubScheduler scheduler = new StubScheduler();
+
+    @AfterEach
+    void shutdown() {
+        retrievalExecutor.shutdownNow();
+    }
+
+    @Test
+    void streamsSourcesTokensAndDoneAsSseEvents() throws Exception {
+        scheduler.onStream = listener -> {
+            listener.onToken(" Four");
+            listener.onToken(" weeks.");
+            listener.onComplete(objectMapper.createObjectNode().put("done", true).put("eval_count", 2));
+        };
+
+        MvcResult result = stream();
+        String body = awaitBody(result, "event:done");
+
+        List<String> events = Arrays.asList(body.split("\n\n"));
+        assertEquals(List.of(
+                "event:sources\ndata:[\"leave.pdf\"]",
+                "event:token\ndata:{\"token\":\" Four\"}",
+                "event:token\ndata:{\"token\":\" weeks.\"}"), events.subList(0, 3));
+        assertTrue(events.get(3).startsWith("event:done\ndata:"));
+        assertEquals(Map.of("cached", false, "evalCount", 2),
+                objectMapper.readValue(events.get(3).substring("event:done\ndata:".length()), Map.class));
+        assertEquals(List.of(" Four weeks."), queryService.completed);
+    }
+
+    @Test
+    void cachedAnswersAreStreamedWithoutGenerating() throws Exception {
+        queryService.prepared = new PreparedQuery("q", null, List.of(), null, "Four weeks.", true, 0);
+
+        String body = awaitBody(stream(), "event:done");
+
+        assertEquals("event:sources\ndata:[]\n\nevent:token\ndata:{\"token\":\"Four weeks.\"}\n\n"
+                + "event:done\ndata:{\"cached\":true}\n\n", body);
+        assertEquals(0, scheduler.calls.size());
+    }
+
+    @Test
+    void disconnectingDuringGenerationCancelsIt() throws Exception {
+        MvcResult result = stream();
+        CompletableFuture<JsonNode> generation = awaitGeneration();
+
+        disconnect(result);
+
+        assertTrue(generation.isCancelled());
+    }
+
+    @Test
+    void disconnectingDuringRetrievalNeverStartsAGeneration() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        queryService.blockUntil = release;
+        MvcResult result = stream();
+        assertTrue(queryService.entered.await(5, TimeUnit.SECONDS));
+
+        disconnect(result);
+        release.countDown();
+        retrievalExecutor.shutdown();
+
+        assertTrue(retrievalExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, scheduler.calls.size());
+    }
+
+    @Test
+    void disconnectingWhileTheGenerationIsSubmittedStillCancelsIt() throws Exception {
+        MvcResult[] result = new MvcResult[1];
+        CountDownLatch started = new CountDownLatch(1);
+        // The client goes away after the scheduler accepted the call but before the controller saw the future
+        scheduler.onStream = listener -> {
+            try {
+                assertTrue(started.await(5, TimeUnit.SECONDS));
+                disconnect(result[0]);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        result[0] = stream();
+        started.countDown();
+        CompletableFuture<JsonNode> generation = awaitGeneration();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!generation.isCancelled() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(generation.isCancelled());
+    }
+
+    private MvcResult stream() throws Exception {
+        QueryController controller = new QueryController();
+        ReflectionTestUtils.setField(controller, "queryService", queryService);
+        ReflectionTestUtils.setField(controller, "generationScheduler", scheduler);
+        ReflectionTestUtils.setField(controller, "taskExecutor", retrievalExecutor);
+        ReflectionTestUtils.setField(controller, "metrics", new RagMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(controller, "streamTimeoutSeconds", 30L);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+        return mvc.perform(get("/api/query/ask/stream").param("question", "What is the leave policy?"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    /** What the servlet container reports when the client closes the connection. */
+    private static void disconnect(MvcResult result) throws IOException {
+        MockAsyncContext context = (MockAsyncContext) result.getRequest().getAsyncContext();
+        AsyncEvent event = new AsyncEvent(context, new IOException("Broken pipe"));
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onError(event);
+        }
+    }
+
+    /** The body once {@code last} has been written in full; an event's name and data arrive as separate writes. */
+    private static String awaitBody(MvcResult result, String last) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String body = result.getResponse().getContentAsString();
+        while (!(body.contains(last) && body.endsWith("\n\n")) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            body = result.getResponse().getContentAsString();
+        }
+        return body;
+    }
+
+    private CompletableFuture<JsonNode> awaitGeneration() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.calls.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return scheduler.calls.get(0);
+    }
+
+    /** Retrieval returns one leave policy passage, optionally after waiting for a latch. */
+    private static final class StubQueryService extends QueryService {
+
+        final List<String> completed = new CopyOnWriteArrayList<>();
+        final CountDownLatch entered = new CountDownLatch(1);
+        volatile CountDownLatch blockUntil = new CountDownLatch(0);
+        volatile PreparedQuery prepared = new PreparedQuery("What is the leave policy?", null,
+                List.of(new Document("Staff get four weeks of leave.", Map.of("source", "leave.pdf"))),
+                "prompt", null, false, 0);
+
+        StubQueryService() {
+            super(null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public PreparedQuery prepare(String question) {
+            entered.countDown();
+            try {
+                blockUntil.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return prepared;
+        }
+
+        @Override
+        public void complete(PreparedQuery prepared, String answer) {
+            completed.add(answer);
+        }
+    }
+
+    /** Hands each stream to {@code onStream} and returns a generation that only ends when cancelled. */
+    private static final class StubScheduler extends GenerationScheduler {
+
+        final List<CompletableFuture<JsonNode>> calls = new CopyOnWriteArrayList<>();
+        volatile Consumer<StreamListener> onStream = listener -> {
+        };
+
+        StubScheduler() {
+            super(null, 1, 1, 1, 0);
+        }
+
+        @Override
+        public CompletableFuture<JsonNode> stream(String prompt, StreamListener listener, Priority priority) {
+            CompletableFuture<JsonNode> generation = new CompletableFuture<>();
+            calls.add(generation);
+            onStream.accept(listener);
+            return generation;
+        }
+    }
+}
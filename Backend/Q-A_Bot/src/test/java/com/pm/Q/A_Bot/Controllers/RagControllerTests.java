@@ -0,0 +1,160 @@
+package com.pm.Q.A_Bot.Controllers;
+
+import com.pm.Q.A_Bot.service.limits.MeasuredExecutor;
+import com.pm.Q.A_Bot.service.llm.GenerationResult;
+import com.pm.Q.A_Bot.service.llm.GenerationScheduler;
+import com.pm.Q.A_Bot.service.llm.OllamaClient;
+import com.pm.Q.A_Bot.service.metrics.RagMetrics;
+import com.pm.Q.A_Bot.service.query.PreparedQuery;
+import com.pm.Q.A_Bot.service.query.QueryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RagControllerTests {
+
+    @Test
+    void answersThroughTheAskExecutorAndScheduler() throws Exception {
+        HangingOllama ollama = new HangingOllama();
+        RagController controller = controller(ollama, 5);
+
+        CompletableFuture<String> answer = controller.askAsync("What is the leave policy?");
+        awaitCall(ollama).complete(new GenerationResult("Four weeks.", null));
+
+        assertEquals("Four weeks.", answer.get(5, TimeUnit.SECONDS));
+        // Cached like answers from /api/query/ask
+        assertEquals(List.of("Four weeks."), ((StubQueryService) ReflectionTestUtils.getField(controller, "queryService")).completed);
+        MeasuredExecutor executor = (MeasuredExecutor) ReflectionTestUtils.getField(controller, "askExecutor");
+        // The answer can arrive before the retrieval task has returned and been counted
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((long) executor.stats().get("completed") == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1L, executor.stats().get("completed"));
+    }
+
+    @Test
+    void timeoutCancelsTheUpstreamGeneration() throws Exception {
+        HangingOllama ollama = new HangingOllama();
+        RagController controller = controller(ollama, 1);
+
+        CompletableFuture<String> answer = controller.askAsync("What is the leave policy?");
+        CompletableFuture<GenerationResult> upstream = awaitCall(ollama);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> answer.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        // get() can return before the timeout's own callback has cancelled the generation
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!upstream.isCancelled() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(upstream.isCancelled());
+    }
+
+    @Test
+    void timeoutDuringRetrievalSkipsGenerationWithoutInterruptingRetrieval() throws Exception {
+        HangingOllama ollama = new HangingOllama();
+        RagController controller = controller(ollama, 1);
+        StubQueryService queryService = (StubQueryService) ReflectionTestUtils.getField(controller, "queryService");
+        queryService.gate = new CountDownLatch(1);
+
+        CompletableFuture<String> answer = controller.askAsync("What is the leave policy?");
+        ExecutionException error = assertThrows(ExecutionException.class, () -> answer.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+
+        // Retrieval may be the leader of a coalesced prepare; an interrupt would fail every caller waiting on it
+        queryService.gate.countDown();
+        assertTrue(queryService.prepared.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertFalse(queryService.interrupted.get());
+        assertNull(ollama.call.get());
+    }
+
+    private static RagController controller(OllamaClient ollama, long timeoutSeconds) {
+        RagController controller = new RagController();
+        ReflectionTestUtils.setField(controller, "queryService", new StubQueryService());
+        ReflectionTestUtils.setField(controller, "generationScheduler", new GenerationScheduler(ollama, 2, 10, 1, 10));
+        ReflectionTestUtils.setField(controller, "askExecutor",
+                new MeasuredExecutor("ask", Executors.newVirtualThreadPerTaskExecutor()));
+        ReflectionTestUtils.setField(controller, "askTimeoutSeconds", timeoutSeconds);
+        ReflectionTestUtils.setField(controller, "metrics", new RagMetrics(new SimpleMeterRegistry()));
+        return controller;
+    }
+
+    private static CompletableFuture<GenerationResult> awaitCall(HangingOllama ollama) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (ollama.call.get() == null && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return ollama.call.get();
+    }
+
+    /** Generations never finish on their own. */
+    private static final class HangingOllama extends OllamaClient {
+
+        final AtomicReference<CompletableFuture<GenerationResult>> call = new AtomicReference<>();
+
+        HangingOllama() {
+            super(null, null, null);
+        }
+
+        @Override
+        public CompletableFuture<GenerationResult> generate(String prompt, String model) {
+            CompletableFuture<GenerationResult> generation = new CompletableFuture<>();
+            call.set(generation);
+            return generation;
+        }
+    }
+
+    /** Retrieval finds one passage and leaves the answer to generation, after the gate opens if one is set. */
+    private static final class StubQueryService extends QueryService {
+
+        final List<String> completed = new CopyOnWriteArrayList<>();
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final CountDownLatch prepared = new CountDownLatch(1);
+        volatile CountDownLatch gate;
+
+        StubQueryService() {
+            super(null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public PreparedQuery prepare(String question) {
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                    Thread.currentThread().interrupt();
+                }
+            }
+            prepared.countDown();
+            return new PreparedQuery(question, null, List.of(new Document("Parental leave is four weeks.")),
+                    "prompt", null, false, 0);
+        }
+
+        @Override
+        public void complete(PreparedQuery prepared, String answer) {
+            completed.add(answer);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.pm.Q.A_Bot.benchmark;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded synthetic HR policy documents for the JMH benchmarks and the load test: numbered sections and
+ * clauses, short paragraphs, bullet lists, form numbers and amounts, at roughly the size of real uploads.
+ */
+public final class PolicyCorpus {
+
+    /** Approximate extracted text length of a small handbook page range, a full policy and a handbook. */
+    public enum Size {
+        SMALL(15_000), MEDIUM(150_000), LARGE(900_000);
+
+        final int chars;
+
+        Size(int chars) {
+            this.chars = chars;
+        }
+    }
+
+    private static final String[] TOPICS = {
+            "Annual Leave", "Sick Leave", "Parental Leave", "Remote Work", "Travel and Expenses",
+            "Code of Conduct", "Overtime and Compensation", "Performance Reviews", "Data Protection",
+            "Grievance Procedure", "Health and Safety", "Training and Development", "Probation Period",
+            "Termination and Notice", "Benefits Enrolment", "Public Holidays"
+    };
+    private static final String[] SUBJECTS = {
+            "Employees", "Full-time employees", "Part-time employees", "Contractors", "Managers",
+            "New joiners", "Employees on probation", "Team leads", "The HR department", "Line managers"
+    };
+    private static final String[] VERBS = {
+            "are entitled to", "must request", "may carry over", "should submit", "are required to complete",
+            "must obtain approval for", "will be reimbursed for", "may apply for", "must report"
+    };
+    private static final String[] OBJECTS = {
+            "paid leave", "unpaid leave", "a medical certificate", "travel expenses", "a written request",
+            "the annual appraisal", "overtime compensation", "remote work arrangements", "mandatory training",
+            "a notice period", "equipment allowances", "flexible hours", "relocation support"
+    };
+    private static final String[] CONDITIONS = {
+            "within 30 days of the event", "before the end of the calendar year", "with prior approval from their line manager",
+            "in accordance with local regulations", "unless otherwise stated in their contract",
+            "after completing the probation period", "subject to business needs", "using the HR portal",
+            "no later than five working days in advance", "as described in Appendix B"
+    };
+
+    private PolicyCorpus() {
+    }
+
+    public static String document(Size size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(size.chars + 2_000);
+        text.append("EMPLOYEE HANDBOOK AND POLICY MANUAL\nVersion ").append(1 + random.nextInt(9))
+                .append('.').append(random.nextInt(10)).append(", effective 1 January 2025\n\n");
+        int section = 0;
+        while (text.length() < size.chars) {
+            section++;
+            text.append(section).append(". ").append(TOPICS[random.nextInt(TOPICS.length)].toUpperCase()).append("\n\n");
+            int clauses = 2 + random.nextInt(5);
+            for (int clause = 1; clause <= clauses; clause++) {
+                text.append(section).append('.').append(clause).append(' ')
+                        .append(TOPICS[random.nextInt(TOPICS.length)]).append('\n');
+                int paragraphs = 1 + random.nextInt(3);
+                for (int p = 0; p < paragraphs; p++) {
+                    paragraph(text, random);
+                }
+                if (random.nextInt(4) == 0) {
+                    bullets(text, random);
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Overlapping fixed windows the way ingestion stores them: ids, {@code source} and consecutive
+     * {@code chunk_index} metadata, with descending scores as retrieval would return them.
+     */
+    public static List<Document> chunks(String source, String text, int chunkChars, int overlapChars) {
+        List<Document> chunks = new ArrayList<>();
+        for (int start = 0, index = 0; start < text.length(); start += chunkChars - overlapChars, index++) {
+            chunks.add(Document.builder()
+                    .id(source + "-" + index)
+                    .text(text.substring(start, Math.min(text.length(), start + chunkChars)))
+                    .metadata(Map.of("source", source, "chunk_index", index))
+                    .score(1.0 - index * 0.001)
+                    .build());
+        }
+        return chunks;
+    }
+
+    /** Unit-length random vectors; real embeddings are normalized too. */
+    public static float[][] vectors(int count, int dimensions, long seed) {
+        Random random = new Random(seed);
+        float[][] vectors = new float[count][dimensions];
+        for (float[] vector : vectors) {
+            double norm = 0;
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = (float) random.nextGaussian();
+                norm += vector[i] * vector[i];
+            }
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vectors;
+    }
+
+    private static void paragraph(StringBuilder text, Random random) {
+        int sentences = 2 + random.nextInt(5);
+        for (int s = 0; s < sentences; s++) {
+            text.append(SUBJECTS[random.nextInt(SUBJECTS.length)]).append(' ')
+                    .append(VERBS[random.nextInt(VERBS.length)]).append(' ')
+                    .append(OBJECTS[random.nextInt(OBJECTS.length)]).append(' ')
+                    .append(CONDITIONS[random.nextInt(CONDITIONS.length)]);
+            switch (random.nextInt(4)) {
+                case 0 -> text.append(" using form HR-F-").append(100 + random.nextInt(400));
+                case 1 -> text.append(", up to ").append(5 + random.nextInt(25)).append(" days per year");
+                case 2 -> text.append(", capped at $").append(50 * (1 + random.nextInt(40)));
+                default -> {
+                }
+            }
+            text.append(". ");
+        }
+        text.append("\n\n");
+    }
+
+    private static void bullets(StringBuilder text, Random random) {
+        int items = 3 + random.nextInt(4);
+        for (int i = 0; i < items; i++) {
+            text.append("- ").append(OBJECTS[random.nextInt(OBJECTS.length)]).append(' ')
+                    .append(CONDITIONS[random.nextInt(CONDITIONS.length)]).append('\n');
+        }
+        text.append('\n');
+    }
+}
@@ -0,0 +1,167 @@
+package com.pm.Q.A_Bot.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator: operations start on a fixed schedule at {@code rate} per second whatever the
+ * server's response times, picked at random by weight. Latency counts from the scheduled start, so a stalled
+ * driver or server shows up in the percentiles instead of silently lowering the offered load.
+ */
+final class LoadDriver {
+
+    /** One request against the app; returns the HTTP status, or a synthetic one for failures inside a 200. */
+    @FunctionalInterface
+    interface Operation {
+        int call() throws Exception;
+    }
+
+    private final double rate;
+    private final Duration duration;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    LoadDriver(double rate, Duration duration) {
+        this.rate = rate;
+        this.duration = duration;
+    }
+
+    /**
+     * Runs the weighted mix for the configured duration, then waits up to {@code drain} for in-flight
+     * operations to finish.
+     */
+    Report run(Map<String, Integer> mix, Map<String, Operation> operations, Duration drain) throws InterruptedException {
+        List<String> names = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            if (entry.getValue() > 0) {
+                total += entry.getValue();
+                names.add(entry.getKey());
+                cumulative.add(total);
+            }
+        }
+        Random random = new Random(42);
+        long interval = (long) (1_000_000_000L / rate);
+        long count = (long) (duration.toNanos() / interval);
+        long start = System.nanoTime();
+
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        for (long i = 0; i < count; i++) {
+            long scheduled = start + i * interval;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int pick = random.nextInt(total);
+            int slot = 0;
+            while (cumulative.get(slot) <= pick) {
+                slot++;
+            }
+            String name = names.get(slot);
+            Operation operation = operations.get(name);
+            workers.execute(() -> {
+                int status;
+                try {
+                    status = operation.call();
+                } catch (Exception e) {
+                    status = -1;
+                }
+                record(name, System.nanoTime() - scheduled, status);
+            });
+        }
+        long offeredNanos = System.nanoTime() - start;
+        workers.shutdown();
+        if (!workers.awaitTermination(drain.toMillis(), TimeUnit.MILLISECONDS)) {
+            workers.shutdownNow();
+        }
+        return report(offeredNanos);
+    }
+
+    /** Records a sample measured outside the schedule, e.g. time from upload to a finished ingestion job. */
+    void record(String name, long nanos, int status) {
+        stats.computeIfAbsent(name, n -> new Stats()).add(nanos, status);
+    }
+
+    Report report(long elapsedNanos) {
+        Map<String, Map<String, Object>> endpoints = new TreeMap<>();
+        stats.forEach((name, s) -> endpoints.put(name, s.summary(elapsedNanos)));
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("ratePerSecond", rate);
+        settings.put("durationSeconds", duration.toSeconds());
+        return new Report(settings, endpoints);
+    }
+
+    record Report(Map<String, Object> settings, Map<String, Map<String, Object>> endpoints) {
+
+        long errors(String endpoint) {
+            return (long) endpoints.getOrDefault(endpoint, Map.of("errors", 0L)).get("errors");
+        }
+
+        long count(String endpoint) {
+            return (long) endpoints.getOrDefault(endpoint, Map.of("count", 0L)).get("count");
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder table = new StringBuilder(String.format("%-10s %7s %7s %8s %8s %8s %8s %8s  %s%n",
+                    "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "statuses"));
+            endpoints.forEach((name, s) -> table.append(String.format("%-10s %7d %7d %8.1f %8.1f %8.1f %8.1f %8.1f  %s%n",
+                    name, s.get("count"), s.get("errors"), s.get("throughput"), s.get("p50Ms"), s.get("p95Ms"),
+                    s.get("p99Ms"), s.get("maxMs"), s.get("statuses"))));
+            return table.toString();
+        }
+    }
+
+    private static final class Stats {
+
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+        private final AtomicLong errors = new AtomicLong();
+
+        void add(long nanos, int status) {
+            latencies.add(nanos);
+            statuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+            if (status < 200 || status >= 300) {
+                errors.incrementAndGet();
+            }
+        }
+
+        Map<String, Object> summary(long elapsedNanos) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", (long) sorted.length);
+            summary.put("errors", errors.get());
+            summary.put("throughput", sorted.length * 1_000_000_000.0 / elapsedNanos);
+            summary.put("p50Ms", percentile(sorted, 0.50));
+            summary.put("p95Ms", percentile(sorted, 0.95));
+            summary.put("p99Ms", percentile(sorted, 0.99));
+            summary.put("maxMs", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1_000_000.0);
+            Map<String, Long> byStatus = new TreeMap<>();
+            statuses.forEach((status, count) -> byStatus.put(status < 0 ? "exception" : String.valueOf(status), count.get()));
+            summary.put("statuses", byStatus);
+            return summary;
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
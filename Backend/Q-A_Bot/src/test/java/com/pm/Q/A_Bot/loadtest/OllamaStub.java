@@ -0,0 +1,223 @@
+package com.pm.Q.A_Bot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for an Ollama server: {@code /api/generate} (streaming and not), {@code /api/embed} and
+ * {@code /api/tags}. Latencies are drawn uniformly from half to one and a half times the configured mean, and
+ * a configurable share of generate and embed calls fail with 503 like an overloaded server. Embeddings are
+ * hashed bags of words, so texts sharing terms land close together and retrieval behaves plausibly.
+ */
+final class OllamaStub implements AutoCloseable {
+
+    static final int DIMENSIONS = 768;
+
+    /**
+     * @param tokens answer length; a streamed answer spreads the generate latency over its tokens
+     */
+    record Settings(long generateLatencyMillis, long embedLatencyMillis, double errorRate, int tokens) {
+    }
+
+    private final Settings settings;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, AtomicLong> requests = new ConcurrentHashMap<>();
+    private final AtomicLong failures = new AtomicLong();
+
+    static {
+        // Defaults close idle keep-alive connections beyond 200 and delay small writes; both distort latency
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    OllamaStub(Settings settings) throws IOException {
+        this.settings = settings;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/api/generate", this::generate);
+        server.createContext("/api/embed", this::embed);
+        server.createContext("/api/tags", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            respond(exchange, 200, "{\"models\":[{\"name\":\"llama3.2:1b\"},{\"name\":\"nomic-embed-text:latest\"}]}");
+        });
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        requests.forEach((path, count) -> stats.put(path, count.get()));
+        stats.put("injectedFailures", failures.get());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void generate(HttpExchange exchange) throws IOException {
+        JsonNode request = mapper.readTree(exchange.getRequestBody());
+        count("generate");
+        if (injectFailure(exchange)) {
+            return;
+        }
+        long latency = jitter(settings.generateLatencyMillis());
+        int tokens = settings.tokens();
+        if (!request.path("stream").asBoolean(true)) {
+            sleep(latency);
+            respond(exchange, 200, mapper.writeValueAsString(finalChunk(answer(tokens), request)));
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            long perToken = latency / Math.max(1, tokens);
+            for (int i = 0; i < tokens; i++) {
+                sleep(perToken);
+                ObjectNode chunk = mapper.createObjectNode().put("response", " word" + i).put("done", false);
+                out.write((mapper.writeValueAsString(chunk) + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+            out.write((mapper.writeValueAsString(finalChunk("", request)) + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // The client cancelled the stream; Ollama just stops generating
+        }
+    }
+
+    private void embed(HttpExchange exchange) throws IOException {
+        JsonNode request = mapper.readTree(exchange.getRequestBody());
+        count("embed");
+        if (injectFailure(exchange)) {
+            return;
+        }
+        List<String> inputs = new ArrayList<>();
+        JsonNode input = request.path("input");
+        if (input.isArray()) {
+            input.forEach(text -> inputs.add(text.asText()));
+        } else {
+            inputs.add(input.asText());
+        }
+        sleep(jitter(settings.embedLatencyMillis()));
+        ObjectNode body = mapper.createObjectNode().put("model", request.path("model").asText());
+        ArrayNode embeddings = body.putArray("embeddings");
+        for (String text : inputs) {
+            ArrayNode vector = embeddings.addArray();
+            for (float v : embedding(text)) {
+                vector.add(v);
+            }
+        }
+        respond(exchange, 200, mapper.writeValueAsString(body));
+    }
+
+    private ObjectNode finalChunk(String response, JsonNode request) {
+        ObjectNode chunk = mapper.createObjectNode()
+                .put("model", request.path("model").asText())
+                .put("response", response)
+                .put("done", true)
+                .put("prompt_eval_count", request.path("prompt").asText().length() / 4)
+                .put("eval_count", settings.tokens());
+        // Context grows with the conversation, like the real encoding of prompt and answer
+        ArrayNode context = chunk.putArray("context");
+        int previous = request.path("context").size();
+        for (int i = 0; i < previous + request.path("prompt").asText().length() / 4 + settings.tokens(); i++) {
+            context.add(i);
+        }
+        return chunk;
+    }
+
+    private boolean injectFailure(HttpExchange exchange) throws IOException {
+        if (ThreadLocalRandom.current().nextDouble() >= settings.errorRate()) {
+            return false;
+        }
+        failures.incrementAndGet();
+        respond(exchange, 503, "{\"error\":\"server busy, please try again\"}");
+        return true;
+    }
+
+    private void count(String path) {
+        requests.computeIfAbsent(path, p -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static String answer(int tokens) {
+        StringBuilder answer = new StringBuilder("According to the policy,");
+        for (int i = 0; i < tokens; i++) {
+            answer.append(" word").append(i);
+        }
+        return answer.toString();
+    }
+
+    static float[] embedding(String text) {
+        float[] vector = new float[DIMENSIONS];
+        for (String term : text.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            if (!term.isEmpty()) {
+                int hash = term.hashCode();
+                vector[Math.floorMod(hash, DIMENSIONS)] += 1;
+                vector[Math.floorMod(hash * 31 + 7, DIMENSIONS)] += 0.5f;
+            }
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            vector[0] = 1;
+            return vector;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private static long jitter(long meanMillis) {
+        return meanMillis <= 0 ? 0 : (long) (meanMillis * (0.5 + ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
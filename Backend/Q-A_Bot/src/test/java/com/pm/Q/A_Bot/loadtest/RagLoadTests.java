@@ -0,0 +1,274 @@
+package com.pm.Q.A_Bot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pm.Q.A_Bot.benchmark.PolicyCorpus;
+import com.pm.Q.A_Bot.service.limits.ResourceLimit;
+import com.pm.Q.A_Bot.service.vectorstore.LimitedVectorStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test of upload, ask, streamed ask and delete against the full application, with Ollama,
+ * Pinecone and MySQL replaced by local stand-ins ({@link OllamaStub}, {@link RemoteVectorStoreStub} under the
+ * vector store resource limit, in-memory H2). The executors, scheduler and resource limits are the
+ * application's own, so their settings can be tried out by overriding them as system properties. The stub
+ * stands for one Ollama server answering {@code loadtest.generate-concurrency} generations in parallel (16, as
+ * with {@code OLLAMA_NUM_PARALLEL=16}), and the scheduler is given that many slots; the shipped default of 2
+ * matches a single local Ollama, which the default mix would simply overload.
+ * <p>
+ * Off by default: {@code mvn test -Dtest=RagLoadTests -Dloadtest=true}, tuned with
+ * {@code -Dloadtest.rate}, {@code .duration-seconds}, {@code .mix} (e.g. {@code ask=6,stream=2,upload=1,delete=1}),
+ * {@code .generate-latency-ms}, {@code .generate-concurrency}, {@code .embed-latency-ms}, {@code .vectorstore-latency-ms}, {@code .error-rate}
+ * and {@code .max-error-rate}. The report is printed and written to {@code target/loadtest-report.json}, the
+ * application's own stage metrics to {@code target/loadtest-metrics.txt}.
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
+@Import(RagLoadTests.StandIns.class)
+class RagLoadTests {
+
+    private static final double RATE = Double.parseDouble(System.getProperty("loadtest.rate", "20"));
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration-seconds", 60);
+    private static final String MIX = System.getProperty("loadtest.mix", "ask=6,stream=2,upload=1,delete=1");
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.error-rate", "0.01"));
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.05"));
+    private static final long VECTORSTORE_LATENCY_MS = Long.getLong("loadtest.vectorstore-latency-ms", 30);
+    // Uploads and deletes cycle through this many file names, so re-uploads replace earlier versions
+    private static final int FILES = 20;
+    private static final String[] QUESTIONS = {
+            "How many days of annual leave do employees get?", "Can part-time employees carry over paid leave?",
+            "Which form is used for travel expenses?", "What is the notice period after probation?",
+            "Are contractors entitled to remote work arrangements?", "Who must obtain approval for overtime compensation?",
+            "When should a medical certificate be submitted?", "What equipment allowances are available?",
+            "How is relocation support requested?", "What mandatory training must new joiners complete?"
+    };
+
+    private static OllamaStub ollama;
+    private static Path dataDirectory;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10)).build();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @DynamicPropertySource
+    static void standIns(DynamicPropertyRegistry registry) throws IOException {
+        ollama = new OllamaStub(new OllamaStub.Settings(
+                Long.getLong("loadtest.generate-latency-ms", 800),
+                Long.getLong("loadtest.embed-latency-ms", 40),
+                ERROR_RATE, 100));
+        dataDirectory = Files.createTempDirectory("rag-loadtest");
+        registry.add("llm.backends", ollama::url);
+        registry.add("llm.scheduler.max-concurrency-per-backend", () -> Integer.getInteger("loadtest.generate-concurrency", 16));
+        registry.add("spring.ai.ollama.base-url", ollama::url);
+        registry.add("vectorstore.type", () -> "flat");
+        registry.add("vectorstore.flat.path", () -> dataDirectory.resolve("flat").toString());
+        registry.add("retrieval.bm25.path", () -> dataDirectory.resolve("bm25.bin").toString());
+        registry.add("docs.blob.path", () -> dataDirectory.resolve("blobs").toString());
+        registry.add("import.archive.path", () -> dataDirectory.resolve("imports").toString());
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.driver-class-name", () -> "org.h2.Driver");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        // Spring AI and JPA log every call at DEBUG in application.properties, which would dominate the measurement
+        registry.add("logging.level.org.springframework.ai", () -> "INFO");
+        registry.add("logging.level.org.springframework.data.jpa", () -> "INFO");
+        registry.add("logging.level.org.hibernate", () -> "WARN");
+    }
+
+    @AfterAll
+    static void stopStandIns() {
+        if (ollama != null) {
+            ollama.close();
+        }
+    }
+
+    /** Puts the local flat store behind a simulated network hop and the same limit Pinecone runs under. */
+    @TestConfiguration
+    static class StandIns {
+
+        @Bean
+        static BeanPostProcessor remoteVectorStore(ApplicationContext context) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!"vectorStore".equals(beanName) || !(bean instanceof VectorStore store)) {
+                        return bean;
+                    }
+                    ResourceLimit limit = context.getBean("vectorStoreLimit", ResourceLimit.class);
+                    return new LimitedVectorStore(new RemoteVectorStoreStub(store, VECTORSTORE_LATENCY_MS, 0), limit);
+                }
+            };
+        }
+    }
+
+    @Test
+    void mixedWorkload() throws Exception {
+        // Something to answer from before questions start
+        for (int i = 0; i < 5; i++) {
+            awaitJob(upload("policy-" + i + ".txt"));
+        }
+
+        LoadDriver driver = new LoadDriver(RATE, Duration.ofSeconds(DURATION_SECONDS));
+        Map<String, LoadDriver.Operation> operations = new LinkedHashMap<>();
+        operations.put("ask", () -> get("/api/query/ask?question=" + question()).statusCode());
+        operations.put("stream", this::streamAsk);
+        operations.put("upload", () -> {
+            long started = System.nanoTime();
+            HttpResponse<String> accepted = upload("policy-" + ThreadLocalRandom.current().nextInt(FILES) + ".txt");
+            if (accepted.statusCode() == 202) {
+                // Time to searchable, reported separately from the time to accept the upload
+                Thread.ofVirtual().start(() -> driver.record("ingest", System.nanoTime() - started, awaitJob(accepted)));
+            }
+            return accepted.statusCode();
+        });
+        operations.put("delete", () -> send(HttpRequest.newBuilder(uri("/api/rag/delete?filename=policy-"
+                + ThreadLocalRandom.current().nextInt(FILES) + ".txt")).DELETE()).statusCode());
+
+        LoadDriver.Report report = driver.run(parseMix(MIX), operations, Duration.ofMinutes(2));
+
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("settings", report.settings());
+        output.put("endpoints", report.endpoints());
+        output.put("ollamaStub", ollama.stats());
+        output.put("status", mapper.readTree(get("/api/rag/status").body()));
+        output.put("readiness", mapper.readTree(get("/actuator/health/readiness").body()));
+        Path file = Path.of("target", "loadtest-report.json");
+        Files.createDirectories(file.getParent());
+        mapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), output);
+        // Per-stage breakdown as the application itself reports it
+        Files.writeString(file.resolveSibling("loadtest-metrics.txt"), get("/actuator/prometheus").body());
+        System.out.printf("=== Load test: %.1f ops/s for %d s, mix %s%n%s=== Report written to %s%n",
+                RATE, DURATION_SECONDS, MIX, report, file.toAbsolutePath());
+
+        for (String endpoint : parseMix(MIX).keySet()) {
+            long count = report.count(endpoint);
+            assertTrue(count > 0, "no completed " + endpoint + " requests");
+            assertTrue(report.errors(endpoint) <= count * MAX_ERROR_RATE,
+                    endpoint + " error rate above " + MAX_ERROR_RATE + ": " + report.endpoints().get(endpoint));
+        }
+    }
+
+    /** Reads the SSE stream to the end; a stream without a "done" event counts as a 502. */
+    private int streamAsk() throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = http.send(HttpRequest.newBuilder(uri("/api/query/ask/stream?question=" + question()))
+                .timeout(Duration.ofMinutes(2)).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        boolean done = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                done |= line.startsWith("event:done");
+            }
+        }
+        return response.statusCode() == 200 && !done ? 502 : response.statusCode();
+    }
+
+    private HttpResponse<String> upload(String filename) throws IOException, InterruptedException {
+        String boundary = "----loadtest" + UUID.randomUUID();
+        String text = PolicyCorpus.document(PolicyCorpus.Size.SMALL, ThreadLocalRandom.current().nextLong());
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n"
+                + text + "\r\n"
+                + "--" + boundary + "--\r\n";
+        return send(HttpRequest.newBuilder(uri("/api/rag/upload"))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    /** Polls the job until it finishes; 200 when it completed, 500 when it failed or never finished. */
+    private int awaitJob(HttpResponse<String> accepted) {
+        try {
+            String jobId = mapper.readTree(accepted.body()).path("jobId").asText();
+            long deadline = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+            while (System.nanoTime() < deadline) {
+                JsonNode job = mapper.readTree(get("/api/rag/jobs/" + jobId).body());
+                String state = job.path("state").asText();
+                if ("COMPLETED".equals(state)) {
+                    return 200;
+                }
+                if ("FAILED".equals(state)) {
+                    return 500;
+                }
+                Thread.sleep(100);
+            }
+            return 500;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 500;
+        }
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return http.send(request.timeout(Duration.ofMinutes(2)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    /** A mix of repeated and novel questions, so the answer cache sees both hits and misses. */
+    private static String question() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String question = QUESTIONS[random.nextInt(QUESTIONS.length)];
+        if (random.nextBoolean()) {
+            question += " (case " + random.nextInt(1000) + ")";
+        }
+        return URLEncoder.encode(question, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] weight = part.trim().split("=");
+            weights.put(weight[0].trim(), Integer.parseInt(weight[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,90 @@
+package com.pm.Q.A_Bot.loadtest;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for Pinecone: the in-process flat store does the work, and every call first pays a network round
+ * trip drawn around {@code latencyMillis} and fails at {@code errorRate}, like a remote index under load.
+ */
+final class RemoteVectorStoreStub implements VectorStore, AutoCloseable {
+
+    private final VectorStore delegate;
+    private final long latencyMillis;
+    private final double errorRate;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    RemoteVectorStoreStub(VectorStore delegate, long latencyMillis, double errorRate) {
+        this.delegate = delegate;
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        roundTrip();
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        roundTrip();
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        roundTrip();
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        roundTrip();
+        return delegate.similaritySearch(request);
+    }
+
+    @Override
+    public String getName() {
+        return "RemoteVectorStoreStub";
+    }
+
+    long calls() {
+        return calls.get();
+    }
+
+    long failures() {
+        return failures.get();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void roundTrip() {
+        calls.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep((long) (latencyMillis * (0.5 + random.nextDouble())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted during vector store call", e);
+            }
+        }
+        if (random.nextDouble() < errorRate) {
+            failures.incrementAndGet();
+            throw new IllegalStateException("Vector store unavailable (injected)");
+        }
+    }
+}
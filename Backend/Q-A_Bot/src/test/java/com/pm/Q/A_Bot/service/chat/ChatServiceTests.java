@@ -0,0 +1,189 @@
+package com.pm.Q.A_Bot.service.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pm.Q.A_Bot.service.llm.GenerationResult;
+import com.pm.Q.A_Bot.service.llm.GenerationScheduler;
+import com.pm.Q.A_Bot.service.llm.OllamaClient;
+import com.pm.Q.A_Bot.service.query.ContextAssembler;
+import com.pm.Q.A_Bot.service.query.PromptBuilder;
+import com.pm.Q.A_Bot.service.retrieval.HybridRetriever;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatServiceTests {
+
+    private final FakeOllama ollama = new FakeOllama();
+    private final List<Document> retrieved = new ArrayList<>();
+
+    @Test
+    void followUpsContinueFromContextAndSendOnlyNewPassages() {
+        ChatSessionStore store = new ChatSessionStore(10, 5, 60_000, System::currentTimeMillis);
+        ChatService chat = chatService(store, 2048);
+        String id = store.create("alice").getId();
+
+        retrieved.addAll(List.of(doc("a", "Annual leave is 20 days."), doc("b", "Sick leave is 10 days.")));
+        ChatService.ChatAnswer first = chat.ask(id, "alice", "How much annual leave?");
+        assertFalse(first.continued());
+        assertEquals(2, first.newChunks());
+        assertNull(ollama.contexts.get(0));
+        assertTrue(ollama.prompts.get(0).contains("Annual leave is 20 days."));
+
+        retrieved.clear();
+        retrieved.addAll(List.of(doc("b", "Sick leave is 10 days."), doc("c", "Parental leave is 12 weeks.")));
+        ChatService.ChatAnswer second = chat.ask(id, "alice", "And parental leave?");
+        assertTrue(second.continued());
+        assertEquals(1, second.newChunks());
+        assertArrayEquals(ollama.returned.get(0), ollama.contexts.get(1));
+        String followUp = ollama.prompts.get(1);
+        assertTrue(followUp.contains("Parental leave is 12 weeks."));
+        assertFalse(followUp.contains("Sick leave"));
+        assertTrue(followUp.contains("And parental leave?"));
+
+        // Nothing new retrieved: just the question
+        ChatService.ChatAnswer third = chat.ask(id, "alice", "Is that paid?");
+        assertEquals(0, third.newChunks());
+        assertFalse(ollama.prompts.get(2).contains("MORE CONTEXT"));
+        assertEquals(3, third.turn());
+    }
+
+    @Test
+    void startsOverWhenTheContextNoLongerFits() {
+        ChatSessionStore store = new ChatSessionStore(10, 5, 60_000, System::currentTimeMillis);
+        ChatService chat = chatService(store, 2048);
+        String id = store.create("alice").getId();
+        retrieved.add(doc("a", "Annual leave is 20 days."));
+
+        chat.ask(id, "alice", "How much annual leave?");
+        ollama.contextLength = 1600;
+        chat.ask(id, "alice", "Can it be carried over?");
+        ChatService.ChatAnswer third = chat.ask(id, "alice", "Until when?");
+
+        assertFalse(third.continued());
+        assertNull(ollama.contexts.get(2));
+        String resumed = ollama.prompts.get(2);
+        assertTrue(resumed.startsWith("PREVIOUS QUESTION: Can it be carried over?"));
+        assertTrue(resumed.contains("Annual leave is 20 days."));
+    }
+
+    @Test
+    void sessionsAreScopedToTheirUser() {
+        ChatSessionStore store = new ChatSessionStore(10, 5, 60_000, System::currentTimeMillis);
+        ChatService chat = chatService(store, 2048);
+        String id = store.create("alice").getId();
+
+        assertThrows(NoSuchElementException.class, () -> chat.ask(id, "bob", "question"));
+        assertFalse(store.remove(id, "bob"));
+        assertTrue(store.remove(id, "alice"));
+    }
+
+    @Test
+    void aSessionAnswersOneQuestionAtATime() throws Exception {
+        ChatSessionStore store = new ChatSessionStore(10, 5, 60_000, System::currentTimeMillis);
+        ChatService chat = chatService(store, 2048);
+        ChatSession session = store.create("alice");
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            other.submit(session::beginTurn).get();
+            assertThrows(SessionBusyException.class, () -> chat.ask(session.getId(), "alice", "How much annual leave?"));
+
+            other.submit(session::endTurn).get();
+            retrieved.add(doc("leave-0", "Annual leave is 25 days."));
+            assertEquals("answer 1", chat.ask(session.getId(), "alice", "How much annual leave?").answer());
+        } finally {
+            other.shutdownNow();
+        }
+    }
+
+    @Test
+    void storeEvictsIdleSessionsAndEnforcesCaps() {
+        AtomicLong now = new AtomicLong();
+        ChatSessionStore store = new ChatSessionStore(3, 2, 1000, now::get);
+
+        ChatSession a1 = store.create("alice");
+        ChatSession a2 = store.create("alice");
+        ChatSession a3 = store.create("alice");
+        assertNull(store.get(a1.getId(), "alice"));
+        assertNotNull(store.get(a2.getId(), "alice"));
+
+        ChatSession b1 = store.create("bob");
+        ChatSession c1 = store.create("carol");
+        // Global cap: a3 was used least recently
+        assertNull(store.get(a3.getId(), "alice"));
+        assertEquals(3, store.stats().get("sessions"));
+
+        now.addAndGet(600);
+        store.get(c1.getId(), "carol");
+        now.addAndGet(600);
+        assertNull(store.get(a2.getId(), "alice"));
+        assertNull(store.get(b1.getId(), "bob"));
+        assertNotNull(store.get(c1.getId(), "carol"));
+        assertEquals(2L, store.stats().get("evictedIdle"));
+        assertEquals(2L, store.stats().get("evictedCapacity"));
+        assertEquals(1, store.stats().get("users"));
+    }
+
+    private ChatService chatService(ChatSessionStore store, int numCtx) {
+        HybridRetriever retriever = new HybridRetriever(null, null, "vector", 3, 20, 60) {
+            @Override
+            public List<Document> retrieve(String question) {
+                return List.copyOf(retrieved);
+            }
+        };
+        return new ChatService(store, retriever, new ContextAssembler(numCtx, 500, 0), new PromptBuilder(),
+                new GenerationScheduler(ollama, 1, 10, 1, 10), numCtx, 500);
+    }
+
+    private static Document doc(String id, String text) {
+        return Document.builder().id(id).text(text).metadata(Map.of("source", "policy.pdf")).score(0.9).build();
+    }
+
+    /** Ollama stand-in that answers at once and returns a context of {@code contextLength} tokens. */
+    private static final class FakeOllama extends OllamaClient {
+
+        final List<String> prompts = new ArrayList<>();
+        final List<int[]> contexts = new ArrayList<>();
+        final List<int[]> returned = new ArrayList<>();
+        int contextLength = 100;
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        FakeOllama() {
+            super(null, null, null);
+        }
+
+        @Override
+        public CompletableFuture<GenerationResult> generate(String prompt, String model, int[] context) {
+            prompts.add(prompt);
+            contexts.add(context);
+            int[] next = new int[contextLength];
+            for (int i = 0; i < next.length; i++) {
+                next[i] = prompts.size() * 1000 + i;
+            }
+            returned.add(next);
+            ObjectNode raw = mapper.createObjectNode().put("response", "answer " + prompts.size()).put("done", true);
+            ArrayNode tokens = raw.putArray("context");
+            for (int token : next) {
+                tokens.add(token);
+            }
+            return CompletableFuture.completedFuture(new GenerationResult("answer " + prompts.size(), raw));
+        }
+    }
+}
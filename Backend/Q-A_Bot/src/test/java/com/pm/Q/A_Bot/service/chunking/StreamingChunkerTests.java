@@ -0,0 +1,53 @@
+package com.pm.Q.A_Bot.service.chunking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingChunkerTests {
+
+    @Test
+    void matchesWholeTextSlicingForAnyFragmentation() {
+        Random random = new Random(3);
+        for (int length : new int[]{0, 1, 199, 200, 999, 1000, 1001, 1800, 1801, 5000, 12345}) {
+            String text = randomText(random, length);
+            List<String> expected = slice(text, 1000, 200);
+
+            List<String> actual = new ArrayList<>();
+            StreamingChunker chunker = new StreamingChunker(1000, 200, chunk -> actual.add(chunk.toString()));
+            char[] chars = text.toCharArray();
+            int pos = 0;
+            while (pos < chars.length) {
+                int n = Math.min(chars.length - pos, 1 + random.nextInt(700));
+                chunker.append(chars, pos, n);
+                pos += n;
+            }
+            chunker.finish();
+
+            assertEquals(expected, actual, "length " + length);
+        }
+    }
+
+    // The original splitIntoChunks loop over the fully extracted text
+    private static List<String> slice(String text, int chunkSize, int overlap) {
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += (chunkSize - overlap)) {
+            int endIndex = Math.min(i + chunkSize, text.length());
+            chunks.add(text.substring(i, endIndex).trim());
+            if (endIndex >= text.length()) break;
+        }
+        return chunks;
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+}
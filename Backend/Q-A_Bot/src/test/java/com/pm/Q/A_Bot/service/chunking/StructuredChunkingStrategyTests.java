@@ -0,0 +1,110 @@
+package com.pm.Q.A_Bot.service.chunking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructuredChunkingStrategyTests {
+
+    @Test
+    void chunksStayWithinBudgetAndCutBeforeHeadings() {
+        String text = policyDocument(new Random(11), 12);
+        List<String> chunks = chunk(new StructuredChunkingStrategy(300, 0), text, 37);
+
+        assertTrue(chunks.size() > 1);
+        int headingStarts = 0;
+        for (String chunk : chunks) {
+            assertTrue(TokenEstimator.estimate(chunk) <= 300, "over budget: " + TokenEstimator.estimate(chunk));
+            if (chunk.startsWith("Section ")) {
+                headingStarts++;
+            }
+        }
+        assertTrue(headingStarts >= chunks.size() / 2, "only " + headingStarts + " of " + chunks.size() + " start at a heading");
+
+        // Without overlap the chunks partition the text's tokens exactly
+        assertEquals(TokenEstimator.estimate(text), chunks.stream().mapToInt(TokenEstimator::estimate).sum());
+        assertEquals(String.join(" ", text.split("\\s+")).trim(),
+                String.join(" ", String.join(" ", chunks).split("\\s+")).trim());
+    }
+
+    @Test
+    void overlapIsBoundedAndStartsAtAWord() {
+        String text = policyDocument(new Random(5), 20);
+        List<String> chunks = chunk(new StructuredChunkingStrategy(100, 20), text, 500);
+
+        int overlapping = 0;
+        for (int i = 1; i < chunks.size(); i++) {
+            String previous = chunks.get(i - 1);
+            String current = chunks.get(i);
+            assertTrue(TokenEstimator.estimate(current) <= 100);
+            int shared = sharedPrefixOfTail(previous, current);
+            if (shared > 0) {
+                overlapping++;
+                assertTrue(TokenEstimator.estimate(current, 0, shared) <= 20);
+            }
+        }
+        assertTrue(overlapping > 0);
+    }
+
+    @Test
+    void unbrokenTextIsHardCut() {
+        String text = "x".repeat(5000);
+        List<String> chunks = chunk(new StructuredChunkingStrategy(50, 0), text, 64);
+        assertEquals(5000, chunks.stream().mapToInt(String::length).sum());
+        chunks.forEach(c -> assertTrue(TokenEstimator.estimate(c) <= 50));
+    }
+
+    private static List<String> chunk(ChunkingStrategy strategy, String text, int fragment) {
+        List<String> chunks = new ArrayList<>();
+        ChunkingStrategy.Session session = strategy.open(c -> chunks.add(c.toString()));
+        char[] chars = text.toCharArray();
+        for (int pos = 0; pos < chars.length; pos += fragment) {
+            session.append(chars, pos, Math.min(fragment, chars.length - pos));
+        }
+        session.finish();
+        return chunks;
+    }
+
+    // Length of the longest suffix of previous that is a prefix of current
+    private static int sharedPrefixOfTail(String previous, String current) {
+        for (int n = Math.min(previous.length(), current.length()); n > 0; n--) {
+            if (previous.endsWith(current.substring(0, n))) {
+                return n;
+            }
+        }
+        return 0;
+    }
+
+    private static String policyDocument(Random random, int sections) {
+        StringBuilder sb = new StringBuilder();
+        for (int s = 1; s <= sections; s++) {
+            sb.append("Section ").append(s).append(" Leave Policy\n\n");
+            int paragraphs = 1 + random.nextInt(3);
+            for (int p = 0; p < paragraphs; p++) {
+                int sentences = 2 + random.nextInt(4);
+                for (int k = 0; k < sentences; k++) {
+                    int words = 5 + random.nextInt(12);
+                    for (int w = 0; w < words; w++) {
+                        sb.append(w == 0 ? "Employees" : word(random)).append(w == words - 1 ? ". " : " ");
+                    }
+                }
+                sb.append("\n\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String word(Random random) {
+        int length = 2 + random.nextInt(9);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+}
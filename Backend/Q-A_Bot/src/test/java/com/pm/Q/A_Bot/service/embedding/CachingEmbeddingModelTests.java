@@ -0,0 +1,98 @@
+package com.pm.Q.A_Bot.service.embedding;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CachingEmbeddingModelTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void onlyMissesReachTheDelegateAndDuplicatesAreEmbeddedOnce() {
+        RecordingModel delegate = new RecordingModel();
+        CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, "nomic", new MemoryEmbeddingCache(1 << 20), null);
+
+        model.embed(List.of("Four weeks of leave."));
+        List<float[]> vectors = model.embed(List.of("Four weeks of leave.", "Travel needs approval.", "Travel needs approval."));
+
+        assertEquals(List.of(List.of("Four weeks of leave."), List.of("Travel needs approval.")), delegate.requests);
+        assertArrayEquals(RecordingModel.vector("Four weeks of leave."), vectors.get(0));
+        assertArrayEquals(vectors.get(1), vectors.get(2));
+        assertEquals(1L, model.stats().get("memoryHits"));
+        assertEquals(2L, model.stats().get("misses"));
+        assertEquals(2L, model.stats().get("memoryEntries"));
+    }
+
+    @Test
+    void whitespaceAndUnicodeFormsShareAKeyButCaseAndModelDoNot() {
+        String key = EmbeddingKeys.key("nomic", "Café policy");
+
+        assertEquals(key, EmbeddingKeys.key("nomic", "  Café \n\t policy "));
+        assertNotEquals(key, EmbeddingKeys.key("nomic", "café policy"));
+        assertNotEquals(key, EmbeddingKeys.key("mxbai", "Café policy"));
+
+        RecordingModel delegate = new RecordingModel();
+        CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, "nomic", new MemoryEmbeddingCache(1 << 20), null);
+        model.embed("Café policy");
+        model.embed("  Café \n\t policy ");
+        assertEquals(1, delegate.requests.size());
+    }
+
+    @Test
+    void theDiskTierSurvivesARestart() throws Exception {
+        RecordingModel first = new RecordingModel();
+        new CachingEmbeddingModel(first, "nomic", new MemoryEmbeddingCache(1 << 20), new DiskEmbeddingCache(dir))
+                .embed("Four weeks of leave.");
+
+        // Fresh memory tier and cache instance over the same directory
+        RecordingModel second = new RecordingModel();
+        CachingEmbeddingModel restarted = new CachingEmbeddingModel(second, "nomic", new MemoryEmbeddingCache(1 << 20),
+                new DiskEmbeddingCache(dir));
+
+        assertArrayEquals(RecordingModel.vector("Four weeks of leave."), restarted.embed("Four weeks of leave."));
+        assertArrayEquals(RecordingModel.vector("Four weeks of leave."), restarted.embed("Four weeks of leave."));
+        assertEquals(List.of(), second.requests);
+        assertEquals(1L, restarted.stats().get("diskHits"));
+        assertEquals(1L, restarted.stats().get("memoryHits"));
+    }
+
+    /** Embeds each text to a vector derived from its hash and records every batch it is asked for. */
+    private static final class RecordingModel implements EmbeddingModel {
+
+        final List<List<String>> requests = new ArrayList<>();
+
+        static float[] vector(String text) {
+            int h = text.hashCode();
+            return new float[]{h & 0xff, (h >> 8) & 0xff, (h >> 16) & 0xff};
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            requests.add(List.copyOf(request.getInstructions()));
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(vector(text), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vector(document.getText());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.pm.Q.A_Bot.service.embedding;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskEmbeddingCacheTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void vectorsRoundTripAcrossInstances() throws Exception {
+        String key = EmbeddingKeys.key("nomic", "Four weeks of leave.");
+        float[] vector = {0.25f, -1.5f, Float.MIN_VALUE, 3e8f};
+
+        new DiskEmbeddingCache(dir).put(key, vector);
+
+        assertArrayEquals(vector, new DiskEmbeddingCache(dir).get(key));
+        assertEquals(16, Files.size(dir.resolve(key.substring(0, 2)).resolve(key + ".f32")));
+    }
+
+    @Test
+    void unknownKeysAreMissesAndNoTempFilesAreLeftBehind() throws Exception {
+        DiskEmbeddingCache cache = new DiskEmbeddingCache(dir);
+        String key = EmbeddingKeys.key("nomic", "Travel needs approval.");
+
+        assertNull(cache.get(key));
+
+        cache.put(key, new float[]{1, 2});
+        cache.put(key, new float[]{3, 4});
+        assertArrayEquals(new float[]{3, 4}, cache.get(key));
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertTrue(files.noneMatch(p -> p.toString().endsWith(".tmp")));
+        }
+    }
+}
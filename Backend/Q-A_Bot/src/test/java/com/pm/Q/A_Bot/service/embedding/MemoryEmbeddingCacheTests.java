@@ -0,0 +1,68 @@
+package com.pm.Q.A_Bot.service.embedding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MemoryEmbeddingCacheTests {
+
+    // 16 segments of 500 bytes; a 4-float entry weighs 216, so each segment holds two
+    private static final long MAX_BYTES = 16 * 500;
+    private static final float[] VECTOR = {1, 2, 3, 4};
+
+    @Test
+    void theLeastRecentlyUsedEntryOfASegmentIsEvicted() {
+        MemoryEmbeddingCache cache = new MemoryEmbeddingCache(MAX_BYTES);
+        List<String> keys = sameSegmentKeys(3);
+
+        cache.put(keys.get(0), VECTOR);
+        cache.put(keys.get(1), VECTOR);
+        cache.get(keys.get(0));
+        cache.put(keys.get(2), VECTOR);
+
+        assertNotNull(cache.get(keys.get(0)));
+        assertNull(cache.get(keys.get(1)));
+        assertNotNull(cache.get(keys.get(2)));
+        assertEquals(1, cache.evictions());
+        assertEquals(2, cache.size());
+        assertEquals(2 * 216, cache.bytes());
+    }
+
+    @Test
+    void replacingAKeyDoesNotDoubleCountItsBytes() {
+        MemoryEmbeddingCache cache = new MemoryEmbeddingCache(MAX_BYTES);
+
+        cache.put("a", VECTOR);
+        cache.put("a", new float[]{5, 6, 7, 8});
+
+        assertEquals(1, cache.size());
+        assertEquals(216, cache.bytes());
+        assertEquals(0, cache.evictions());
+    }
+
+    @Test
+    void anEntryLargerThanItsSegmentIsStillKept() {
+        MemoryEmbeddingCache cache = new MemoryEmbeddingCache(MAX_BYTES);
+
+        cache.put("a", new float[1024]);
+
+        assertNotNull(cache.get("a"));
+        assertEquals(0, cache.evictions());
+    }
+
+    private static List<String> sameSegmentKeys(int count) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; keys.size() < count; i++) {
+            String key = "key-" + i;
+            if ((key.hashCode() & 0x7fffffff) % 16 == 0) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,137 @@
+package com.pm.Q.A_Bot.service.health;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.Q.A_Bot.service.ingest.ChunkIndexService;
+import com.pm.Q.A_Bot.service.llm.OllamaBackendPool;
+import com.pm.Q.A_Bot.service.llm.OllamaClient;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DependencyProberTests {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void readyWhenOneBackendHasBothModelsAndNothingButTagsIsCalled() throws Exception {
+        AtomicInteger generateCalls = new AtomicInteger();
+        String complete = ollama("""
+                {"models":[{"name":"llama3.2:1b"},{"name":"nomic-embed-text:latest"}]}""", generateCalls);
+        String missingEmbedder = ollama("{\"models\":[{\"name\":\"llama3.2:1b\"}]}", generateCalls);
+        EmptyStore store = new EmptyStore();
+        DependencyProber prober = prober(List.of(missingEmbedder, complete), store, false);
+
+        assertNull(prober.snapshot());
+        prober.probe();
+
+        HealthSnapshot snapshot = prober.snapshot();
+        assertTrue(snapshot.ready());
+        ProbeResult ollama = snapshot.get(HealthSnapshot.OLLAMA);
+        assertEquals(1, ollama.details().get("usableBackends"));
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> backends = (Map<String, Map<String, Object>>) ollama.details().get("backends");
+        assertEquals(List.of("nomic-embed-text"), backends.get(missingEmbedder).get("missingModels"));
+        assertEquals(42L, snapshot.get(HealthSnapshot.DATABASE).details().get("indexedChunks"));
+        assertTrue(snapshot.checkedAtMicros() > 1_600_000_000_000_000L);
+        assertEquals(0, generateCalls.get());
+        assertFalse(prober.isStale());
+    }
+
+    @Test
+    void reportsEachFailingDependencyOnItsOwn() throws Exception {
+        String noModels = ollama("{\"models\":[]}", new AtomicInteger());
+        DependencyProber prober = prober(List.of(noModels, "http://127.0.0.1:1/"), new EmptyStore(), true);
+
+        prober.probe();
+
+        HealthSnapshot snapshot = prober.snapshot();
+        assertFalse(snapshot.ready());
+        assertFalse(snapshot.get(HealthSnapshot.OLLAMA).up());
+        assertFalse(snapshot.get(HealthSnapshot.DATABASE).up());
+        assertEquals("MySQL down", snapshot.get(HealthSnapshot.DATABASE).error());
+        assertTrue(snapshot.get(HealthSnapshot.VECTOR_STORE).up());
+    }
+
+    private DependencyProber prober(List<String> backends, VectorStore store, boolean databaseDown) {
+        OllamaBackendPool pool = new OllamaBackendPool(backends, 5, 30, 0);
+        OllamaClient client = new OllamaClient(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(),
+                new ObjectMapper(), pool);
+        ChunkIndexService chunkIndex = new ChunkIndexService(null, null, null, null, null, 500) {
+            @Override
+            public long count() {
+                if (databaseDown) {
+                    throw new IllegalStateException("MySQL down");
+                }
+                return 42;
+            }
+
+            @Override
+            public long sourceCount() {
+                return 3;
+            }
+        };
+        return new DependencyProber(client, pool, store, chunkIndex, "rag-docs", "llama3.2:1b", "nomic-embed-text",
+                15_000, 2_000);
+    }
+
+    private String ollama(String tags, AtomicInteger generateCalls) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/tags", exchange -> {
+            byte[] body = tags.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/api/generate", exchange -> {
+            generateCalls.incrementAndGet();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    private static class EmptyStore implements VectorStore {
+
+        @Override
+        public void add(List<Document> documents) {
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.pm.Q.A_Bot.service.ingest;
+
+import com.pm.Q.A_Bot.Entity.ImportFileEntity;
+import com.pm.Q.A_Bot.Entity.ImportJobEntity;
+import com.pm.Q.A_Bot.Repository.DocumentRepository;
+import com.pm.Q.A_Bot.Repository.ImportFileRepository;
+import com.pm.Q.A_Bot.Repository.ImportJobRepository;
+import com.pm.Q.A_Bot.service.storage.BlobStore;
+import com.pm.Q.A_Bot.service.storage.DocumentCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Imports against the real checkpoint tables (H2) and document catalog, with a stub pipeline. Files run on the
+ * calling thread, so an import has finished when the call returns.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkImportServiceTests {
+
+    @TempDir
+    Path dir;
+
+    @Autowired
+    ImportJobRepository jobRepository;
+
+    @Autowired
+    ImportFileRepository fileRepository;
+
+    @Autowired
+    DocumentRepository documentRepository;
+
+    private final StubPipeline pipeline = new StubPipeline();
+
+    @AfterEach
+    void clearTables() {
+        fileRepository.deleteAll();
+        jobRepository.deleteAll();
+        documentRepository.deleteAll();
+    }
+
+    @Test
+    void archiveEntriesSkipFoldersHiddenFilesAndResourceForks() throws Exception {
+        Path archive = dir.resolve("unit.zip");
+        try (OutputStream file = Files.newOutputStream(archive); ZipOutputStream zip = new ZipOutputStream(file)) {
+            for (String name : List.of("hr/", "hr/leave.pdf", "hr/.DS_Store", "__MACOSX/hr/._leave.pdf",
+                    ".git/config", "finance/travel.docx")) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.closeEntry();
+            }
+        }
+
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertEquals(List.of("hr/leave.pdf", "finance/travel.docx"), BulkImportService.archiveEntries(zip));
+        }
+    }
+
+    @Test
+    void everyFileIsCheckpointedBeforeImportingStarts() throws Exception {
+        List<ImportFileEntity.State> seenAtFirstFile = new ArrayList<>();
+        pipeline.onIngest = () -> {
+            if (seenAtFirstFile.isEmpty()) {
+                fileRepository.findAll().forEach(f -> seenAtFirstFile.add(f.getState()));
+            }
+        };
+
+        ImportJobEntity job = service(50).importArchive(archive(Map.of("hr/a.txt", "alpha", "hr/b.txt", "bravo", "hr/.DS_Store", "x")));
+
+        assertEquals(List.of(ImportFileEntity.State.PENDING, ImportFileEntity.State.PENDING), seenAtFirstFile);
+        assertEquals(ImportJobEntity.State.COMPLETED, jobRepository.findById(job.getId()).orElseThrow().getState());
+        assertEquals(2, jobRepository.findById(job.getId()).orElseThrow().getTotalFiles().intValue());
+        for (ImportFileEntity file : files(job)) {
+            assertEquals(ImportFileEntity.State.COMPLETED, file.getState());
+            assertEquals(1, file.getAttempts().intValue());
+            assertEquals(3, file.getChunks().intValue());
+            assertNotNull(file.getDocumentId());
+            assertEquals(64, file.getContentHash().length());
+        }
+        assertEquals(Map.of("hr/a.txt", "alpha", "hr/b.txt", "bravo"), pipeline.contents);
+        assertEquals(List.of(), zips(), "a completed archive is not kept");
+    }
+
+    @Test
+    void failedFilesAreRetriedByResumeAndCompletedOnesAreNot() throws Exception {
+        BulkImportService service = service(50);
+        pipeline.failing.add("b.txt");
+
+        ImportJobEntity job = service.importArchive(archive(Map.of("a.txt", "alpha", "b.txt", "bravo")));
+
+        assertEquals(ImportJobEntity.State.FAILED, job.getState());
+        ImportFileEntity failed = files(job).get(1);
+        assertEquals(ImportFileEntity.State.FAILED, failed.getState());
+        assertEquals("embedding failed", failed.getError());
+        assertEquals(1, zips().size(), "the archive is kept for the retry");
+
+        pipeline.failing.clear();
+        pipeline.contents.clear();
+        assertTrue(service.resume(job));
+
+        assertEquals(Set.of("b.txt"), pipeline.contents.keySet());
+        assertEquals(ImportJobEntity.State.COMPLETED, jobRepository.findById(job.getId()).orElseThrow().getState());
+        assertEquals(2, files(job).get(1).getAttempts().intValue());
+        assertEquals(List.of(), zips());
+        // Nothing left to retry, and the archive is gone
+        assertFalse(service.resume(jobRepository.findById(job.getId()).orElseThrow()));
+        assertEquals(ImportJobEntity.State.COMPLETED, jobRepository.findById(job.getId()).orElseThrow().getState());
+    }
+
+    @Test
+    void runningImportsContinueOnStartupWithoutRedoingCompletedFiles() throws Exception {
+        Path unit = Files.createDirectories(dir.resolve("root/unit/sub"));
+        Files.writeString(unit.resolveSibling("a.txt"), "alpha");
+        Files.writeString(unit.resolveSibling("b.txt"), "bravo");
+        Files.writeString(unit.resolve("c.txt"), "charlie");
+        ImportJobEntity job = service(50).importDirectory(unit.getParent().toString());
+        assertEquals(3, pipeline.contents.size());
+
+        // As left by a restart while b.txt was being ingested
+        job.setState(ImportJobEntity.State.RUNNING);
+        job.setFinishedAt(null);
+        jobRepository.save(job);
+        ImportFileEntity inFlight = files(job).get(1);
+        inFlight.setState(ImportFileEntity.State.PENDING);
+        fileRepository.save(inFlight);
+        pipeline.contents.clear();
+
+        service(50).onReady(null);
+
+        assertEquals(Map.of("b.txt", "bravo"), pipeline.contents);
+        assertEquals(ImportJobEntity.State.COMPLETED, jobRepository.findById(job.getId()).orElseThrow().getState());
+        assertTrue(files(job).stream().allMatch(f -> f.getState() == ImportFileEntity.State.COMPLETED));
+    }
+
+    @Test
+    void filesOverTheSizeLimitFailWithoutReachingThePipeline() throws Exception {
+        ImportJobEntity job = service(1).importArchive(archive(Map.of(
+                "big.txt", "a".repeat(1024 * 1024 + 1), "small.txt", "alpha")));
+
+        assertEquals(ImportJobEntity.State.FAILED, job.getState());
+        ImportFileEntity big = files(job).get(0);
+        assertEquals(ImportFileEntity.State.FAILED, big.getState());
+        assertEquals("File is larger than 1 MB", big.getError());
+        assertEquals(Set.of("small.txt"), pipeline.contents.keySet());
+    }
+
+    @Test
+    void directoryImportsStayInsideTheAllowedRoots() throws Exception {
+        Path unit = Files.createDirectories(dir.resolve("root/unit"));
+        Files.writeString(unit.resolve("a.txt"), "alpha");
+        Path outside = Files.createDirectories(dir.resolve("outside"));
+        Files.writeString(outside.resolve("secret.txt"), "secret");
+        Files.createSymbolicLink(dir.resolve("root/escape"), outside);
+        Files.createSymbolicLink(unit.resolve("leak.txt"), outside.resolve("secret.txt"));
+        BulkImportService service = service(50);
+
+        assertThrows(IllegalArgumentException.class, () -> service.importDirectory(outside.toString()));
+        assertThrows(IllegalArgumentException.class, () -> service.importDirectory(dir.resolve("root/escape").toString()));
+        assertThrows(IllegalArgumentException.class, () -> service.importDirectory(unit + "/../../outside"));
+        assertThrows(IllegalArgumentException.class, () -> new BulkImportService(jobRepository, fileRepository,
+                catalog(), pipeline, Runnable::run, 0, dir.resolve("imports").toString(), "", 50, 200)
+                .importDirectory(unit.toString()));
+
+        ImportJobEntity job = service.importDirectory(unit.toString());
+
+        assertEquals(1, job.getTotalFiles().intValue());
+        assertEquals(Map.of("a.txt", "alpha"), pipeline.contents);
+    }
+
+    private BulkImportService service(long maxFileSizeMb) throws IOException {
+        return new BulkImportService(jobRepository, fileRepository, catalog(), pipeline, Runnable::run, 0,
+                dir.resolve("imports").toString(), dir.resolve("root").toString(), maxFileSizeMb, 200);
+    }
+
+    private DocumentCatalog catalog() throws IOException {
+        return new DocumentCatalog(documentRepository, new BlobStore(dir.resolve("blobs").toString()), 200);
+    }
+
+    private List<ImportFileEntity> files(ImportJobEntity job) {
+        return fileRepository.findAll().stream()
+                .filter(f -> f.getJobId().equals(job.getId()))
+                .sorted(Comparator.comparing(ImportFileEntity::getId))
+                .toList();
+    }
+
+    private List<Path> zips() throws IOException {
+        try (Stream<Path> files = Files.list(dir.resolve("imports"))) {
+            return files.filter(f -> f.toString().endsWith(".zip")).toList();
+        }
+    }
+
+    /** Entries in name order, so checkpoint ids follow it. */
+    private static MockMultipartFile archive(Map<String, String> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (String name : entries.keySet().stream().sorted().toList()) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(entries.get(name).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return new MockMultipartFile("file", "unit.zip", "application/zip", bytes.toByteArray());
+    }
+
+    /** Records what it was asked to ingest, read back from the stored file, and fails the named sources. */
+    private static final class StubPipeline extends IngestionPipeline {
+
+        final Map<String, String> contents = new ConcurrentHashMap<>();
+        final Set<String> failing = ConcurrentHashMap.newKeySet();
+        Runnable onIngest = () -> {
+        };
+
+        StubPipeline() {
+            super(null, null, null, null, null, null, null, null, null, null, null, 1, 1, 1);
+        }
+
+        @Override
+        public IngestionJob ingest(String filename, Path source) {
+            onIngest.run();
+            IngestionJob job = new IngestionJob(filename);
+            job.start();
+            if (failing.contains(filename)) {
+                job.fail("embedding failed");
+                return job;
+            }
+            try {
+                contents.put(filename, Files.readString(source));
+            } catch (IOException e) {
+                job.fail(e.getMessage());
+                return job;
+            }
+            job.chunked(3);
+            job.upserted(3);
+            job.complete();
+            return job;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.pm.Q.A_Bot.service.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ChunkIdsTests {
+
+    @Test
+    void unchangedChunksKeepTheirIdWhenTheDocumentIsRevised() {
+        List<String> original = ids("handbook.pdf", "Intro", "Leave policy", "Benefits");
+        List<String> revised = ids("handbook.pdf", "New preface", "Intro", "Leave policy, updated", "Benefits");
+
+        assertEquals(original.get(0), revised.get(1));
+        assertEquals(original.get(2), revised.get(3));
+        assertNotEquals(original.get(1), revised.get(2));
+        assertEquals(UUID.fromString(original.get(0)).toString(), original.get(0));
+    }
+
+    @Test
+    void repeatedTextAndOtherSourcesGetDistinctIds() {
+        List<String> ids = ids("handbook.pdf", "Page footer", "Body", "Page footer");
+
+        assertNotEquals(ids.get(0), ids.get(2));
+        assertEquals(ids, ids("handbook.pdf", "Page footer", "Body", "Page footer"));
+        assertNotEquals(ids.get(1), ids("policy.pdf", "Body").get(0));
+    }
+
+    private static List<String> ids(String source, String... chunks) {
+        ChunkIds ids = new ChunkIds(source);
+        return List.of(chunks).stream().map(ids::next).toList();
+    }
+}
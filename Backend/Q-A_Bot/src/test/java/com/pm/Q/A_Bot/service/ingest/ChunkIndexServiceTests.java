@@ -0,0 +1,153 @@
+package com.pm.Q.A_Bot.service.ingest;
+
+import com.pm.Q.A_Bot.Repository.ChunkIndexRepository;
+import com.pm.Q.A_Bot.service.query.AnswerCache;
+import com.pm.Q.A_Bot.service.query.IndexVersion;
+import com.pm.Q.A_Bot.service.retrieval.Bm25Index;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChunkIndexServiceTests {
+
+    @TempDir
+    Path dir;
+
+    @Autowired
+    ChunkIndexRepository repository;
+
+    private final RecordingStore vectorStore = new RecordingStore();
+    private final IndexVersion indexVersion = new IndexVersion();
+    private final AnswerCache answerCache = new AnswerCache(null, indexVersion, null, 100, 0.95, 60);
+    private Bm25Index lexicalIndex;
+    private ChunkIndexService chunkIndex;
+
+    @BeforeEach
+    void setUp() {
+        lexicalIndex = new Bm25Index(dir.resolve("bm25.bin"), 3600);
+        chunkIndex = new ChunkIndexService(repository, vectorStore, answerCache, lexicalIndex, indexVersion, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lexicalIndex.close();
+        repository.deleteAll();
+    }
+
+    @Test
+    void indexedChunksAreDeletedByIdInBatches() {
+        index("leave.pdf", 5);
+        index("travel.pdf", 1);
+
+        ChunkIndexService.SourceDeletion deleted = chunkIndex.deleteSource("leave.pdf");
+
+        assertEquals(new ChunkIndexService.SourceDeletion(5, false), deleted);
+        assertEquals(List.of(List.of("leave.pdf-0", "leave.pdf-1"), List.of("leave.pdf-2", "leave.pdf-3"),
+                List.of("leave.pdf-4")), vectorStore.deletedIds);
+        assertEquals(List.of(), vectorStore.deletedByFilter);
+        assertEquals(0, chunkIndex.count("leave.pdf"));
+        assertEquals(1, chunkIndex.count("travel.pdf"));
+        assertEquals(1, lexicalIndex.size());
+    }
+
+    @Test
+    void unindexedSourcesFallBackToAMetadataFilterDelete() {
+        // Ingested before chunk ids were recorded: searchable, but no index rows
+        lexicalIndex.add(List.of(chunk("legacy.pdf", 0), chunk("legacy.pdf", 1)));
+        index("travel.pdf", 1);
+
+        ChunkIndexService.SourceDeletion deleted = chunkIndex.deleteSource("legacy.pdf");
+
+        assertEquals(new ChunkIndexService.SourceDeletion(0, true), deleted);
+        assertEquals(List.of(new FilterExpressionBuilder().eq("source", "legacy.pdf").build()), vectorStore.deletedByFilter);
+        assertEquals(List.of(), vectorStore.deletedIds);
+        assertEquals(1, lexicalIndex.size());
+    }
+
+    @Test
+    void everyBatchBumpsTheIndexVersionAndInvalidatesCachedAnswers() {
+        index("leave.pdf", 3);
+        index("travel.pdf", 1);
+        long before = indexVersion.current();
+        answerCache.put("What is the leave policy?", new float[]{1, 0}, "Four weeks.",
+                List.of(chunk("leave.pdf", 2)), before);
+        answerCache.put("Who approves travel?", new float[]{0, 1}, "Your manager.",
+                List.of(chunk("travel.pdf", 0)), before);
+
+        chunkIndex.deleteSource("leave.pdf");
+
+        assertEquals(before + 2, indexVersion.current());
+        assertNull(answerCache.lookup("What is the leave policy?", null));
+        assertEquals("Your manager.", answerCache.lookup("Who approves travel?", null));
+
+        // The filter delete invalidates by source as well
+        answerCache.put("Who approves travel?", new float[]{0, 1}, "Your manager.",
+                List.of(chunk("travel.pdf", 0)), indexVersion.current());
+        chunkIndex.deleteSource("handbook.pdf");
+        assertEquals(before + 3, indexVersion.current());
+        assertEquals("Your manager.", answerCache.lookup("Who approves travel?", null));
+    }
+
+    private void index(String source, int chunks) {
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            documents.add(chunk(source, i));
+        }
+        chunkIndex.record(source, documents);
+        lexicalIndex.add(documents);
+    }
+
+    private static Document chunk(String source, int index) {
+        return Document.builder()
+                .id(source + "-" + index)
+                .text("Policy text " + index + " of " + source)
+                .metadata(Map.of("source", source, "chunk_index", index))
+                .score(0.8)
+                .build();
+    }
+
+    private static final class RecordingStore implements VectorStore {
+
+        final List<List<String>> deletedIds = new ArrayList<>();
+        final List<Filter.Expression> deletedByFilter = new ArrayList<>();
+
+        @Override
+        public void add(List<Document> documents) {
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+            deletedIds.add(List.copyOf(idList));
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+            deletedByFilter.add(filterExpression);
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.pm.Q.A_Bot.service.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportThrottleTests {
+
+    @Test
+    void nextFileWaitsUntilTheChunksAreBookedAtTheTargetRate() throws Exception {
+        ImportThrottle throttle = new ImportThrottle(100);
+        throttle.acquire();
+        throttle.record(50);
+
+        long started = System.nanoTime();
+        throttle.acquire();
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertTrue(waitedMillis >= 400 && waitedMillis < 2000, "waited " + waitedMillis + " ms");
+    }
+
+    @Test
+    void noTargetAndNoEmbeddedChunksDoNotWait() throws Exception {
+        ImportThrottle unthrottled = new ImportThrottle(0);
+        unthrottled.record(10_000);
+        ImportThrottle throttled = new ImportThrottle(1);
+        throttled.record(0);
+
+        long started = System.nanoTime();
+        unthrottled.acquire();
+        throttled.acquire();
+
+        assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(200));
+    }
+}
@@ -0,0 +1,296 @@
+package com.pm.Q.A_Bot.service.ingest;
+
+import com.pm.Q.A_Bot.Repository.ChunkIndexRepository;
+import com.pm.Q.A_Bot.service.chunking.ChunkingStrategy;
+import com.pm.Q.A_Bot.service.metrics.RagMetrics;
+import com.pm.Q.A_Bot.service.query.AnswerCache;
+import com.pm.Q.A_Bot.service.query.IndexVersion;
+import com.pm.Q.A_Bot.service.retrieval.Bm25Index;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IngestionPipelineTests {
+
+    @TempDir
+    Path dir;
+
+    @Autowired
+    ChunkIndexRepository repository;
+
+    private final RecordingStore vectorStore = new RecordingStore();
+    private final StubEmbeddingModel embeddingModel = new StubEmbeddingModel();
+    private final LineChunking chunking = new LineChunking();
+    private final IndexVersion indexVersion = new IndexVersion();
+    private final ExecutorService embedExecutor = Executors.newFixedThreadPool(8);
+    private Bm25Index lexicalIndex;
+    private ChunkIndexService chunkIndex;
+
+    @BeforeEach
+    void setUp() {
+        lexicalIndex = new Bm25Index(dir.resolve("bm25.bin"), 3600);
+        chunkIndex = new ChunkIndexService(repository, vectorStore, new AnswerCache(null, indexVersion, null, 100, 0.95, 60),
+                lexicalIndex, indexVersion, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        embedExecutor.shutdownNow();
+        lexicalIndex.close();
+        repository.deleteAll();
+    }
+
+    @Test
+    void chunksAreEmbeddedAndUpsertedInConfiguredBatches() throws Exception {
+        IngestionPipeline pipeline = pipeline(Runnable::run, 3, 4, 4);
+
+        IngestionJob job = pipeline.ingest("leave.txt", file("leave.txt", paragraphs(10)));
+
+        assertEquals(IngestionJob.State.COMPLETED, job.getState());
+        assertEquals(List.of(1, 3, 3, 3), sorted(embeddingModel.batchSizes));
+        assertEquals(List.of(2, 4, 4), sorted(vectorStore.addedSizes));
+        assertEquals(10, job.getChunksUpserted());
+        assertEquals(10, chunkIndex.count("leave.txt"));
+        assertEquals(10, lexicalIndex.size());
+    }
+
+    @Test
+    void embeddingConcurrencyIsCapped() throws Exception {
+        embeddingModel.delayMillis = 30;
+        IngestionPipeline pipeline = pipeline(Runnable::run, 2, 2, 100);
+
+        IngestionJob job = pipeline.ingest("leave.txt", file("leave.txt", paragraphs(20)));
+
+        assertEquals(IngestionJob.State.COMPLETED, job.getState());
+        assertEquals(10, embeddingModel.batchSizes.size());
+        // Eight embed threads, but only two permits
+        assertEquals(2, embeddingModel.maxConcurrent.get());
+    }
+
+    @Test
+    void jobsMoveFromQueuedThroughExtractingAndEmbeddingToCompleted() throws Exception {
+        List<Runnable> queued = new ArrayList<>();
+        IngestionPipeline pipeline = pipeline(queued::add, 2, 2, 100);
+
+        IngestionJob job = pipeline.submit(new MockMultipartFile("file", "leave.txt", "text/plain",
+                paragraphs(4).getBytes(StandardCharsets.UTF_8)));
+        assertEquals(IngestionJob.State.QUEUED, pipeline.job(job.getId()).orElseThrow().getState());
+
+        chunking.watched = job;
+        embeddingModel.watched = job;
+        queued.forEach(Runnable::run);
+
+        assertEquals(IngestionJob.State.EXTRACTING, chunking.statesSeen.get(0));
+        assertEquals(Set.of(IngestionJob.State.EMBEDDING), new HashSet<>(embeddingModel.statesSeen));
+        assertEquals(IngestionJob.State.COMPLETED, job.getState());
+        assertTrue(job.isFinished());
+    }
+
+    @Test
+    void emptyFilesFail() throws Exception {
+        IngestionPipeline pipeline = pipeline(Runnable::run, 2, 2, 100);
+
+        IngestionJob job = pipeline.ingest("empty.txt", file("empty.txt", "\n\n"));
+
+        assertEquals(IngestionJob.State.FAILED, job.getState());
+        assertEquals("File appears empty or unreadable", job.getError());
+        assertEquals(List.of(), embeddingModel.batchSizes);
+    }
+
+    @Test
+    void aFailedReuploadDiscardsItsNewChunksAndKeepsThePreviousUpload() throws Exception {
+        IngestionPipeline pipeline = pipeline(Runnable::run, 3, 1, 3);
+        pipeline.ingest("leave.txt", file("leave.txt", paragraphs(6)));
+        Set<String> previous = new HashSet<>(chunkIndex.chunkIds("leave.txt"));
+        vectorStore.addedIds.clear();
+
+        // The fourth embedding batch fails after the first ones have been upserted
+        IngestionJob job = pipeline.ingest("leave.txt", file("leave-v2.txt",
+                paragraphs(6) + "Revised paragraph 1.\nRevised paragraph 2.\nRevised paragraph 3.\n"
+                        + "Revised paragraph 4.\nRevised paragraph 5.\nRevised paragraph 6.\n"
+                        + "Revised paragraph 7.\nRevised paragraph 8.\nRevised paragraph 9.\npoison\n"));
+
+        assertEquals(IngestionJob.State.FAILED, job.getState());
+        assertTrue(job.getError().startsWith("Embedding failed"));
+        assertFalse(vectorStore.addedIds.isEmpty());
+        assertEquals(new HashSet<>(vectorStore.addedIds), new HashSet<>(vectorStore.deletedIds));
+        assertEquals(previous, new HashSet<>(chunkIndex.chunkIds("leave.txt")));
+        assertEquals(6, lexicalIndex.size());
+    }
+
+    private IngestionPipeline pipeline(Executor ingestExecutor, int embedBatchSize,
+                                       int embedMaxConcurrency, int upsertBatchSize) {
+        return new IngestionPipeline(vectorStore, embeddingModel, new AnswerCache(null, indexVersion, null, 100, 0.95, 60),
+                chunking, chunkIndex, lexicalIndex, indexVersion, new ChunkMetadataPatcher(vectorStore, null, ""),
+                new RagMetrics(new SimpleMeterRegistry()), ingestExecutor, embedExecutor,
+                embedBatchSize, embedMaxConcurrency, upsertBatchSize);
+    }
+
+    private Path file(String name, String text) throws Exception {
+        return Files.writeString(dir.resolve(name), text);
+    }
+
+    private static String paragraphs(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            text.append("Policy paragraph ").append(i).append(" of the handbook.\n");
+        }
+        return text.toString();
+    }
+
+    private static List<Integer> sorted(List<Integer> sizes) {
+        List<Integer> copy = new ArrayList<>(sizes);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    /** One chunk per line, so chunk counts follow directly from the test input. */
+    private static final class LineChunking implements ChunkingStrategy {
+
+        volatile IngestionJob watched;
+        final List<IngestionJob.State> statesSeen = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String name() {
+            return "line";
+        }
+
+        @Override
+        public Session open(Consumer<CharSequence> sink) {
+            return new Session() {
+                private final StringBuilder line = new StringBuilder();
+
+                @Override
+                public void append(char[] ch, int start, int length) {
+                    for (int i = start; i < start + length; i++) {
+                        if (ch[i] == '\n') {
+                            emit();
+                        } else {
+                            line.append(ch[i]);
+                        }
+                    }
+                }
+
+                @Override
+                public void finish() {
+                    emit();
+                }
+
+                private void emit() {
+                    String text = line.toString().trim();
+                    line.setLength(0);
+                    if (!text.isEmpty() && watched != null) {
+                        statesSeen.add(watched.getState());
+                    }
+                    sink.accept(text);
+                }
+            };
+        }
+    }
+
+    /** Records batch sizes and peak concurrency; fails any batch containing the text "poison". */
+    private static final class StubEmbeddingModel implements EmbeddingModel {
+
+        volatile long delayMillis;
+        volatile IngestionJob watched;
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        final List<IngestionJob.State> statesSeen = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        private final AtomicInteger concurrent = new AtomicInteger();
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            int now = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(now, Math::max);
+            try {
+                batchSizes.add(request.getInstructions().size());
+                if (watched != null) {
+                    statesSeen.add(watched.getState());
+                }
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+                if (request.getInstructions().contains("poison")) {
+                    throw new IllegalStateException("model unavailable");
+                }
+                List<Embedding> embeddings = new ArrayList<>();
+                for (String ignored : request.getInstructions()) {
+                    embeddings.add(new Embedding(new float[]{1, 0}, embeddings.size()));
+                }
+                return new EmbeddingResponse(embeddings);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return new float[]{1, 0};
+        }
+    }
+
+    private static final class RecordingStore implements VectorStore {
+
+        final List<Integer> addedSizes = Collections.synchronizedList(new ArrayList<>());
+        final List<String> addedIds = Collections.synchronizedList(new ArrayList<>());
+        final List<String> deletedIds = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void add(List<Document> documents) {
+            addedSizes.add(documents.size());
+            documents.forEach(d -> addedIds.add(d.getId()));
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+            deletedIds.addAll(idList);
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            return List.of();
+        }
+    }
+}
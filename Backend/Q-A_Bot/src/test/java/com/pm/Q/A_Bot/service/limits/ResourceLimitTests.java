@@ -0,0 +1,77 @@
+package com.pm.Q.A_Bot.service.limits;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceLimitTests {
+
+    @Test
+    void boundsConcurrentCallsAcrossVirtualThreads() throws Exception {
+        ResourceLimit limit = new ResourceLimit("backend", 3, 10_000);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                calls.add(executor.submit(() -> limit.run(() -> {
+                    peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    sleep(2);
+                    active.decrementAndGet();
+                })));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        }
+        assertEquals(3, peak.get());
+        assertEquals(200L, limit.stats().get("acquired"));
+        assertEquals(0, limit.stats().get("inUse"));
+    }
+
+    @Test
+    void failsFastOnceTheAcquireTimeoutPasses() throws Exception {
+        ResourceLimit limit = new ResourceLimit("backend", 1, 20);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> limit.run(() -> {
+            holding.countDown();
+            await(release);
+        }));
+        holding.await();
+
+        ResourceBusyException busy = assertThrows(ResourceBusyException.class, () -> limit.call(() -> "never"));
+        assertTrue(busy.getMessage().startsWith("backend"));
+        assertEquals(1L, limit.stats().get("timeouts"));
+
+        release.countDown();
+        holder.join();
+        assertEquals("ok", limit.call(() -> "ok"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.pm.Q.A_Bot.service.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Platform vs virtual request threads under many concurrent slow LLM calls. Every simulated request blocks on
+ * a generation through the real scheduler and client, against a local stub that answers after a fixed delay.
+ * The platform run uses Tomcat's default 200 request threads.
+ * <p>
+ * Off by default: {@code mvn test -Dtest=ExecutionModeBenchmarkTests -Dbenchmark=true}, tuned with
+ * {@code -Dbenchmark.requests}, {@code -Dbenchmark.latency-ms} and {@code -Dbenchmark.llm-concurrency}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ExecutionModeBenchmarkTests {
+
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 2000);
+    private static final int LATENCY_MS = Integer.getInteger("benchmark.latency-ms", 200);
+    private static final int LLM_CONCURRENCY = Integer.getInteger("benchmark.llm-concurrency", 512);
+    private static final int PLATFORM_THREADS = 200;
+
+    static {
+        // The stub server otherwise closes idle keep-alive connections beyond 200, which the client may be reusing
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+        // Headers and body go out as separate writes; without TCP_NODELAY delayed ACKs stall every response
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private HttpServer stub;
+    private ExecutorService stubExecutor;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stubExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        stub.setExecutor(stubExecutor);
+        byte[] body = "{\"response\":\"ok\",\"done\":true,\"eval_count\":1}".getBytes(StandardCharsets.UTF_8);
+        stub.createContext("/api/generate", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        stub.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.stop(0);
+        stubExecutor.close();
+    }
+
+    @Test
+    void compareExecutionModes() throws Exception {
+        // Warm up connections and JIT so neither mode pays for them
+        run("warm-up", Executors.newVirtualThreadPerTaskExecutor(), Math.min(REQUESTS, 200));
+
+        Result platform = run("platform", Executors.newFixedThreadPool(PLATFORM_THREADS), REQUESTS);
+        Result virtual = run("virtual", Executors.newVirtualThreadPerTaskExecutor(), REQUESTS);
+
+        System.out.printf("=== Benchmark: %d requests, %d ms LLM latency, %d LLM slots%n",
+                REQUESTS, LATENCY_MS, LLM_CONCURRENCY);
+        for (Result result : List.of(platform, virtual)) {
+            System.out.println("=== " + result);
+        }
+        assertEquals(REQUESTS, platform.succeeded());
+        assertEquals(REQUESTS, virtual.succeeded());
+    }
+
+    private Result run(String mode, ExecutorService requests, int count) throws Exception {
+        GenerationScheduler scheduler = new GenerationScheduler(client(), LLM_CONCURRENCY, count, 1, 100);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        long[] latencies = new long[count];
+        long start = System.nanoTime();
+        List<Future<Boolean>> calls = new ArrayList<>(count);
+        try (requests) {
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                // Latency counts from arrival, including any wait for a free request thread
+                long begin = System.nanoTime();
+                calls.add(requests.submit(() -> {
+                    // Blocking join like QueryService on a request thread
+                    String answer = scheduler.generate("question " + index, GenerationScheduler.Priority.INTERACTIVE)
+                            .join().response();
+                    latencies[index] = System.nanoTime() - begin;
+                    return "ok".equals(answer);
+                }));
+            }
+            int succeeded = 0;
+            for (Future<Boolean> call : calls) {
+                succeeded += call.get() ? 1 : 0;
+            }
+            long elapsed = System.nanoTime() - start;
+            Arrays.sort(latencies);
+            return new Result(mode, succeeded, elapsed / 1_000_000,
+                    count * 1_000_000_000.0 / elapsed,
+                    latencies[count / 2] / 1_000_000, latencies[(int) (count * 0.99) - 1] / 1_000_000,
+                    threads.getPeakThreadCount());
+        }
+    }
+
+    private OllamaClient client() {
+        OllamaBackendPool pool = new OllamaBackendPool(List.of("http://127.0.0.1:" + stub.getAddress().getPort()), 5, 30, 0);
+        OllamaClient client = new OllamaClient(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(),
+                new ObjectMapper(), pool);
+        ReflectionTestUtils.setField(client, "llmModel", "stub");
+        ReflectionTestUtils.setField(client, "readTimeout", 60);
+        ReflectionTestUtils.setField(client, "numCtx", 2048);
+        ReflectionTestUtils.setField(client, "numPredict", 500);
+        return client;
+    }
+
+    private record Result(String mode, int succeeded, long wallMillis, double throughput, long p50Millis,
+                          long p99Millis, int peakPlatformThreads) {
+
+        @Override
+        public String toString() {
+            return String.format("%-8s wall=%d ms  throughput=%.1f req/s  p50=%d ms  p99=%d ms  peak threads=%d",
+                    mode, wallMillis, throughput, p50Millis, p99Millis, peakPlatformThreads);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.pm.Q.A_Bot.service.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenerationSchedulerTests {
+
+    @Test
+    void runsAtMostMaxConcurrentAndServesInteractiveFirst() {
+        FakeOllama ollama = new FakeOllama();
+        GenerationScheduler scheduler = new GenerationScheduler(ollama, 1, 10, 1, 10);
+
+        CompletableFuture<GenerationResult> first = scheduler.generate("first", GenerationScheduler.Priority.BATCH);
+        CompletableFuture<GenerationResult> health = scheduler.generate("health", GenerationScheduler.Priority.HEALTH);
+        CompletableFuture<GenerationResult> batch = scheduler.generate("batch", GenerationScheduler.Priority.BATCH);
+        CompletableFuture<GenerationResult> question = scheduler.generate("question", GenerationScheduler.Priority.INTERACTIVE);
+
+        assertEquals(List.of("first"), ollama.started);
+        ollama.finish("first");
+        ollama.finish("question");
+        ollama.finish("batch");
+        ollama.finish("health");
+
+        assertEquals(List.of("first", "question", "batch", "health"), ollama.started);
+        for (CompletableFuture<GenerationResult> call : List.of(first, health, batch, question)) {
+            assertTrue(call.isDone() && !call.isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    void rejectsWithRetryAfterWhenQueueIsFull() {
+        FakeOllama ollama = new FakeOllama();
+        GenerationScheduler scheduler = new GenerationScheduler(ollama, 1, 2, 1, 10);
+
+        scheduler.generate("running", GenerationScheduler.Priority.INTERACTIVE);
+        scheduler.generate("queued-1", GenerationScheduler.Priority.INTERACTIVE);
+        scheduler.generate("queued-2", GenerationScheduler.Priority.INTERACTIVE);
+        CompletableFuture<GenerationResult> rejected = scheduler.generate("overflow", GenerationScheduler.Priority.INTERACTIVE);
+
+        CompletionException error = assertThrows(CompletionException.class, rejected::join);
+        GenerationRejectedException rejection = assertInstanceOf(GenerationRejectedException.class, error.getCause());
+        assertTrue(rejection.getRetryAfterSeconds() >= 1);
+        assertEquals(1L, scheduler.stats().get("rejected"));
+        assertEquals(List.of("running"), ollama.started);
+    }
+
+    @Test
+    void interactiveCallsDisplaceQueuedBatchWorkWhenTheQueueIsFull() {
+        FakeOllama ollama = new FakeOllama();
+        GenerationScheduler scheduler = new GenerationScheduler(ollama, 1, 2, 1, 10);
+
+        scheduler.generate("running", GenerationScheduler.Priority.BATCH);
+        CompletableFuture<GenerationResult> older = scheduler.generate("batch-1", GenerationScheduler.Priority.BATCH);
+        CompletableFuture<GenerationResult> newer = scheduler.generate("batch-2", GenerationScheduler.Priority.BATCH);
+        CompletableFuture<GenerationResult> question = scheduler.generate("question", GenerationScheduler.Priority.INTERACTIVE);
+
+        // The newest batch call gives up its place; the question is admitted and served next
+        CompletionException error = assertThrows(CompletionException.class, newer::join);
+        assertInstanceOf(GenerationRejectedException.class, error.getCause());
+        assertTrue(!question.isDone() && !older.isDone());
+        assertEquals(1L, scheduler.stats().get("displaced"));
+
+        // Nothing of lower priority is left to displace for another batch call
+        CompletableFuture<GenerationResult> overflow = scheduler.generate("batch-3", GenerationScheduler.Priority.BATCH);
+        assertInstanceOf(GenerationRejectedException.class, assertThrows(CompletionException.class, overflow::join).getCause());
+
+        ollama.finish("running");
+        ollama.finish("question");
+        ollama.finish("batch-1");
+        assertEquals(List.of("running", "question", "batch-1"), ollama.started);
+        assertEquals("question-answer", question.join().response());
+        assertEquals(2L, scheduler.stats().get("rejected"));
+    }
+
+    @Test
+    void retryableFailuresAreRequeuedWithoutHoldingTheSlot() {
+        FakeOllama ollama = new FakeOllama();
+        GenerationScheduler scheduler = new GenerationScheduler(ollama, 1, 10, 3, 50);
+
+        CompletableFuture<GenerationResult> flaky = scheduler.generate("flaky", GenerationScheduler.Priority.INTERACTIVE);
+        CompletableFuture<GenerationResult> other = scheduler.generate("other", GenerationScheduler.Priority.BATCH);
+
+        ollama.fail("flaky", new OllamaException(503, "Ollama returned HTTP 503"));
+        // The slot went to the next call while the failed one waits out its backoff
+        assertEquals(List.of("flaky", "other"), ollama.started);
+        ollama.finish("other");
+
+        ollama.awaitStarted(3);
+        ollama.finish("flaky");
+        assertEquals("flaky-answer", flaky.orTimeout(5, TimeUnit.SECONDS).join().response());
+        assertEquals("other-answer", other.join().response());
+        assertEquals(1L, scheduler.stats().get("retries"));
+    }
+
+    @Test
+    void nonRetryableFailuresFailImmediately() {
+        FakeOllama ollama = new FakeOllama();
+        GenerationScheduler scheduler = new GenerationScheduler(ollama, 1, 10, 3, 10);
+
+        CompletableFuture<GenerationResult> call = scheduler.generate("bad", GenerationScheduler.Priority.INTERACTIVE);
+        ollama.fail("bad", new OllamaException(400, "Ollama returned HTTP 400"));
+
+        CompletionException error = assertThrows(CompletionException.class, call::join);
+        assertEquals(400, assertInstanceOf(OllamaException.class, error.getCause()).getStatus());
+        assertEquals(1, ollama.started.size());
+    }
+
+    @Test
+    void cancellingFreesQueuedAndRunningCalls() {
+        FakeOllama ollama = new FakeOllama();
+        GenerationScheduler scheduler = new GenerationScheduler(ollama, 1, 10, 1, 10);
+
+        CompletableFuture<GenerationResult> running = scheduler.generate("running", GenerationScheduler.Priority.INTERACTIVE);
+        CompletableFuture<GenerationResult> queued = scheduler.generate("queued", GenerationScheduler.Priority.INTERACTIVE);
+        CompletableFuture<GenerationResult> next = scheduler.generate("next", GenerationScheduler.Priority.INTERACTIVE);
+
+        queued.cancel(true);
+        running.cancel(true);
+
+        assertTrue(ollama.calls.get("running").isCancelled());
+        assertEquals(List.of("running", "next"), ollama.started);
+        ollama.finish("next");
+        assertEquals("next-answer", next.join().response());
+        assertEquals(0, scheduler.stats().get("running"));
+        assertEquals(0, scheduler.stats().get("queued"));
+    }
+
+    /** Ollama stand-in whose calls stay pending until the test finishes or fails them. */
+    private static final class FakeOllama extends OllamaClient {
+
+        final List<String> started = new CopyOnWriteArrayList<>();
+        final Map<String, CompletableFuture<GenerationResult>> calls = new ConcurrentHashMap<>();
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        FakeOllama() {
+            super(null, null, null);
+        }
+
+        @Override
+        public CompletableFuture<GenerationResult> generate(String prompt, String model) {
+            CompletableFuture<GenerationResult> call = new CompletableFuture<>();
+            calls.put(prompt, call);
+            started.add(prompt);
+            attempts.incrementAndGet();
+            return call;
+        }
+
+        void finish(String prompt) {
+            calls.get(prompt).complete(new GenerationResult(prompt + "-answer", null));
+        }
+
+        void fail(String prompt, Throwable error) {
+            calls.get(prompt).completeExceptionally(error);
+        }
+
+        void awaitStarted(int count) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (attempts.get() < count && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertEquals(count, new ArrayList<>(started).size());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.pm.Q.A_Bot.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LineParserTests {
+
+    private final Recorder listener = new Recorder();
+    private final Subscription subscription = new Subscription();
+    private final OllamaClient.LineParser parser = new OllamaClient(null, new ObjectMapper(), null).new LineParser(listener);
+
+    @Test
+    void emitsTokensOneLineAtATimeUntilTheFinalChunk() {
+        parser.onSubscribe(subscription);
+        parser.onNext("{\"response\":\" Four\",\"done\":false}");
+        parser.onNext("");
+        parser.onNext("{\"response\":\"\",\"done\":false}");
+        parser.onNext("{\"response\":\" weeks.\",\"done\":false}");
+        parser.onNext("{\"response\":\"\",\"done\":true,\"eval_count\":2}");
+
+        assertEquals(List.of(" Four", " weeks."), listener.tokens);
+        assertEquals(2, listener.completed.get(0).path("eval_count").asInt());
+        // One line requested up front, then one after each line that did not finish the stream
+        assertEquals(5, subscription.requested);
+        assertEquals(List.of(), listener.errors);
+    }
+
+    @Test
+    void reportsExactlyOneTerminalEvent() {
+        parser.onSubscribe(subscription);
+        parser.onNext("{\"response\":\"\",\"done\":true}");
+        parser.onNext("{\"response\":\"late\",\"done\":false}");
+        parser.onError(new IllegalStateException("connection reset"));
+        parser.fail(new IllegalStateException("Ollama stream ended without a final chunk"));
+
+        assertEquals(1, listener.completed.size());
+        assertEquals(List.of(), listener.tokens);
+        assertEquals(List.of(), listener.errors);
+    }
+
+    @Test
+    void errorLinesFailTheStream() {
+        parser.onSubscribe(subscription);
+        parser.onNext("{\"error\":\"model 'llama9' not found\"}");
+
+        assertEquals("model 'llama9' not found", listener.errors.get(0).getMessage());
+        assertEquals(List.of(), listener.completed);
+    }
+
+    @Test
+    void malformedLinesCancelTheUpstreamAndFail() {
+        parser.onSubscribe(subscription);
+        parser.onNext("{\"response\":");
+
+        assertTrue(subscription.cancelled);
+        assertEquals(1, listener.errors.size());
+    }
+
+    @Test
+    void aFailingListenerCancelsTheUpstream() {
+        listener.failOnToken = true;
+        parser.onSubscribe(subscription);
+        parser.onNext("{\"response\":\" Four\",\"done\":false}");
+        parser.onNext("{\"response\":\" weeks.\",\"done\":false}");
+
+        assertTrue(subscription.cancelled);
+        assertInstanceOf(IllegalStateException.class, listener.errors.get(0));
+        assertEquals(1, listener.errors.size());
+        assertEquals(List.of(" Four"), listener.tokens);
+    }
+
+    @Test
+    void cancellingBeforeTheResponseArrivesCancelsItOnSubscribe() {
+        parser.cancel();
+        parser.onSubscribe(subscription);
+
+        assertTrue(subscription.cancelled);
+        assertEquals(0, subscription.requested);
+        assertEquals(List.of(), listener.errors);
+    }
+
+    private static final class Recorder implements StreamListener {
+
+        final List<String> tokens = new ArrayList<>();
+        final List<JsonNode> completed = new ArrayList<>();
+        final List<Throwable> errors = new ArrayList<>();
+        boolean failOnToken;
+
+        @Override
+        public void onToken(String token) {
+            tokens.add(token);
+            if (failOnToken) {
+                throw new IllegalStateException("SSE client disconnected");
+            }
+        }
+
+        @Override
+        public void onComplete(JsonNode last) {
+            completed.add(last);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            errors.add(error);
+        }
+    }
+
+    private static final class Subscription implements Flow.Subscription {
+
+        long requested;
+        boolean cancelled;
+
+        @Override
+        public void request(long n) {
+            requested += n;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
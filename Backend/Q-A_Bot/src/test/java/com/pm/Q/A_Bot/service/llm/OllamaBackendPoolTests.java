@@ -0,0 +1,221 @@
+package com.pm.Q.A_Bot.service.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OllamaBackendPoolTests {
+
+    private final List<Stub> stubs = new ArrayList<>();
+
+    @AfterEach
+    void stopStubs() {
+        stubs.forEach(Stub::stop);
+    }
+
+    @Test
+    void concurrentCallsGoToTheBackendWithFewestOutstanding() throws Exception {
+        Stub a = stub("a", 200, 300);
+        Stub b = stub("b", 200, 300);
+        OllamaClient client = client(new OllamaBackendPool(List.of(a.url(), b.url()), 5, 30, 0));
+
+        List<CompletableFuture<GenerationResult>> calls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            calls.add(client.generate("question " + i, null));
+        }
+        for (CompletableFuture<GenerationResult> call : calls) {
+            call.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(4, a.requests.get());
+        assertEquals(4, b.requests.get());
+    }
+
+    @Test
+    void openCircuitTakesAFailingBackendOutOfRotation() throws Exception {
+        Stub failing = stub("failing", 500, 0);
+        Stub healthy = stub("healthy", 200, 0);
+        OllamaBackendPool pool = new OllamaBackendPool(List.of(failing.url(), healthy.url()), 2, 60, 0);
+        OllamaClient client = client(pool);
+
+        for (int i = 0; i < 8; i++) {
+            // Calls that land on the failing backend fail over rather than fail
+            assertEquals("healthy", client.generate("question", null).join().response());
+        }
+        assertEquals(2, failing.requests.get());
+        assertEquals(8, healthy.requests.get());
+        assertEquals(CircuitBreaker.State.OPEN, pool.getBackends().get(0).stats().get("circuit"));
+
+        // With every circuit open the pool fails fast with an error the scheduler will retry
+        OllamaBackendPool dead = new OllamaBackendPool(List.of(failing.url()), 1, 60, 0);
+        assertThrows(CompletionException.class, () -> client(dead).generate("question", null).join());
+        CompletionException error = assertThrows(CompletionException.class, () -> client(dead).generate("question", null).join());
+        assertTrue(assertInstanceOf(OllamaException.class, error.getCause()).isRetryable());
+        assertEquals(3, failing.requests.get());
+    }
+
+    @Test
+    void failedCallsFailOverToABackendNotYetTried() throws Exception {
+        Stub first = stub("first", 503, 0);
+        Stub second = stub("second", 500, 0);
+        OllamaBackendPool pool = new OllamaBackendPool(List.of(first.url(), second.url()), 5, 30, 0);
+
+        // Each backend is tried once, then the failure goes back to the scheduler to retry later
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> client(pool).generate("question", null).join());
+        assertInstanceOf(OllamaException.class, error.getCause());
+        assertEquals(1, first.requests.get());
+        assertEquals(1, second.requests.get());
+
+        // A fresh pool starts at the first backend; its client error is the answer, another backend would give the same
+        Stub rejecting = stub("rejecting", 400, 0);
+        Stub healthy = stub("healthy", 200, 0);
+        OllamaBackendPool answering = new OllamaBackendPool(List.of(rejecting.url(), healthy.url()), 5, 30, 0);
+        assertThrows(CompletionException.class, () -> client(answering).generate("question", null).join());
+        assertEquals(1, rejecting.requests.get());
+        assertEquals(0, healthy.requests.get());
+    }
+
+    @Test
+    void slowCallsAreHedgedToASecondBackend() throws Exception {
+        Stub slow = stub("slow", 200, 3000);
+        Stub fast = stub("fast", 200, 0);
+        OllamaBackendPool pool = new OllamaBackendPool(List.of(slow.url(), fast.url()), 5, 30, 100);
+
+        long start = System.nanoTime();
+        GenerationResult result = client(pool).generate("question", null).get(5, TimeUnit.SECONDS);
+
+        assertEquals("fast", result.response());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2000));
+        assertEquals(1, slow.requests.get());
+        assertEquals(1L, pool.getBackends().get(1).stats().get("hedges"));
+        // The losing request was cancelled rather than left to run for its full three seconds
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (pool.getBackends().get(0).getOutstanding() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, pool.getBackends().get(0).getOutstanding());
+    }
+
+    @Test
+    void embeddingsGoThroughThePool() throws Exception {
+        Stub a = stub("a", 200, 0);
+        OllamaClient client = client(new OllamaBackendPool(List.of(a.url()), 5, 30, 0));
+
+        List<float[]> vectors = client.embed(List.of("first", "second")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, vectors.size());
+        assertArrayEquals(new float[]{0.5f, 1.5f}, vectors.get(1));
+    }
+
+    @Test
+    void halfOpenBreakerLetsOneTrialThrough() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(2, 1000, now::get);
+
+        breaker.onFailure();
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        now.addAndGet(1000);
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        now.addAndGet(1000);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire() && breaker.tryAcquire());
+    }
+
+    private Stub stub(String name, int status, long delayMillis) throws IOException {
+        Stub stub = new Stub(name, status, delayMillis);
+        stubs.add(stub);
+        return stub;
+    }
+
+    private static OllamaClient client(OllamaBackendPool pool) {
+        OllamaClient client = new OllamaClient(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(),
+                new ObjectMapper(), pool);
+        ReflectionTestUtils.setField(client, "llmModel", "stub");
+        ReflectionTestUtils.setField(client, "readTimeout", 10);
+        ReflectionTestUtils.setField(client, "numCtx", 2048);
+        ReflectionTestUtils.setField(client, "numPredict", 500);
+        ReflectionTestUtils.setField(client, "embeddingModel", "stub-embed");
+        ReflectionTestUtils.setField(client, "embeddingNumCtx", 2048);
+        return client;
+    }
+
+    /** Local Ollama stand-in answering with its own name after a fixed delay. */
+    private static final class Stub {
+
+        final AtomicInteger requests = new AtomicInteger();
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        Stub(String name, int status, long delayMillis) throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 64);
+            server.setExecutor(executor);
+            server.createContext("/api/generate", exchange -> {
+                exchange.getRequestBody().readAllBytes();
+                requests.incrementAndGet();
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange, status, "{\"response\":\"" + name + "\",\"done\":true}");
+            });
+            server.createContext("/api/embed", exchange -> {
+                exchange.getRequestBody().readAllBytes();
+                requests.incrementAndGet();
+                respond(exchange, status, "{\"embeddings\":[[0.25,1.0],[0.5,1.5]]}");
+            });
+            server.start();
+        }
+
+        private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.pm.Q.A_Bot.service.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RagMetricsTests {
+
+    @Test
+    void recordsStagesUnderTheirTag() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RagMetrics metrics = new RagMetrics(registry);
+
+        metrics.record(RagMetrics.QueryStage.SEARCH, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(20));
+        metrics.recordNanos(RagMetrics.IngestStage.CHUNK, TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.outcome(RagMetrics.QueryOutcome.CACHED);
+
+        assertEquals(1, registry.get("rag.query.stage").tag("stage", "search").timer().count());
+        assertTrue(registry.get("rag.query.stage").tag("stage", "search").timer().totalTime(TimeUnit.MILLISECONDS) >= 20);
+        assertEquals(0, registry.get("rag.query.stage").tag("stage", "generate").timer().count());
+        assertEquals(5, registry.get("rag.ingest.stage").tag("stage", "chunk").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(1, registry.get("rag.query.retrievals").tag("outcome", "cached").counter().count());
+    }
+
+    @Test
+    void readsTokenCountsAndPromptEvaluationFromOllamaResult() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RagMetrics metrics = new RagMetrics(registry);
+
+        metrics.generation(new ObjectMapper().readTree("""
+                {"response":"","done":true,"load_duration":5000000,"prompt_eval_count":812,
+                 "prompt_eval_duration":120000000,"eval_count":64,"eval_duration":900000000}"""));
+        // A cancelled stream ends without the counters
+        metrics.generation(new ObjectMapper().readTree("{\"done\":false}"));
+        metrics.generation(null);
+
+        assertEquals(1, registry.get("rag.llm.prompt.tokens").summary().count());
+        assertEquals(812, registry.get("rag.llm.prompt.tokens").summary().totalAmount());
+        assertEquals(64, registry.get("rag.llm.generated.tokens").summary().totalAmount());
+        assertEquals(125, registry.get("rag.llm.prompt.evaluation").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+}
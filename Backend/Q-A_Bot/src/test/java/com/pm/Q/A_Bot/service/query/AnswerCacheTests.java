@@ -0,0 +1,127 @@
+package com.pm.Q.A_Bot.service.query;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AnswerCacheTests {
+
+    private static final float[] LEAVE = {1, 0, 0};
+    private static final float[] TRAVEL = {0, 1, 0};
+
+    private final IndexVersion indexVersion = new IndexVersion();
+
+    @Test
+    void exactHitsIgnoreCaseSpacingAndTrailingPunctuation() {
+        AnswerCache cache = cache(60);
+        cache.put("What is the leave policy?", LEAVE, "Four weeks.", List.of(chunk("leave-0", "leave.pdf")),
+                indexVersion.current());
+
+        assertEquals("Four weeks.", cache.lookup("  what is the LEAVE   policy ", null));
+        assertEquals(1L, cache.stats().get("exactHits"));
+    }
+
+    @Test
+    void similarQuestionsHitOnlyAboveTheThreshold() {
+        AnswerCache cache = cache(60);
+        cache.put("What is the leave policy?", LEAVE, "Four weeks.", List.of(chunk("leave-0", "leave.pdf")),
+                indexVersion.current());
+
+        assertEquals("Four weeks.", cache.lookup("How much leave do I get?", new float[]{0.99f, 0.1f, 0}));
+        assertNull(cache.lookup("Who approves travel?", TRAVEL));
+        assertEquals(1L, cache.stats().get("semanticHits"));
+        assertEquals(1L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws InterruptedException {
+        AnswerCache cache = cache(0);
+        cache.put("What is the leave policy?", LEAVE, "Four weeks.", List.of(chunk("leave-0", "leave.pdf")),
+                indexVersion.current());
+        Thread.sleep(5);
+
+        assertNull(cache.lookup("What is the leave policy?", LEAVE));
+    }
+
+    @Test
+    void deletesDropAnswersBuiltFromTheSourceOrChunk() {
+        AnswerCache cache = cache(60);
+        cache.put("What is the leave policy?", LEAVE, "Four weeks.", List.of(chunk("leave-0", "leave.pdf")),
+                indexVersion.current());
+        cache.put("Who approves travel?", TRAVEL, "Your manager.", List.of(chunk("travel-0", "travel.pdf")),
+                indexVersion.current());
+
+        cache.onDocumentsDeleted("handbook.pdf", List.of("leave-0"));
+        assertNull(cache.lookup("What is the leave policy?", null));
+        assertEquals("Your manager.", cache.lookup("Who approves travel?", null));
+
+        cache.onDocumentsDeleted("travel.pdf", List.of());
+        assertNull(cache.lookup("Who approves travel?", null));
+        assertEquals(2L, cache.stats().get("invalidations"));
+    }
+
+    @Test
+    void newChunksDropOnlyAnswersTheyWouldRankInto() {
+        AnswerCache cache = cache(60);
+        cache.put("What is the leave policy?", LEAVE, "Four weeks.", List.of(chunk("leave-0", "leave.pdf")),
+                indexVersion.current());
+        cache.put("Who approves travel?", TRAVEL, "Your manager.", List.of(chunk("travel-0", "travel.pdf")),
+                indexVersion.current());
+
+        cache.onDocumentsAdded("parental.pdf", List.of(new Document("parental-0", "parental leave", Map.of())));
+
+        assertNull(cache.lookup("What is the leave policy?", null));
+        assertEquals("Your manager.", cache.lookup("Who approves travel?", null));
+    }
+
+    @Test
+    void answersRetrievedBeforeAnIndexChangeAreNotCached() {
+        AnswerCache cache = cache(60);
+        long retrievedAt = indexVersion.current();
+        // An upload lands, and invalidates, while the answer is being generated
+        indexVersion.bump();
+        cache.onDocumentsAdded("leave.pdf", List.of());
+
+        cache.put("What is the leave policy?", LEAVE, "Four weeks.", List.of(chunk("leave-0", "leave.pdf")), retrievedAt);
+
+        assertNull(cache.lookup("What is the leave policy?", LEAVE));
+        assertEquals(1L, cache.stats().get("staleWrites"));
+    }
+
+    private AnswerCache cache(long ttlMinutes) {
+        return new AnswerCache(new FixedEmbeddingModel(), indexVersion, null, 100, 0.95, ttlMinutes);
+    }
+
+    private static Document chunk(String id, String source) {
+        return Document.builder().id(id).text(id).metadata("source", source).score(0.8).build();
+    }
+
+    /** Embeds "parental leave" close to {@link #LEAVE}, everything else far from both cached questions. */
+    private static final class FixedEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                float[] vector = text.equals("parental leave") ? new float[]{0.9f, 0, 0.43f} : new float[]{0, 0, 1};
+                embeddings.add(new Embedding(vector, embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return call(new EmbeddingRequest(List.of(document.getText()), null)).getResult().getOutput();
+        }
+    }
+}
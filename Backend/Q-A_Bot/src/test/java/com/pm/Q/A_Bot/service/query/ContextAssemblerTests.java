@@ -0,0 +1,75 @@
+package com.pm.Q.A_Bot.service.query;
+
+import com.pm.Q.A_Bot.service.chunking.FixedSizeChunkingStrategy;
+import com.pm.Q.A_Bot.service.chunking.TokenEstimator;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextAssemblerTests {
+
+    @Test
+    void neighbouringChunksMergeWithoutDuplicatedOverlap() {
+        String text = sentences(new Random(1), 400);
+        List<Document> chunks = chunk("handbook.pdf", text);
+
+        List<Document> ranked = List.of(chunks.get(3), chunk("other.pdf", "Unrelated passage about parking.").get(0),
+                chunks.get(2), chunks.get(4));
+        List<ContextAssembler.Passage> passages = ContextAssembler.passages(ranked);
+
+        assertEquals(2, passages.size());
+        ContextAssembler.Passage merged = passages.get(0);
+        assertEquals(3, merged.chunks().size());
+        assertEquals(text.substring(1600, 4200).strip(), merged.text());
+        assertEquals("Unrelated passage about parking.", passages.get(1).text());
+    }
+
+    @Test
+    void packsPassagesInRelevanceOrderWithinBudget() {
+        List<Document> chunks = chunk("handbook.pdf", sentences(new Random(2), 600));
+        // Non-adjacent chunks so every one is its own passage
+        List<Document> ranked = List.of(chunks.get(8), chunks.get(2), chunks.get(5), chunks.get(0));
+
+        ContextAssembler assembler = new ContextAssembler(2048, 500, 600);
+        ContextAssembler.AssembledContext context = assembler.assemble(ranked, 100);
+
+        assertTrue(context.tokens() <= 600, "tokens " + context.tokens());
+        assertTrue(TokenEstimator.estimate(context.text()) <= 600);
+        assertTrue(context.text().startsWith(chunks.get(8).getText()));
+        assertEquals(chunks.get(8).getId(), context.documents().get(0).getId());
+        assertFalse(context.documents().isEmpty());
+        assertTrue(context.documents().size() < ranked.size());
+    }
+
+    private static List<Document> chunk(String source, String text) {
+        List<Document> docs = new ArrayList<>();
+        var session = new FixedSizeChunkingStrategy(1000, 200).open(c -> docs.add(Document.builder()
+                .id(source + "-" + docs.size())
+                .text(c.toString())
+                .metadata(Map.of("source", source, "chunk_index", docs.size()))
+                .build()));
+        char[] chars = text.toCharArray();
+        session.append(chars, 0, chars.length);
+        session.finish();
+        return docs;
+    }
+
+    private static String sentences(Random random, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int words = 4 + random.nextInt(8);
+            for (int w = 0; w < words; w++) {
+                sb.append(w == 0 ? "Staff" : Integer.toString(random.nextInt(1 << 20), 36)).append(w == words - 1 ? ". " : " ");
+            }
+        }
+        return sb.toString();
+    }
+}
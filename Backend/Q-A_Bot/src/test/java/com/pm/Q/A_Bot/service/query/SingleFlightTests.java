@@ -0,0 +1,82 @@
+package com.pm.Q.A_Bot.service.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTests {
+
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CompletableFuture<String>>> callers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                callers.add(pool.submit(() -> flights.execute("q", () -> {
+                    runs.incrementAndGet();
+                    await(release);
+                    return "answer";
+                })));
+            }
+            // Let every caller reach the flight before the leader finishes
+            while ((long) flights.stats().get("coalesced") < 7) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<CompletableFuture<String>> caller : callers) {
+                assertEquals("answer", caller.get(5, TimeUnit.SECONDS).join());
+            }
+            assertEquals(1, runs.get());
+            assertEquals(0, flights.stats().get("inFlight"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void cancelledWaiterDoesNotCancelSharedWork() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<CompletableFuture<String>> leader = pool.submit(() -> flights.execute("q", () -> {
+                started.countDown();
+                await(release);
+                return "answer";
+            }));
+            started.await();
+
+            CompletableFuture<String> waiter = flights.execute("q", () -> "not run");
+            assertTrue(waiter.cancel(true));
+
+            release.countDown();
+            assertEquals("answer", leader.get(5, TimeUnit.SECONDS).join());
+            assertEquals("answer", flights.execute("q", () -> "answer").join());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.pm.Q.A_Bot.service.retrieval;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Bm25IndexTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void exactTermsRankFirstAndDeletesAreHonoured() throws Exception {
+        try (Bm25Index index = new Bm25Index(dir.resolve("bm25.bin"), 3600)) {
+            index.add(corpus());
+
+            List<Bm25Index.Hit> hits = index.search("How do I submit form LV-104?", 3);
+            assertEquals("lv104", hits.get(0).document().id());
+
+            hits = index.search("PTO carryover", 3);
+            assertEquals("pto", hits.get(0).document().id());
+
+            index.delete(List.of("lv104"));
+            assertTrue(index.search("LV-104", 5).stream().noneMatch(h -> h.document().id().equals("lv104")));
+
+            index.deleteSource("handbook.pdf");
+            assertEquals(0, index.size());
+        }
+    }
+
+    @Test
+    void snapshotRoundTrips() throws Exception {
+        Path path = dir.resolve("bm25.bin");
+        try (Bm25Index index = new Bm25Index(path, 3600)) {
+            index.add(corpus());
+            index.delete(List.of("filler-3"));
+        }
+        try (Bm25Index reloaded = new Bm25Index(path, 3600)) {
+            assertEquals(corpus().size() - 1, reloaded.size());
+            assertEquals("pto", reloaded.search("carryover", 1).get(0).document().id());
+            assertEquals("handbook.pdf", reloaded.search("carryover", 1).get(0).document().metadata().get("source"));
+        }
+    }
+
+    @Test
+    void metadataPatchKeepsTheChunkSearchable() throws Exception {
+        try (Bm25Index index = new Bm25Index(dir.resolve("bm25.bin"), 3600)) {
+            index.add(corpus());
+            index.patchMetadata(Map.of("pto", Map.of("chunk_index", 7), "missing", Map.of("chunk_index", 1)));
+
+            Bm25Index.Hit hit = index.search("carryover", 1).get(0);
+            assertEquals("pto", hit.document().id());
+            assertEquals(7, hit.document().metadata().get("chunk_index"));
+            assertEquals("handbook.pdf", hit.document().metadata().get("source"));
+            assertEquals(corpus().size(), index.size());
+        }
+    }
+
+    @Test
+    void deletedDocumentsNoLongerCountTowardsScores() throws Exception {
+        try (Bm25Index deleted = new Bm25Index(dir.resolve("deleted.bin"), 3600);
+             Bm25Index fresh = new Bm25Index(dir.resolve("fresh.bin"), 3600)) {
+            List<Document> removed = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                removed.add(chunk("old-" + i, "Carryover of leave was uncapped under the old travel and expense policy, "
+                        + "which every manager had to approve on paper " + i));
+            }
+            deleted.add(removed);
+            deleted.add(corpus());
+            deleted.delete(removed.stream().map(Document::getId).toList());
+            fresh.add(corpus());
+
+            for (String query : List.of("PTO carryover", "leave policy manager", "form LV-104", "travel expense")) {
+                List<Bm25Index.Hit> expected = fresh.search(query, 5);
+                List<Bm25Index.Hit> actual = deleted.search(query, 5);
+                assertEquals(expected.stream().map(h -> h.document().id()).toList(),
+                        actual.stream().map(h -> h.document().id()).toList(), query);
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).score(), actual.get(i).score(), 1e-5, query);
+                }
+            }
+            assertEquals(fresh.size(), deleted.size());
+            assertEquals(fresh.termCount(), deleted.termCount());
+        }
+    }
+
+    private static List<Document> corpus() {
+        List<Document> docs = new ArrayList<>();
+        docs.add(chunk("lv104", "Parental leave requests are submitted on form LV-104 to HR at least four weeks ahead."));
+        docs.add(chunk("pto", "Unused PTO may be carried over; carryover is capped at five days per calendar year."));
+        for (int i = 0; i < 20; i++) {
+            docs.add(chunk("filler-" + i, "Employees should follow the leave policy and talk to their manager about form submission " + i));
+        }
+        return docs;
+    }
+
+    private static Document chunk(String id, String text) {
+        return Document.builder().id(id).text(text).metadata(Map.of("source", "handbook.pdf")).build();
+    }
+}
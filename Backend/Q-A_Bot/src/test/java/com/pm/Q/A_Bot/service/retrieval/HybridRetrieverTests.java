@@ -0,0 +1,116 @@
+package com.pm.Q.A_Bot.service.retrieval;
+
+import com.pm.Q.A_Bot.service.query.AnswerCache;
+import com.pm.Q.A_Bot.service.query.IndexVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HybridRetrieverTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rrfPrefersDocumentsRankedByBothLists() {
+        List<Document> dense = List.of(doc("a", 0.9), doc("b", 0.8), doc("c", 0.7));
+        List<Document> lexical = List.of(doc("c", Double.NaN), doc("d", Double.NaN), doc("a", Double.NaN));
+
+        List<Document> fused = HybridRetriever.fuse(dense, lexical, 60, 3);
+
+        assertEquals(List.of("a", "c", "b"), fused.stream().map(Document::getId).toList());
+        assertEquals("both", fused.get(0).getMetadata().get("retrieved_by"));
+        assertEquals(0.9, fused.get(0).getScore());
+    }
+
+    @Test
+    void cachedAnswersAreInvalidatedByTheFusedRankingNotTheDenseOneAlone() throws Exception {
+        String question = "How do I submit form LV-104?";
+        IndexVersion indexVersion = new IndexVersion();
+        try (Bm25Index index = new Bm25Index(dir.resolve("bm25.bin"), 3600)) {
+            index.add(List.of(chunk("lv104", "handbook.pdf", "Submit form LV-104 to HR to request unpaid leave.")));
+            HybridRetriever retriever = new HybridRetriever(new DenseStore(), index, "hybrid", 2, 20, 60);
+            AnswerCache cache = new AnswerCache(new FarEmbeddingModel(), indexVersion, retriever, 100, 0.95, 60);
+
+            List<Document> used = retriever.retrieve(question);
+            assertEquals("lexical", used.stream().filter(d -> d.getId().equals("lv104")).findFirst().orElseThrow()
+                    .getMetadata().get("retrieved_by"));
+            cache.put(question, new float[]{1, 0, 0}, "Use the HR portal.", used, indexVersion.current());
+
+            // Neither close in embedding space nor a lexical match: the answer stays cached
+            List<Document> travel = List.of(chunk("travel", "travel.pdf", "Travel needs manager approval."));
+            index.add(travel);
+            cache.onDocumentsAdded("travel.pdf", travel);
+            assertEquals("Use the HR portal.", cache.lookup(question, null));
+
+            // Far in embedding space, but the exact form number puts it first in BM25 and into the fused top-k
+            List<Document> forms = List.of(chunk("forms", "forms.pdf", "Form LV-104 submit online."));
+            index.add(forms);
+            cache.onDocumentsAdded("forms.pdf", forms);
+            assertNull(cache.lookup(question, null));
+        }
+    }
+
+    private static Document chunk(String id, String source, String text) {
+        return Document.builder().id(id).text(text).metadata(Map.of("source", source, "chunk_index", 0)).build();
+    }
+
+    private static Document doc(String id, double score) {
+        return Document.builder().id(id).text(id).metadata(Map.of("source", "s")).score(score).build();
+    }
+
+    /** Dense search that always returns the same loosely related chunk. */
+    private static final class DenseStore implements VectorStore {
+
+        @Override
+        public void add(List<Document> documents) {
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            return List.of(Document.builder().id("portal").text("Leave requests go through the HR portal.")
+                    .metadata(Map.of("source", "portal.pdf")).score(0.8).build());
+        }
+    }
+
+    /** Embeds every chunk orthogonally to the cached question. */
+    private static final class FarEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String ignored : request.getInstructions()) {
+                embeddings.add(new Embedding(new float[]{0, 0, 1}, embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return new float[]{0, 0, 1};
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.pm.Q.A_Bot.service.startup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.Q.A_Bot.service.llm.OllamaBackendPool;
+import com.pm.Q.A_Bot.service.llm.OllamaClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StartupWarmupTests {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void loadsBothModelsOnEveryBackendAndKeepsThemResident() throws Exception {
+        List<JsonNode> requests = new CopyOnWriteArrayList<>();
+        List<String> backends = List.of(ollama(requests), ollama(requests));
+        OllamaBackendPool pool = new OllamaBackendPool(backends, 5, 30, 0);
+        OllamaClient client = new OllamaClient(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(),
+                mapper, pool);
+        ReflectionTestUtils.setField(client, "readTimeout", 10);
+        ReflectionTestUtils.setField(client, "keepAlive", "30m");
+        StartupWarmup warmup = new StartupWarmup(client, pool, new EmptyStore(), "llama3.2:1b", "nomic-embed-text", true, 10);
+
+        assertFalse(warmup.isWarm());
+        warmup.warmUp(warmup.steps());
+
+        assertTrue(warmup.isWarm());
+        assertEquals(4, requests.size());
+        assertEquals(2, requests.stream().filter(r -> r.path("model").asText().equals("llama3.2:1b")
+                && !r.has("prompt")).count());
+        assertEquals(2, requests.stream().filter(r -> r.path("model").asText().equals("nomic-embed-text")
+                && r.has("input")).count());
+        assertTrue(requests.stream().allMatch(r -> r.path("keep_alive").asText().equals("30m")));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> steps = (Map<String, Object>) warmup.report().get("steps");
+        assertEquals(5, steps.size());
+        assertTrue(steps.values().stream().allMatch(step -> step.toString().endsWith(" ms")));
+    }
+
+    @Test
+    void aFailedOrStuckStepIsReportedWithoutHoldingReadinessBack() {
+        StartupWarmup warmup = new StartupWarmup(null, null, null, "llama3.2:1b", "nomic-embed-text", true, 1);
+        Map<String, Callable<Map<String, Object>>> steps = new LinkedHashMap<>();
+        steps.put("fine", () -> Map.of());
+        steps.put("broken", () -> {
+            throw new IllegalStateException("model not found");
+        });
+        steps.put("stuck", () -> {
+            Thread.sleep(60_000);
+            return Map.of();
+        });
+
+        long started = System.nanoTime();
+        warmup.warmUp(steps);
+
+        assertTrue(warmup.isWarm());
+        assertTrue(System.nanoTime() - started < 10_000_000_000L);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> report = (Map<String, Object>) warmup.report().get("steps");
+        assertTrue(report.get("fine").toString().endsWith(" ms"));
+        assertEquals("failed: model not found", report.get("broken"));
+        assertEquals("failed: not finished within 1000 ms", report.get("stuck"));
+    }
+
+    private String ollama(List<JsonNode> requests) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/generate", exchange -> {
+            requests.add(mapper.readTree(exchange.getRequestBody()));
+            respond(exchange, "{\"model\":\"llama3.2:1b\",\"done\":true,\"done_reason\":\"load\",\"load_duration\":2000000}");
+        });
+        server.createContext("/api/embed", exchange -> {
+            requests.add(mapper.readTree(exchange.getRequestBody()));
+            respond(exchange, "{\"model\":\"nomic-embed-text\",\"embeddings\":[[0.1,0.2]],\"load_duration\":1000000}");
+        });
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static class EmptyStore implements VectorStore {
+
+        @Override
+        public void add(List<Document> documents) {
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            return List.of();
+        }
+    }
+}
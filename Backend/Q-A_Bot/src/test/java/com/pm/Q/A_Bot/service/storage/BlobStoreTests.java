@@ -0,0 +1,70 @@
+package com.pm.Q.A_Bot.service.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlobStoreTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void identicalContentIsStoredOnceUnderItsSha256() throws IOException {
+        BlobStore store = new BlobStore(dir.toString());
+        byte[] pdf = {'%', 'P', 'D', 'F', (byte) 0xE2, (byte) 0xFF, 0, 1};
+
+        BlobStore.PendingBlob first = store.write(new ByteArrayInputStream(pdf));
+        BlobStore.PendingBlob second = store.write(new ByteArrayInputStream(pdf.clone()));
+
+        assertEquals(first.hash(), second.hash());
+        assertEquals(pdf.length, first.size());
+        assertTrue(store.commit(first));
+        assertFalse(store.commit(second));
+        assertFalse(Files.exists(second.file()));
+        assertArrayEquals(pdf, Files.readAllBytes(store.path(first.hash())));
+        try (Stream<Path> incoming = Files.list(dir.resolve("incoming"))) {
+            assertEquals(0, incoming.count());
+        }
+
+        store.delete(first.hash());
+        assertFalse(store.exists(first.hash()));
+    }
+
+    @Test
+    void aFailedUploadLeavesNothingBehind() throws IOException {
+        BlobStore store = new BlobStore(dir.toString());
+        InputStream broken = new InputStream() {
+            private int remaining = 10_000;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining-- <= 0) {
+                    throw new IOException("connection reset");
+                }
+                return 'x';
+            }
+        };
+
+        assertThrows(IOException.class, () -> store.write(broken));
+        try (Stream<Path> incoming = Files.list(dir.resolve("incoming"))) {
+            assertEquals(0, incoming.count());
+        }
+        assertThrows(IllegalArgumentException.class, () -> store.path("../../etc/passwd"));
+        assertEquals("823412d1eacb67956220e532959f0104603057c88704863ca38e7cd188fda812",
+                store.write(new ByteArrayInputStream("policy".getBytes(StandardCharsets.UTF_8))).hash());
+    }
+}
@@ -0,0 +1,75 @@
+package com.pm.Q.A_Bot.service.storage;
+
+import com.pm.Q.A_Bot.Entity.DocumentEntity;
+import com.pm.Q.A_Bot.Repository.DocumentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LegacyContentBackfillTests {
+
+    @TempDir
+    Path dir;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    DocumentRepository repository;
+
+    private JdbcTemplate jdbc;
+    private DocumentCatalog catalog;
+    private LegacyContentBackfill backfill;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbc = new JdbcTemplate(dataSource);
+        catalog = new DocumentCatalog(repository, new BlobStore(dir.toString()), 200);
+        backfill = new LegacyContentBackfill(jdbc, catalog);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+        jdbc.execute("alter table documents drop column if exists content");
+    }
+
+    @Test
+    void legacyRowsAreMovedIntoTheBlobStoreOnce() throws Exception {
+        // The column as the baseline entity's @Lob left it behind
+        jdbc.execute("alter table documents add column content clob");
+        jdbc.update("insert into documents (name, uploaded_at, content) values ('leave.txt', now(), 'Four weeks of leave – per year.')");
+        jdbc.update("insert into documents (name, uploaded_at, content) values ('empty.txt', now(), null)");
+
+        assertEquals(1, backfill.run());
+
+        DocumentEntity doc = repository.findAll().stream().filter(d -> d.getName().equals("leave.txt")).findFirst().orElseThrow();
+        assertEquals("Four weeks of leave – per year.", Files.readString(catalog.content(doc).orElseThrow()));
+        assertEquals(33L, doc.getSizeBytes());
+        assertEquals("text/plain;charset=UTF-8", doc.getContentType());
+        assertNull(jdbc.queryForObject("select content from documents where id = ?", String.class, doc.getId()));
+        assertEquals(0, backfill.run());
+    }
+
+    @Test
+    void databasesWithoutTheLegacyColumnAreLeftAlone() {
+        jdbc.update("insert into documents (name, uploaded_at) values ('leave.txt', now())");
+
+        assertEquals(0, backfill.run());
+    }
+}
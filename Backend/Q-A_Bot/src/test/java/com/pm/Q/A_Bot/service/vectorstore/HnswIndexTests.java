@@ -0,0 +1,115 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexTests {
+
+    private static final int DIMENSIONS = 32;
+
+    @Test
+    void recallAgainstBruteForce() {
+        Random random = new Random(42);
+        HnswIndex index = new HnswIndex(DIMENSIONS, 16, 100);
+        float[][] vectors = new float[2000][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomUnit(random);
+            assertEquals(i, index.add(vectors[i]));
+        }
+
+        int k = 10;
+        int found = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = randomUnit(random);
+            int[] exact = IntStream.range(0, vectors.length).boxed()
+                    .sorted(Comparator.comparingDouble(i -> -VectorMath.dot(query, vectors[i])))
+                    .limit(k).mapToInt(Integer::intValue).toArray();
+            List<HnswIndex.Scored> hits = index.search(query, k, 64, n -> true);
+            for (HnswIndex.Scored hit : hits) {
+                if (Arrays.stream(exact).anyMatch(e -> e == hit.node())) {
+                    found++;
+                }
+            }
+        }
+        assertTrue(found / (50.0 * k) > 0.9, "recall@10 too low: " + found / (50.0 * k));
+    }
+
+    @Test
+    void deletedNodesAreNotReturnedAndSnapshotRoundTrips() throws Exception {
+        Random random = new Random(7);
+        HnswIndex index = new HnswIndex(DIMENSIONS, 8, 50);
+        for (int i = 0; i < 200; i++) {
+            index.add(randomUnit(random));
+        }
+        float[] target = index.vector(17);
+        assertEquals(17, index.search(target, 1, 32, n -> true).get(0).node());
+
+        index.markDeleted(17);
+        assertFalse(index.search(target, 5, 32, n -> true).stream().anyMatch(s -> s.node() == 17));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        HnswIndex copy = HnswIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(index.size(), copy.size());
+        assertEquals(index.liveSize(), copy.liveSize());
+        assertEquals(index.search(target, 5, 32, n -> true), copy.search(target, 5, 32, n -> true));
+    }
+
+    @Test
+    void concurrentInsertsKeepEveryNodeFindable() throws Exception {
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(DIMENSIONS, 8, 50);
+        float[][] vectors = new float[4000][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomUnit(random);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> ids = new ArrayList<>();
+            for (float[] vector : vectors) {
+                ids.add(executor.submit(() -> index.add(vector)));
+            }
+            for (Future<Integer> id : ids) {
+                id.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(vectors.length, index.size());
+        int found = 0;
+        for (int node = 0; node < index.size(); node++) {
+            int target = node;
+            if (index.search(index.vector(node), 1, 64, n -> true).get(0).node() == target) {
+                found++;
+            }
+        }
+        assertTrue(found > vectors.length * 0.99, "only " + found + " of " + vectors.length + " nodes found");
+    }
+
+    private static float[] randomUnit(Random random) {
+        float[] v = new float[DIMENSIONS];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = (float) random.nextGaussian();
+        }
+        return VectorMath.normalize(v);
+    }
+}
@@ -0,0 +1,88 @@
+package com.pm.Q.A_Bot.service.vectorstore;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantizedFlatVectorStoreTests {
+
+    private static final int DIMENSIONS = 64;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void exactTopResultsSurviveQuantizationAndReload() {
+        List<Document> docs = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            docs.add(Document.builder().id("doc-" + i).text("chunk " + i).metadata(Map.of("source", "f" + (i % 3))).build());
+        }
+
+        try (QuantizedFlatVectorStore store = open()) {
+            store.add(docs);
+            List<Document> hits = store.similaritySearch(SearchRequest.builder().query("chunk 42").topK(3).build());
+            assertEquals("doc-42", hits.get(0).getId());
+            assertTrue(hits.get(0).getScore() > 0.999);
+
+            store.delete(List.of("doc-42"));
+            hits = store.similaritySearch(SearchRequest.builder().query("chunk 42").topK(3).build());
+            assertTrue(hits.stream().noneMatch(d -> d.getId().equals("doc-42")));
+        }
+
+        try (QuantizedFlatVectorStore reopened = open()) {
+            assertEquals(499, reopened.size());
+            List<Document> hits = reopened.similaritySearch(SearchRequest.builder().query("chunk 7").topK(1)
+                    .filterExpression("source == 'f1'").build());
+            assertEquals("doc-7", hits.get(0).getId());
+        }
+    }
+
+    private QuantizedFlatVectorStore open() {
+        return QuantizedFlatVectorStore.builder(new HashEmbeddingModel())
+                .directory(dir)
+                .dimensions(DIMENSIONS)
+                .parallelism(2)
+                .build();
+    }
+
+    /** Deterministic pseudo-random embedding per text. */
+    static class HashEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(vector(text), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vector(document.getText());
+        }
+
+        private static float[] vector(String text) {
+            Random random = new Random(text.hashCode());
+            float[] v = new float[DIMENSIONS];
+            for (int i = 0; i < v.length; i++) {
+                v[i] = (float) random.nextGaussian();
+            }
+            return v;
+        }
+    }
+}
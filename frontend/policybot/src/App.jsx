@@ -10,7 +10,9 @@ import {
   Sun, 
   Send,
   User,
-  Bot
+  Bot,
+  ChevronLeft,
+  ChevronRight
 } from "lucide-react";
 
 export default function App() {
@@ -23,6 +25,9 @@ export default function App() {
   const [files, setFiles] = useState(null);
 
   const [documents, setDocuments] = useState([]); // ✅ document history
+  const [docPage, setDocPage] = useState(0);
+  const [docTotalPages, setDocTotalPages] = useState(0);
+  const [docTotal, setDocTotal] = useState(0);
   const [darkMode, setDarkMode] = useState(false);
   const [sidebarOpen, setSidebarOpen] = useState(false);
   const [activeTab, setActiveTab] = useState("chat");
@@ -32,11 +37,19 @@ export default function App() {
     fetchDocs();
   }, []);
 
-  const fetchDocs = async () => {
+  // History is paged by the backend (50 per page, newest first)
+  const fetchDocs = async (page = docPage) => {
     try {
-      const res = await fetch("http://localhost:8080/api/docs/history");
+      const res = await fetch(`http://localhost:8080/api/docs/history?page=${page}`);
       const data = await res.json();
-      setDocuments(data);
+      // A delete can empty the last page; step back to the new last one
+      if (data.content.length === 0 && page > 0 && data.totalPages > 0) {
+        return fetchDocs(data.totalPages - 1);
+      }
+      setDocuments(data.content);
+      setDocPage(data.page);
+      setDocTotalPages(data.totalPages);
+      setDocTotal(data.totalElements);
     } catch (err) {
       console.error("Error fetching history:", err);
     }
@@ -63,7 +76,8 @@ export default function App() {
       });
 
       setUploadedDocs([...uploadedDocs, files[0].name]);
-      await fetchDocs();
+      // Newest first, so the upload is on the first page
+      await fetchDocs(0);
       setFiles(null);
 
       setMessages((prev) => [...prev, { sender: "bot", text: "✅ File uploaded successfully" }]);
@@ -94,23 +108,31 @@ export default function App() {
     setInput("");
     setLoading(true);
 
-    try {
-      const encodedQ = encodeURIComponent(userMessage);
-      const response = await fetch(`http://localhost:8080/api/query/ask?question=${encodedQ}`);
-      const data = await response.text();
+    const encodedQ = encodeURIComponent(userMessage);
+    // Stream tokens into a placeholder bot message as they arrive
+    let botIndex;
+    setMessages((prev) => {
+      botIndex = prev.length;
+      return [...prev, { sender: "bot", text: "" }];
+    });
+    const appendToBot = (text) =>
+      setMessages((prev) =>
+        prev.map((msg, i) => (i === botIndex ? { ...msg, text: msg.text + text } : msg))
+      );
 
-      setMessages((prev) => [
-        ...prev,
-        { sender: "bot", text: data || "⚠️ No response received" },
-      ]);
-    } catch (error) {
-      setMessages((prev) => [
-        ...prev,
-        { sender: "bot", text: "❌ Error connecting to server" },
-      ]);
-    } finally {
+    const source = new EventSource(`http://localhost:8080/api/query/ask/stream?question=${encodedQ}`);
+    const finish = () => {
+      source.close();
       setLoading(false);
-    }
+    };
+
+    source.addEventListener("token", (e) => appendToBot(JSON.parse(e.data).token));
+    source.addEventListener("done", finish);
+    source.addEventListener("error", (e) => {
+      if (e.data) appendToBot(JSON.parse(e.data).message);
+      else appendToBot("❌ Error connecting to server");
+      finish();
+    });
   };
 
   const toggleTheme = () => setDarkMode(!darkMode);
@@ -196,7 +218,12 @@ export default function App() {
                       <li key={doc.id} className="flex items-center justify-between bg-gray-700/20 p-2 rounded-lg">
                         <div className="flex items-center space-x-2">
                           <FileText size={16} className="text-blue-400" />
-                          <span className="truncate w-32">{doc.name}</span>
+                          <a
+                            href={`http://localhost:8080/api/docs/${doc.id}/content`}
+                            className="truncate w-32 hover:underline"
+                          >
+                            {doc.name}
+                          </a>
                         </div>
                         <Trash2
                           size={16}
@@ -206,6 +233,25 @@ export default function App() {
                       </li>
                     ))}
                   </ul>
+                  {docTotalPages > 1 && (
+                    <div className="flex items-center justify-between mt-2 text-xs">
+                      <button
+                        onClick={() => fetchDocs(docPage - 1)}
+                        disabled={docPage === 0}
+                        className="p-1 rounded hover:bg-gray-100 dark:hover:bg-gray-700 disabled:opacity-30"
+                      >
+                        <ChevronLeft size={16} />
+                      </button>
+                      <span className="opacity-60">Page {docPage + 1} of {docTotalPages}</span>
+                      <button
+                        onClick={() => fetchDocs(docPage + 1)}
+                        disabled={docPage >= docTotalPages - 1}
+                        className="p-1 rounded hover:bg-gray-100 dark:hover:bg-gray-700 disabled:opacity-30"
+                      >
+                        <ChevronRight size={16} />
+                      </button>
+                    </div>
+                  )}
                 </div>
               </nav>
             </div>
@@ -223,7 +269,7 @@ export default function App() {
                     <h2 className="text-2xl font-bold">Policy Q&A Assistant</h2>
                     <div className="flex items-center space-x-2 text-sm opacity-60">
                       <FileText size={16} />
-                      <span>{documents.length} documents available</span>
+                      <span>{docTotal} documents available</span>
                     </div>
                   </div>
                   <p className="opacity-70">Ask questions about company policies and procedures</p>
@@ -3,14 +3,30 @@ import React, { useState, useEffect } from "react";
 export default function DocumentManager() {
   const [file, setFile] = useState(null);
   const [documents, setDocuments] = useState([]);
+  const [page, setPage] = useState(0);
+  const [totalPages, setTotalPages] = useState(0);
   const [loading, setLoading] = useState(false);
 
+  // History is paged by the backend (50 per page, newest first)
+  const loadPage = async (requested) => {
+    const data = await fetch(`http://localhost:8080/api/docs/history?page=${requested}`).then((r) =>
+      r.json()
+    );
+    // A delete can empty the last page; step back to the new last one
+    if (data.content.length === 0 && requested > 0 && data.totalPages > 0) {
+      return loadPage(data.totalPages - 1);
+    }
+    setDocuments(data.content);
+    setPage(data.page);
+    setTotalPages(data.totalPages);
+  };
+
+  const showPage = (requested) =>
+    loadPage(requested).catch((err) => console.error("Error fetching history:", err));
+
   // Fetch history on mount
   useEffect(() => {
-    fetch("http://localhost:8080/api/docs/history")
-      .then((res) => res.json())
-      .then((data) => setDocuments(data))
-      .catch((err) => console.error("Error fetching history:", err));
+    showPage(0);
   }, []);
 
   // Handle file upload
@@ -35,11 +51,8 @@ export default function DocumentManager() {
 
       alert("✅ File uploaded to Pinecone + MySQL");
 
-      // Refresh history after upload
-      const updated = await fetch("http://localhost:8080/api/docs/history").then((r) =>
-        r.json()
-      );
-      setDocuments(updated);
+      // Refresh history after upload; newest first, so it is on the first page
+      await loadPage(0);
       setFile(null);
     } catch (err) {
       console.error("Upload error:", err);
@@ -65,10 +78,7 @@ export default function DocumentManager() {
       alert("Document deleted!");
 
       // Refresh history after delete
-      const updated = await fetch("http://localhost:8080/api/docs/history").then((r) =>
-        r.json()
-      );
-      setDocuments(updated);
+      await loadPage(page);
     } catch (err) {
       console.error("Delete error:", err);
       alert("Delete failed!");
@@ -106,7 +116,12 @@ export default function DocumentManager() {
               key={doc.id}
               className="flex justify-between items-center border p-3 rounded-lg"
             >
-              <span className="font-medium">{doc.name}</span>
+              <a
+                href={`http://localhost:8080/api/docs/${doc.id}/content`}
+                className="font-medium hover:underline"
+              >
+                {doc.name}
+              </a>
               <button
                 onClick={() => handleDelete(doc.id)}
                 className="bg-red-500 hover:bg-red-600 text-white px-3 py-1 rounded"
@@ -117,6 +132,27 @@ export default function DocumentManager() {
           ))}
         </ul>
       )}
+      {totalPages > 1 && (
+        <div className="flex justify-between items-center mt-4">
+          <button
+            onClick={() => showPage(page - 1)}
+            disabled={page === 0}
+            className="border px-3 py-1 rounded disabled:opacity-50"
+          >
+            Previous
+          </button>
+          <span className="text-gray-500">
+            Page {page + 1} of {totalPages}
+          </span>
+          <button
+            onClick={() => showPage(page + 1)}
+            disabled={page >= totalPages - 1}
+            className="border px-3 py-1 rounded disabled:opacity-50"
+          >
+            Next
+          </button>
+        </div>
+      )}
     </div>
   );
 }